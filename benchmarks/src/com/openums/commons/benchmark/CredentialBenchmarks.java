@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.benchmark;
+
+import com.openums.commons.authentication.CredentialVerifier;
+import com.openums.commons.authentication.Pbkdf2PasswordHasher;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.memory.InMemoryUsersDao;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of a single password verification through
+ * {@code CredentialVerifier} for several PBKDF2 iteration counts. The
+ * verification time grows linearly with the iterations, so these scores
+ * give the CPU time a login costs at every candidate cost; see
+ * {@code LoginStormBenchmarks} for the latency under concurrent logins.
+ * 
+ * @author Delcio Amarillo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CredentialBenchmarks {
+    
+    /**
+     * Password of every benchmark User.
+     */
+    static final String PASSWORD = "correct horse battery staple";
+    
+    /**
+     * Number of Users verified in turn.
+     */
+    private static final int USERS = 1_000;
+    
+    /**
+     * The PBKDF2 iteration count.
+     */
+    @Param({"10000", "100000", "310000", "600000"})
+    public int iterations;
+    
+    private DomainFixture fixture;
+    private CredentialVerifier verifier;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws ModelException {
+        Pbkdf2PasswordHasher hasher = new Pbkdf2PasswordHasher(iterations);
+        fixture = new DomainFixture(USERS, 42L);
+        verifier = new CredentialVerifier(load(fixture, USERS, hasher), 1
+                , 1, TimeUnit.MINUTES, hasher);
+    }
+    
+    @Benchmark
+    public boolean verify(Invocations invocations) throws ModelException {
+        IUser user = fixture.getUsers().get(invocations.next() % USERS);
+        return verifier.verify(user, PASSWORD);
+    }
+    
+    /**
+     * Loads the first {@code count} Users of a fixture into a new DAO, all
+     * of them sharing the same password hashed by a given hasher. Hashing
+     * once keeps the set-up fast at high costs.
+     */
+    static InMemoryUsersDao load(DomainFixture fixture, int count
+            , Pbkdf2PasswordHasher hasher) throws ModelException {
+        String hash = hasher.hash(PASSWORD);
+        InMemoryUsersDao dao = new InMemoryUsersDao();
+        List<IUser> users = fixture.getUsers();
+        for (int i = 0; i < Math.min(count, users.size()); i++) {
+            IUser user = users.get(i);
+            user.setPassword(hash);
+            dao.insert(user);
+        }
+        return dao;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.benchmark;
+
+import com.openums.commons.authorization.AuthorizationEngine;
+import com.openums.commons.domain.DomainGraph;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IRolePermission;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.IUserRole;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.memory.InMemoryRolesDao;
+import com.openums.commons.model.memory.InMemoryUsersDao;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the domain graph and the in-memory DAOs hot paths:
+ * permission resolution by walking the object graph and through a compiled
+ * {@code PermissionSnapshot}, the {@code IUsersDao} finders and bulk inserts.
+ * <p/>
+ * The data set and the loaded DAOs are built once per trial and shared by
+ * all the benchmarks of the same size. A 10M users data set
+ * ({@code -p users=10000000}) needs a heap of roughly 16 GB.
+ * 
+ * @author Delcio Amarillo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class DomainBenchmarks {
+    
+    /**
+     * Number of Users sent per batch by the bulk insert benchmark.
+     */
+    public static final int BATCH_SIZE = 1000;
+    
+    /**
+     * The number of Users of the data set.
+     */
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int users;
+    
+    private DomainFixture fixture;
+    private AuthorizationEngine engine;
+    private InMemoryUsersDao usersDao;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws ModelException {
+        fixture = new DomainFixture(users, 42L);
+        engine = new AuthorizationEngine();
+        engine.rebuild(fixture.getRoles(), fixture.getUsers());
+        InMemoryRolesDao rolesDao = new InMemoryRolesDao();
+        usersDao = new InMemoryUsersDao(rolesDao);
+        rolesDao.insertAll(fixture.getRoles(), BATCH_SIZE);
+        usersDao.insertAll(fixture.getUsers(), BATCH_SIZE);
+    }
+    
+    /**
+     * Empty DAO filled by every iteration of the bulk insert benchmark.
+     */
+    @State(Scope.Thread)
+    public static class EmptyDao {
+        
+        private InMemoryUsersDao dao;
+        
+        @Setup(Level.Iteration)
+        public void setUp() {
+            dao = new InMemoryUsersDao();
+        }
+    }
+    
+    /**
+     * Resolves a Permission by walking User -> IUserRole -> IRole ->
+     * IRolePermission, as callers without a snapshot do.
+     */
+    @Benchmark
+    public boolean permissionGraphWalk(Invocations invocations) {
+        int invocation = invocations.next();
+        IUser user = fixture.getUser(invocation);
+        String code = fixture.getPermissionCode(invocation);
+        for (IUserRole userRole : user.getUserRolesList()) {
+            IRole role = userRole.getRole();
+            for (IRolePermission rolePermission : role.getRolePermissionsList()) {
+                if (code.equals(DomainGraph.getEnabledPermissionCode(rolePermission))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Resolves a Permission through a compiled {@code PermissionSnapshot}.
+     */
+    @Benchmark
+    public boolean permissionSnapshot(Invocations invocations) {
+        int invocation = invocations.next();
+        return engine.hasPermission(fixture.getUser(invocation).getLongId()
+                , fixture.getPermissionCode(invocation));
+    }
+    
+    @Benchmark
+    public IUser getUserByName(Invocations invocations) throws ModelException {
+        return usersDao.getUserByName(fixture.getUser(invocations.next()).getUserName());
+    }
+    
+    @Benchmark
+    public List<IUser> getUsersByRole(Invocations invocations) throws ModelException {
+        return usersDao.getUsersByRole(fixture.getRole(invocations.next()));
+    }
+    
+    @Benchmark
+    public List<IUser> getUsersByPermission(Invocations invocations)
+            throws ModelException {
+        return usersDao.getUsersByPermission(fixture.getPermissionCode(invocations.next()));
+    }
+    
+    @Benchmark
+    public List<IUser> getAll() throws ModelException {
+        return usersDao.getAll();
+    }
+    
+    /**
+     * Inserts the whole data set into an empty DAO in batches of
+     * {@value DomainBenchmarks#BATCH_SIZE} Users.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 5)
+    public int insertAll(EmptyDao empty) throws ModelException {
+        return empty.dao.insertAll(fixture.getUsers(), BATCH_SIZE).getSuccessCount();
+    }
+}
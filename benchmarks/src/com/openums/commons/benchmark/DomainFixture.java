@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.benchmark;
+
+import com.openums.commons.benchmark.domain.BenchModule;
+import com.openums.commons.benchmark.domain.BenchPermission;
+import com.openums.commons.benchmark.domain.BenchRole;
+import com.openums.commons.benchmark.domain.BenchUser;
+import com.openums.commons.domain.IPermission;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IUser;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic data set shared by the benchmarks. It holds a fixed number of
+ * Modules, each one with its own Permissions and Roles, and a variable number
+ * of Users. Every User holds a single Role in {@value #MODULES_PER_USER}
+ * different Modules, and Roles of the same Module hold an increasing number
+ * of the Module's Permissions.
+ * 
+ * @author Delcio Amarillo
+ */
+public final class DomainFixture {
+    
+    public static final int MODULES = 8;
+    public static final int PERMISSIONS_PER_MODULE = 16;
+    public static final int ROLES_PER_MODULE = 4;
+    public static final int MODULES_PER_USER = 3;
+    
+    /**
+     * Number of pre-computed random keys. Must be a power of two.
+     */
+    private static final int KEYS = 1 << 16;
+    
+    private final List<BenchModule> modules = new ArrayList<>();
+    private final List<IPermission> permissions = new ArrayList<>();
+    private final List<IRole> roles = new ArrayList<>();
+    private final List<IUser> users;
+    private final String[] permissionCodes;
+    private final int[] keys = new int[KEYS];
+    
+    /**
+     * Builds a new data set.
+     * 
+     * @param size The number of Users.
+     * 
+     * @param seed The seed of the random choices.
+     */
+    public DomainFixture(int size, long seed) {
+        Random random = new Random(seed);
+        long permissionId = 1L;
+        long roleId = 1L;
+        for (int m = 0; m < MODULES; m++) {
+            BenchModule module = new BenchModule(m + 1L, "MODULE_" + m);
+            modules.add(module);
+            List<IPermission> modulePermissions = new ArrayList<>();
+            for (int p = 0; p < PERMISSIONS_PER_MODULE; p++) {
+                IPermission permission = new BenchPermission(permissionId++
+                        , "MODULE_" + m + ".PERMISSION_" + p, module);
+                module.addPermission(permission);
+                modulePermissions.add(permission);
+            }
+            for (int r = 0; r < ROLES_PER_MODULE; r++) {
+                IRole role = new BenchRole(roleId++, "MODULE_" + m + ".ROLE_" + r
+                        , module);
+                for (int p = 0; p < PERMISSIONS_PER_MODULE; p++) {
+                    if (p % ROLES_PER_MODULE <= r) {
+                        role.addPermission(modulePermissions.get(p));
+                    }
+                }
+                module.addRole(role);
+                roles.add(role);
+            }
+            permissions.addAll(modulePermissions);
+        }
+        users = new ArrayList<>(size);
+        for (int u = 0; u < size; u++) {
+            IUser user = new BenchUser(u + 1L, "user" + u);
+            user.setEmail("user" + u + "@openums.org");
+            user.setActive(u % 10 != 0);
+            user.setUnlocked(u % 50 != 0);
+            for (int i = 0; i < MODULES_PER_USER; i++) {
+                int module = (u + i * 3) % MODULES;
+                user.addRole(roles.get(module * ROLES_PER_MODULE
+                        + random.nextInt(ROLES_PER_MODULE)));
+            }
+            users.add(user);
+        }
+        permissionCodes = new String[permissions.size()];
+        for (int i = 0; i < permissionCodes.length; i++) {
+            permissionCodes[i] = permissions.get(i).getCode();
+        }
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = size == 0 ? 0 : random.nextInt(size);
+        }
+    }
+    
+    public int getSize() {
+        return users.size();
+    }
+    
+    public List<IPermission> getPermissions() {
+        return permissions;
+    }
+    
+    public List<IRole> getRoles() {
+        return roles;
+    }
+    
+    public List<IUser> getUsers() {
+        return users;
+    }
+    
+    /**
+     * Returns a pseudo-random User picked from a pre-computed sequence.
+     * 
+     * @param invocation The invocation number.
+     * 
+     * @return A User.
+     */
+    public IUser getUser(int invocation) {
+        return users.get(keys[invocation & (KEYS - 1)]);
+    }
+    
+    /**
+     * Returns a Permission code picked in round-robin fashion.
+     * 
+     * @param invocation The invocation number.
+     * 
+     * @return A Permission code.
+     */
+    public String getPermissionCode(int invocation) {
+        return permissionCodes[(invocation & Integer.MAX_VALUE) % permissionCodes.length];
+    }
+    
+    /**
+     * Returns a Role picked in round-robin fashion.
+     * 
+     * @param invocation The invocation number.
+     * 
+     * @return A Role.
+     */
+    public IRole getRole(int invocation) {
+        return roles.get((invocation & Integer.MAX_VALUE) % roles.size());
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.benchmark;
+
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per thread invocation counter. Benchmarks pass its successive values to
+ * the {@code DomainFixture} pickers so that every invocation works on a
+ * different key.
+ * 
+ * @author Delcio Amarillo
+ */
+@State(Scope.Thread)
+public class Invocations {
+    
+    private int next;
+    
+    /**
+     * Returns the number of the current invocation and advances the counter.
+     * 
+     * @return The invocation number.
+     */
+    public int next() {
+        return next++;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.benchmark;
+
+import com.openums.commons.authentication.CredentialVerifier;
+import com.openums.commons.authentication.Pbkdf2PasswordHasher;
+import com.openums.commons.domain.LoginRecord;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.ModelExceptionType;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Simulates a login storm: many client threads authenticate at once through
+ * a {@code CredentialVerifier} whose concurrency is bounded, and the latency
+ * of every login, including the wait for a verification slot, is sampled.
+ * Logins rejected because no slot became available in time are sampled too.
+ * Running it for several iteration counts shows the highest cost that keeps
+ * the login p99 within its objective at the expected load; set
+ * {@code -p slots} to the cores devoted to logins and {@code -t} to the
+ * number of concurrent clients.
+ * 
+ * @author Delcio Amarillo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(64)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class LoginStormBenchmarks {
+    
+    private static final int USERS = 1_000;
+    
+    /**
+     * The PBKDF2 iteration count.
+     */
+    @Param({"100000", "310000"})
+    public int iterations;
+    
+    /**
+     * The number of verifications allowed at the same time.
+     */
+    @Param({"4"})
+    public int slots;
+    
+    /**
+     * The milliseconds a login may wait for a slot.
+     */
+    @Param({"10000"})
+    public long waitMillis;
+    
+    private DomainFixture fixture;
+    private CredentialVerifier verifier;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws ModelException {
+        Pbkdf2PasswordHasher hasher = new Pbkdf2PasswordHasher(iterations);
+        fixture = new DomainFixture(USERS, 42L);
+        verifier = new CredentialVerifier(CredentialBenchmarks.load(fixture, USERS, hasher)
+                , slots, waitMillis, TimeUnit.MILLISECONDS, hasher);
+    }
+    
+    @Benchmark
+    public LoginRecord login(Invocations invocations) throws ModelException {
+        String userName = fixture.getUser(invocations.next()).getUserName();
+        try {
+            return verifier.login(userName, CredentialBenchmarks.PASSWORD);
+        } catch (ModelException ex) {
+            if (ex.getExceptionType() != ModelExceptionType.TIME_OUT_EXCEPTION) {
+                throw ex;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.benchmark.domain;
+
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.IPermission;
+import com.openums.commons.domain.IRole;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plain {@code IModule} implementation used to populate the benchmarks.
+ * 
+ * @author Delcio Amarillo
+ */
+public class BenchModule implements IModule {
+    
+    private final BigInteger id;
+    private String code;
+    private String description;
+    private List<IRole> roles = new ArrayList<>();
+    private List<IPermission> permissions = new ArrayList<>();
+    
+    public BenchModule(long id, String code) {
+        this.id = BigInteger.valueOf(id);
+        this.code = code;
+    }
+    
+    @Override
+    public BigInteger getId() {
+        return id;
+    }
+    
+    @Override
+    public String getCode() {
+        return code;
+    }
+    
+    @Override
+    public void setCode(String code) {
+        this.code = code;
+    }
+    
+    @Override
+    public String getDescription() {
+        return description;
+    }
+    
+    @Override
+    public void setDescription(String description) {
+        this.description = description;
+    }
+    
+    @Override
+    public void addRole(IRole role) {
+        roles.add(role);
+    }
+    
+    @Override
+    public List<IRole> getRolesList() {
+        return roles;
+    }
+    
+    @Override
+    public void setRolesList(List<IRole> roles) {
+        this.roles = roles;
+    }
+    
+    @Override
+    public void addPermission(IPermission permission) {
+        permissions.add(permission);
+    }
+    
+    @Override
+    public List<IPermission> getPermissionsList() {
+        return permissions;
+    }
+    
+    @Override
+    public void setPermissionsList(List<IPermission> permissions) {
+        this.permissions = permissions;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.benchmark.domain;
+
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.IPermission;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IRolePermission;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plain {@code IPermission} implementation used to populate the benchmarks.
+ * 
+ * @author Delcio Amarillo
+ */
+public class BenchPermission implements IPermission {
+    
+    private final BigInteger id;
+    private String code;
+    private String description;
+    private IModule module;
+    private List<IRolePermission> rolePermissions = new ArrayList<>();
+    
+    public BenchPermission(long id, String code, IModule module) {
+        this.id = BigInteger.valueOf(id);
+        this.code = code;
+        this.module = module;
+    }
+    
+    @Override
+    public BigInteger getId() {
+        return id;
+    }
+    
+    @Override
+    public String getCode() {
+        return code;
+    }
+    
+    @Override
+    public void setCode(String code) {
+        this.code = code;
+    }
+    
+    @Override
+    public String getDescription() {
+        return description;
+    }
+    
+    @Override
+    public void setDescription(String description) {
+        this.description = description;
+    }
+    
+    @Override
+    public IModule getModule() {
+        return module;
+    }
+    
+    @Override
+    public void setModule(IModule module) {
+        this.module = module;
+    }
+    
+    @Override
+    public void addRolePermission(IRolePermission rolePermission) {
+        rolePermissions.add(rolePermission);
+    }
+    
+    @Override
+    public List<IRolePermission> getRolePermissionsList() {
+        return rolePermissions;
+    }
+    
+    @Override
+    public void setRolePermissionsList(List<IRolePermission> rolePermissionsList) {
+        this.rolePermissions = rolePermissionsList;
+    }
+    
+    @Override
+    public void addRole(IRole role) {
+        role.addPermission(this);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.benchmark.domain;
+
+import com.openums.commons.domain.IPermission;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IRolePermission;
+import java.math.BigInteger;
+
+/**
+ * Plain {@code IRolePermission} implementation used to populate the
+ * benchmarks. Associations are created enabled and carry no id.
+ * 
+ * @author Delcio Amarillo
+ */
+public class BenchRolePermission implements IRolePermission {
+    
+    private Boolean enabled = Boolean.TRUE;
+    private IRole role;
+    private IPermission permission;
+    
+    public BenchRolePermission(IRole role, IPermission permission) {
+        this.role = role;
+        this.permission = permission;
+    }
+    
+    @Override
+    public BigInteger getId() {
+        return null;
+    }
+    
+    @Override
+    public Boolean isEnabled() {
+        return enabled;
+    }
+    
+    @Override
+    public void setEnabled(Boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    @Override
+    public IRole getRole() {
+        return role;
+    }
+    
+    @Override
+    public void setRole(IRole role) {
+        this.role = role;
+    }
+    
+    @Override
+    public IPermission getPermission() {
+        return permission;
+    }
+    
+    @Override
+    public void setPermission(IPermission permission) {
+        this.permission = permission;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.benchmark.domain;
+
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.IUserRole;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Plain {@code IUser} implementation used to populate the benchmarks.
+ * 
+ * @author Delcio Amarillo
+ */
+public class BenchUser implements IUser {
+    
+    private final BigInteger id;
+    private String name;
+    private String lastName;
+    private String gender;
+    private Date dateOfBirth;
+    private String email;
+    private String userName;
+    private String password;
+    private Boolean active = Boolean.TRUE;
+    private Boolean unlocked = Boolean.TRUE;
+    private List<IUserRole> userRoles = new ArrayList<>(4);
+    
+    public BenchUser(long id, String userName) {
+        this.id = BigInteger.valueOf(id);
+        this.userName = userName;
+    }
+    
+    @Override
+    public BigInteger getId() {
+        return id;
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    @Override
+    public String getLastName() {
+        return lastName;
+    }
+    
+    @Override
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+    
+    @Override
+    public String getGender() {
+        return gender;
+    }
+    
+    @Override
+    public void setGender(String gender) {
+        this.gender = gender;
+    }
+    
+    @Override
+    public Date getDateOfBirth() {
+        return dateOfBirth;
+    }
+    
+    @Override
+    public void setDateOfBirth(Date dateOfBirth) {
+        this.dateOfBirth = dateOfBirth;
+    }
+    
+    @Override
+    public String getEmail() {
+        return email;
+    }
+    
+    @Override
+    public void setEmail(String email) {
+        this.email = email;
+    }
+    
+    @Override
+    public String getUserName() {
+        return userName;
+    }
+    
+    @Override
+    public void setUserName(String userName) {
+        this.userName = userName;
+    }
+    
+    @Override
+    public String getPassword() {
+        return password;
+    }
+    
+    @Override
+    public void setPassword(String password) {
+        this.password = password;
+    }
+    
+    @Override
+    public Boolean isActive() {
+        return active;
+    }
+    
+    @Override
+    public void setActive(Boolean active) {
+        this.active = active;
+    }
+    
+    @Override
+    public Boolean isUnlocked() {
+        return unlocked;
+    }
+    
+    @Override
+    public void setUnlocked(Boolean unlocked) {
+        this.unlocked = unlocked;
+    }
+    
+    @Override
+    public void addUserRole(IUserRole userRole) {
+        userRoles.add(userRole);
+    }
+    
+    @Override
+    public List<IUserRole> getUserRolesList() {
+        return userRoles;
+    }
+    
+    @Override
+    public void setUserRolesList(List<IUserRole> userRolesList) {
+        this.userRoles = userRolesList;
+    }
+    
+    @Override
+    public void addRole(IRole role) {
+        IUserRole userRole = new BenchUserRole(this, role);
+        userRoles.add(userRole);
+        role.addUserRole(userRole);
+    }
+}
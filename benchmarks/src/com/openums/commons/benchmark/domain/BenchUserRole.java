@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.benchmark.domain;
+
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.IUserRole;
+import java.math.BigInteger;
+
+/**
+ * Plain {@code IUserRole} implementation used to populate the benchmarks.
+ * Associations carry no id.
+ * 
+ * @author Delcio Amarillo
+ */
+public class BenchUserRole implements IUserRole {
+    
+    private IRole role;
+    private IUser user;
+    
+    public BenchUserRole(IUser user, IRole role) {
+        this.user = user;
+        this.role = role;
+    }
+    
+    @Override
+    public BigInteger getId() {
+        return null;
+    }
+    
+    @Override
+    public IRole getRole() {
+        return role;
+    }
+    
+    @Override
+    public void setRole(IRole role) {
+        this.role = role;
+    }
+    
+    @Override
+    public IUser getUser() {
+        return user;
+    }
+    
+    @Override
+    public void setUser(IUser user) {
+        this.user = user;
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.authentication;
+
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.IVersioned;
+import com.openums.commons.domain.LoginRecord;
+import com.openums.commons.model.Deadline;
+import com.openums.commons.model.IUsersDao;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.ModelExceptionType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verifies the passwords of the Users stored through an {@code IUsersDao}.
+ * <p/>
+ * Password hashing is deliberately expensive, so a burst of logins can
+ * saturate every core. The verifier bounds the number of hashes computed
+ * concurrently: callers beyond that limit wait for a slot, up to the
+ * deadline current for the calling thread (see {@link Deadline#run}) or to
+ * the configured maximum wait, and then fail with a
+ * {@code TIME_OUT_EXCEPTION} instead of piling up more CPU work. The limit
+ * is typically set to the number of cores that may be devoted to logins.
+ * <p/>
+ * Passwords are hashed by the first configured {@code IPasswordHasher}; the
+ * other ones are only used to verify hashes produced in the past. After a
+ * successful verification, a hash produced by another hasher or with other
+ * cost parameters is transparently replaced with a fresh one and the User
+ * is saved, so raising the cost of the hashes only requires changing the
+ * configuration. Users implementing {@code IVersioned} are saved with
+ * {@code compareAndUpdate}, and the upgrade is skipped if the User has been
+ * modified concurrently.
+ * <p/>
+ * Unknown user names and unsupported hashes cost the same time as a wrong
+ * password, so the response time does not reveal which user names exist.
+ * This class only checks passwords; policies such as rejecting inactive or
+ * locked Users are up to the caller.
+ * 
+ * @author Delcio Amarillo
+ */
+public class CredentialVerifier {
+    
+    private final IUsersDao usersDao;
+    private final List<IPasswordHasher> hashers;
+    private final Semaphore slots;
+    private final long maxWaitNanos;
+    private final String dummyHash;
+    private final AtomicLong rehashed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    
+    /**
+     * Creates a new verifier.
+     * 
+     * @param usersDao The Users DAO, used to look Users up and to save
+     * rehashed passwords.
+     * 
+     * @param maxConcurrent The maximum number of passwords hashed at the
+     * same time. Must be positive.
+     * 
+     * @param maxWait The maximum time to wait for a slot when no deadline is
+     * current.
+     * 
+     * @param unit The time unit of the {@code maxWait} argument.
+     * 
+     * @param hasher The hasher of new passwords.
+     * 
+     * @param legacyHashers Hashers of passwords hashed in the past, if any.
+     */
+    public CredentialVerifier(IUsersDao usersDao, int maxConcurrent, long maxWait
+            , TimeUnit unit, IPasswordHasher hasher, IPasswordHasher... legacyHashers) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("maxConcurrent must be positive.");
+        }
+        List<IPasswordHasher> all = new ArrayList<>();
+        all.add(hasher);
+        all.addAll(Arrays.asList(legacyHashers));
+        this.usersDao = usersDao;
+        this.hashers = Collections.unmodifiableList(all);
+        this.slots = new Semaphore(maxConcurrent, true);
+        this.maxWaitNanos = unit.toNanos(maxWait);
+        this.dummyHash = hasher.hash(UUID.randomUUID().toString());
+    }
+    
+    /**
+     * Authenticates a User by user name and password.
+     * 
+     * @param userName The user name.
+     * 
+     * @param password The password in clear text.
+     * 
+     * @return The User or {@code null} if there is no User with that name or
+     * the password does not match.
+     * 
+     * @throws ModelException When an error occurred while reading or saving
+     * the User, or {@code TIME_OUT_EXCEPTION} if no slot became available in
+     * time.
+     */
+    public IUser authenticate(String userName, String password) throws ModelException {
+        IUser user = userName == null ? null : usersDao.getUserByName(userName);
+        return verify(user, password) ? user : null;
+    }
+    
+    /**
+     * Checks the password of a given User, upgrading the stored hash if
+     * needed.
+     * 
+     * @param user The User, may be {@code null}.
+     * 
+     * @param password The password in clear text.
+     * 
+     * @return {@code true} if the password matches.
+     * 
+     * @throws ModelException When an error occurred while saving a rehashed
+     * password, or {@code TIME_OUT_EXCEPTION} if no slot became available in
+     * time.
+     */
+    public boolean verify(IUser user, String password) throws ModelException {
+        String encoded = user == null ? null : user.getPassword();
+        String result = check(encoded, password);
+        if (result == null) {
+            return false;
+        }
+        if (result != encoded) {
+            upgrade(user, encoded, result);
+        }
+        return true;
+    }
+    
+    /**
+     * Authenticates a User by user name and password through
+     * {@code IUsersDao.getLoginRecord}, so the whole {@code IUser} is only
+     * loaded when its stored hash has to be upgraded. Callers decide on the
+     * returned record whether the User may log in, e.g. through
+     * {@code LoginRecord.isLoginAllowed()}.
+     * 
+     * @param userName The user name.
+     * 
+     * @param password The password in clear text.
+     * 
+     * @return The User's login record or {@code null} if there is no User
+     * with that name or the password does not match.
+     * 
+     * @throws ModelException When an error occurred while reading or saving
+     * the User, or {@code TIME_OUT_EXCEPTION} if no slot became available in
+     * time.
+     */
+    public LoginRecord login(String userName, String password) throws ModelException {
+        LoginRecord record = userName == null ? null : usersDao.getLoginRecord(userName);
+        String encoded = record == null ? null : record.getPasswordHash();
+        String result = check(encoded, password);
+        if (result == null) {
+            return null;
+        }
+        if (result != encoded) {
+            IUser user = usersDao.getUnique(record.getId());
+            if (user != null && encoded.equals(user.getPassword())) {
+                upgrade(user, encoded, result);
+            }
+        }
+        return record;
+    }
+    
+    /**
+     * Sets the password of a given User, hashed with the current hasher. The
+     * User is not saved.
+     * 
+     * @param user The User.
+     * 
+     * @param password The password in clear text.
+     * 
+     * @throws ModelException {@code TIME_OUT_EXCEPTION} if no slot became
+     * available in time.
+     */
+    public void setPassword(IUser user, String password) throws ModelException {
+        acquire();
+        try {
+            user.setPassword(hashers.get(0).hash(password));
+        } finally {
+            slots.release();
+        }
+    }
+    
+    /**
+     * Returns the number of stored hashes replaced after a successful
+     * verification.
+     * 
+     * @return The number of upgraded hashes.
+     */
+    public long getRehashedCount() {
+        return rehashed.get();
+    }
+    
+    /**
+     * Returns the number of verifications that failed because no slot became
+     * available in time.
+     * 
+     * @return The number of rejected verifications.
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+    
+    /**
+     * Checks a password against a stored hash, or against a dummy hash when
+     * there is none so that the time spent is the same.
+     * 
+     * @return {@code null} if the password does not match, the very same
+     * {@code encoded} instance if it matches and the hash is current, or the
+     * hash that should replace it otherwise.
+     */
+    private String check(String encoded, String password) throws ModelException {
+        IPasswordHasher hasher = find(encoded);
+        acquire();
+        try {
+            if (hasher == null || password == null) {
+                hashers.get(0).verify(String.valueOf(password), dummyHash);
+                return null;
+            }
+            if (!hasher.verify(password, encoded)) {
+                return null;
+            }
+            if (hasher != hashers.get(0) || hasher.needsRehash(encoded)) {
+                return hashers.get(0).hash(password);
+            }
+            return encoded;
+        } finally {
+            slots.release();
+        }
+    }
+    
+    private IPasswordHasher find(String encoded) {
+        if (encoded != null) {
+            for (IPasswordHasher hasher : hashers) {
+                if (hasher.supports(encoded)) {
+                    return hasher;
+                }
+            }
+        }
+        return null;
+    }
+    
+    private void acquire() throws ModelException {
+        long timeout = maxWaitNanos;
+        Deadline deadline = Deadline.current();
+        if (deadline != null) {
+            timeout = Math.min(timeout, deadline.getRemaining(TimeUnit.NANOSECONDS));
+        }
+        try {
+            if (!slots.tryAcquire(Math.max(timeout, 0L), TimeUnit.NANOSECONDS)) {
+                rejected.incrementAndGet();
+                throw new ModelException(ModelExceptionType.TIME_OUT_EXCEPTION
+                        , "No password verification slot available.");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ModelException(ModelExceptionType.UNSPECIFIED_EXCEPTION, ex);
+        }
+    }
+    
+    private void upgrade(IUser user, String oldHash, String newHash) throws ModelException {
+        user.setPassword(newHash);
+        try {
+            if (user instanceof IVersioned) {
+                usersDao.compareAndUpdate(user);
+            } else {
+                usersDao.update(user);
+            }
+            rehashed.incrementAndGet();
+        } catch (ModelException ex) {
+            user.setPassword(oldHash);
+            if (ex.getExceptionType() != ModelExceptionType.VERSION_CONFLICT_EXCEPTION) {
+                throw ex;
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.authentication;
+
+/**
+ * Strategy that turns passwords into their stored representation and checks
+ * passwords against it. Encoded hashes are self-describing strings carrying
+ * the algorithm and its cost parameters, so hashes produced with different
+ * parameters, or by different implementations, can live side by side in the
+ * {@code password} property of the Users.
+ * <p/>
+ * Implementations must be thread-safe.
+ * 
+ * @author Delcio Amarillo
+ * @see CredentialVerifier
+ */
+public interface IPasswordHasher {
+    
+    /**
+     * Hashes a password with a new random salt and the current cost
+     * parameters.
+     * 
+     * @param password The password in clear text.
+     * 
+     * @return The encoded hash.
+     */
+    public String hash(String password);
+    
+    /**
+     * Checks a password against an encoded hash. The comparison of the
+     * derived keys takes the same time whatever the position of the first
+     * difference, so the response time does not leak the hash.
+     * 
+     * @param password The password in clear text.
+     * 
+     * @param encoded The encoded hash.
+     * 
+     * @return {@code true} if the password matches, {@code false} if it does
+     * not or if the hash is not supported by this hasher.
+     */
+    public boolean verify(String password, String encoded);
+    
+    /**
+     * Indicates whether this hasher recognizes the format of a given encoded
+     * hash.
+     * 
+     * @param encoded The encoded hash.
+     * 
+     * @return {@code true} if {@link #verify(String, String)} is able to
+     * check passwords against it.
+     */
+    public boolean supports(String encoded);
+    
+    /**
+     * Indicates whether a supported hash was produced with cost parameters
+     * other than the current ones and should be replaced by
+     * {@link #hash(String)} the next time the password is known.
+     * 
+     * @param encoded The encoded hash.
+     * 
+     * @return {@code true} if the hash is outdated.
+     */
+    public boolean needsRehash(String encoded);
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.authentication;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Base64;
+import java.util.Locale;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * {@code IPasswordHasher} based on PBKDF2 as provided by the JDK. The cost is
+ * tuned through the number of iterations: the time of a verification grows
+ * linearly with it, so it should be set to the highest value that keeps the
+ * login latency within its objective under the expected load (see the
+ * credential benchmarks).
+ * <p/>
+ * Hashes are encoded as
+ * {@code pbkdf2-<prf>$<iterations>$<salt>$<key>}, e.g.
+ * {@code pbkdf2-sha256$310000$...$...}, where salt and key are Base64 encoded
+ * without padding. Hashes with any salt length and with up to
+ * {@link #MAX_ITERATIONS} iterations and {@link #MAX_KEY_LENGTH} key bytes
+ * are verified, so a tampered hash cannot make a single verification run
+ * for hours; {@link #needsRehash(String)} reports those not matching the
+ * parameters of this hasher.
+ * 
+ * @author Delcio Amarillo
+ */
+public final class Pbkdf2PasswordHasher implements IPasswordHasher {
+    
+    /**
+     * Default pseudo-random function.
+     */
+    public static final String DEFAULT_ALGORITHM = "PBKDF2WithHmacSHA256";
+    
+    /**
+     * Default number of iterations for {@link #DEFAULT_ALGORITHM}.
+     */
+    public static final int DEFAULT_ITERATIONS = 310_000;
+    
+    /**
+     * Default salt length in bytes.
+     */
+    public static final int DEFAULT_SALT_LENGTH = 16;
+    
+    /**
+     * Default derived key length in bytes.
+     */
+    public static final int DEFAULT_KEY_LENGTH = 32;
+    
+    /**
+     * Highest number of iterations of the hashes produced or verified.
+     */
+    public static final int MAX_ITERATIONS = 10_000_000;
+    
+    /**
+     * Highest derived key length in bytes of the hashes produced or verified.
+     */
+    public static final int MAX_KEY_LENGTH = 64;
+    
+    private static final String PREFIX = "pbkdf2-";
+    private static final String JCA_PREFIX = "PBKDF2WithHmac";
+    private static final SecureRandom RANDOM = new SecureRandom();
+    
+    private final String algorithm;
+    private final String id;
+    private final int iterations;
+    private final int saltLength;
+    private final int keyLength;
+    
+    /**
+     * Creates a new hasher with the default parameters.
+     */
+    public Pbkdf2PasswordHasher() {
+        this(DEFAULT_ITERATIONS);
+    }
+    
+    /**
+     * Creates a new hasher using {@link #DEFAULT_ALGORITHM} and a given number
+     * of iterations.
+     * 
+     * @param iterations The number of iterations. Must be positive.
+     */
+    public Pbkdf2PasswordHasher(int iterations) {
+        this(DEFAULT_ALGORITHM, iterations, DEFAULT_SALT_LENGTH, DEFAULT_KEY_LENGTH);
+    }
+    
+    /**
+     * Creates a new hasher.
+     * 
+     * @param algorithm The JCA name of the key derivation, one of
+     * {@code PBKDF2WithHmacSHA1}, {@code PBKDF2WithHmacSHA256} or
+     * {@code PBKDF2WithHmacSHA512}, in any case.
+     * 
+     * @param iterations The number of iterations. Must be positive and not
+     * above {@link #MAX_ITERATIONS}.
+     * 
+     * @param saltLength The salt length in bytes. Must be positive.
+     * 
+     * @param keyLength The derived key length in bytes. Must be positive and
+     * not above {@link #MAX_KEY_LENGTH}.
+     * 
+     * @throws IllegalArgumentException If the algorithm is not supported or
+     * a parameter is out of range.
+     */
+    public Pbkdf2PasswordHasher(String algorithm, int iterations, int saltLength
+            , int keyLength) {
+        if (iterations <= 0 || saltLength <= 0 || keyLength <= 0) {
+            throw new IllegalArgumentException("Iterations, salt and key length must be positive.");
+        }
+        if (iterations > MAX_ITERATIONS || keyLength > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Iterations or key length above the maximum.");
+        }
+        String prf = algorithm == null || !algorithm.regionMatches(true, 0
+                , JCA_PREFIX, 0, JCA_PREFIX.length()) ? null
+                : algorithm.substring(JCA_PREFIX.length()).toUpperCase(Locale.ROOT);
+        this.algorithm = toAlgorithm(prf);
+        if (this.algorithm == null) {
+            throw new IllegalArgumentException("Unsupported algorithm: " + algorithm);
+        }
+        this.id = PREFIX + prf.toLowerCase(Locale.ROOT);
+        this.iterations = iterations;
+        this.saltLength = saltLength;
+        this.keyLength = keyLength;
+        factory(this.algorithm);
+    }
+    
+    /**
+     * Returns the number of iterations of new hashes.
+     * 
+     * @return The number of iterations.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+    
+    @Override
+    public String hash(String password) {
+        byte[] salt = new byte[saltLength];
+        RANDOM.nextBytes(salt);
+        byte[] key = derive(algorithm, password, salt, iterations, keyLength);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return id + '$' + iterations + '$' + encoder.encodeToString(salt)
+                + '$' + encoder.encodeToString(key);
+    }
+    
+    @Override
+    public boolean verify(String password, String encoded) {
+        Parsed parsed = Parsed.parse(encoded);
+        if (password == null || parsed == null) {
+            return false;
+        }
+        byte[] key = derive(parsed.algorithm, password, parsed.salt, parsed.iterations
+                , parsed.key.length);
+        return MessageDigest.isEqual(key, parsed.key);
+    }
+    
+    @Override
+    public boolean supports(String encoded) {
+        return Parsed.parse(encoded) != null;
+    }
+    
+    @Override
+    public boolean needsRehash(String encoded) {
+        Parsed parsed = Parsed.parse(encoded);
+        return parsed == null || !parsed.algorithm.equals(algorithm)
+                || parsed.iterations != iterations || parsed.salt.length != saltLength
+                || parsed.key.length != keyLength;
+    }
+    
+    @Override
+    public String toString() {
+        return id + "(iterations=" + iterations + ")";
+    }
+    
+    private static byte[] derive(String algorithm, String password, byte[] salt
+            , int iterations, int keyLength) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations
+                , keyLength * 8);
+        try {
+            return factory(algorithm).generateSecret(spec).getEncoded();
+        } catch (InvalidKeySpecException ex) {
+            throw new IllegalStateException(ex);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+    
+    private static SecretKeyFactory factory(String algorithm) {
+        try {
+            return SecretKeyFactory.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalArgumentException("Unsupported algorithm: " + algorithm, ex);
+        }
+    }
+    
+    /**
+     * Returns the JCA name of the key derivation based on a given upper case
+     * pseudo-random function, or {@code null} if it is not supported.
+     */
+    private static String toAlgorithm(String prf) {
+        if (prf == null) {
+            return null;
+        }
+        switch (prf) {
+            case "SHA1":
+            case "SHA256":
+            case "SHA512":
+                return JCA_PREFIX + prf;
+            default:
+                return null;
+        }
+    }
+    
+    /**
+     * The fields of an encoded hash.
+     */
+    private static final class Parsed {
+        
+        private final String algorithm;
+        private final int iterations;
+        private final byte[] salt;
+        private final byte[] key;
+        
+        private Parsed(String algorithm, int iterations, byte[] salt, byte[] key) {
+            this.algorithm = algorithm;
+            this.iterations = iterations;
+            this.salt = salt;
+            this.key = key;
+        }
+        
+        private static Parsed parse(String encoded) {
+            if (encoded == null || !encoded.startsWith(PREFIX)) {
+                return null;
+            }
+            String[] parts = encoded.split("\\$", -1);
+            if (parts.length != 4) {
+                return null;
+            }
+            String algorithm = toAlgorithm(parts[0].substring(PREFIX.length())
+                    .toUpperCase(Locale.ROOT));
+            if (algorithm == null) {
+                return null;
+            }
+            try {
+                int iterations = Integer.parseInt(parts[1]);
+                Base64.Decoder decoder = Base64.getDecoder();
+                byte[] salt = decoder.decode(parts[2]);
+                byte[] key = decoder.decode(parts[3]);
+                if (iterations <= 0 || iterations > MAX_ITERATIONS || salt.length == 0
+                        || key.length == 0 || key.length > MAX_KEY_LENGTH) {
+                    return null;
+                }
+                return new Parsed(algorithm, iterations, salt, key);
+            } catch (IllegalArgumentException ex) {
+                return null;
+            }
+        }
+    }
+}
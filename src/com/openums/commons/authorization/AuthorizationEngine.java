@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.authorization;
+
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.model.IRolesDao;
+import com.openums.commons.model.IUsersDao;
+import com.openums.commons.model.ModelException;
+import java.math.BigInteger;
+import java.util.Collection;
+
+/**
+ * Answers authorization questions against a compiled
+ * {@code PermissionSnapshot}. Readers never take a lock: the current snapshot
+ * is held in a volatile reference and updates simply swap in a new snapshot,
+ * so a reader always sees either the old or the new model but never a mix of
+ * both.
+ * 
+ * @author Delcio Amarillo
+ * @see PermissionSnapshot
+ */
+public class AuthorizationEngine {
+    
+    private volatile PermissionSnapshot snapshot;
+    
+    /**
+     * Creates a new {@code AuthorizationEngine} with an empty snapshot.
+     */
+    public AuthorizationEngine() {
+        this(PermissionSnapshot.EMPTY);
+    }
+    
+    /**
+     * Creates a new {@code AuthorizationEngine} with a given initial snapshot.
+     * 
+     * @param snapshot The initial snapshot.
+     */
+    public AuthorizationEngine(PermissionSnapshot snapshot) {
+        if (snapshot == null) {
+            throw new IllegalArgumentException("The snapshot cannot be null.");
+        }
+        this.snapshot = snapshot;
+    }
+    
+    /**
+     * Returns whether a given User holds a given Permission. This method does
+     * not lock nor allocate objects.
+     * 
+     * @param userId The User's primary key.
+     * 
+     * @param permissionCode The Permission's code.
+     * 
+     * @return {@code true} if the User holds the Permission, {@code false}
+     * otherwise.
+     */
+    public boolean hasPermission(BigInteger userId, String permissionCode) {
+        return snapshot.hasPermission(userId, permissionCode);
+    }
+    
+    /**
+     * Returns whether a given User holds a given Permission. This method does
+     * not lock nor allocate objects.
+     * 
+     * @param userId The User's primary key.
+     * 
+     * @param permissionCode The Permission's code.
+     * 
+     * @return {@code true} if the User holds the Permission, {@code false}
+     * otherwise.
+     */
+    public boolean hasPermission(long userId, String permissionCode) {
+        return snapshot.hasPermission(userId, permissionCode);
+    }
+    
+    /**
+     * Returns whether a given User holds a given Permission.
+     * 
+     * @param user The User.
+     * 
+     * @param permissionCode The Permission's code.
+     * 
+     * @return {@code true} if the User holds the Permission, {@code false}
+     * otherwise.
+     */
+    public boolean hasPermission(IUser user, String permissionCode) {
+        return user != null && snapshot.hasPermission(user.getId(), permissionCode);
+    }
+    
+    /**
+     * Returns the snapshot currently in use.
+     * 
+     * @return A {@code PermissionSnapshot} object.
+     */
+    public PermissionSnapshot getSnapshot() {
+        return snapshot;
+    }
+    
+    /**
+     * Atomically replaces the current snapshot by a new one.
+     * 
+     * @param snapshot The new snapshot.
+     */
+    public void setSnapshot(PermissionSnapshot snapshot) {
+        if (snapshot == null) {
+            throw new IllegalArgumentException("The snapshot cannot be null.");
+        }
+        this.snapshot = snapshot;
+    }
+    
+    /**
+     * Compiles a new snapshot from the given Roles and Users and swaps it in.
+     * 
+     * @param roles The Roles to be compiled.
+     * 
+     * @param users The Users to be compiled.
+     * 
+     * @return The new snapshot.
+     */
+    public PermissionSnapshot rebuild(Collection<? extends IRole> roles
+            , Collection<? extends IUser> users) {
+        PermissionSnapshot newSnapshot = PermissionSnapshot.compile(roles, users);
+        this.snapshot = newSnapshot;
+        return newSnapshot;
+    }
+    
+    /**
+     * Compiles a new snapshot from all the Roles and Users provided by the
+     * given DAOs and swaps it in. If any DAO fails the current snapshot is
+     * kept.
+     * 
+     * @param rolesDao The Roles DAO.
+     * 
+     * @param usersDao The Users DAO.
+     * 
+     * @return The new snapshot.
+     * 
+     * @throws ModelException When an error occurred during the request
+     * processing.
+     */
+    public PermissionSnapshot rebuild(IRolesDao rolesDao, IUsersDao usersDao)
+            throws ModelException {
+        return rebuild(rolesDao.getAll(), usersDao.getAll());
+    }
+}
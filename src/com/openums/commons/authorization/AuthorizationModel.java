@@ -0,0 +1,434 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.authorization;
+
+import com.openums.commons.authorization.MappedAuthorizationModel.Entry;
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.IPermission;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.Identifiers;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Live {@code IAuthorizationModel} backed by a memory-mapped snapshot. The
+ * changes applied after the snapshot was written are kept in a small
+ * overlay consulted before the snapshot, so a node starts serving lookups
+ * as soon as the snapshot is mapped and catches up by replaying only what
+ * changed since then, e.g. from an {@code IMutationListener}.
+ * <p/>
+ * Readers never block: the snapshot and the overlay are published together
+ * as an immutable state through a volatile field and writers replace it
+ * with a copy. {@link #writeSnapshot(Path)} folds the overlay into a new
+ * snapshot file and starts using it, which keeps the overlay small.
+ * 
+ * @author Delcio Amarillo
+ * @see MappedAuthorizationModel
+ */
+public class AuthorizationModel implements IAuthorizationModel {
+    
+    private static final Entry REMOVED = new Entry(Identifiers.NO_ID, null, Identifiers.NO_ID
+            , null, null);
+    
+    /**
+     * Changes applied to a single entity type on top of the snapshot. Maps
+     * codes no longer in use to {@code NO_ID} and removed primary keys to
+     * {@code REMOVED}.
+     */
+    private static final class Layer {
+        
+        private static final Layer EMPTY = new Layer(Collections.emptyMap(), Collections.emptyMap());
+        
+        private final Map<String, Long> ids;
+        private final Map<Long, Entry> entries;
+        
+        private Layer(Map<String, Long> ids, Map<Long, Entry> entries) {
+            this.ids = ids;
+            this.entries = entries;
+        }
+        
+        private Layer put(String previousCode, Entry entry) {
+            Map<String, Long> newIds = new HashMap<>(ids);
+            Map<Long, Entry> newEntries = new HashMap<>(entries);
+            if (previousCode != null && !previousCode.equals(entry.code)) {
+                newIds.put(previousCode, Identifiers.NO_ID);
+            }
+            if (entry.code != null) {
+                newIds.put(entry.code, entry.id);
+            }
+            newEntries.put(entry.id, entry);
+            return new Layer(newIds, newEntries);
+        }
+        
+        private Layer remove(long id, String previousCode) {
+            Map<String, Long> newIds = new HashMap<>(ids);
+            Map<Long, Entry> newEntries = new HashMap<>(entries);
+            if (previousCode != null) {
+                newIds.put(previousCode, Identifiers.NO_ID);
+            }
+            newEntries.put(id, REMOVED);
+            return new Layer(newIds, newEntries);
+        }
+        
+        private long[] ids(long[] baseIds) {
+            if (entries.isEmpty()) {
+                return baseIds;
+            }
+            long[] ids = Arrays.copyOf(baseIds, baseIds.length + entries.size());
+            int count = 0;
+            for (long id : baseIds) {
+                if (!entries.containsKey(id)) {
+                    ids[count++] = id;
+                }
+            }
+            for (Entry entry : entries.values()) {
+                if (entry != REMOVED) {
+                    ids[count++] = entry.id;
+                }
+            }
+            Arrays.sort(ids, 0, count);
+            return Arrays.copyOf(ids, count);
+        }
+    }
+    
+    /**
+     * Snapshot and overlay published together.
+     */
+    private static final class State {
+        
+        private final MappedAuthorizationModel snapshot;
+        private final Layer modules;
+        private final Layer permissions;
+        private final Layer roles;
+        
+        private State(MappedAuthorizationModel snapshot, Layer modules
+                , Layer permissions, Layer roles) {
+            this.snapshot = snapshot;
+            this.modules = modules;
+            this.permissions = permissions;
+            this.roles = roles;
+        }
+    }
+    
+    private volatile State state;
+    
+    /**
+     * Creates a new model backed by a given snapshot.
+     * 
+     * @param snapshot The snapshot.
+     */
+    public AuthorizationModel(MappedAuthorizationModel snapshot) {
+        this.state = new State(snapshot, Layer.EMPTY, Layer.EMPTY, Layer.EMPTY);
+    }
+    
+    /**
+     * Creates a new model backed by the snapshot stored in a given file.
+     * 
+     * @param file The snapshot file.
+     * 
+     * @throws IOException If the snapshot cannot be opened.
+     * 
+     * @see MappedAuthorizationModel#open(Path)
+     */
+    public AuthorizationModel(Path file) throws IOException {
+        this(MappedAuthorizationModel.open(file));
+    }
+    
+    /**
+     * Returns the snapshot currently backing this model.
+     * 
+     * @return The snapshot.
+     */
+    public MappedAuthorizationModel getSnapshot() {
+        return state.snapshot;
+    }
+    
+    /**
+     * Returns the number of Modules, Permissions and Roles changed or removed
+     * since the current snapshot was written.
+     * 
+     * @return The size of the overlay.
+     */
+    public int getPendingChangesCount() {
+        State current = state;
+        return current.modules.entries.size() + current.permissions.entries.size()
+                + current.roles.entries.size();
+    }
+    
+    /**
+     * Adds or replaces a Module.
+     * 
+     * @param module The Module. Must have {@code id}.
+     */
+    public synchronized void updateModule(IModule module) {
+        Entry entry = requireEntry(MappedAuthorizationModel.toEntry(module));
+        State current = state;
+        state = new State(current.snapshot
+                , current.modules.put(getModuleCode(entry.id), entry)
+                , current.permissions, current.roles);
+    }
+    
+    /**
+     * Adds or replaces a Permission.
+     * 
+     * @param permission The Permission. Must have {@code id}.
+     */
+    public synchronized void updatePermission(IPermission permission) {
+        Entry entry = requireEntry(MappedAuthorizationModel.toEntry(permission));
+        State current = state;
+        state = new State(current.snapshot, current.modules
+                , current.permissions.put(getPermissionCode(entry.id), entry)
+                , current.roles);
+    }
+    
+    /**
+     * Adds or replaces a Role along with the Permissions granted to it
+     * through enabled role-permission relationships and its parents. The
+     * Role's descendants inherit the new grants: while the overlay holds
+     * Roles, inherited grants are looked up through the parents instead of
+     * the closure precomputed in the snapshot.
+     * 
+     * @param role The Role. Must have {@code id}.
+     */
+    public synchronized void updateRole(IRole role) {
+        Entry entry = requireEntry(MappedAuthorizationModel.toEntry(role));
+        State current = state;
+        state = new State(current.snapshot, current.modules, current.permissions
+                , current.roles.put(getRoleCode(entry.id), entry));
+    }
+    
+    /**
+     * Removes a Module.
+     * 
+     * @param moduleId The Module's primary key.
+     */
+    public synchronized void removeModule(BigInteger moduleId) {
+        long id = Identifiers.toLong(moduleId);
+        State current = state;
+        state = new State(current.snapshot
+                , current.modules.remove(id, getModuleCode(id))
+                , current.permissions, current.roles);
+    }
+    
+    /**
+     * Removes a Permission.
+     * 
+     * @param permissionId The Permission's primary key.
+     */
+    public synchronized void removePermission(BigInteger permissionId) {
+        long id = Identifiers.toLong(permissionId);
+        State current = state;
+        state = new State(current.snapshot, current.modules
+                , current.permissions.remove(id, getPermissionCode(id))
+                , current.roles);
+    }
+    
+    /**
+     * Removes a Role.
+     * 
+     * @param roleId The Role's primary key.
+     */
+    public synchronized void removeRole(BigInteger roleId) {
+        long id = Identifiers.toLong(roleId);
+        State current = state;
+        state = new State(current.snapshot, current.modules, current.permissions
+                , current.roles.remove(id, getRoleCode(id)));
+    }
+    
+    /**
+     * Writes a snapshot of the current state of this model and makes it the
+     * new backing snapshot, emptying the overlay. The previous snapshot
+     * remains valid for readers still holding it.
+     * 
+     * @param file The snapshot file. Replaced atomically if it exists.
+     * 
+     * @throws IOException If the snapshot cannot be written or reopened.
+     */
+    public synchronized void writeSnapshot(Path file) throws IOException {
+        MappedAuthorizationModel.write(file, this);
+        state = new State(MappedAuthorizationModel.open(file)
+                , Layer.EMPTY, Layer.EMPTY, Layer.EMPTY);
+    }
+    
+    @Override
+    public long getModuleId(String code) {
+        State current = state;
+        return id(current.modules, current.snapshot.getModuleId(code), code);
+    }
+    
+    @Override
+    public long getPermissionId(String code) {
+        State current = state;
+        return id(current.permissions, current.snapshot.getPermissionId(code), code);
+    }
+    
+    @Override
+    public long getRoleId(String code) {
+        State current = state;
+        return id(current.roles, current.snapshot.getRoleId(code), code);
+    }
+    
+    @Override
+    public String getModuleCode(long moduleId) {
+        State current = state;
+        Entry entry = current.modules.entries.get(moduleId);
+        return entry == null ? current.snapshot.getModuleCode(moduleId) : entry.code;
+    }
+    
+    @Override
+    public String getPermissionCode(long permissionId) {
+        State current = state;
+        Entry entry = current.permissions.entries.get(permissionId);
+        return entry == null ? current.snapshot.getPermissionCode(permissionId) : entry.code;
+    }
+    
+    @Override
+    public String getRoleCode(long roleId) {
+        State current = state;
+        Entry entry = current.roles.entries.get(roleId);
+        return entry == null ? current.snapshot.getRoleCode(roleId) : entry.code;
+    }
+    
+    @Override
+    public long getPermissionModuleId(long permissionId) {
+        State current = state;
+        Entry entry = current.permissions.entries.get(permissionId);
+        return entry == null ? current.snapshot.getPermissionModuleId(permissionId) : entry.moduleId;
+    }
+    
+    @Override
+    public long getRoleModuleId(long roleId) {
+        State current = state;
+        Entry entry = current.roles.entries.get(roleId);
+        return entry == null ? current.snapshot.getRoleModuleId(roleId) : entry.moduleId;
+    }
+    
+    @Override
+    public long[] getRoleDirectPermissionIds(long roleId) {
+        return directPermissionIds(state, roleId).clone();
+    }
+    
+    @Override
+    public long[] getRoleParentIds(long roleId) {
+        return parentIds(state, roleId).clone();
+    }
+    
+    /**
+     * Walks the hierarchy of a single state, so the answer is consistent
+     * even if the model is updated meanwhile.
+     */
+    @Override
+    public long[] getAncestorRoleIds(long roleId) {
+        State current = state;
+        return InheritanceSupport.ancestors(roleId, id -> parentIds(current, id));
+    }
+    
+    /**
+     * Reads the closure precomputed in the snapshot unless Roles changed
+     * since it was written, in which case it walks the hierarchy of a single
+     * state, so the answer is consistent even if the model is updated
+     * meanwhile.
+     */
+    @Override
+    public long[] getRolePermissionIds(long roleId) {
+        State current = state;
+        if (current.roles.entries.isEmpty()) {
+            return current.snapshot.getRolePermissionIds(roleId);
+        }
+        return InheritanceSupport.permissions(roleId, id -> parentIds(current, id)
+                , id -> directPermissionIds(current, id));
+    }
+    
+    /**
+     * Reads the closure precomputed in the snapshot unless Roles changed
+     * since it was written, in which case it walks the hierarchy of a single
+     * state, so the answer is consistent even if the model is updated
+     * meanwhile.
+     */
+    @Override
+    public boolean roleHasPermission(long roleId, long permissionId) {
+        State current = state;
+        if (current.roles.entries.isEmpty()) {
+            return current.snapshot.roleHasPermission(roleId, permissionId);
+        }
+        return InheritanceSupport.hasPermission(roleId, id -> parentIds(current, id)
+                , id -> Arrays.binarySearch(directPermissionIds(current, id), permissionId) >= 0);
+    }
+    
+    @Override
+    public long[] getAllModuleIds() {
+        State current = state;
+        return current.modules.ids(current.snapshot.getAllModuleIds());
+    }
+    
+    @Override
+    public long[] getAllPermissionIds() {
+        State current = state;
+        return current.permissions.ids(current.snapshot.getAllPermissionIds());
+    }
+    
+    @Override
+    public long[] getAllRoleIds() {
+        State current = state;
+        return current.roles.ids(current.snapshot.getAllRoleIds());
+    }
+    
+    /**
+     * Returns the direct Permissions of a Role in a given state. The array
+     * must not be modified.
+     */
+    private static long[] directPermissionIds(State state, long roleId) {
+        Entry entry = state.roles.entries.get(roleId);
+        if (entry == null) {
+            return state.snapshot.getRoleDirectPermissionIds(roleId);
+        }
+        return entry == REMOVED ? new long[0] : entry.permissionIds;
+    }
+    
+    /**
+     * Returns the parents of a Role in a given state. The array must not be
+     * modified.
+     */
+    private static long[] parentIds(State state, long roleId) {
+        Entry entry = state.roles.entries.get(roleId);
+        if (entry == null) {
+            return state.snapshot.getRoleParentIds(roleId);
+        }
+        return entry == REMOVED ? new long[0] : entry.parentIds;
+    }
+    
+    private static long id(Layer layer, long snapshotId, String code) {
+        Long id = layer.ids.get(code);
+        if (id != null) {
+            return id;
+        }
+        return layer.entries.containsKey(snapshotId) ? Identifiers.NO_ID : snapshotId;
+    }
+    
+    private static Entry requireEntry(Entry entry) {
+        if (entry == null) {
+            throw new IllegalArgumentException("Primary key required");
+        }
+        return entry;
+    }
+}
@@ -0,0 +1,606 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.authorization;
+
+import com.openums.commons.domain.DomainGraph;
+import com.openums.commons.domain.IPermission;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IRolePermission;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.IUserRole;
+import com.openums.commons.model.IRolesDao;
+import com.openums.commons.model.IUsersDao;
+import com.openums.commons.model.ModelException;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains the effective permission set of every User, i.e.: the codes of
+ * the Permissions granted through enabled {@code IRolePermission}
+ * relationships by any of the User's Roles or their ancestors, so that
+ * reading it does not walk the object graph.
+ * <p/>
+ * The service is kept up to date incrementally. Every User holds a counter
+ * per permission code with the number of its Roles granting it, and every
+ * Role holds the relationships granting each code, so adding, removing or
+ * toggling a relationship only touches the counters of the Users of the
+ * involved Role and of its descendants. Changing the parents of a Role
+ * likewise only touches the Users of the Role and of its descendants.
+ * Callers report the changes either at relationship level
+ * ({@link #userRoleAdded(IUserRole)}, {@link #rolePermissionChanged}, ...)
+ * or at entity level ({@link #updateUser(IUser)}, {@link #updateRole(IRole)}),
+ * for instance when handling the mutation events of the users and roles DAOs;
+ * entity level updates are diffed against the known state.
+ * <p/>
+ * Readers never lock once a User's set has been computed: the immutable set
+ * of every User is published in a concurrent map and discarded by any change
+ * affecting it, then rebuilt from the counters on the next read. Writers are
+ * serialized.
+ * 
+ * @author Delcio Amarillo
+ * @see PermissionSnapshot
+ */
+public class EffectivePermissionsService {
+    
+    private final Object lock = new Object();
+    private final Map<BigInteger, Map<String, Set<Object>>> roleGrants = new HashMap<>();
+    private final Map<BigInteger, Set<BigInteger>> roleUsers = new HashMap<>();
+    private final Map<BigInteger, Set<BigInteger>> roleParents = new HashMap<>();
+    private final Map<BigInteger, Set<BigInteger>> roleChildren = new HashMap<>();
+    private final Map<BigInteger, Set<BigInteger>> userRoles = new HashMap<>();
+    private final Map<BigInteger, Map<String, int[]>> userCounts = new HashMap<>();
+    private final Map<BigInteger, Set<String>> published = new ConcurrentHashMap<>();
+    
+    /**
+     * Creates a new, empty {@code EffectivePermissionsService}.
+     */
+    public EffectivePermissionsService() {
+    }
+    
+    /**
+     * Creates a new {@code EffectivePermissionsService} loaded with the given
+     * Roles and Users.
+     * 
+     * @param roles The Roles.
+     * 
+     * @param users The Users.
+     */
+    public EffectivePermissionsService(Collection<? extends IRole> roles
+            , Collection<? extends IUser> users) {
+        load(roles, users);
+    }
+    
+    /**
+     * Discards the current state and loads the given Roles and Users. Roles
+     * reachable from the Users but absent from {@code roles} are loaded too.
+     * 
+     * @param roles The Roles.
+     * 
+     * @param users The Users.
+     */
+    public void load(Collection<? extends IRole> roles
+            , Collection<? extends IUser> users) {
+        synchronized (lock) {
+            roleGrants.clear();
+            roleUsers.clear();
+            roleParents.clear();
+            roleChildren.clear();
+            userRoles.clear();
+            userCounts.clear();
+            published.clear();
+            for (IRole role : roles) {
+                updateRole(role);
+            }
+            for (IUser user : users) {
+                updateUser(user);
+            }
+        }
+    }
+    
+    /**
+     * Discards the current state and loads all the Roles and Users provided
+     * by the given DAOs. If any DAO fails the current state is kept.
+     * 
+     * @param rolesDao The Roles DAO.
+     * 
+     * @param usersDao The Users DAO.
+     * 
+     * @throws ModelException When an error occurred during the request
+     * processing.
+     */
+    public void load(IRolesDao rolesDao, IUsersDao usersDao)
+            throws ModelException {
+        load(rolesDao.getAll(), usersDao.getAll());
+    }
+    
+    /**
+     * Returns the effective permission set of a given User.
+     * 
+     * @param user The User.
+     * 
+     * @return An unmodifiable set with the permission codes. Empty for
+     * {@code null} and unknown Users.
+     */
+    public Set<String> getEffectivePermissions(IUser user) {
+        return user == null ? Collections.<String>emptySet()
+                : getEffectivePermissions(user.getId());
+    }
+    
+    /**
+     * Returns the effective permission set of the User identified by a given
+     * primary key.
+     * 
+     * @param userId The User's primary key.
+     * 
+     * @return An unmodifiable set with the permission codes. Empty for
+     * {@code null} and unknown Users.
+     */
+    public Set<String> getEffectivePermissions(BigInteger userId) {
+        if (userId == null) {
+            return Collections.emptySet();
+        }
+        Set<String> permissions = published.get(userId);
+        if (permissions != null) {
+            return permissions;
+        }
+        synchronized (lock) {
+            Map<String, int[]> counts = userCounts.get(userId);
+            if (counts == null) {
+                return Collections.emptySet();
+            }
+            permissions = Collections.unmodifiableSet(new HashSet<>(counts.keySet()));
+            published.put(userId, permissions);
+            return permissions;
+        }
+    }
+    
+    /**
+     * Returns whether a given User holds a given Permission.
+     * 
+     * @param userId The User's primary key.
+     * 
+     * @param permissionCode The Permission's code.
+     * 
+     * @return {@code true} if the User holds the Permission, {@code false}
+     * otherwise.
+     */
+    public boolean hasPermission(BigInteger userId, String permissionCode) {
+        return getEffectivePermissions(userId).contains(permissionCode);
+    }
+    
+    /**
+     * Records the current state of a given User: its Roles are diffed
+     * against the known ones. Roles never seen before are recorded as well.
+     * 
+     * @param user The User. Ignored if {@code null} or without {@code id}.
+     */
+    public void updateUser(IUser user) {
+        if (user == null || user.getId() == null) {
+            return;
+        }
+        synchronized (lock) {
+            BigInteger userId = user.getId();
+            userCounts.computeIfAbsent(userId, id -> new HashMap<>());
+            Set<BigInteger> newRoles = new HashSet<>();
+            for (IRole role : DomainGraph.getRoles(user)) {
+                if (role.getId() != null) {
+                    if (!roleGrants.containsKey(role.getId())) {
+                        updateRole(role);
+                    }
+                    newRoles.add(role.getId());
+                }
+            }
+            Set<BigInteger> oldRoles = userRoles.get(userId);
+            if (oldRoles != null) {
+                for (BigInteger roleId : new ArrayList<>(oldRoles)) {
+                    if (!newRoles.contains(roleId)) {
+                        unassign(userId, roleId);
+                    }
+                }
+            }
+            for (BigInteger roleId : newRoles) {
+                assign(userId, roleId);
+            }
+            published.remove(userId);
+        }
+    }
+    
+    /**
+     * Forgets a given User.
+     * 
+     * @param userId The User's primary key.
+     */
+    public void removeUser(BigInteger userId) {
+        if (userId == null) {
+            return;
+        }
+        synchronized (lock) {
+            Set<BigInteger> roles = userRoles.get(userId);
+            if (roles != null) {
+                for (BigInteger roleId : new ArrayList<>(roles)) {
+                    unassign(userId, roleId);
+                }
+            }
+            userRoles.remove(userId);
+            userCounts.remove(userId);
+            published.remove(userId);
+        }
+    }
+    
+    /**
+     * Records the current state of a given Role: its enabled
+     * {@code IRolePermission} relationships and its parents are diffed
+     * against the known ones. Parents never seen before are recorded as
+     * well.
+     * 
+     * @param role The Role. Ignored if {@code null} or without {@code id}.
+     */
+    public void updateRole(IRole role) {
+        if (role == null || role.getId() == null) {
+            return;
+        }
+        synchronized (lock) {
+            BigInteger roleId = role.getId();
+            Map<String, Set<Object>> newGrants = new HashMap<>();
+            List<IRolePermission> rolePermissions = role.getRolePermissionsList();
+            if (rolePermissions != null) {
+                for (IRolePermission rolePermission : rolePermissions) {
+                    String code = DomainGraph.getEnabledPermissionCode(rolePermission);
+                    if (code != null) {
+                        newGrants.computeIfAbsent(code, c -> new HashSet<>())
+                                .add(keyOf(rolePermission));
+                    }
+                }
+            }
+            Map<String, Set<Object>> oldGrants = roleGrants.computeIfAbsent(roleId
+                    , id -> new HashMap<>());
+            for (Map.Entry<String, Set<Object>> entry : copy(oldGrants).entrySet()) {
+                Set<Object> keys = newGrants.get(entry.getKey());
+                for (Object key : entry.getValue()) {
+                    if (keys == null || !keys.contains(key)) {
+                        revoke(roleId, entry.getKey(), key);
+                    }
+                }
+            }
+            for (Map.Entry<String, Set<Object>> entry : newGrants.entrySet()) {
+                for (Object key : entry.getValue()) {
+                    grant(roleId, entry.getKey(), key);
+                }
+            }
+            List<IRole> parents = role.getParentRolesList();
+            if (parents != null) {
+                for (IRole parent : parents) {
+                    if (parent != null && parent.getId() != null
+                            && !roleGrants.containsKey(parent.getId())) {
+                        updateRole(parent);
+                    }
+                }
+            }
+            setParents(roleId, DomainGraph.getParentRoleIds(role));
+        }
+    }
+    
+    /**
+     * Forgets a given Role, revoking its Permissions, including the inherited
+     * ones, from all its Users and from the Users of its descendants. The
+     * descendants keep inheriting from the Role, should it be recorded
+     * again.
+     * 
+     * @param roleId The Role's primary key.
+     */
+    public void removeRole(BigInteger roleId) {
+        if (roleId == null) {
+            return;
+        }
+        synchronized (lock) {
+            Set<BigInteger> users = roleUsers.get(roleId);
+            if (users != null) {
+                for (BigInteger userId : new ArrayList<>(users)) {
+                    unassign(userId, roleId);
+                }
+            }
+            roleUsers.remove(roleId);
+            Map<String, Set<Object>> grants = roleGrants.get(roleId);
+            if (grants != null) {
+                for (Map.Entry<String, Set<Object>> entry : copy(grants).entrySet()) {
+                    for (Object key : entry.getValue()) {
+                        revoke(roleId, entry.getKey(), key);
+                    }
+                }
+            }
+            setParents(roleId, Collections.<BigInteger>emptySet());
+            roleGrants.remove(roleId);
+        }
+    }
+    
+    /**
+     * Records a new user-role relationship. The Role is recorded as well if
+     * it was never seen before.
+     * 
+     * @param userRole The relationship. Ignored if its User or Role are
+     * missing or have no {@code id}.
+     */
+    public void userRoleAdded(IUserRole userRole) {
+        BigInteger userId = userIdOf(userRole);
+        BigInteger roleId = roleIdOf(userRole == null ? null : userRole.getRole());
+        if (userId != null && roleId != null) {
+            synchronized (lock) {
+                if (!roleGrants.containsKey(roleId)) {
+                    updateRole(userRole.getRole());
+                }
+                userCounts.computeIfAbsent(userId, id -> new HashMap<>());
+                assign(userId, roleId);
+            }
+        }
+    }
+    
+    /**
+     * Records the removal of a user-role relationship.
+     * 
+     * @param userRole The relationship. Ignored if its User or Role are
+     * missing or have no {@code id}.
+     */
+    public void userRoleRemoved(IUserRole userRole) {
+        BigInteger userId = userIdOf(userRole);
+        BigInteger roleId = roleIdOf(userRole == null ? null : userRole.getRole());
+        if (userId != null && roleId != null) {
+            synchronized (lock) {
+                unassign(userId, roleId);
+            }
+        }
+    }
+    
+    /**
+     * Records a new role-permission relationship. Equivalent to
+     * {@link #rolePermissionChanged(IRolePermission)}.
+     * 
+     * @param rolePermission The relationship.
+     */
+    public void rolePermissionAdded(IRolePermission rolePermission) {
+        rolePermissionChanged(rolePermission);
+    }
+    
+    /**
+     * Records the current state of a role-permission relationship, typically
+     * after {@code setEnabled} has been invoked on it: an enabled relationship
+     * grants its Permission to the Users of its Role, a disabled one stops
+     * doing so.
+     * 
+     * @param rolePermission The relationship. Ignored if its Role or
+     * Permission are missing.
+     */
+    public void rolePermissionChanged(IRolePermission rolePermission) {
+        String code = codeOf(rolePermission);
+        BigInteger roleId = roleIdOf(rolePermission == null ? null : rolePermission.getRole());
+        if (code != null && roleId != null) {
+            synchronized (lock) {
+                if (Boolean.TRUE.equals(rolePermission.isEnabled())) {
+                    grant(roleId, code, keyOf(rolePermission));
+                } else {
+                    revoke(roleId, code, keyOf(rolePermission));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Records the removal of a role-permission relationship.
+     * 
+     * @param rolePermission The relationship. Ignored if its Role or
+     * Permission are missing.
+     */
+    public void rolePermissionRemoved(IRolePermission rolePermission) {
+        String code = codeOf(rolePermission);
+        BigInteger roleId = roleIdOf(rolePermission == null ? null : rolePermission.getRole());
+        if (code != null && roleId != null) {
+            synchronized (lock) {
+                revoke(roleId, code, keyOf(rolePermission));
+            }
+        }
+    }
+    
+    private void grant(BigInteger roleId, String code, Object key) {
+        Set<Object> keys = roleGrants.computeIfAbsent(roleId, id -> new HashMap<>())
+                .computeIfAbsent(code, c -> new HashSet<>());
+        if (keys.add(key) && keys.size() == 1) {
+            for (BigInteger inheritingId : inheriting(roleId)) {
+                for (BigInteger userId : usersOf(inheritingId)) {
+                    increment(userId, code);
+                }
+            }
+        }
+    }
+    
+    private void revoke(BigInteger roleId, String code, Object key) {
+        Map<String, Set<Object>> grants = roleGrants.get(roleId);
+        Set<Object> keys = grants == null ? null : grants.get(code);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            grants.remove(code);
+            for (BigInteger inheritingId : inheriting(roleId)) {
+                for (BigInteger userId : usersOf(inheritingId)) {
+                    decrement(userId, code);
+                }
+            }
+        }
+    }
+    
+    private void assign(BigInteger userId, BigInteger roleId) {
+        if (userRoles.computeIfAbsent(userId, id -> new HashSet<>()).add(roleId)) {
+            roleUsers.computeIfAbsent(roleId, id -> new HashSet<>()).add(userId);
+            count(userId, roleId, 1);
+        }
+    }
+    
+    private void unassign(BigInteger userId, BigInteger roleId) {
+        Set<BigInteger> roles = userRoles.get(userId);
+        if (roles != null && roles.remove(roleId)) {
+            Set<BigInteger> users = roleUsers.get(roleId);
+            if (users != null) {
+                users.remove(userId);
+            }
+            count(userId, roleId, -1);
+        }
+    }
+    
+    /**
+     * Replaces the parents of a Role. The Users of the Role and of its
+     * descendants stop counting the Permissions inherited through the old
+     * parents and start counting those inherited through the new ones.
+     */
+    private void setParents(BigInteger roleId, Set<BigInteger> parents) {
+        Set<BigInteger> oldParents = roleParents.getOrDefault(roleId
+                , Collections.<BigInteger>emptySet());
+        if (oldParents.equals(parents)) {
+            return;
+        }
+        Set<BigInteger> affected = inheriting(roleId);
+        for (BigInteger affectedId : affected) {
+            for (BigInteger userId : usersOf(affectedId)) {
+                count(userId, affectedId, -1);
+            }
+        }
+        for (BigInteger parentId : oldParents) {
+            Set<BigInteger> children = roleChildren.get(parentId);
+            if (children != null && children.remove(roleId) && children.isEmpty()) {
+                roleChildren.remove(parentId);
+            }
+        }
+        for (BigInteger parentId : parents) {
+            roleChildren.computeIfAbsent(parentId, id -> new HashSet<>()).add(roleId);
+        }
+        if (parents.isEmpty()) {
+            roleParents.remove(roleId);
+        } else {
+            roleParents.put(roleId, new HashSet<>(parents));
+        }
+        for (BigInteger affectedId : affected) {
+            for (BigInteger userId : usersOf(affectedId)) {
+                count(userId, affectedId, 1);
+            }
+        }
+    }
+    
+    /**
+     * Adds or subtracts the Permissions a User holds through a given Role,
+     * i.e.: those granted to the Role or to any of its ancestors.
+     */
+    private void count(BigInteger userId, BigInteger roleId, int delta) {
+        for (BigInteger grantingId : inherited(roleId)) {
+            Map<String, Set<Object>> grants = roleGrants.get(grantingId);
+            if (grants != null) {
+                for (String code : grants.keySet()) {
+                    if (delta > 0) {
+                        increment(userId, code);
+                    } else {
+                        decrement(userId, code);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Returns a given Role along with its ancestors.
+     */
+    private Set<BigInteger> inherited(BigInteger roleId) {
+        return closure(roleId, roleParents);
+    }
+    
+    /**
+     * Returns a given Role along with its descendants.
+     */
+    private Set<BigInteger> inheriting(BigInteger roleId) {
+        return closure(roleId, roleChildren);
+    }
+    
+    private static Set<BigInteger> closure(BigInteger roleId
+            , Map<BigInteger, Set<BigInteger>> edges) {
+        Set<BigInteger> closure = new LinkedHashSet<>();
+        Deque<BigInteger> pending = new ArrayDeque<>();
+        closure.add(roleId);
+        pending.add(roleId);
+        while (!pending.isEmpty()) {
+            Set<BigInteger> next = edges.get(pending.poll());
+            if (next != null) {
+                for (BigInteger id : next) {
+                    if (closure.add(id)) {
+                        pending.add(id);
+                    }
+                }
+            }
+        }
+        return closure;
+    }
+    
+    private void increment(BigInteger userId, String code) {
+        userCounts.computeIfAbsent(userId, id -> new HashMap<>())
+                .computeIfAbsent(code, c -> new int[1])[0]++;
+        published.remove(userId);
+    }
+    
+    private void decrement(BigInteger userId, String code) {
+        Map<String, int[]> counts = userCounts.get(userId);
+        int[] count = counts == null ? null : counts.get(code);
+        if (count != null && --count[0] == 0) {
+            counts.remove(code);
+        }
+        published.remove(userId);
+    }
+    
+    private Set<BigInteger> usersOf(BigInteger roleId) {
+        Set<BigInteger> users = roleUsers.get(roleId);
+        return users == null ? Collections.<BigInteger>emptySet() : users;
+    }
+    
+    private static Map<String, Set<Object>> copy(Map<String, Set<Object>> grants) {
+        Map<String, Set<Object>> copy = new HashMap<>();
+        for (Map.Entry<String, Set<Object>> entry : grants.entrySet()) {
+            copy.put(entry.getKey(), new LinkedHashSet<>(entry.getValue()));
+        }
+        return copy;
+    }
+    
+    private static Object keyOf(IRolePermission rolePermission) {
+        return rolePermission.getId() != null ? rolePermission.getId() : rolePermission;
+    }
+    
+    private static String codeOf(IRolePermission rolePermission) {
+        IPermission permission = rolePermission == null ? null : rolePermission.getPermission();
+        return permission == null ? null : permission.getCode();
+    }
+    
+    private static BigInteger roleIdOf(IRole role) {
+        return role == null ? null : role.getId();
+    }
+    
+    private static BigInteger userIdOf(IUserRole userRole) {
+        IUser user = userRole == null ? null : userRole.getUser();
+        return user == null ? null : user.getId();
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.authorization;
+
+import com.openums.commons.domain.Identifiers;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only view of the authorization model, i.e.: the Modules, Permissions
+ * and Roles and the Permissions granted by every Role through enabled
+ * {@code IRolePermission} relationships. Entities are identified by their
+ * primitive primary key and looked up by code, so implementations can serve
+ * the model from compact structures (such as a memory-mapped file) without
+ * materializing domain objects.
+ * <p/>
+ * Besides the Permissions granted to every Role directly, the model records
+ * the parents of every Role, and a Role grants the Permissions granted by its
+ * ancestors as well. {@link #getRolePermissionIds(long)} and
+ * {@link #roleHasPermission(long, long)} answer with the inherited grants
+ * included, like {@code PermissionSnapshot} and
+ * {@code IRolesDao.roleHasPermission} do. Cycles are tolerated: a Role never
+ * inherits from itself.
+ * <p/>
+ * Implementations must be safe to read from several threads at once.
+ * 
+ * @author Delcio Amarillo
+ * @see MappedAuthorizationModel
+ * @see AuthorizationModel
+ */
+public interface IAuthorizationModel {
+    
+    /**
+     * Returns the primary key of the Module with a given code.
+     * 
+     * @param code The Module's code.
+     * 
+     * @return The primary key or {@code Identifiers.NO_ID} if there's none.
+     */
+    public long getModuleId(String code);
+    
+    /**
+     * Returns the primary key of the Permission with a given code.
+     * 
+     * @param code The Permission's code.
+     * 
+     * @return The primary key or {@code Identifiers.NO_ID} if there's none.
+     */
+    public long getPermissionId(String code);
+    
+    /**
+     * Returns the primary key of the Role with a given code.
+     * 
+     * @param code The Role's code.
+     * 
+     * @return The primary key or {@code Identifiers.NO_ID} if there's none.
+     */
+    public long getRoleId(String code);
+    
+    /**
+     * Returns the code of the Module with a given primary key.
+     * 
+     * @param moduleId The Module's primary key.
+     * 
+     * @return The code or {@code null} if there's no such Module.
+     */
+    public String getModuleCode(long moduleId);
+    
+    /**
+     * Returns the code of the Permission with a given primary key.
+     * 
+     * @param permissionId The Permission's primary key.
+     * 
+     * @return The code or {@code null} if there's no such Permission.
+     */
+    public String getPermissionCode(long permissionId);
+    
+    /**
+     * Returns the code of the Role with a given primary key.
+     * 
+     * @param roleId The Role's primary key.
+     * 
+     * @return The code or {@code null} if there's no such Role.
+     */
+    public String getRoleCode(long roleId);
+    
+    /**
+     * Returns the primary key of the Module a given Permission belongs to.
+     * 
+     * @param permissionId The Permission's primary key.
+     * 
+     * @return The Module's primary key or {@code Identifiers.NO_ID}.
+     */
+    public long getPermissionModuleId(long permissionId);
+    
+    /**
+     * Returns the primary key of the Module a given Role belongs to.
+     * 
+     * @param roleId The Role's primary key.
+     * 
+     * @return The Module's primary key or {@code Identifiers.NO_ID}.
+     */
+    public long getRoleModuleId(long roleId);
+    
+    /**
+     * Returns the primary keys of the Permissions granted by a given Role
+     * directly, i.e.: through its own enabled role-permission relationships.
+     * 
+     * @param roleId The Role's primary key.
+     * 
+     * @return A new array sorted in ascending order. Empty if the Role is
+     * unknown.
+     */
+    public long[] getRoleDirectPermissionIds(long roleId);
+    
+    /**
+     * Returns the primary keys of the parents of a given Role.
+     * 
+     * @param roleId The Role's primary key.
+     * 
+     * @return A new array sorted in ascending order. Empty if the Role is
+     * unknown or has no parents.
+     */
+    public long[] getRoleParentIds(long roleId);
+    
+    /**
+     * Returns the primary keys of the ancestors of a given Role, i.e.: its
+     * parents and, transitively, theirs.
+     * 
+     * @param roleId The Role's primary key.
+     * 
+     * @return A new array sorted in ascending order, without the Role itself.
+     */
+    public default long[] getAncestorRoleIds(long roleId) {
+        return InheritanceSupport.ancestors(roleId, this::getRoleParentIds);
+    }
+    
+    /**
+     * Returns the primary keys of the Permissions granted by a given Role,
+     * directly or through its ancestors.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation merges the
+     * direct Permissions of the Role and of every ancestor.
+     * 
+     * @param roleId The Role's primary key.
+     * 
+     * @return A new array sorted in ascending order. Empty if the Role is
+     * unknown.
+     */
+    public default long[] getRolePermissionIds(long roleId) {
+        return InheritanceSupport.permissions(roleId, this::getRoleParentIds
+                , this::getRoleDirectPermissionIds);
+    }
+    
+    /**
+     * Returns whether a given Role grants a given Permission, directly or
+     * through its ancestors.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation searches the
+     * direct Permissions of the Role and then of its ancestors, until one of
+     * them grants the Permission.
+     * 
+     * @param roleId The Role's primary key.
+     * 
+     * @param permissionId The Permission's primary key.
+     * 
+     * @return {@code true} if the Role grants the Permission, {@code false}
+     * otherwise.
+     */
+    public default boolean roleHasPermission(long roleId, long permissionId) {
+        return InheritanceSupport.hasPermission(roleId, this::getRoleParentIds
+                , id -> Arrays.binarySearch(getRoleDirectPermissionIds(id), permissionId) >= 0);
+    }
+    
+    /**
+     * Returns the primary keys of all the Modules.
+     * 
+     * @return A new array sorted in ascending order.
+     */
+    public long[] getAllModuleIds();
+    
+    /**
+     * Returns the primary keys of all the Permissions.
+     * 
+     * @return A new array sorted in ascending order.
+     */
+    public long[] getAllPermissionIds();
+    
+    /**
+     * Returns the primary keys of all the Roles.
+     * 
+     * @return A new array sorted in ascending order.
+     */
+    public long[] getAllRoleIds();
+    
+    /**
+     * Returns whether a given Role grants the Permission with a given code,
+     * directly or through its ancestors.
+     * 
+     * @param roleId The Role's primary key.
+     * 
+     * @param permissionCode The Permission's code.
+     * 
+     * @return {@code true} if the Role grants the Permission, {@code false}
+     * otherwise.
+     */
+    public default boolean roleHasPermission(long roleId, String permissionCode) {
+        long permissionId = getPermissionId(permissionCode);
+        return permissionId != Identifiers.NO_ID && roleHasPermission(roleId, permissionId);
+    }
+    
+    /**
+     * Returns the codes of the Permissions granted by a given Role, directly
+     * or through its ancestors.
+     * 
+     * @param roleId The Role's primary key.
+     * 
+     * @return A new list with the codes, in Permission primary key order.
+     */
+    public default List<String> getRolePermissionCodes(long roleId) {
+        long[] permissionIds = getRolePermissionIds(roleId);
+        List<String> codes = new ArrayList<>(permissionIds.length);
+        for (long permissionId : permissionIds) {
+            String code = getPermissionCode(permissionId);
+            if (code != null) {
+                codes.add(code);
+            }
+        }
+        return codes;
+    }
+}
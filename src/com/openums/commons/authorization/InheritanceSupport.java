@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.authorization;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+
+/**
+ * Walks of the Role hierarchy of an authorization model, shared by the
+ * default and the optimized implementations of {@code IAuthorizationModel}.
+ * The hierarchy is described by a function returning the parents of a Role.
+ * Cycles are tolerated: the walks visit every Role once and a Role is never
+ * its own ancestor.
+ * 
+ * @author Delcio Amarillo
+ */
+final class InheritanceSupport {
+    
+    private InheritanceSupport() {
+    }
+    
+    /**
+     * Returns the ancestors of a Role.
+     * 
+     * @param roleId The Role's primary key.
+     * 
+     * @param parents The parents of every Role.
+     * 
+     * @return A new array sorted in ascending order.
+     */
+    static long[] ancestors(long roleId, LongFunction<long[]> parents) {
+        Set<Long> ancestors = new HashSet<>();
+        Deque<Long> pending = new ArrayDeque<>();
+        pending.add(roleId);
+        while (!pending.isEmpty()) {
+            for (long parentId : parents.apply(pending.poll())) {
+                if (parentId != roleId && ancestors.add(parentId)) {
+                    pending.add(parentId);
+                }
+            }
+        }
+        long[] ids = new long[ancestors.size()];
+        int count = 0;
+        for (Long id : ancestors) {
+            ids[count++] = id;
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+    
+    /**
+     * Returns the Permissions a Role grants directly or inherits from its
+     * ancestors.
+     * 
+     * @param roleId The Role's primary key.
+     * 
+     * @param parents The parents of every Role.
+     * 
+     * @param permissions The Permissions granted directly by every Role.
+     * 
+     * @return A new array sorted in ascending order, without duplicates.
+     */
+    static long[] permissions(long roleId, LongFunction<long[]> parents
+            , LongFunction<long[]> permissions) {
+        long[] ids = permissions.apply(roleId);
+        long[] ancestors = ancestors(roleId, parents);
+        if (ancestors.length == 0) {
+            return ids.clone();
+        }
+        for (long ancestorId : ancestors) {
+            long[] inherited = permissions.apply(ancestorId);
+            int length = ids.length;
+            ids = Arrays.copyOf(ids, length + inherited.length);
+            System.arraycopy(inherited, 0, ids, length, inherited.length);
+        }
+        Arrays.sort(ids);
+        int distinct = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (distinct == 0 || ids[distinct - 1] != ids[i]) {
+                ids[distinct++] = ids[i];
+            }
+        }
+        return Arrays.copyOf(ids, distinct);
+    }
+    
+    /**
+     * Returns whether a Role or one of its ancestors grants a Permission
+     * directly. The ancestors are only visited until one grants it.
+     * 
+     * @param roleId The Role's primary key.
+     * 
+     * @param parents The parents of every Role.
+     * 
+     * @param grants Whether a Role grants the Permission directly.
+     * 
+     * @return {@code true} if the Role grants or inherits the Permission.
+     */
+    static boolean hasPermission(long roleId, LongFunction<long[]> parents
+            , LongPredicate grants) {
+        if (grants.test(roleId)) {
+            return true;
+        }
+        Set<Long> visited = new HashSet<>();
+        Deque<Long> pending = new ArrayDeque<>();
+        visited.add(roleId);
+        pending.add(roleId);
+        while (!pending.isEmpty()) {
+            for (long parentId : parents.apply(pending.poll())) {
+                if (visited.add(parentId)) {
+                    if (grants.test(parentId)) {
+                        return true;
+                    }
+                    pending.add(parentId);
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,912 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.authorization;
+
+import com.openums.commons.domain.DomainGraph;
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.IPermission;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IRolePermission;
+import com.openums.commons.domain.Identifiers;
+import com.openums.commons.model.IModulesDao;
+import com.openums.commons.model.IPermissionsDao;
+import com.openums.commons.model.IRolesDao;
+import com.openums.commons.model.ModelException;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * {@code IAuthorizationModel} served straight from a memory-mapped snapshot
+ * file, so a node boots by mapping the file instead of loading every Module,
+ * Permission and Role through the DAOs. Opening a snapshot validates its
+ * header, the checksum of its body and that every count and offset stays
+ * within the file; lookups then binary search the mapped region and only
+ * allocate the strings they return.
+ * <p/>
+ * The file holds a 64 byte header (magic {@code "OUAS"}, format version,
+ * creation time, body length, CRC32 of the body and the entity counts)
+ * followed by the body: one table of 48 byte records per entity type sorted
+ * by primary key, one index per table sorted by the UTF-8 bytes of the codes,
+ * the Permission ids granted directly by each Role, the parent ids of each
+ * Role, the Permission ids each Role holds directly or through inheritance
+ * and the string heap. The inherited Permissions are resolved when the
+ * snapshot is written, so {@link #roleHasPermission(long, long)} is a single
+ * binary search whatever the depth of the hierarchy. Snapshots are
+ * written to a temporary file which is then atomically moved in place, so
+ * readers never observe a partially written snapshot.
+ * <p/>
+ * A snapshot is immutable. Changes applied after it was written are layered
+ * on top of it by {@code AuthorizationModel}, which also writes new
+ * snapshots. Primary keys must fit in a {@code long}.
+ * 
+ * @author Delcio Amarillo
+ * @see AuthorizationModel
+ */
+public final class MappedAuthorizationModel implements IAuthorizationModel {
+    
+    /**
+     * First four bytes of every snapshot file: {@code "OUAS"}.
+     */
+    public static final int MAGIC = 0x4F554153;
+    
+    /**
+     * Version of the format written by this class. Version 2 added the
+     * parents of every Role and version 3 the Permissions every Role holds
+     * through inheritance; snapshots written with an older version are
+     * rejected and must be written again.
+     */
+    public static final int VERSION = 3;
+    
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 48;
+    private static final int ID = 0;
+    private static final int CODE_OFFSET = 8;
+    private static final int CODE_LENGTH = 12;
+    private static final int MODULE_ID = 16;
+    private static final int LINKS_START = 24;
+    private static final int LINKS_COUNT = 28;
+    private static final int PARENTS_START = 32;
+    private static final int PARENTS_COUNT = 36;
+    private static final int EFFECTIVE_START = 40;
+    private static final int EFFECTIVE_COUNT = 44;
+    
+    private static final Comparator<Entry> BY_ID = Comparator.comparingLong(e -> e.id);
+    
+    /**
+     * A Module, Permission or Role about to be written.
+     */
+    static final class Entry {
+        
+        final long id;
+        final String code;
+        final long moduleId;
+        final long[] permissionIds;
+        final long[] parentIds;
+        
+        Entry(long id, String code, long moduleId, long[] permissionIds
+                , long[] parentIds) {
+            this.id = id;
+            this.code = code;
+            this.moduleId = moduleId;
+            this.permissionIds = permissionIds;
+            this.parentIds = parentIds;
+        }
+    }
+    
+    /**
+     * Table of records of a single entity type within the mapped region.
+     */
+    private final class Table {
+        
+        private final int offset;
+        private final int count;
+        private final int codeIndexOffset;
+        
+        private Table(int offset, int count, int codeIndexOffset) {
+            this.offset = offset;
+            this.count = count;
+            this.codeIndexOffset = codeIndexOffset;
+        }
+        
+        private int findById(long id) {
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                long middleId = buffer.getLong(record(middle) + ID);
+                if (middleId < id) {
+                    low = middle + 1;
+                } else if (middleId > id) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -1;
+        }
+        
+        private int findByCode(String code) {
+            if (code == null) {
+                return -1;
+            }
+            byte[] key = code.getBytes(StandardCharsets.UTF_8);
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int index = buffer.getInt(codeIndexOffset + middle * 4);
+                int comparison = compareCode(record(index), key);
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle - 1;
+                } else {
+                    return index;
+                }
+            }
+            return -1;
+        }
+        
+        private int record(int index) {
+            return offset + index * RECORD_SIZE;
+        }
+        
+        private long id(String code) {
+            int index = findByCode(code);
+            return index < 0 ? Identifiers.NO_ID : buffer.getLong(record(index) + ID);
+        }
+        
+        private String code(long id) {
+            int index = findById(id);
+            return index < 0 ? null : readCode(record(index));
+        }
+        
+        private long moduleId(long id) {
+            int index = findById(id);
+            return index < 0 ? Identifiers.NO_ID : buffer.getLong(record(index) + MODULE_ID);
+        }
+        
+        private long[] ids() {
+            long[] ids = new long[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = buffer.getLong(record(i) + ID);
+            }
+            return ids;
+        }
+    }
+    
+    private final ByteBuffer buffer;
+    private final long createdAt;
+    private final Table modules;
+    private final Table permissions;
+    private final Table roles;
+    private final int linksOffset;
+    private final int parentsOffset;
+    private final int effectiveOffset;
+    private final int stringsOffset;
+    
+    private MappedAuthorizationModel(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.createdAt = buffer.getLong(8);
+        int moduleCount = buffer.getInt(32);
+        int permissionCount = buffer.getInt(36);
+        int roleCount = buffer.getInt(40);
+        int linkCount = buffer.getInt(44);
+        int parentCount = buffer.getInt(48);
+        int effectiveCount = buffer.getInt(52);
+        int offset = HEADER_SIZE;
+        int modulesOffset = offset;
+        offset += moduleCount * RECORD_SIZE;
+        int permissionsOffset = offset;
+        offset += permissionCount * RECORD_SIZE;
+        int rolesOffset = offset;
+        offset += roleCount * RECORD_SIZE;
+        this.modules = new Table(modulesOffset, moduleCount, offset);
+        offset += moduleCount * 4;
+        this.permissions = new Table(permissionsOffset, permissionCount, offset);
+        offset += permissionCount * 4;
+        this.roles = new Table(rolesOffset, roleCount, offset);
+        offset += roleCount * 4;
+        this.linksOffset = align(offset);
+        this.parentsOffset = linksOffset + linkCount * 8;
+        this.effectiveOffset = parentsOffset + parentCount * 8;
+        this.stringsOffset = effectiveOffset + effectiveCount * 8;
+    }
+    
+    /**
+     * Maps a snapshot file and validates it.
+     * 
+     * @param file The snapshot file.
+     * 
+     * @return The mapped model.
+     * 
+     * @throws IOException If the file cannot be read, is not a snapshot,
+     * was written by an unsupported version or is corrupted.
+     */
+    public static MappedAuthorizationModel open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid snapshot size: " + size);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not an authorization snapshot: " + file);
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException("Unsupported snapshot version: " + buffer.getInt(4));
+            }
+            if (buffer.getLong(16) != size - HEADER_SIZE) {
+                throw new IOException("Truncated snapshot: " + file);
+            }
+            ByteBuffer body = buffer.duplicate();
+            body.position(HEADER_SIZE);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if (crc.getValue() != buffer.getLong(24)) {
+                throw new IOException("Snapshot checksum mismatch: " + file);
+            }
+            // The counts are outside the checksummed body.
+            String problem = checkCounts(buffer);
+            if (problem != null) {
+                throw new IOException("Corrupted snapshot, " + problem + ": " + file);
+            }
+            MappedAuthorizationModel model = new MappedAuthorizationModel(buffer);
+            problem = model.checkRecords();
+            if (problem != null) {
+                throw new IOException("Corrupted snapshot, " + problem + ": " + file);
+            }
+            return model;
+        }
+    }
+    
+    /**
+     * Writes a snapshot of the given Modules, Permissions and Roles. The
+     * Modules and Permissions reachable from the Roles and Permissions, and
+     * the ancestors of the Roles, are written as well. Objects without
+     * {@code id} are ignored.
+     * 
+     * @param file The snapshot file. Replaced atomically if it exists.
+     * 
+     * @param modules The Modules.
+     * 
+     * @param permissions The Permissions.
+     * 
+     * @param roles The Roles.
+     * 
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(Path file, Collection<? extends IModule> modules
+            , Collection<? extends IPermission> permissions
+            , Collection<? extends IRole> roles) throws IOException {
+        Map<Long, Entry> moduleEntries = new TreeMap<>();
+        Map<Long, Entry> permissionEntries = new TreeMap<>();
+        Map<Long, Entry> roleEntries = new TreeMap<>();
+        for (IModule module : modules) {
+            addModule(module, moduleEntries);
+        }
+        for (IPermission permission : permissions) {
+            addPermission(permission, permissionEntries, moduleEntries);
+        }
+        Deque<IRole> pending = new ArrayDeque<>();
+        addRoles(roles, pending);
+        while (!pending.isEmpty()) {
+            IRole role = pending.poll();
+            Entry entry = toEntry(role);
+            if (entry == null || roleEntries.containsKey(entry.id)) {
+                continue;
+            }
+            addModule(role.getModule(), moduleEntries);
+            List<IRolePermission> rolePermissions = role.getRolePermissionsList();
+            if (rolePermissions != null) {
+                for (IRolePermission rolePermission : rolePermissions) {
+                    if (DomainGraph.getEnabledPermissionCode(rolePermission) != null) {
+                        addPermission(rolePermission.getPermission()
+                                , permissionEntries, moduleEntries);
+                    }
+                }
+            }
+            roleEntries.put(entry.id, entry);
+            List<IRole> parents = role.getParentRolesList();
+            if (parents != null) {
+                addRoles(parents, pending);
+            }
+        }
+        write(file, new ArrayList<>(moduleEntries.values())
+                , new ArrayList<>(permissionEntries.values())
+                , new ArrayList<>(roleEntries.values()));
+    }
+    
+    /**
+     * Writes a snapshot of all the Modules, Permissions and Roles provided by
+     * the given DAOs.
+     * 
+     * @param file The snapshot file. Replaced atomically if it exists.
+     * 
+     * @param modulesDao The Modules DAO.
+     * 
+     * @param permissionsDao The Permissions DAO.
+     * 
+     * @param rolesDao The Roles DAO.
+     * 
+     * @throws ModelException When an error occurred while reading the DAOs.
+     * 
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(Path file, IModulesDao modulesDao
+            , IPermissionsDao permissionsDao, IRolesDao rolesDao)
+            throws ModelException, IOException {
+        write(file, modulesDao.getAll(), permissionsDao.getAll(), rolesDao.getAll());
+    }
+    
+    /**
+     * Writes a snapshot of a given model.
+     * 
+     * @param file The snapshot file. Replaced atomically if it exists.
+     * 
+     * @param model The model.
+     * 
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(Path file, IAuthorizationModel model) throws IOException {
+        List<Entry> moduleEntries = new ArrayList<>();
+        for (long id : model.getAllModuleIds()) {
+            moduleEntries.add(new Entry(id, model.getModuleCode(id), Identifiers.NO_ID
+                    , null, null));
+        }
+        List<Entry> permissionEntries = new ArrayList<>();
+        for (long id : model.getAllPermissionIds()) {
+            permissionEntries.add(new Entry(id, model.getPermissionCode(id)
+                    , model.getPermissionModuleId(id), null, null));
+        }
+        List<Entry> roleEntries = new ArrayList<>();
+        for (long id : model.getAllRoleIds()) {
+            roleEntries.add(new Entry(id, model.getRoleCode(id)
+                    , model.getRoleModuleId(id), model.getRoleDirectPermissionIds(id)
+                    , model.getRoleParentIds(id)));
+        }
+        write(file, moduleEntries, permissionEntries, roleEntries);
+    }
+    
+    /**
+     * Returns the time this snapshot was written.
+     * 
+     * @return The creation time in milliseconds since the epoch.
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+    
+    /**
+     * Returns the number of Modules in this snapshot.
+     * 
+     * @return The number of Modules.
+     */
+    public int getModulesCount() {
+        return modules.count;
+    }
+    
+    /**
+     * Returns the number of Permissions in this snapshot.
+     * 
+     * @return The number of Permissions.
+     */
+    public int getPermissionsCount() {
+        return permissions.count;
+    }
+    
+    /**
+     * Returns the number of Roles in this snapshot.
+     * 
+     * @return The number of Roles.
+     */
+    public int getRolesCount() {
+        return roles.count;
+    }
+    
+    @Override
+    public long getModuleId(String code) {
+        return modules.id(code);
+    }
+    
+    @Override
+    public long getPermissionId(String code) {
+        return permissions.id(code);
+    }
+    
+    @Override
+    public long getRoleId(String code) {
+        return roles.id(code);
+    }
+    
+    @Override
+    public String getModuleCode(long moduleId) {
+        return modules.code(moduleId);
+    }
+    
+    @Override
+    public String getPermissionCode(long permissionId) {
+        return permissions.code(permissionId);
+    }
+    
+    @Override
+    public String getRoleCode(long roleId) {
+        return roles.code(roleId);
+    }
+    
+    @Override
+    public long getPermissionModuleId(long permissionId) {
+        return permissions.moduleId(permissionId);
+    }
+    
+    @Override
+    public long getRoleModuleId(long roleId) {
+        return roles.moduleId(roleId);
+    }
+    
+    @Override
+    public long[] getRoleDirectPermissionIds(long roleId) {
+        return readIds(roleId, LINKS_START, LINKS_COUNT, linksOffset);
+    }
+    
+    @Override
+    public long[] getRoleParentIds(long roleId) {
+        return readIds(roleId, PARENTS_START, PARENTS_COUNT, parentsOffset);
+    }
+    
+    /**
+     * Reads the Permissions resolved when the snapshot was written.
+     */
+    @Override
+    public long[] getRolePermissionIds(long roleId) {
+        return readIds(roleId, EFFECTIVE_START, EFFECTIVE_COUNT, effectiveOffset);
+    }
+    
+    /**
+     * Binary searches the Permissions resolved when the snapshot was written.
+     */
+    @Override
+    public boolean roleHasPermission(long roleId, long permissionId) {
+        return holds(roleId, permissionId);
+    }
+    
+    private long[] readIds(long roleId, int startField, int countField, int regionOffset) {
+        int index = roles.findById(roleId);
+        if (index < 0) {
+            return new long[0];
+        }
+        int record = roles.record(index);
+        int start = buffer.getInt(record + startField);
+        long[] ids = new long[buffer.getInt(record + countField)];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = buffer.getLong(regionOffset + (start + i) * 8);
+        }
+        return ids;
+    }
+    
+    private boolean holds(long roleId, long permissionId) {
+        int index = roles.findById(roleId);
+        if (index < 0) {
+            return false;
+        }
+        int record = roles.record(index);
+        int low = buffer.getInt(record + EFFECTIVE_START);
+        int high = low + buffer.getInt(record + EFFECTIVE_COUNT) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleId = buffer.getLong(effectiveOffset + middle * 8);
+            if (middleId < permissionId) {
+                low = middle + 1;
+            } else if (middleId > permissionId) {
+                high = middle - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    @Override
+    public long[] getAllModuleIds() {
+        return modules.ids();
+    }
+    
+    @Override
+    public long[] getAllPermissionIds() {
+        return permissions.ids();
+    }
+    
+    @Override
+    public long[] getAllRoleIds() {
+        return roles.ids();
+    }
+    
+    /**
+     * Validates the entity counts of the header against the size of the
+     * buffer.
+     * 
+     * @return A description of the first problem found or {@code null}.
+     */
+    private static String checkCounts(ByteBuffer buffer) {
+        long size = HEADER_SIZE;
+        for (int position = 32; position <= 52; position += 4) {
+            int count = buffer.getInt(position);
+            if (count < 0) {
+                return "negative count at offset " + position;
+            }
+            size += (position < 44 ? RECORD_SIZE + 4L : 8L) * count;
+            if (position == 40) {
+                size = (size + 7) & ~7L;
+            }
+        }
+        return size > buffer.limit() ? "the counts exceed the file size" : null;
+    }
+    
+    /**
+     * Validates the code index and the offsets of every record against the
+     * regions they point into.
+     * 
+     * @return A description of the first problem found or {@code null}.
+     */
+    private String checkRecords() {
+        int stringsSize = buffer.limit() - stringsOffset;
+        for (Table table : Arrays.asList(modules, permissions, roles)) {
+            for (int i = 0; i < table.count; i++) {
+                int index = buffer.getInt(table.codeIndexOffset + i * 4);
+                if (index < 0 || index >= table.count) {
+                    return "invalid code index entry " + index;
+                }
+                int record = table.record(i);
+                int offset = buffer.getInt(record + CODE_OFFSET);
+                int length = buffer.getInt(record + CODE_LENGTH);
+                if (length != -1 && !fits(offset, length, stringsSize)) {
+                    return "code out of bounds in record " + buffer.getLong(record + ID);
+                }
+            }
+        }
+        int linkCount = (parentsOffset - linksOffset) / 8;
+        int parentCount = (effectiveOffset - parentsOffset) / 8;
+        int effectiveCount = (stringsOffset - effectiveOffset) / 8;
+        for (int i = 0; i < roles.count; i++) {
+            int record = roles.record(i);
+            if (!fits(buffer.getInt(record + LINKS_START)
+                    , buffer.getInt(record + LINKS_COUNT), linkCount)
+                    || !fits(buffer.getInt(record + PARENTS_START)
+                    , buffer.getInt(record + PARENTS_COUNT), parentCount)
+                    || !fits(buffer.getInt(record + EFFECTIVE_START)
+                    , buffer.getInt(record + EFFECTIVE_COUNT), effectiveCount)) {
+                return "links out of bounds in Role " + buffer.getLong(record + ID);
+            }
+        }
+        return null;
+    }
+    
+    private String readCode(int record) {
+        int length = buffer.getInt(record + CODE_LENGTH);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        int offset = stringsOffset + buffer.getInt(record + CODE_OFFSET);
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private int compareCode(int record, byte[] key) {
+        int length = buffer.getInt(record + CODE_LENGTH);
+        if (length < 0) {
+            return -1;
+        }
+        int offset = stringsOffset + buffer.getInt(record + CODE_OFFSET);
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int comparison = (buffer.get(offset + i) & 0xFF) - (key[i] & 0xFF);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return length - key.length;
+    }
+    
+    static void write(Path file, List<Entry> moduleEntries
+            , List<Entry> permissionEntries, List<Entry> roleEntries)
+            throws IOException {
+        List<List<Entry>> tables = Arrays.asList(moduleEntries, permissionEntries, roleEntries);
+        int linkCount = 0;
+        int parentCount = 0;
+        int effectiveCount = 0;
+        for (List<Entry> entries : tables) {
+            entries.sort(BY_ID);
+        }
+        Map<Long, Entry> rolesById = new HashMap<>();
+        for (Entry role : roleEntries) {
+            rolesById.put(role.id, role);
+        }
+        long[][] effectiveIds = new long[roleEntries.size()][];
+        for (int i = 0; i < effectiveIds.length; i++) {
+            Entry role = roleEntries.get(i);
+            effectiveIds[i] = InheritanceSupport.permissions(role.id
+                    , id -> ids(rolesById.get(id), true), id -> ids(rolesById.get(id), false));
+            linkCount += ids(role, false).length;
+            parentCount += ids(role, true).length;
+            effectiveCount += effectiveIds[i].length;
+        }
+        StringHeap strings = new StringHeap();
+        int records = moduleEntries.size() + permissionEntries.size() + roleEntries.size();
+        int indexesEnd = HEADER_SIZE + records * (RECORD_SIZE + 4);
+        int linksOffset = align(indexesEnd);
+        int parentsOffset = linksOffset + linkCount * 8;
+        int effectiveOffset = parentsOffset + parentCount * 8;
+        int stringsOffset = effectiveOffset + effectiveCount * 8;
+        int[][] codes = new int[records][];
+        int r = 0;
+        for (List<Entry> entries : tables) {
+            for (Entry entry : entries) {
+                codes[r++] = strings.add(entry.code);
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(stringsOffset + strings.size);
+        int record = HEADER_SIZE;
+        int link = 0;
+        int parentLink = 0;
+        int effectiveLink = 0;
+        int roleIndex = 0;
+        r = 0;
+        for (List<Entry> entries : tables) {
+            for (Entry entry : entries) {
+                buffer.putLong(record + ID, entry.id);
+                buffer.putInt(record + CODE_OFFSET, codes[r][0]);
+                buffer.putInt(record + CODE_LENGTH, codes[r][1]);
+                buffer.putLong(record + MODULE_ID, entry.moduleId);
+                if (entry.permissionIds != null) {
+                    long[] permissionIds = entry.permissionIds.clone();
+                    Arrays.sort(permissionIds);
+                    buffer.putInt(record + LINKS_START, link);
+                    buffer.putInt(record + LINKS_COUNT, permissionIds.length);
+                    for (long permissionId : permissionIds) {
+                        buffer.putLong(linksOffset + link++ * 8, permissionId);
+                    }
+                }
+                if (entry.parentIds != null) {
+                    long[] parentIds = entry.parentIds.clone();
+                    Arrays.sort(parentIds);
+                    buffer.putInt(record + PARENTS_START, parentLink);
+                    buffer.putInt(record + PARENTS_COUNT, parentIds.length);
+                    for (long parentId : parentIds) {
+                        buffer.putLong(parentsOffset + parentLink++ * 8, parentId);
+                    }
+                }
+                if (entries == roleEntries) {
+                    long[] permissionIds = effectiveIds[roleIndex++];
+                    buffer.putInt(record + EFFECTIVE_START, effectiveLink);
+                    buffer.putInt(record + EFFECTIVE_COUNT, permissionIds.length);
+                    for (long permissionId : permissionIds) {
+                        buffer.putLong(effectiveOffset + effectiveLink++ * 8, permissionId);
+                    }
+                }
+                record += RECORD_SIZE;
+                r++;
+            }
+        }
+        int index = record;
+        r = 0;
+        for (List<Entry> entries : tables) {
+            Integer[] order = new Integer[entries.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            final int first = r;
+            Arrays.sort(order, (a, b) -> strings.compare(codes[first + a], codes[first + b]));
+            for (Integer position : order) {
+                buffer.putInt(index, position);
+                index += 4;
+            }
+            r += entries.size();
+        }
+        buffer.position(stringsOffset);
+        buffer.put(strings.bytes, 0, strings.size);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putLong(8, System.currentTimeMillis());
+        buffer.putLong(16, buffer.capacity() - HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), HEADER_SIZE, buffer.capacity() - HEADER_SIZE);
+        buffer.putLong(24, crc.getValue());
+        buffer.putInt(32, moduleEntries.size());
+        buffer.putInt(36, permissionEntries.size());
+        buffer.putInt(40, roleEntries.size());
+        buffer.putInt(44, linkCount);
+        buffer.putInt(48, parentCount);
+        buffer.putInt(52, effectiveCount);
+        Path parent = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, buffer.array());
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING
+                    , StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+    
+    static Entry toEntry(IModule module) {
+        if (module == null || module.getId() == null) {
+            return null;
+        }
+        return new Entry(toLong(module.getId()), module.getCode(), Identifiers.NO_ID
+                , null, null);
+    }
+    
+    static Entry toEntry(IPermission permission) {
+        if (permission == null || permission.getId() == null) {
+            return null;
+        }
+        return new Entry(toLong(permission.getId()), permission.getCode()
+                , toLong(DomainGraph.getModuleId(permission)), null, null);
+    }
+    
+    static Entry toEntry(IRole role) {
+        if (role == null || role.getId() == null) {
+            return null;
+        }
+        long[] ids = new long[0];
+        int count = 0;
+        List<IRolePermission> rolePermissions = role.getRolePermissionsList();
+        if (rolePermissions != null) {
+            ids = new long[rolePermissions.size()];
+            for (IRolePermission rolePermission : rolePermissions) {
+                IPermission permission = rolePermission.getPermission();
+                if (DomainGraph.getEnabledPermissionCode(rolePermission) != null
+                        && permission.getId() != null) {
+                    ids[count++] = toLong(permission.getId());
+                }
+            }
+        }
+        Arrays.sort(ids, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || ids[distinct - 1] != ids[i]) {
+                ids[distinct++] = ids[i];
+            }
+        }
+        ids = Arrays.copyOf(ids, distinct);
+        Set<BigInteger> parentIds = DomainGraph.getParentRoleIds(role);
+        long[] parents = new long[parentIds.size()];
+        count = 0;
+        for (BigInteger parentId : parentIds) {
+            parents[count++] = toLong(parentId);
+        }
+        Arrays.sort(parents);
+        return new Entry(toLong(role.getId()), role.getCode()
+                , toLong(DomainGraph.getModuleId(role)), ids, parents);
+    }
+    
+    /**
+     * Returns the parents or the direct Permissions of a Role entry, none if
+     * the Role is not part of the snapshot.
+     */
+    private static long[] ids(Entry role, boolean parents) {
+        long[] ids = role == null ? null : parents ? role.parentIds : role.permissionIds;
+        return ids == null ? new long[0] : ids;
+    }
+    
+    private static void addRoles(Collection<? extends IRole> roles, Deque<IRole> pending) {
+        for (IRole role : roles) {
+            if (role != null) {
+                pending.add(role);
+            }
+        }
+    }
+    
+    private static void addModule(IModule module, Map<Long, Entry> moduleEntries) {
+        Entry entry = toEntry(module);
+        if (entry != null) {
+            moduleEntries.put(entry.id, entry);
+        }
+    }
+    
+    private static void addPermission(IPermission permission
+            , Map<Long, Entry> permissionEntries, Map<Long, Entry> moduleEntries) {
+        Entry entry = toEntry(permission);
+        if (entry != null) {
+            permissionEntries.put(entry.id, entry);
+            if (!moduleEntries.containsKey(entry.moduleId)) {
+                addModule(permission.getModule(), moduleEntries);
+            }
+        }
+    }
+    
+    private static long toLong(BigInteger id) {
+        if (id != null && !Identifiers.fitsInLong(id)) {
+            throw new IllegalArgumentException("Primary key out of range: " + id);
+        }
+        return Identifiers.toLong(id);
+    }
+    
+    private static boolean fits(int start, int count, int size) {
+        return start >= 0 && count >= 0 && (long) start + count <= size;
+    }
+    
+    private static int align(int offset) {
+        return (offset + 7) & ~7;
+    }
+    
+    /**
+     * Deduplicated UTF-8 strings laid out one after another.
+     */
+    private static final class StringHeap {
+        
+        private final Map<String, int[]> positions = new HashMap<>();
+        private byte[] bytes = new byte[1024];
+        private int size;
+        
+        private int[] add(String value) {
+            if (value == null) {
+                return new int[] {0, -1};
+            }
+            int[] position = positions.get(value);
+            if (position == null) {
+                byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                if (size + utf8.length > bytes.length) {
+                    bytes = Arrays.copyOf(bytes, Math.max(size + utf8.length, bytes.length * 2));
+                }
+                System.arraycopy(utf8, 0, bytes, size, utf8.length);
+                position = new int[] {size, utf8.length};
+                positions.put(value, position);
+                size += utf8.length;
+            }
+            return position;
+        }
+        
+        private int compare(int[] first, int[] second) {
+            if (first[1] < 0 || second[1] < 0) {
+                return Integer.compare(first[1], second[1]);
+            }
+            int common = Math.min(first[1], second[1]);
+            for (int i = 0; i < common; i++) {
+                int comparison = (bytes[first[0] + i] & 0xFF) - (bytes[second[0] + i] & 0xFF);
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+            return first[1] - second[1];
+        }
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.authorization;
+
+import com.openums.commons.domain.DomainGraph;
+import com.openums.commons.domain.IPermission;
+import com.openums.commons.domain.Identifiers;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IRolePermission;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.IUserRole;
+import com.openums.commons.util.LongObjectHashMap;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable, compiled view of the user-role-permission graph. Every distinct
+ * permission code is interned and mapped to an {@code int} ordinal, and every
+ * Role and User is represented by a bitset over those ordinals. Once built, a
+ * snapshot is never modified so it can be freely shared between threads.
+ * <p/>
+ * Only enabled {@code IRolePermission} relationships are taken into account.
+ * The bitset of a Role includes the Permissions it inherits from its
+ * ancestors, so checks cost the same whatever the depth of the hierarchy.
+ * Roles and Users without an {@code id} are ignored.
+ * 
+ * @author Delcio Amarillo
+ * @see AuthorizationEngine
+ */
+public final class PermissionSnapshot {
+    
+    /**
+     * A snapshot with no permissions, roles nor users.
+     */
+    public static final PermissionSnapshot EMPTY = new PermissionSnapshot(
+            Collections.<String, Integer>emptyMap(), new String[0]
+            , new LongObjectHashMap<long[]>(), new LongObjectHashMap<long[]>());
+    
+    private final Map<String, Integer> ordinals;
+    private final String[] codes;
+    private final LongObjectHashMap<long[]> rolesBits;
+    private final LongObjectHashMap<long[]> usersBits;
+    
+    private PermissionSnapshot(Map<String, Integer> ordinals, String[] codes
+            , LongObjectHashMap<long[]> rolesBits
+            , LongObjectHashMap<long[]> usersBits) {
+        this.ordinals = ordinals;
+        this.codes = codes;
+        this.rolesBits = rolesBits;
+        this.usersBits = usersBits;
+    }
+    
+    /**
+     * Compiles a new snapshot from the given Roles and Users. Roles referenced
+     * by a User through its {@code IUserRole} list or by a Role as a parent
+     * but not included in the {@code roles} argument are compiled from the
+     * object graph.
+     * 
+     * @param roles The Roles to be compiled. Can be empty but not {@code null}.
+     * 
+     * @param users The Users to be compiled. Can be empty but not {@code null}.
+     * 
+     * @return A new {@code PermissionSnapshot} object.
+     * 
+     * @throws ArithmeticException If the id of a Role or User does not fit in
+     * a {@code long}.
+     */
+    public static PermissionSnapshot compile(Collection<? extends IRole> roles
+            , Collection<? extends IUser> users) {
+        Map<String, Integer> ordinals = new HashMap<>();
+        Map<BigInteger, List<String>> rolesCodes = new HashMap<>();
+        Map<BigInteger, Set<BigInteger>> rolesParents = new HashMap<>();
+        Deque<IRole> parents = new ArrayDeque<>();
+
+        for (IRole role : roles) {
+            collectRole(role, ordinals, rolesCodes, rolesParents, parents);
+        }
+        for (IUser user : users) {
+            List<IUserRole> userRoles = user.getUserRolesList();
+            if (userRoles != null) {
+                for (IUserRole userRole : userRoles) {
+                    collectRole(userRole.getRole(), ordinals, rolesCodes
+                            , rolesParents, parents);
+                }
+            }
+        }
+        while (!parents.isEmpty()) {
+            collectRole(parents.poll(), ordinals, rolesCodes, rolesParents, parents);
+        }
+
+        String[] codes = new String[ordinals.size()];
+        for (Map.Entry<String, Integer> entry : ordinals.entrySet()) {
+            codes[entry.getValue()] = entry.getKey();
+        }
+
+        int words = wordsFor(codes.length);
+        Map<BigInteger, long[]> ownBits = new HashMap<>();
+        for (Map.Entry<BigInteger, List<String>> entry : rolesCodes.entrySet()) {
+            long[] bits = new long[words];
+            for (String code : entry.getValue()) {
+                set(bits, ordinals.get(code));
+            }
+            ownBits.put(entry.getKey(), bits);
+        }
+        LongObjectHashMap<long[]> rolesBits = new LongObjectHashMap<>(rolesCodes.size());
+        for (Map.Entry<BigInteger, long[]> entry : ownBits.entrySet()) {
+            long[] bits = entry.getValue().clone();
+            for (BigInteger ancestorId : ancestorsOf(entry.getKey(), rolesParents)) {
+                long[] inherited = ownBits.get(ancestorId);
+                if (inherited != null) {
+                    or(bits, inherited);
+                }
+            }
+            rolesBits.put(Identifiers.toLong(entry.getKey()), bits);
+        }
+
+        LongObjectHashMap<long[]> usersBits = new LongObjectHashMap<>(users.size());
+        for (IUser user : users) {
+            if (user.getId() == null) {
+                continue;
+            }
+            long[] bits = new long[words];
+            List<IUserRole> userRoles = user.getUserRolesList();
+            if (userRoles != null) {
+                for (IUserRole userRole : userRoles) {
+                    IRole role = userRole.getRole();
+                    long[] roleBits = role == null || role.getId() == null
+                            ? null : rolesBits.get(role.getLongId());
+                    if (roleBits != null) {
+                        or(bits, roleBits);
+                    }
+                }
+            }
+            usersBits.put(user.getLongId(), bits);
+        }
+
+        return new PermissionSnapshot(ordinals, codes, rolesBits, usersBits);
+    }
+    
+    /**
+     * Returns whether a given User holds a given Permission through any of its
+     * Roles. This method does not allocate objects.
+     * 
+     * @param userId The User's primary key.
+     * 
+     * @param permissionCode The Permission's code.
+     * 
+     * @return {@code true} if the User holds the Permission, {@code false}
+     * otherwise, including unknown users and unknown permission codes.
+     */
+    public boolean hasPermission(BigInteger userId, String permissionCode) {
+        return Identifiers.fitsInLong(userId)
+                && hasPermission(userId.longValue(), permissionCode);
+    }
+    
+    /**
+     * Returns whether a given User holds a given Permission through any of its
+     * Roles. This method does not allocate objects.
+     * 
+     * @param userId The User's primary key.
+     * 
+     * @param permissionCode The Permission's code.
+     * 
+     * @return {@code true} if the User holds the Permission, {@code false}
+     * otherwise, including unknown users and unknown permission codes.
+     */
+    public boolean hasPermission(long userId, String permissionCode) {
+        return test(usersBits.get(userId), permissionCode);
+    }
+    
+    /**
+     * Returns whether a given Role holds a given Permission. This method does
+     * not allocate objects.
+     * 
+     * @param roleId The Role's primary key.
+     * 
+     * @param permissionCode The Permission's code.
+     * 
+     * @return {@code true} if the Role holds the Permission, {@code false}
+     * otherwise, including unknown roles and unknown permission codes.
+     */
+    public boolean roleHasPermission(BigInteger roleId, String permissionCode) {
+        return Identifiers.fitsInLong(roleId)
+                && test(rolesBits.get(roleId.longValue()), permissionCode);
+    }
+    
+    /**
+     * Returns the ordinal assigned to a given Permission code.
+     * 
+     * @param permissionCode The Permission's code.
+     * 
+     * @return The permission's ordinal or {@code -1} if the code is unknown.
+     */
+    public int getOrdinal(String permissionCode) {
+        Integer ordinal = permissionCode == null ? null : ordinals.get(permissionCode);
+        return ordinal == null ? -1 : ordinal;
+    }
+    
+    /**
+     * Returns the Permission code mapped to a given ordinal.
+     * 
+     * @param ordinal The permission's ordinal.
+     * 
+     * @return The Permission's code.
+     * 
+     * @throws IndexOutOfBoundsException If the ordinal is not valid for this
+     * snapshot.
+     */
+    public String getCode(int ordinal) {
+        if (ordinal < 0 || ordinal >= codes.length) {
+            throw new IndexOutOfBoundsException("Invalid ordinal: " + ordinal);
+        }
+        return codes[ordinal];
+    }
+    
+    /**
+     * Returns the number of distinct Permission codes known by this snapshot.
+     * 
+     * @return The number of permission codes.
+     */
+    public int getPermissionsCount() {
+        return codes.length;
+    }
+    
+    /**
+     * Returns the number of Users known by this snapshot.
+     * 
+     * @return The number of users.
+     */
+    public int getUsersCount() {
+        return usersBits.size();
+    }
+    
+    /**
+     * Returns the number of Roles known by this snapshot.
+     * 
+     * @return The number of roles.
+     */
+    public int getRolesCount() {
+        return rolesBits.size();
+    }
+    
+    private boolean test(long[] bits, String permissionCode) {
+        if (bits == null || permissionCode == null) {
+            return false;
+        }
+        Integer ordinal = ordinals.get(permissionCode);
+        if (ordinal == null) {
+            return false;
+        }
+        int index = ordinal;
+        return (bits[index >>> 6] & (1L << index)) != 0L;
+    }
+    
+    private static void collectRole(IRole role, Map<String, Integer> ordinals
+            , Map<BigInteger, List<String>> rolesCodes
+            , Map<BigInteger, Set<BigInteger>> rolesParents, Deque<IRole> parents) {
+        if (role == null || role.getId() == null
+                || rolesCodes.containsKey(role.getId())) {
+            return;
+        }
+        List<String> roleCodes = new ArrayList<>();
+        List<IRolePermission> rolePermissions = role.getRolePermissionsList();
+        if (rolePermissions != null) {
+            for (IRolePermission rolePermission : rolePermissions) {
+                IPermission permission = rolePermission.getPermission();
+                if (Boolean.TRUE.equals(rolePermission.isEnabled())
+                        && permission != null && permission.getCode() != null) {
+                    String code = permission.getCode();
+                    if (!ordinals.containsKey(code)) {
+                        ordinals.put(code, ordinals.size());
+                    }
+                    roleCodes.add(code);
+                }
+            }
+        }
+        rolesCodes.put(role.getId(), roleCodes);
+        List<IRole> parentRoles = role.getParentRolesList();
+        if (parentRoles != null && !parentRoles.isEmpty()) {
+            rolesParents.put(role.getId(), DomainGraph.getParentRoleIds(role));
+            for (IRole parent : parentRoles) {
+                if (parent != null) {
+                    parents.add(parent);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Returns the ancestors of a Role among the collected ones. Cycles, which
+     * the DAOs reject, are tolerated.
+     */
+    private static Set<BigInteger> ancestorsOf(BigInteger roleId
+            , Map<BigInteger, Set<BigInteger>> rolesParents) {
+        Set<BigInteger> ancestors = new HashSet<>();
+        Deque<BigInteger> pending = new ArrayDeque<>();
+        pending.add(roleId);
+        while (!pending.isEmpty()) {
+            Set<BigInteger> parents = rolesParents.get(pending.poll());
+            if (parents != null) {
+                for (BigInteger parentId : parents) {
+                    if (!parentId.equals(roleId) && ancestors.add(parentId)) {
+                        pending.add(parentId);
+                    }
+                }
+            }
+        }
+        return ancestors;
+    }
+    
+    private static int wordsFor(int bits) {
+        return (bits + 63) >>> 6;
+    }
+    
+    private static void set(long[] bits, int index) {
+        bits[index >>> 6] |= 1L << index;
+    }
+    
+    private static void or(long[] target, long[] source) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] |= source[i];
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.bulk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV reader and writer of {@code RecordFormat.CSV}.
+ * 
+ * @author Delcio Amarillo
+ */
+final class CsvRecords {
+    
+    private CsvRecords() {
+    }
+    
+    /**
+     * Reads CSV records, possibly spanning several lines when a quoted field
+     * holds line breaks. Blank lines are skipped.
+     */
+    static final class Reader implements IRecordReader {
+        
+        private final BufferedReader in;
+        private final StringBuilder field = new StringBuilder();
+        private int pushed = -1;
+        private long line = 1;
+        
+        Reader(BufferedReader in) {
+            this.in = in;
+        }
+        
+        @Override
+        public Record read() throws IOException {
+            List<String> values = new ArrayList<>();
+            while (true) {
+                long start = line;
+                if (!readRow(values)) {
+                    return null;
+                }
+                if (values.size() == 1 && values.get(0) == null) {
+                    continue;
+                }
+                RecordType type = RecordType.forName(values.get(0));
+                if (type == null) {
+                    throw new IOException("Line " + start + ": unknown record type: "
+                            + values.get(0));
+                }
+                if (values.size() != type.getFields().size() + 1) {
+                    throw new IOException("Line " + start + ": " + type.getRecordName()
+                            + " records have " + type.getFields().size() + " fields, found "
+                            + (values.size() - 1));
+                }
+                return new Record(type, values.subList(1, values.size())
+                        .toArray(new String[values.size() - 1]), start);
+            }
+        }
+        
+        /**
+         * Reads the fields of the next row into {@code values}.
+         * 
+         * @return {@code false} at the end of the file.
+         */
+        private boolean readRow(List<String> values) throws IOException {
+            values.clear();
+            field.setLength(0);
+            boolean quoted = false;
+            boolean any = false;
+            while (true) {
+                int c = next();
+                if (c == -1) {
+                    if (!any) {
+                        return false;
+                    }
+                    break;
+                }
+                any = true;
+                if (c == '"' && field.length() == 0 && !quoted) {
+                    quoted = true;
+                    readQuoted();
+                } else if (c == ',') {
+                    values.add(value(quoted));
+                    field.setLength(0);
+                    quoted = false;
+                } else if (c == '\n' || c == '\r') {
+                    if (c == '\r') {
+                        int following = next();
+                        if (following != '\n') {
+                            pushed = following;
+                        }
+                    }
+                    line++;
+                    break;
+                } else if (quoted) {
+                    throw new IOException("Line " + line + ": unexpected character after a quoted field");
+                } else {
+                    field.append((char) c);
+                }
+            }
+            values.add(value(quoted));
+            return true;
+        }
+        
+        private void readQuoted() throws IOException {
+            while (true) {
+                int c = next();
+                if (c == -1) {
+                    throw new IOException("Line " + line + ": unterminated quoted field");
+                }
+                if (c == '"') {
+                    int following = next();
+                    if (following != '"') {
+                        pushed = following;
+                        return;
+                    }
+                } else if (c == '\n') {
+                    line++;
+                }
+                field.append((char) c);
+            }
+        }
+        
+        private String value(boolean quoted) {
+            return !quoted && field.length() == 0 ? null : field.toString();
+        }
+        
+        private int next() throws IOException {
+            if (pushed != -1) {
+                int c = pushed;
+                pushed = -1;
+                return c;
+            }
+            return in.read();
+        }
+    }
+    
+    /**
+     * Writes CSV records, quoting only the fields that need it.
+     */
+    static final class Writer implements IRecordWriter {
+        
+        private final java.io.Writer out;
+        
+        Writer(java.io.Writer out) {
+            this.out = out;
+        }
+        
+        @Override
+        public void write(RecordType type, String... values) throws IOException {
+            out.write(type.getRecordName());
+            for (String value : values) {
+                out.write(',');
+                if (value == null) {
+                    continue;
+                }
+                if (value.isEmpty() || needsQuotes(value)) {
+                    out.write('"');
+                    out.write(value.replace("\"", "\"\""));
+                    out.write('"');
+                } else {
+                    out.write(value);
+                }
+            }
+            out.write('\n');
+        }
+        
+        private static boolean needsQuotes(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
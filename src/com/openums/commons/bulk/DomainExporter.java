@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.bulk;
+
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.IPermission;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IRolePermission;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.IUserRole;
+import com.openums.commons.model.IBasicDao;
+import com.openums.commons.model.IModulesDao;
+import com.openums.commons.model.IPermissionsDao;
+import com.openums.commons.model.IRolesDao;
+import com.openums.commons.model.IUsersDao;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.UncheckedModelException;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Writes all the Modules, Permissions, Roles and Users provided by the DAOs
+ * to a file that {@code DomainImporter} can load, along with the
+ * role-permission and user-role relationships. Every table is streamed
+ * through {@code IBasicDao.streamAll}, so at most one chunk of each table is
+ * held in memory, and records are written through a buffered channel writer.
+ * <p/>
+ * Records are written in dependency order: Modules, then Permissions, then
+ * every Role followed by its role-permission relationships, then every User
+ * followed by its user-role relationships.
+ * 
+ * @author Delcio Amarillo
+ * @see RecordType
+ * @see DomainImporter
+ */
+public class DomainExporter {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final IModulesDao modulesDao;
+    private final IPermissionsDao permissionsDao;
+    private final IRolesDao rolesDao;
+    private final IUsersDao usersDao;
+    private final int chunkSize;
+    
+    /**
+     * Creates a new {@code DomainExporter}.
+     * 
+     * @param modulesDao The Modules DAO.
+     * 
+     * @param permissionsDao The Permissions DAO.
+     * 
+     * @param rolesDao The Roles DAO.
+     * 
+     * @param usersDao The Users DAO.
+     * 
+     * @param chunkSize The number of objects fetched per round trip. Must be
+     * positive.
+     */
+    public DomainExporter(IModulesDao modulesDao, IPermissionsDao permissionsDao
+            , IRolesDao rolesDao, IUsersDao usersDao, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive.");
+        }
+        this.modulesDao = modulesDao;
+        this.permissionsDao = permissionsDao;
+        this.rolesDao = rolesDao;
+        this.usersDao = usersDao;
+        this.chunkSize = chunkSize;
+    }
+    
+    /**
+     * Exports the domain to a file, replacing it if it exists.
+     * 
+     * @param file The file.
+     * 
+     * @param format The file format.
+     * 
+     * @return The number of records written.
+     * 
+     * @throws IOException If the file cannot be written.
+     * 
+     * @throws ModelException When an error occurred while reading the DAOs.
+     */
+    public long exportTo(Path file, RecordFormat format) throws IOException, ModelException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            return export(format.newWriter(writer));
+        }
+    }
+    
+    /**
+     * Exports the domain to a channel. The channel is not closed.
+     * 
+     * @param channel The channel.
+     * 
+     * @param format The file format.
+     * 
+     * @return The number of records written.
+     * 
+     * @throws IOException If the channel cannot be written.
+     * 
+     * @throws ModelException When an error occurred while reading the DAOs.
+     */
+    public long exportTo(WritableByteChannel channel, RecordFormat format)
+            throws IOException, ModelException {
+        Writer writer = new BufferedWriter(Channels.newWriter(channel
+                , StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE), BUFFER_SIZE);
+        long count = export(format.newWriter(writer));
+        writer.flush();
+        return count;
+    }
+    
+    private long export(IRecordWriter out) throws IOException, ModelException {
+        try {
+            return exportAll(out);
+        } catch (UncheckedModelException ex) {
+            throw ex.getCause();
+        }
+    }
+    
+    private long exportAll(IRecordWriter out) throws IOException {
+        long count = 0;
+        for (IModule module : iterable(modulesDao)) {
+            out.write(RecordType.MODULE, id(module.getId()), module.getCode()
+                    , module.getDescription());
+            count++;
+        }
+        for (IPermission permission : iterable(permissionsDao)) {
+            out.write(RecordType.PERMISSION, id(permission.getId()), permission.getCode()
+                    , permission.getDescription(), code(permission.getModule()));
+            count++;
+        }
+        for (IRole role : iterable(rolesDao)) {
+            out.write(RecordType.ROLE, id(role.getId()), role.getCode()
+                    , role.getDescription(), code(role.getModule()));
+            count++;
+            List<IRolePermission> rolePermissions = role.getRolePermissionsList();
+            if (rolePermissions != null) {
+                for (IRolePermission rolePermission : rolePermissions) {
+                    IPermission permission = rolePermission.getPermission();
+                    out.write(RecordType.ROLE_PERMISSION, id(rolePermission.getId())
+                            , role.getCode(), permission == null ? null : permission.getCode()
+                            , bool(rolePermission.isEnabled()));
+                    count++;
+                }
+            }
+            List<IRole> parents = role.getParentRolesList();
+            if (parents != null) {
+                for (IRole parent : parents) {
+                    out.write(RecordType.ROLE_PARENT, role.getCode()
+                            , parent == null ? null : parent.getCode());
+                    count++;
+                }
+            }
+        }
+        for (IUser user : iterable(usersDao)) {
+            out.write(RecordType.USER, id(user.getId()), user.getUserName(), user.getName()
+                    , user.getLastName(), user.getGender(), date(user.getDateOfBirth())
+                    , user.getEmail(), user.getPassword(), bool(user.isActive())
+                    , bool(user.isUnlocked()));
+            count++;
+            List<IUserRole> userRoles = user.getUserRolesList();
+            if (userRoles != null) {
+                for (IUserRole userRole : userRoles) {
+                    IRole role = userRole.getRole();
+                    out.write(RecordType.USER_ROLE, id(userRole.getId()), user.getUserName()
+                            , role == null ? null : role.getCode());
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+    
+    private <T> Iterable<T> iterable(IBasicDao<T> dao) {
+        return dao.streamAll(chunkSize)::iterator;
+    }
+    
+    static String id(BigInteger id) {
+        return id == null ? null : id.toString();
+    }
+    
+    static String bool(Boolean value) {
+        return value == null ? null : value.toString();
+    }
+    
+    static String date(Date date) {
+        return date == null ? null
+                : date.toInstant().atZone(ZoneOffset.UTC).toLocalDate().toString();
+    }
+    
+    private static String code(IModule module) {
+        return module == null ? null : module.getCode();
+    }
+}
@@ -0,0 +1,769 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.bulk;
+
+import com.openums.commons.domain.IDomainFactory;
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.IPermission;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IRolePermission;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.IUserRole;
+import com.openums.commons.model.BatchResult;
+import com.openums.commons.model.IBasicDao;
+import com.openums.commons.model.IModulesDao;
+import com.openums.commons.model.IPermissionsDao;
+import com.openums.commons.model.IRolesDao;
+import com.openums.commons.model.IUsersDao;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.ModelExceptionType;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Loads Modules, Permissions, Roles and Users, along with their role-permission,
+ * role inheritance and user-role relationships, from a file written in one of the
+ * {@code RecordFormat}s, e.g. by {@code DomainExporter}.
+ * <p/>
+ * An import runs in three steps:
+ * <ol>
+ * <li>The file is read through a buffered reader and every record becomes a
+ * domain object created by the {@code IDomainFactory}.</li>
+ * <li>Everything is validated before the first insert: mandatory fields,
+ * syntax of ids, booleans and dates, duplicated ids, codes and user names
+ * within the file or already stored, references and cycles in the Role
+ * inheritance. References are
+ * resolved by code or user name against the file first and then against
+ * the DAOs, so a file may add Users to existing Roles. Relationships must
+ * however belong to a Role or User of the file, since they are inserted
+ * along with their owner. Any error aborts the import with a
+ * {@code CONSTRAINT_VIOLATED_EXCEPTION} listing the offending lines.</li>
+ * <li>The objects are inserted through {@code IBasicDao.insertAll} in
+ * batches of {@code batchSize}, spread over {@code workers} threads, one
+ * record type after the other in dependency order. If inserts of a record
+ * type fail, the dependent record types are not inserted. An error that
+ * fails a whole batch cancels the batches not started yet and interrupts
+ * the running ones before it is rethrown; inserts already applied are not
+ * rolled back.</li>
+ * </ol>
+ * The records of a file are held in memory until they are inserted, which is
+ * needed to resolve the references, but nothing is loaded from the DAOs
+ * besides the referenced objects.
+ * 
+ * @author Delcio Amarillo
+ * @see RecordType
+ * @see DomainExporter
+ */
+public class DomainImporter {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int LOOKUP_SIZE = 1_000;
+    
+    private final IDomainFactory factory;
+    private final IModulesDao modulesDao;
+    private final IPermissionsDao permissionsDao;
+    private final IRolesDao rolesDao;
+    private final IUsersDao usersDao;
+    private final int batchSize;
+    private final int workers;
+    
+    /**
+     * Creates a new {@code DomainImporter}.
+     * 
+     * @param factory Creates the domain objects.
+     * 
+     * @param modulesDao The Modules DAO.
+     * 
+     * @param permissionsDao The Permissions DAO.
+     * 
+     * @param rolesDao The Roles DAO.
+     * 
+     * @param usersDao The Users DAO.
+     * 
+     * @param batchSize The number of objects per {@code insertAll} call. Must
+     * be positive.
+     * 
+     * @param workers The number of batches inserted concurrently. Must be
+     * positive.
+     */
+    public DomainImporter(IDomainFactory factory, IModulesDao modulesDao
+            , IPermissionsDao permissionsDao, IRolesDao rolesDao, IUsersDao usersDao
+            , int batchSize, int workers) {
+        if (batchSize <= 0 || workers <= 0) {
+            throw new IllegalArgumentException("batchSize and workers must be positive.");
+        }
+        this.factory = factory;
+        this.modulesDao = modulesDao;
+        this.permissionsDao = permissionsDao;
+        this.rolesDao = rolesDao;
+        this.usersDao = usersDao;
+        this.batchSize = batchSize;
+        this.workers = workers;
+    }
+    
+    /**
+     * Imports a file.
+     * 
+     * @param file The file.
+     * 
+     * @param format The file format.
+     * 
+     * @return The outcome of the inserts.
+     * 
+     * @throws IOException If the file cannot be read or is malformed.
+     * 
+     * @throws ModelException {@code CONSTRAINT_VIOLATED_EXCEPTION} if the
+     * records are not valid, or any error raised by the DAOs other than the
+     * failures of single inserts, which are reported in the result.
+     */
+    public ImportResult importFrom(Path file, RecordFormat format)
+            throws IOException, ModelException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importFrom(format.newReader(reader));
+        }
+    }
+    
+    /**
+     * Imports the records read from a channel. The channel is not closed.
+     * 
+     * @param channel The channel.
+     * 
+     * @param format The file format.
+     * 
+     * @return The outcome of the inserts.
+     * 
+     * @throws IOException If the channel cannot be read or the records are
+     * malformed.
+     * 
+     * @throws ModelException {@code CONSTRAINT_VIOLATED_EXCEPTION} if the
+     * records are not valid, or any error raised by the DAOs other than the
+     * failures of single inserts, which are reported in the result.
+     */
+    public ImportResult importFrom(ReadableByteChannel channel, RecordFormat format)
+            throws IOException, ModelException {
+        BufferedReader reader = new BufferedReader(Channels.newReader(channel
+                , StandardCharsets.UTF_8.newDecoder(), BUFFER_SIZE), BUFFER_SIZE);
+        return importFrom(format.newReader(reader));
+    }
+    
+    private ImportResult importFrom(IRecordReader reader) throws IOException, ModelException {
+        Graph graph = new Graph();
+        Record record;
+        while ((record = reader.read()) != null) {
+            graph.add(record);
+        }
+        graph.resolve();
+        graph.checkStored();
+        if (graph.errorCount > 0) {
+            StringBuilder message = new StringBuilder("Invalid import, ")
+                    .append(graph.errorCount).append(" error(s):");
+            for (String error : graph.errors) {
+                message.append('\n').append(error);
+            }
+            if (graph.errorCount > graph.errors.size()) {
+                message.append("\n...");
+            }
+            throw new ModelException(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION
+                    , message.toString());
+        }
+        graph.link();
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        boolean aborted = true;
+        try {
+            ImportResult result = graph.result;
+            boolean complete = insert(executor, modulesDao, graph.modules, RecordType.MODULE
+                    , result, null)
+                    && insert(executor, permissionsDao, graph.permissions
+                            , RecordType.PERMISSION, result, null)
+                    && insert(executor, rolesDao, graph.roles, RecordType.ROLE, result
+                            , role -> {
+                                result.addInserted(RecordType.ROLE_PERMISSION
+                                        , size(role.getRolePermissionsList()));
+                                result.addInserted(RecordType.ROLE_PARENT
+                                        , size(role.getParentRolesList()));
+                            })
+                    && insert(executor, usersDao, graph.users, RecordType.USER, result
+                            , user -> result.addInserted(RecordType.USER_ROLE
+                                    , size(user.getUserRolesList())));
+            if (!complete) {
+                result.setIncomplete();
+            }
+            aborted = false;
+            return result;
+        } finally {
+            if (aborted) {
+                executor.shutdownNow();
+            } else {
+                executor.shutdown();
+            }
+        }
+    }
+    
+    /**
+     * Inserts the objects of a record type in concurrent batches. If a batch
+     * fails as a whole, the remaining ones are cancelled.
+     * 
+     * @return {@code true} if every object was inserted.
+     */
+    private <T> boolean insert(ExecutorService executor, IBasicDao<T> dao
+            , Map<String, Entry<T>> entries, RecordType type, ImportResult result
+            , Consumer<T> onInserted) throws ModelException {
+        List<T> objects = new ArrayList<>(entries.size());
+        for (Entry<T> entry : entries.values()) {
+            objects.add(entry.object);
+        }
+        List<List<T>> batches = new ArrayList<>();
+        List<Future<BatchResult<T>>> futures = new ArrayList<>();
+        for (int start = 0; start < objects.size(); start += batchSize) {
+            List<T> batch = objects.subList(start, Math.min(start + batchSize, objects.size()));
+            batches.add(batch);
+            futures.add(executor.submit(() -> dao.insertAll(batch, batchSize)));
+        }
+        boolean success = true;
+        for (int i = 0; i < futures.size(); i++) {
+            BatchResult<T> batchResult;
+            try {
+                batchResult = await(futures.get(i));
+            } catch (ModelException | RuntimeException ex) {
+                for (Future<?> future : futures) {
+                    future.cancel(true);
+                }
+                throw ex;
+            }
+            List<T> batch = batches.get(i);
+            for (int index = 0; index < batch.size(); index++) {
+                if (batchResult.isSuccess(index)) {
+                    result.addInserted(type, 1);
+                    if (onInserted != null) {
+                        onInserted.accept(batch.get(index));
+                    }
+                } else {
+                    success = false;
+                    result.addFailure(type.getRecordName() + " #" + (i * batchSize + index + 1)
+                            + ": " + batchResult.getFailure(index).getMessage());
+                }
+            }
+        }
+        return success;
+    }
+    
+    private static <R> R await(Future<R> future) throws ModelException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ModelException(ModelExceptionType.UNSPECIFIED_EXCEPTION, ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof ModelException) {
+                throw (ModelException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ModelException(ModelExceptionType.UNSPECIFIED_EXCEPTION, cause);
+        }
+    }
+    
+    private static int size(List<?> list) {
+        return list == null ? 0 : list.size();
+    }
+    
+    /**
+     * A domain object created from a record.
+     */
+    private static final class Entry<T> {
+        
+        private final Record record;
+        private final BigInteger id;
+        private final T object;
+        
+        private Entry(Record record, BigInteger id, T object) {
+            this.record = record;
+            this.id = id;
+            this.object = object;
+        }
+    }
+    
+    /**
+     * The objects read from a file, keyed by code or user name, along with
+     * the validation errors found so far.
+     */
+    private final class Graph {
+        
+        private final ImportResult result = new ImportResult();
+        private final Map<String, Entry<IModule>> modules = new LinkedHashMap<>();
+        private final Map<String, Entry<IPermission>> permissions = new LinkedHashMap<>();
+        private final Map<String, Entry<IRole>> roles = new LinkedHashMap<>();
+        private final Map<String, Entry<IUser>> users = new LinkedHashMap<>();
+        private final List<Record> rolePermissions = new ArrayList<>();
+        private final List<Record> roleParents = new ArrayList<>();
+        private final List<Record> userRoles = new ArrayList<>();
+        private final Map<RecordType, Set<BigInteger>> ids = new HashMap<>();
+        private final Map<String, IModule> storedModules = new HashMap<>();
+        private final Map<String, IPermission> storedPermissions = new HashMap<>();
+        private final Map<String, IRole> storedRoles = new HashMap<>();
+        private final List<String> errors = new ArrayList<>();
+        private int errorCount;
+        
+        private void add(Record record) {
+            result.addRead(record.type);
+            switch (record.type) {
+                case MODULE: {
+                    BigInteger id = requireId(record);
+                    IModule module = factory.newModule(id);
+                    module.setCode(record.get("code"));
+                    module.setDescription(record.get("description"));
+                    put(modules, record, "code", id, module);
+                    break;
+                }
+                case PERMISSION: {
+                    BigInteger id = requireId(record);
+                    IPermission permission = factory.newPermission(id);
+                    permission.setCode(record.get("code"));
+                    permission.setDescription(record.get("description"));
+                    put(permissions, record, "code", id, permission);
+                    break;
+                }
+                case ROLE: {
+                    BigInteger id = requireId(record);
+                    IRole role = factory.newRole(id);
+                    role.setCode(record.get("code"));
+                    role.setDescription(record.get("description"));
+                    put(roles, record, "code", id, role);
+                    break;
+                }
+                case USER: {
+                    BigInteger id = requireId(record);
+                    IUser user = factory.newUser(id);
+                    user.setUserName(record.get("userName"));
+                    user.setName(record.get("name"));
+                    user.setLastName(record.get("lastName"));
+                    user.setGender(record.get("gender"));
+                    user.setDateOfBirth(parseDate(record, "dateOfBirth"));
+                    user.setEmail(record.get("email"));
+                    user.setPassword(record.get("password"));
+                    user.setActive(parseBoolean(record, "active"));
+                    user.setUnlocked(parseBoolean(record, "unlocked"));
+                    put(users, record, "userName", id, user);
+                    break;
+                }
+                case ROLE_PERMISSION:
+                    parseId(record);
+                    parseBoolean(record, "enabled");
+                    rolePermissions.add(record);
+                    break;
+                case ROLE_PARENT:
+                    roleParents.add(record);
+                    break;
+                case USER_ROLE:
+                    parseId(record);
+                    userRoles.add(record);
+                    break;
+                default:
+                    throw new IllegalStateException("Unexpected record type: " + record.type);
+            }
+        }
+        
+        private void resolve() throws ModelException {
+            for (Entry<IPermission> entry : permissions.values()) {
+                findModule(entry.record);
+            }
+            for (Entry<IRole> entry : roles.values()) {
+                findModule(entry.record);
+            }
+            Set<String> links = new HashSet<>();
+            for (Record record : rolePermissions) {
+                Entry<IRole> role = findOwner(roles, record, "role");
+                IPermission permission = find(record, "permission", permissions
+                        , storedPermissions, permissionsDao::getPermissionByCode);
+                if (role != null && permission != null
+                        && !links.add(record.get("role") + '\n' + record.get("permission"))) {
+                    error(record, "duplicated relationship");
+                }
+            }
+            links.clear();
+            Map<String, Set<String>> parentCodes = new HashMap<>();
+            for (Record record : roleParents) {
+                Entry<IRole> role = findOwner(roles, record, "role");
+                IRole parent = find(record, "parent", roles, storedRoles, rolesDao::getRoleByCode);
+                if (role != null && parent != null) {
+                    if (!links.add(record.get("role") + '\n' + record.get("parent"))) {
+                        error(record, "duplicated relationship");
+                    } else if (roles.containsKey(record.get("parent"))) {
+                        parentCodes.computeIfAbsent(record.get("role"), code -> new HashSet<>())
+                                .add(record.get("parent"));
+                    }
+                }
+            }
+            checkCycles(parentCodes);
+            links.clear();
+            for (Record record : userRoles) {
+                Entry<IUser> user = findOwner(users, record, "user");
+                IRole role = find(record, "role", roles, storedRoles, rolesDao::getRoleByCode);
+                if (user != null && role != null
+                        && !links.add(record.get("user") + '\n' + record.get("role"))) {
+                    error(record, "duplicated relationship");
+                }
+            }
+        }
+        
+        /**
+         * Reports the Roles of the file that inherit from themselves. Stored
+         * Roles cannot inherit from Roles of the file, so only inheritance
+         * within the file can form a cycle.
+         */
+        private void checkCycles(Map<String, Set<String>> parentCodes) {
+            Map<String, int[]> pending = new HashMap<>();
+            Map<String, List<String>> children = new HashMap<>();
+            for (Map.Entry<String, Set<String>> entry : parentCodes.entrySet()) {
+                pending.put(entry.getKey(), new int[] {entry.getValue().size()});
+                for (String parentCode : entry.getValue()) {
+                    children.computeIfAbsent(parentCode, code -> new ArrayList<>())
+                            .add(entry.getKey());
+                }
+            }
+            List<String> ready = new ArrayList<>();
+            for (String code : roles.keySet()) {
+                if (!pending.containsKey(code)) {
+                    ready.add(code);
+                }
+            }
+            while (!ready.isEmpty()) {
+                List<String> childCodes = children.get(ready.remove(ready.size() - 1));
+                if (childCodes != null) {
+                    for (String childCode : childCodes) {
+                        if (--pending.get(childCode)[0] == 0) {
+                            ready.add(childCode);
+                        }
+                    }
+                }
+            }
+            for (Map.Entry<String, int[]> entry : pending.entrySet()) {
+                if (entry.getValue()[0] > 0) {
+                    error(roles.get(entry.getKey()).record, "role " + entry.getKey()
+                            + " is part of or inherits from an inheritance cycle");
+                }
+            }
+        }
+        
+        /**
+         * Reports the ids, codes and user names of the file that are already
+         * stored.
+         */
+        private void checkStored() throws ModelException {
+            checkStoredIds(modulesDao, modules);
+            checkStoredIds(permissionsDao, permissions);
+            checkStoredIds(rolesDao, roles);
+            checkStoredIds(usersDao, users);
+            for (Entry<IModule> entry : modules.values()) {
+                if (stored(storedModules, entry.object.getCode(), modulesDao::getModuleByCode) != null) {
+                    error(entry.record, "code already exists: " + entry.object.getCode());
+                }
+            }
+            for (Entry<IPermission> entry : permissions.values()) {
+                if (stored(storedPermissions, entry.object.getCode()
+                        , permissionsDao::getPermissionByCode) != null) {
+                    error(entry.record, "code already exists: " + entry.object.getCode());
+                }
+            }
+            for (Entry<IRole> entry : roles.values()) {
+                if (stored(storedRoles, entry.object.getCode(), rolesDao::getRoleByCode) != null) {
+                    error(entry.record, "code already exists: " + entry.object.getCode());
+                }
+            }
+            List<String> userNames = new ArrayList<>(users.keySet());
+            for (int start = 0; start < userNames.size(); start += LOOKUP_SIZE) {
+                List<String> chunk = userNames.subList(start
+                        , Math.min(start + LOOKUP_SIZE, userNames.size()));
+                for (String userName : usersDao.getUsersByNames(chunk).keySet()) {
+                    error(users.get(userName).record, "user name already exists: " + userName);
+                }
+            }
+        }
+        
+        /**
+         * Sets the relationships between the objects once they are valid.
+         * The relationship lists are set once complete, since domain
+         * objects may return immutable lists.
+         */
+        private void link() throws ModelException {
+            Relations<IModule, IPermission> modulePermissions
+                    = new Relations<>(IModule::setPermissionsList);
+            Relations<IModule, IRole> moduleRoles = new Relations<>(IModule::setRolesList);
+            Relations<IRole, IRolePermission> roleRolePermissions
+                    = new Relations<>(IRole::setRolePermissionsList);
+            Relations<IPermission, IRolePermission> permissionRolePermissions
+                    = new Relations<>(IPermission::setRolePermissionsList);
+            Relations<IRole, IRole> roleParentRoles = new Relations<>(IRole::setParentRolesList);
+            Relations<IUser, IUserRole> userUserRoles = new Relations<>(IUser::setUserRolesList);
+            Relations<IRole, IUserRole> roleUserRoles = new Relations<>(IRole::setUserRolesList);
+            for (Entry<IPermission> entry : permissions.values()) {
+                IModule module = findModule(entry.record);
+                entry.object.setModule(module);
+                if (module != null && modules.containsKey(module.getCode())) {
+                    modulePermissions.add(module, entry.object);
+                }
+            }
+            for (Entry<IRole> entry : roles.values()) {
+                IModule module = findModule(entry.record);
+                entry.object.setModule(module);
+                if (module != null && modules.containsKey(module.getCode())) {
+                    moduleRoles.add(module, entry.object);
+                }
+            }
+            for (Record record : rolePermissions) {
+                IRole role = roles.get(record.get("role")).object;
+                IPermission permission = find(record, "permission", permissions
+                        , storedPermissions, permissionsDao::getPermissionByCode);
+                IRolePermission rolePermission = factory.newRolePermission(parseId(record));
+                rolePermission.setRole(role);
+                rolePermission.setPermission(permission);
+                rolePermission.setEnabled(parseBoolean(record, "enabled"));
+                roleRolePermissions.add(role, rolePermission);
+                if (permissions.containsKey(permission.getCode())) {
+                    permissionRolePermissions.add(permission, rolePermission);
+                }
+            }
+            for (Record record : roleParents) {
+                IRole role = roles.get(record.get("role")).object;
+                roleParentRoles.add(role, find(record, "parent", roles, storedRoles
+                        , rolesDao::getRoleByCode));
+            }
+            for (Record record : userRoles) {
+                IUser user = users.get(record.get("user")).object;
+                IRole role = find(record, "role", roles, storedRoles, rolesDao::getRoleByCode);
+                IUserRole userRole = factory.newUserRole(parseId(record));
+                userRole.setUser(user);
+                userRole.setRole(role);
+                userUserRoles.add(user, userRole);
+                if (roles.containsKey(role.getCode())) {
+                    roleUserRoles.add(role, userRole);
+                }
+            }
+            modulePermissions.set();
+            moduleRoles.set();
+            roleRolePermissions.set();
+            permissionRolePermissions.set();
+            try {
+                roleParentRoles.set();
+            } catch (UnsupportedOperationException ex) {
+                throw new ModelException(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION
+                        , "The domain factory's Roles do not support inheritance.");
+            }
+            userUserRoles.set();
+            roleUserRoles.set();
+        }
+        
+        private <T> void put(Map<String, Entry<T>> entries, Record record, String keyField
+                , BigInteger id, T object) {
+            String key = record.get(keyField);
+            if (key == null) {
+                error(record, keyField + " is mandatory");
+            } else if (entries.containsKey(key)) {
+                error(record, "duplicated " + keyField + ": " + key + " (line "
+                        + entries.get(key).record.line + ")");
+            } else {
+                entries.put(key, new Entry<>(record, id, object));
+            }
+        }
+        
+        private IModule findModule(Record record) throws ModelException {
+            if (record.get("module") == null) {
+                return null;
+            }
+            return find(record, "module", modules, storedModules, modulesDao::getModuleByCode);
+        }
+        
+        private <T> T find(Record record, String field, Map<String, Entry<T>> entries
+                , Map<String, T> stored, ILookup<T> lookup) throws ModelException {
+            String code = record.get(field);
+            if (code == null) {
+                error(record, field + " is mandatory");
+                return null;
+            }
+            Entry<T> entry = entries.get(code);
+            T object = entry != null ? entry.object : stored(stored, code, lookup);
+            if (object == null) {
+                error(record, "unknown " + field + ": " + code);
+            }
+            return object;
+        }
+        
+        private <T> Entry<T> findOwner(Map<String, Entry<T>> entries, Record record
+                , String field) {
+            String key = record.get(field);
+            if (key == null) {
+                error(record, field + " is mandatory");
+                return null;
+            }
+            Entry<T> entry = entries.get(key);
+            if (entry == null) {
+                error(record, field + " " + key + " is not part of the import");
+            }
+            return entry;
+        }
+        
+        private <T> T stored(Map<String, T> stored, String code, ILookup<T> lookup)
+                throws ModelException {
+            if (code == null) {
+                return null;
+            }
+            if (!stored.containsKey(code)) {
+                stored.put(code, lookup.find(code));
+            }
+            return stored.get(code);
+        }
+        
+        private <T> void checkStoredIds(IBasicDao<T> dao, Map<String, Entry<T>> entries)
+                throws ModelException {
+            Map<BigInteger, Entry<T>> byId = new LinkedHashMap<>();
+            for (Entry<T> entry : entries.values()) {
+                if (entry.id != null) {
+                    byId.put(entry.id, entry);
+                }
+            }
+            List<BigInteger> keys = new ArrayList<>(byId.keySet());
+            for (int start = 0; start < keys.size(); start += LOOKUP_SIZE) {
+                Collection<BigInteger> chunk = keys.subList(start
+                        , Math.min(start + LOOKUP_SIZE, keys.size()));
+                for (BigInteger id : dao.getUniqueAll(chunk).keySet()) {
+                    error(byId.get(id).record, "id already exists: " + id);
+                }
+            }
+        }
+        
+        private BigInteger requireId(Record record) {
+            BigInteger id = parseId(record);
+            if (id == null && record.get("id") == null) {
+                error(record, "id is mandatory");
+            } else if (id != null && !ids.computeIfAbsent(record.type, type -> new HashSet<>()).add(id)) {
+                error(record, "duplicated id: " + id);
+            }
+            return id;
+        }
+        
+        private BigInteger parseId(Record record) {
+            String value = record.get("id");
+            if (value == null) {
+                return null;
+            }
+            try {
+                return new BigInteger(value.trim());
+            } catch (NumberFormatException ex) {
+                error(record, "invalid id: " + value);
+                return null;
+            }
+        }
+        
+        private Boolean parseBoolean(Record record, String field) {
+            String value = record.get(field);
+            if (value == null) {
+                return null;
+            }
+            if (value.equalsIgnoreCase("true")) {
+                return Boolean.TRUE;
+            }
+            if (value.equalsIgnoreCase("false")) {
+                return Boolean.FALSE;
+            }
+            error(record, "invalid " + field + ": " + value);
+            return null;
+        }
+        
+        private Date parseDate(Record record, String field) {
+            String value = record.get(field);
+            if (value == null) {
+                return null;
+            }
+            try {
+                return Date.from(LocalDate.parse(value.trim()).atStartOfDay(ZoneOffset.UTC)
+                        .toInstant());
+            } catch (DateTimeParseException ex) {
+                error(record, "invalid " + field + ": " + value);
+                return null;
+            }
+        }
+        
+        private void error(Record record, String message) {
+            errorCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("Line " + record.line + " (" + record.type.getRecordName() + "): "
+                        + message);
+            }
+        }
+    }
+    
+    /**
+     * Looks a stored object up by code.
+     */
+    @FunctionalInterface
+    private interface ILookup<T> {
+        T find(String code) throws ModelException;
+    }
+    
+    /**
+     * The relationship lists of the imported objects of a given class, keyed
+     * by owner.
+     */
+    private static final class Relations<O, E> {
+        
+        private final Map<O, List<E>> lists = new IdentityHashMap<>();
+        private final BiConsumer<O, List<E>> setter;
+        
+        private Relations(BiConsumer<O, List<E>> setter) {
+            this.setter = setter;
+        }
+        
+        private void add(O owner, E element) {
+            lists.computeIfAbsent(owner, key -> new ArrayList<>()).add(element);
+        }
+        
+        private void set() {
+            for (Map.Entry<O, List<E>> entry : lists.entrySet()) {
+                setter.accept(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.bulk;
+
+import java.io.IOException;
+
+/**
+ * Reads the records of an import file one at a time.
+ * 
+ * @author Delcio Amarillo
+ */
+interface IRecordReader {
+    
+    /**
+     * Reads the next record.
+     * 
+     * @return The record or {@code null} at the end of the file.
+     * 
+     * @throws IOException If the file cannot be read or is malformed.
+     */
+    public Record read() throws IOException;
+}
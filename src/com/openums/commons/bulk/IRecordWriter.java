@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.bulk;
+
+import java.io.IOException;
+
+/**
+ * Writes the records of an export file one at a time.
+ * 
+ * @author Delcio Amarillo
+ */
+interface IRecordWriter {
+    
+    /**
+     * Writes a record.
+     * 
+     * @param type The record type.
+     * 
+     * @param values The values of the record type's fields, in order.
+     * 
+     * @throws IOException If the record cannot be written.
+     */
+    public void write(RecordType type, String... values) throws IOException;
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.bulk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a {@code DomainImporter} run: the number of records read and
+ * inserted per record type and the description of every insert that failed.
+ * Role-permission and user-role relationships are inserted along with their
+ * Role or User, so they count as inserted when their owner does.
+ * 
+ * @author Delcio Amarillo
+ */
+public final class ImportResult {
+    
+    private final Map<RecordType, Integer> read = new EnumMap<>(RecordType.class);
+    private final Map<RecordType, Integer> inserted = new EnumMap<>(RecordType.class);
+    private final List<String> failures = new ArrayList<>();
+    private boolean complete = true;
+    
+    ImportResult() {
+    }
+    
+    /**
+     * Returns the number of records of a given type read from the file.
+     * 
+     * @param type The record type.
+     * 
+     * @return The number of records read.
+     */
+    public int getReadCount(RecordType type) {
+        return read.getOrDefault(type, 0);
+    }
+    
+    /**
+     * Returns the number of records of a given type inserted through the
+     * DAOs.
+     * 
+     * @param type The record type.
+     * 
+     * @return The number of records inserted.
+     */
+    public int getInsertedCount(RecordType type) {
+        return inserted.getOrDefault(type, 0);
+    }
+    
+    /**
+     * Returns the description of every failed insert.
+     * 
+     * @return An unmodifiable list of messages.
+     */
+    public List<String> getFailures() {
+        return Collections.unmodifiableList(failures);
+    }
+    
+    /**
+     * Indicates whether every record was inserted. When the inserts of a
+     * record type fail, the record types depending on it are not inserted.
+     * 
+     * @return {@code true} if every record was inserted.
+     */
+    public boolean isComplete() {
+        return complete && failures.isEmpty();
+    }
+    
+    void addRead(RecordType type) {
+        read.merge(type, 1, Integer::sum);
+    }
+    
+    void addInserted(RecordType type, int count) {
+        inserted.merge(type, count, Integer::sum);
+    }
+    
+    void addFailure(String failure) {
+        failures.add(failure);
+    }
+    
+    void setIncomplete() {
+        complete = false;
+    }
+    
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("ImportResult{");
+        for (RecordType type : RecordType.values()) {
+            builder.append(type.getRecordName()).append('=').append(getInsertedCount(type))
+                    .append('/').append(getReadCount(type)).append(", ");
+        }
+        return builder.append("failures=").append(failures.size()).append('}').toString();
+    }
+}
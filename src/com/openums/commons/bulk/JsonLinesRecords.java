@@ -0,0 +1,281 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.bulk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * JSON lines reader and writer of {@code RecordFormat.JSON_LINES}. Only flat
+ * objects are supported, which is all the record types need.
+ * 
+ * @author Delcio Amarillo
+ */
+final class JsonLinesRecords {
+    
+    private static final String TYPE = "type";
+    
+    private JsonLinesRecords() {
+    }
+    
+    /**
+     * Reads one flat JSON object per line. Blank lines are skipped.
+     */
+    static final class Reader implements IRecordReader {
+        
+        private final BufferedReader in;
+        private final StringBuilder buffer = new StringBuilder();
+        private long line;
+        private String text;
+        private int position;
+        
+        Reader(BufferedReader in) {
+            this.in = in;
+        }
+        
+        @Override
+        public Record read() throws IOException {
+            do {
+                text = in.readLine();
+                line++;
+                if (text == null) {
+                    return null;
+                }
+                position = 0;
+                skipWhitespace();
+            } while (position == text.length());
+            return parseObject();
+        }
+        
+        private Record parseObject() throws IOException {
+            expect('{');
+            String[] names = new String[16];
+            String[] values = new String[16];
+            int count = 0;
+            String typeName = null;
+            skipWhitespace();
+            if (peek() != '}') {
+                while (true) {
+                    skipWhitespace();
+                    String name = parseString();
+                    skipWhitespace();
+                    expect(':');
+                    skipWhitespace();
+                    String value = parseValue();
+                    if (TYPE.equals(name)) {
+                        typeName = value;
+                    } else {
+                        if (count == names.length) {
+                            throw error("too many members");
+                        }
+                        names[count] = name;
+                        values[count++] = value;
+                    }
+                    skipWhitespace();
+                    if (peek() == ',') {
+                        position++;
+                    } else {
+                        break;
+                    }
+                }
+            }
+            expect('}');
+            skipWhitespace();
+            if (position != text.length()) {
+                throw error("unexpected content after the object");
+            }
+            RecordType type = RecordType.forName(typeName);
+            if (type == null) {
+                throw error("unknown record type: " + typeName);
+            }
+            String[] fields = new String[type.getFields().size()];
+            for (int i = 0; i < count; i++) {
+                int index = type.indexOf(names[i]);
+                if (index < 0) {
+                    throw error(type.getRecordName() + " records have no field " + names[i]);
+                }
+                fields[index] = values[i];
+            }
+            return new Record(type, fields, line);
+        }
+        
+        private String parseValue() throws IOException {
+            char c = peek();
+            if (c == '"') {
+                return parseString();
+            }
+            int start = position;
+            while (position < text.length() && text.charAt(position) != ','
+                    && text.charAt(position) != '}'
+                    && !Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+            String literal = text.substring(start, position);
+            if (literal.equals("null")) {
+                return null;
+            }
+            if (literal.equals("true") || literal.equals("false")
+                    || literal.matches("-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?")) {
+                return literal;
+            }
+            throw error("unsupported value: " + literal);
+        }
+        
+        private String parseString() throws IOException {
+            expect('"');
+            buffer.setLength(0);
+            while (true) {
+                if (position >= text.length()) {
+                    throw error("unterminated string");
+                }
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return buffer.toString();
+                }
+                if (c != '\\') {
+                    buffer.append(c);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    throw error("unterminated string");
+                }
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        buffer.append(escaped);
+                        break;
+                    case 'b':
+                        buffer.append('\b');
+                        break;
+                    case 'f':
+                        buffer.append('\f');
+                        break;
+                    case 'n':
+                        buffer.append('\n');
+                        break;
+                    case 'r':
+                        buffer.append('\r');
+                        break;
+                    case 't':
+                        buffer.append('\t');
+                        break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw error("invalid unicode escape");
+                        }
+                        try {
+                            buffer.append((char) Integer.parseInt(
+                                    text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException ex) {
+                            throw error("invalid unicode escape");
+                        }
+                        position += 4;
+                        break;
+                    default:
+                        throw error("invalid escape: \\" + escaped);
+                }
+            }
+        }
+        
+        private char peek() throws IOException {
+            if (position >= text.length()) {
+                throw error("unexpected end of line");
+            }
+            return text.charAt(position);
+        }
+        
+        private void expect(char c) throws IOException {
+            if (peek() != c) {
+                throw error("expected '" + c + "'");
+            }
+            position++;
+        }
+        
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+        
+        private IOException error(String message) {
+            return new IOException("Line " + line + ", column " + (position + 1) + ": " + message);
+        }
+    }
+    
+    /**
+     * Writes one JSON object per line with string or {@code null} members.
+     */
+    static final class Writer implements IRecordWriter {
+        
+        private final java.io.Writer out;
+        
+        Writer(java.io.Writer out) {
+            this.out = out;
+        }
+        
+        @Override
+        public void write(RecordType type, String... values) throws IOException {
+            out.write("{\"" + TYPE + "\":");
+            writeString(type.getRecordName());
+            for (int i = 0; i < values.length; i++) {
+                out.write(',');
+                writeString(type.getFields().get(i));
+                out.write(':');
+                if (values[i] == null) {
+                    out.write("null");
+                } else {
+                    writeString(values[i]);
+                }
+            }
+            out.write("}\n");
+        }
+        
+        private void writeString(String value) throws IOException {
+            out.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"':
+                        out.write("\\\"");
+                        break;
+                    case '\\':
+                        out.write("\\\\");
+                        break;
+                    case '\n':
+                        out.write("\\n");
+                        break;
+                    case '\r':
+                        out.write("\\r");
+                        break;
+                    case '\t':
+                        out.write("\\t");
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            out.write(String.format("\\u%04x", (int) c));
+                        } else {
+                            out.write(c);
+                        }
+                }
+            }
+            out.write('"');
+        }
+    }
+}
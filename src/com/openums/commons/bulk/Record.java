@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.bulk;
+
+/**
+ * A record read from an import file.
+ * 
+ * @author Delcio Amarillo
+ */
+final class Record {
+    
+    final RecordType type;
+    final String[] values;
+    final long line;
+    
+    Record(RecordType type, String[] values, long line) {
+        this.type = type;
+        this.values = values;
+        this.line = line;
+    }
+    
+    String get(String field) {
+        return values[type.indexOf(field)];
+    }
+}
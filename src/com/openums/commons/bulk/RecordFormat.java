@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.bulk;
+
+import java.io.BufferedReader;
+import java.io.Writer;
+
+/**
+ * Formats of import and export files. Both are UTF-8 encoded text with one
+ * record per line.
+ * 
+ * @author Delcio Amarillo
+ * @see RecordType
+ */
+public enum RecordFormat {
+    
+    /**
+     * Comma separated values as described by RFC 4180, without header. Fields
+     * holding commas, quotes or line breaks are enclosed in double quotes and
+     * their quotes doubled. An empty field stands for {@code null}, while a
+     * quoted empty field ({@code ""}) stands for an empty string.
+     */
+    CSV {
+        @Override
+        IRecordReader newReader(BufferedReader reader) {
+            return new CsvRecords.Reader(reader);
+        }
+        
+        @Override
+        IRecordWriter newWriter(Writer writer) {
+            return new CsvRecords.Writer(writer);
+        }
+    },
+    
+    /**
+     * One JSON object per line. Values are written as strings and read from
+     * strings, numbers or booleans; {@code null} or absent members stand for
+     * {@code null}.
+     */
+    JSON_LINES {
+        @Override
+        IRecordReader newReader(BufferedReader reader) {
+            return new JsonLinesRecords.Reader(reader);
+        }
+        
+        @Override
+        IRecordWriter newWriter(Writer writer) {
+            return new JsonLinesRecords.Writer(writer);
+        }
+    };
+    
+    abstract IRecordReader newReader(BufferedReader reader);
+    
+    abstract IRecordWriter newWriter(Writer writer);
+}
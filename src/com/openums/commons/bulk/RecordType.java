@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.bulk;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The kinds of records of an import or export file and their fields. Every
+ * record of a CSV file starts with the record type's name followed by its
+ * fields in the order listed below; every line of a JSON lines file is an
+ * object holding a {@code "type"} member and one member per field.
+ * <p/>
+ * Relationships refer to the related objects by their natural keys: Modules,
+ * Permissions and Roles by {@code code} and Users by {@code userName}.
+ * Booleans are written as {@code true} or {@code false} and dates of birth as
+ * ISO-8601 dates ({@code yyyy-MM-dd}, UTC). A missing value stands for
+ * {@code null}.
+ * 
+ * @author Delcio Amarillo
+ */
+public enum RecordType {
+    
+    /**
+     * {@code module,id,code,description}.
+     */
+    MODULE("module", "id", "code", "description"),
+    
+    /**
+     * {@code permission,id,code,description,module}.
+     */
+    PERMISSION("permission", "id", "code", "description", "module"),
+    
+    /**
+     * {@code role,id,code,description,module}.
+     */
+    ROLE("role", "id", "code", "description", "module"),
+    
+    /**
+     * {@code role_permission,id,role,permission,enabled}.
+     */
+    ROLE_PERMISSION("role_permission", "id", "role", "permission", "enabled"),
+    
+    /**
+     * {@code role_parent,role,parent}: the Role inherits from the parent
+     * Role.
+     */
+    ROLE_PARENT("role_parent", "role", "parent"),
+    
+    /**
+     * {@code user,id,userName,name,lastName,gender,dateOfBirth,email,password,active,unlocked}.
+     */
+    USER("user", "id", "userName", "name", "lastName", "gender", "dateOfBirth"
+            , "email", "password", "active", "unlocked"),
+    
+    /**
+     * {@code user_role,id,user,role}.
+     */
+    USER_ROLE("user_role", "id", "user", "role");
+    
+    private final String recordName;
+    private final List<String> fields;
+    
+    private RecordType(String recordName, String... fields) {
+        this.recordName = recordName;
+        this.fields = Collections.unmodifiableList(Arrays.asList(fields));
+    }
+    
+    /**
+     * Returns the name identifying this record type in the files.
+     * 
+     * @return The record type's name.
+     */
+    public String getRecordName() {
+        return recordName;
+    }
+    
+    /**
+     * Returns the names of the fields of this record type in file order.
+     * 
+     * @return An unmodifiable list with the fields' names.
+     */
+    public List<String> getFields() {
+        return fields;
+    }
+    
+    /**
+     * Returns the position of a given field.
+     * 
+     * @param field The field's name.
+     * 
+     * @return The field's position or {@code -1} if this record type has no
+     * such field.
+     */
+    public int indexOf(String field) {
+        return fields.indexOf(field);
+    }
+    
+    /**
+     * Returns the record type with a given name.
+     * 
+     * @param recordName The record type's name.
+     * 
+     * @return The record type or {@code null} if there is none.
+     */
+    public static RecordType forName(String recordName) {
+        for (RecordType type : values()) {
+            if (type.recordName.equals(recordName)) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
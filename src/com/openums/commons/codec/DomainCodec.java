@@ -0,0 +1,728 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.codec;
+
+import com.openums.commons.domain.IDomainFactory;
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.IPermission;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IRolePermission;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.IUserRole;
+import com.openums.commons.domain.LazyList;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary codec for graphs of domain objects.
+ * <p/>
+ * Encoding walks every object reachable from the given roots through the
+ * relationships of the domain interfaces and assigns each one an index, so
+ * shared objects are written once and the bidirectional relationships
+ * ({@code IRole <-> IUserRole <-> IUser}, {@code IRole <-> IRolePermission
+ * <-> IPermission}, {@code IModule <-> IRole}...) are written as references
+ * to those indexes, whatever cycles they form. The graph is walked without
+ * recursion, so its depth is not limited by the thread's stack. Every
+ * relationship list is read once and copied, so a list modified while the
+ * graph is encoded is written as it was when first read; relationship lists
+ * that are an unloaded {@code LazyList} are not loaded and are encoded as
+ * missing ({@code null}) lists.
+ * <p/>
+ * The Users' passwords, i.e.: their password hashes, are only written by
+ * codecs created with {@code writePasswords} set; otherwise they are encoded
+ * as {@code null}.
+ * <p/>
+ * The format is made of a header, the objects' properties, the objects'
+ * relationships and the root indexes. Integers are written as unsigned
+ * LEB128 varints (dates are zigzag encoded), so small ids take one or two
+ * bytes. Strings are UTF-8 and written once: the following occurrences, i.e.:
+ * the module code shared by thousands of Permissions, are references to a
+ * string table built on the fly.
+ * <p/>
+ * Decoding reads straight from a {@code ByteBuffer}, heap or direct, without
+ * copying it first; only the strings are materialized. Objects are created
+ * through an {@code IDomainFactory} and their relationships are set through
+ * the interfaces' setters once all of them exist, so the decoded graph has
+ * the same shape as the encoded one. Instances are thread-safe.
+ * 
+ * @author Delcio Amarillo
+ */
+public final class DomainCodec {
+    
+    /**
+     * First bytes of every encoded graph: {@code "OUDG"}.
+     */
+    public static final int MAGIC = 0x4F554447;
+    
+    /**
+     * Version of the format written by this class. Version 2 added the
+     * parents of every Role; graphs written with version 1 are still
+     * decoded.
+     */
+    public static final int VERSION = 2;
+    
+    private static final int MODULE = 1;
+    private static final int PERMISSION = 2;
+    private static final int ROLE = 3;
+    private static final int ROLE_PERMISSION = 4;
+    private static final int USER = 5;
+    private static final int USER_ROLE = 6;
+    
+    private final IDomainFactory factory;
+    private final boolean writePasswords;
+    
+    /**
+     * Creates a new {@code DomainCodec} that does not write the Users'
+     * passwords.
+     * 
+     * @param factory The factory of the decoded objects. Can be {@code null}
+     * if the codec is only used to encode.
+     */
+    public DomainCodec(IDomainFactory factory) {
+        this(factory, false);
+    }
+    
+    /**
+     * Creates a new {@code DomainCodec}.
+     * 
+     * @param factory The factory of the decoded objects. Can be {@code null}
+     * if the codec is only used to encode.
+     * 
+     * @param writePasswords Whether the Users' password hashes are written.
+     * If {@code false} they are encoded as {@code null}.
+     */
+    public DomainCodec(IDomainFactory factory, boolean writePasswords) {
+        this.factory = factory;
+        this.writePasswords = writePasswords;
+    }
+    
+    /**
+     * Encodes the graph reachable from some root objects.
+     * 
+     * @param roots The root objects. Every element must implement one of the
+     * domain interfaces.
+     * 
+     * @return A new array with the encoded graph.
+     */
+    public byte[] encode(Collection<?> roots) {
+        return new Encoder(roots, writePasswords).encode().toByteArray();
+    }
+    
+    /**
+     * Encodes the graph reachable from some root objects into a stream.
+     * 
+     * @param roots The root objects. Every element must implement one of the
+     * domain interfaces.
+     * 
+     * @param out The stream. It is neither flushed nor closed.
+     * 
+     * @throws IOException If the stream fails.
+     */
+    public void encode(Collection<?> roots, OutputStream out) throws IOException {
+        Output output = new Encoder(roots, writePasswords).encode();
+        out.write(output.bytes, 0, output.size);
+    }
+    
+    /**
+     * Decodes a graph from a byte array.
+     * 
+     * @param bytes The encoded graph.
+     * 
+     * @return A new list with the decoded roots, in their original order.
+     * 
+     * @throws IllegalArgumentException If the data is not a valid encoded
+     * graph.
+     */
+    public List<Object> decode(byte[] bytes) {
+        return decode(ByteBuffer.wrap(bytes));
+    }
+    
+    /**
+     * Decodes a graph from a buffer, starting at its position. On return the
+     * position is right after the encoded graph, so several graphs can be
+     * read one after another.
+     * 
+     * @param buffer The buffer.
+     * 
+     * @return A new list with the decoded roots, in their original order.
+     * 
+     * @throws IllegalArgumentException If the data is not a valid encoded
+     * graph.
+     */
+    public List<Object> decode(ByteBuffer buffer) {
+        if (factory == null) {
+            throw new IllegalStateException("This codec has no domain factory.");
+        }
+        try {
+            return new Decoder(buffer).decode();
+        } catch (BufferUnderflowException | IndexOutOfBoundsException
+                | ClassCastException ex) {
+            throw new IllegalArgumentException("Corrupted domain graph.", ex);
+        }
+    }
+    
+    /**
+     * Decodes a graph whose roots are all of a given type.
+     * 
+     * @param <T> The class of the roots.
+     * 
+     * @param buffer The buffer.
+     * 
+     * @param rootType The domain interface of the roots.
+     * 
+     * @return A new list with the decoded roots, in their original order.
+     * 
+     * @throws IllegalArgumentException If the data is not a valid encoded
+     * graph or a root is not of the expected type.
+     */
+    public <T> List<T> decode(ByteBuffer buffer, Class<T> rootType) {
+        List<Object> roots = decode(buffer);
+        List<T> result = new ArrayList<>(roots.size());
+        for (Object root : roots) {
+            if (root != null && !rootType.isInstance(root)) {
+                throw new IllegalArgumentException("Unexpected root type: " + root.getClass().getName());
+            }
+            result.add(rootType.cast(root));
+        }
+        return result;
+    }
+    
+    private static final class Encoder {
+        
+        private final Collection<?> roots;
+        private final Map<Object, Integer> indexes = new IdentityHashMap<>();
+        private final List<Object> objects = new ArrayList<>();
+        private final List<Object[]> relationships = new ArrayList<>();
+        private final boolean writePasswords;
+        private final Output output = new Output();
+        private byte[] types = new byte[256];
+        
+        private Encoder(Collection<?> roots, boolean writePasswords) {
+            this.roots = roots;
+            this.writePasswords = writePasswords;
+        }
+        
+        private Output encode() {
+            for (Object root : roots) {
+                visit(root);
+            }
+            // Objects are appended while visited, so the list is the queue.
+            for (int i = 0; i < objects.size(); i++) {
+                relationships.add(visitRelationships(objects.get(i), types[i]));
+            }
+            output.writeInt(MAGIC);
+            output.writeVarLong(VERSION);
+            output.writeVarLong(objects.size());
+            for (int i = 0; i < objects.size(); i++) {
+                writeProperties(objects.get(i), types[i]);
+            }
+            for (Object[] slots : relationships) {
+                writeRelationships(slots);
+            }
+            output.writeVarLong(roots.size());
+            for (Object root : roots) {
+                writeReference(root);
+            }
+            return output;
+        }
+        
+        private void visit(Object object) {
+            if (object != null && !indexes.containsKey(object)) {
+                int index = objects.size();
+                if (index == types.length) {
+                    types = Arrays.copyOf(types, index * 2);
+                }
+                types[index] = (byte) typeOf(object);
+                indexes.put(object, index);
+                objects.add(object);
+            }
+        }
+        
+        private void visitAll(List<?> list) {
+            if (list != null) {
+                for (Object object : list) {
+                    visit(object);
+                }
+            }
+        }
+        
+        /**
+         * Reads the relationships of an object once, into the slots written
+         * later by {@link #writeRelationships(Object[])}: the related objects
+         * and copies of the relationship lists. The related objects are
+         * visited.
+         */
+        private Object[] visitRelationships(Object object, int type) {
+            Object[] slots;
+            switch (type) {
+                case MODULE:
+                    slots = new Object[] {
+                        snapshot(((IModule) object).getRolesList()),
+                        snapshot(((IModule) object).getPermissionsList())};
+                    break;
+                case PERMISSION:
+                    slots = new Object[] {((IPermission) object).getModule(),
+                        snapshot(((IPermission) object).getRolePermissionsList())};
+                    break;
+                case ROLE:
+                    slots = new Object[] {((IRole) object).getModule(),
+                        snapshot(((IRole) object).getRolePermissionsList()),
+                        snapshot(((IRole) object).getUserRolesList()),
+                        snapshot(((IRole) object).getParentRolesList())};
+                    break;
+                case ROLE_PERMISSION:
+                    slots = new Object[] {((IRolePermission) object).getRole(),
+                        ((IRolePermission) object).getPermission()};
+                    break;
+                case USER:
+                    slots = new Object[] {
+                        snapshot(((IUser) object).getUserRolesList())};
+                    break;
+                default:
+                    slots = new Object[] {((IUserRole) object).getRole(),
+                        ((IUserRole) object).getUser()};
+            }
+            for (Object slot : slots) {
+                if (slot instanceof List) {
+                    for (Object related : (List<?>) slot) {
+                        visit(related);
+                    }
+                } else {
+                    visit(slot);
+                }
+            }
+            return slots;
+        }
+        
+        /**
+         * Copies a relationship list, so that it is read only once even if it
+         * is modified concurrently. Unloaded {@code LazyList} objects are
+         * skipped, i.e.: encoded as missing lists.
+         */
+        private List<?> snapshot(List<?> list) {
+            if (list == null
+                    || (list instanceof LazyList && !((LazyList<?>) list).isLoaded())) {
+                return null;
+            }
+            return new ArrayList<>(list);
+        }
+        
+        private void writeProperties(Object object, int type) {
+            output.writeByte(type);
+            switch (type) {
+                case MODULE:
+                    IModule module = (IModule) object;
+                    output.writeId(module.getId());
+                    output.writeString(module.getCode());
+                    output.writeString(module.getDescription());
+                    break;
+                case PERMISSION:
+                    IPermission permission = (IPermission) object;
+                    output.writeId(permission.getId());
+                    output.writeString(permission.getCode());
+                    output.writeString(permission.getDescription());
+                    break;
+                case ROLE:
+                    IRole role = (IRole) object;
+                    output.writeId(role.getId());
+                    output.writeString(role.getCode());
+                    output.writeString(role.getDescription());
+                    break;
+                case ROLE_PERMISSION:
+                    IRolePermission rolePermission = (IRolePermission) object;
+                    output.writeId(rolePermission.getId());
+                    output.writeBoolean(rolePermission.isEnabled());
+                    break;
+                case USER:
+                    IUser user = (IUser) object;
+                    output.writeId(user.getId());
+                    output.writeString(user.getUserName());
+                    output.writeString(user.getName());
+                    output.writeString(user.getLastName());
+                    output.writeString(user.getGender());
+                    output.writeDate(user.getDateOfBirth());
+                    output.writeString(user.getEmail());
+                    output.writeString(writePasswords ? user.getPassword() : null);
+                    output.writeBoolean(user.isActive());
+                    output.writeBoolean(user.isUnlocked());
+                    break;
+                default:
+                    output.writeId(((IUserRole) object).getId());
+            }
+        }
+        
+        private void writeRelationships(Object[] slots) {
+            for (Object slot : slots) {
+                if (slot instanceof List) {
+                    writeReferences((List<?>) slot);
+                } else {
+                    writeReference(slot);
+                }
+            }
+        }
+        
+        private void writeReference(Object object) {
+            output.writeVarLong(object == null ? 0 : indexes.get(object) + 1);
+        }
+        
+        private void writeReferences(List<?> list) {
+            if (list == null) {
+                output.writeVarLong(0);
+                return;
+            }
+            output.writeVarLong(list.size() + 1L);
+            for (Object object : list) {
+                writeReference(object);
+            }
+        }
+    }
+    
+    private final class Decoder {
+        
+        private final ByteBuffer buffer;
+        private final List<String> strings = new ArrayList<>();
+        private byte[] scratch = new byte[64];
+        private Object[] objects;
+        private byte[] types;
+        private long version;
+        
+        private Decoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+        
+        private List<Object> decode() {
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not an encoded domain graph.");
+            }
+            version = readVarLong();
+            if (version < 1 || version > VERSION) {
+                throw new IllegalArgumentException("Unsupported format version: " + version);
+            }
+            objects = new Object[readSize()];
+            types = new byte[objects.length];
+            for (int i = 0; i < objects.length; i++) {
+                types[i] = buffer.get();
+                objects[i] = readProperties(types[i]);
+            }
+            for (int i = 0; i < objects.length; i++) {
+                readRelationships(objects[i], types[i]);
+            }
+            int count = readSize();
+            List<Object> roots = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                roots.add(readReference());
+            }
+            return roots;
+        }
+        
+        private Object readProperties(int type) {
+            switch (type) {
+                case MODULE:
+                    IModule module = factory.newModule(readId());
+                    module.setCode(readString());
+                    module.setDescription(readString());
+                    return module;
+                case PERMISSION:
+                    IPermission permission = factory.newPermission(readId());
+                    permission.setCode(readString());
+                    permission.setDescription(readString());
+                    return permission;
+                case ROLE:
+                    IRole role = factory.newRole(readId());
+                    role.setCode(readString());
+                    role.setDescription(readString());
+                    return role;
+                case ROLE_PERMISSION:
+                    IRolePermission rolePermission = factory.newRolePermission(readId());
+                    rolePermission.setEnabled(readBoolean());
+                    return rolePermission;
+                case USER:
+                    IUser user = factory.newUser(readId());
+                    user.setUserName(readString());
+                    user.setName(readString());
+                    user.setLastName(readString());
+                    user.setGender(readString());
+                    user.setDateOfBirth(readDate());
+                    user.setEmail(readString());
+                    user.setPassword(readString());
+                    user.setActive(readBoolean());
+                    user.setUnlocked(readBoolean());
+                    return user;
+                case USER_ROLE:
+                    return factory.newUserRole(readId());
+                default:
+                    throw new IllegalArgumentException("Unknown object type: " + type);
+            }
+        }
+        
+        @SuppressWarnings("unchecked")
+        private void readRelationships(Object object, int type) {
+            switch (type) {
+                case MODULE:
+                    ((IModule) object).setRolesList((List<IRole>) readReferences());
+                    ((IModule) object).setPermissionsList((List<IPermission>) readReferences());
+                    break;
+                case PERMISSION:
+                    ((IPermission) object).setModule((IModule) readReference());
+                    ((IPermission) object).setRolePermissionsList((List<IRolePermission>) readReferences());
+                    break;
+                case ROLE:
+                    ((IRole) object).setModule((IModule) readReference());
+                    ((IRole) object).setRolePermissionsList((List<IRolePermission>) readReferences());
+                    ((IRole) object).setUserRolesList((List<IUserRole>) readReferences());
+                    List<IRole> parents = version < 2 ? null : (List<IRole>) readReferences();
+                    if (parents != null && !parents.isEmpty()) {
+                        ((IRole) object).setParentRolesList(parents);
+                    }
+                    break;
+                case ROLE_PERMISSION:
+                    ((IRolePermission) object).setRole((IRole) readReference());
+                    ((IRolePermission) object).setPermission((IPermission) readReference());
+                    break;
+                case USER:
+                    ((IUser) object).setUserRolesList((List<IUserRole>) readReferences());
+                    break;
+                default:
+                    ((IUserRole) object).setRole((IRole) readReference());
+                    ((IUserRole) object).setUser((IUser) readReference());
+            }
+        }
+        
+        private Object readReference() {
+            int index = readIndex();
+            return index == 0 ? null : objects[index - 1];
+        }
+        
+        private List<?> readReferences() {
+            int size = readSize();
+            if (size == 0) {
+                return null;
+            }
+            List<Object> list = new ArrayList<>(size - 1);
+            for (int i = 1; i < size; i++) {
+                list.add(readReference());
+            }
+            return list;
+        }
+        
+        private BigInteger readId() {
+            long tag = readVarLong();
+            if (tag == 0) {
+                return null;
+            } else if (tag == 1) {
+                byte[] magnitude = new byte[readSize()];
+                buffer.get(magnitude);
+                return new BigInteger(magnitude);
+            }
+            return BigInteger.valueOf(tag - 2);
+        }
+        
+        private String readString() {
+            int tag = readIndex();
+            if (tag == 0) {
+                return null;
+            } else if (tag > 1) {
+                return strings.get(tag - 2);
+            }
+            int length = readSize();
+            String value;
+            if (buffer.hasArray()) {
+                int offset = buffer.arrayOffset() + buffer.position();
+                if (length > buffer.remaining()) {
+                    throw new BufferUnderflowException();
+                }
+                value = new String(buffer.array(), offset, length, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+            } else {
+                if (length > scratch.length) {
+                    scratch = new byte[Math.max(length, scratch.length * 2)];
+                }
+                buffer.get(scratch, 0, length);
+                value = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+            strings.add(value);
+            return value;
+        }
+        
+        private Boolean readBoolean() {
+            switch (buffer.get()) {
+                case 0:
+                    return null;
+                case 1:
+                    return Boolean.FALSE;
+                default:
+                    return Boolean.TRUE;
+            }
+        }
+        
+        private Date readDate() {
+            if (buffer.get() == 0) {
+                return null;
+            }
+            long zigzag = readVarLong();
+            return new Date((zigzag >>> 1) ^ -(zigzag & 1));
+        }
+        
+        private int readIndex() {
+            long value = readVarLong();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Corrupted domain graph: invalid index " + value);
+            }
+            return (int) value;
+        }
+        
+        private int readSize() {
+            // Every counted element takes at least one byte.
+            int value = readIndex();
+            if (value > buffer.remaining() + 1) {
+                throw new IllegalArgumentException("Corrupted domain graph: invalid size " + value);
+            }
+            return value;
+        }
+        
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Corrupted domain graph: malformed varint.");
+        }
+    }
+    
+    private static final class Output {
+        
+        private final Map<String, Integer> strings = new HashMap<>();
+        private byte[] bytes = new byte[256];
+        private int size;
+        
+        private void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+        
+        private void writeInt(int value) {
+            ensure(4);
+            bytes[size++] = (byte) (value >>> 24);
+            bytes[size++] = (byte) (value >>> 16);
+            bytes[size++] = (byte) (value >>> 8);
+            bytes[size++] = (byte) value;
+        }
+        
+        private void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+        
+        private void writeId(BigInteger id) {
+            if (id == null) {
+                writeVarLong(0);
+            } else if (id.signum() >= 0 && id.bitLength() < 63) {
+                writeVarLong(id.longValue() + 2);
+            } else {
+                byte[] magnitude = id.toByteArray();
+                writeVarLong(1);
+                writeVarLong(magnitude.length);
+                writeBytes(magnitude);
+            }
+        }
+        
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index != null) {
+                writeVarLong(index + 2L);
+                return;
+            }
+            strings.put(value, strings.size());
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(1);
+            writeVarLong(utf8.length);
+            writeBytes(utf8);
+        }
+        
+        private void writeBoolean(Boolean value) {
+            writeByte(value == null ? 0 : value ? 2 : 1);
+        }
+        
+        private void writeDate(Date value) {
+            if (value == null) {
+                writeByte(0);
+                return;
+            }
+            long time = value.getTime();
+            writeByte(1);
+            writeVarLong((time << 1) ^ (time >> 63));
+        }
+        
+        private void writeBytes(byte[] value) {
+            ensure(value.length);
+            System.arraycopy(value, 0, bytes, size, value.length);
+            size += value.length;
+        }
+        
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(size + extra, bytes.length * 2));
+            }
+        }
+        
+        private byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+    }
+    
+    private static int typeOf(Object object) {
+        if (object instanceof IModule) {
+            return MODULE;
+        } else if (object instanceof IPermission) {
+            return PERMISSION;
+        } else if (object instanceof IRole) {
+            return ROLE;
+        } else if (object instanceof IRolePermission) {
+            return ROLE_PERMISSION;
+        } else if (object instanceof IUser) {
+            return USER;
+        } else if (object instanceof IUserRole) {
+            return USER_ROLE;
+        }
+        throw new IllegalArgumentException("Not a domain object: " + object.getClass().getName());
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.domain;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Copies domain objects through an {@code IDomainFactory}, so that a holder
+ * of domain objects, such as an in-memory DAO, never shares them with its
+ * callers.
+ * <p/>
+ * A copy holds the same properties and, for {@code IVersioned} objects, the
+ * same version. The relationship objects owned by the copied entity (the
+ * {@code IRolePermission} of a Role or Permission, the {@code IUserRole} of a
+ * User or Role) are copied as well and point back at the copy; the entities
+ * at the other end of the relationships, such as the Permission of an
+ * {@code IRolePermission} or the parents of a Role, are shared, since each
+ * one belongs to its own holder. Relationship lists that are an unloaded
+ * {@link LazyList} stay lazy: they are copied the first time the copy's list
+ * is accessed.
+ * <p/>
+ * The {@code lazyCopy} methods copy the properties right away but defer
+ * copying every relationship list until it is first accessed, which lets a
+ * holder hand out copies of entities with very large relationships without
+ * paying for them, and without copying them while it holds a lock. The
+ * original must not be modified afterwards: the deferred copies read its
+ * lists as they are when first accessed.
+ * 
+ * @author Delcio Amarillo
+ */
+public final class DomainCopies {
+    
+    private DomainCopies() {
+    }
+    
+    /**
+     * Copies a Module.
+     * 
+     * @param module The Module.
+     * 
+     * @param factory The factory of the copy.
+     * 
+     * @return A new {@code IModule} object.
+     */
+    public static IModule copy(IModule module, IDomainFactory factory) {
+        return copy(module, factory, false);
+    }
+    
+    /**
+     * Copies a Module, deferring the copy of its Role and Permission lists
+     * until they are first accessed.
+     * 
+     * @param module The Module. Must not be modified afterwards.
+     * 
+     * @param factory The factory of the copy.
+     * 
+     * @return A new {@code IModule} object.
+     */
+    public static IModule lazyCopy(IModule module, IDomainFactory factory) {
+        return copy(module, factory, true);
+    }
+    
+    /**
+     * Copies a Permission along with its role-permission relationships.
+     * 
+     * @param permission The Permission.
+     * 
+     * @param factory The factory of the copy.
+     * 
+     * @return A new {@code IPermission} object.
+     */
+    public static IPermission copy(IPermission permission, IDomainFactory factory) {
+        return copy(permission, factory, false);
+    }
+    
+    /**
+     * Copies a Permission, deferring the copy of its role-permission
+     * relationships until they are first accessed.
+     * 
+     * @param permission The Permission. Must not be modified afterwards.
+     * 
+     * @param factory The factory of the copy.
+     * 
+     * @return A new {@code IPermission} object.
+     */
+    public static IPermission lazyCopy(IPermission permission, IDomainFactory factory) {
+        return copy(permission, factory, true);
+    }
+    
+    /**
+     * Copies a Role along with its role-permission and user-role
+     * relationships.
+     * 
+     * @param role The Role.
+     * 
+     * @param factory The factory of the copy.
+     * 
+     * @return A new {@code IRole} object.
+     */
+    public static IRole copy(IRole role, IDomainFactory factory) {
+        return copy(role, factory, false);
+    }
+    
+    /**
+     * Copies a Role, deferring the copy of its role-permission, user-role and
+     * parent lists until they are first accessed.
+     * 
+     * @param role The Role. Must not be modified afterwards.
+     * 
+     * @param factory The factory of the copy.
+     * 
+     * @return A new {@code IRole} object.
+     */
+    public static IRole lazyCopy(IRole role, IDomainFactory factory) {
+        return copy(role, factory, true);
+    }
+    
+    /**
+     * Copies a User along with its user-role relationships.
+     * 
+     * @param user The User.
+     * 
+     * @param factory The factory of the copy.
+     * 
+     * @return A new {@code IUser} object.
+     */
+    public static IUser copy(IUser user, IDomainFactory factory) {
+        return copy(user, factory, false);
+    }
+    
+    /**
+     * Copies a User, deferring the copy of its user-role relationships until
+     * they are first accessed.
+     * 
+     * @param user The User. Must not be modified afterwards.
+     * 
+     * @param factory The factory of the copy.
+     * 
+     * @return A new {@code IUser} object.
+     */
+    public static IUser lazyCopy(IUser user, IDomainFactory factory) {
+        return copy(user, factory, true);
+    }
+    
+    private static IModule copy(IModule module, IDomainFactory factory, boolean lazily) {
+        IModule copy = factory.newModule(module.getId());
+        copy.setCode(module.getCode());
+        copy.setDescription(module.getDescription());
+        copy.setRolesList(copyList(module.getRolesList(), Function.identity(), lazily));
+        copy.setPermissionsList(copyList(module.getPermissionsList(), Function.identity()
+                , lazily));
+        copyVersion(module, copy);
+        return copy;
+    }
+    
+    private static IPermission copy(IPermission permission, IDomainFactory factory
+            , boolean lazily) {
+        IPermission copy = factory.newPermission(permission.getId());
+        copy.setCode(permission.getCode());
+        copy.setDescription(permission.getDescription());
+        copy.setModule(permission.getModule());
+        copy.setRolePermissionsList(copyList(permission.getRolePermissionsList()
+                , rolePermission -> copy(rolePermission, factory, permission, copy), lazily));
+        copyVersion(permission, copy);
+        return copy;
+    }
+    
+    private static IRole copy(IRole role, IDomainFactory factory, boolean lazily) {
+        IRole copy = factory.newRole(role.getId());
+        copy.setCode(role.getCode());
+        copy.setDescription(role.getDescription());
+        copy.setModule(role.getModule());
+        copy.setRolePermissionsList(copyList(role.getRolePermissionsList()
+                , rolePermission -> copy(rolePermission, factory, role, copy), lazily));
+        copy.setUserRolesList(copyList(role.getUserRolesList()
+                , userRole -> copy(userRole, factory, role, copy), lazily));
+        List<IRole> parents = role.getParentRolesList();
+        if (parents != null && !parents.isEmpty()) {
+            copy.setParentRolesList(copyList(parents, Function.identity(), lazily));
+        }
+        copyVersion(role, copy);
+        return copy;
+    }
+    
+    private static IUser copy(IUser user, IDomainFactory factory, boolean lazily) {
+        IUser copy = factory.newUser(user.getId());
+        copy.setName(user.getName());
+        copy.setLastName(user.getLastName());
+        copy.setGender(user.getGender());
+        Date dateOfBirth = user.getDateOfBirth();
+        copy.setDateOfBirth(dateOfBirth == null ? null : (Date) dateOfBirth.clone());
+        copy.setEmail(user.getEmail());
+        copy.setUserName(user.getUserName());
+        copy.setPassword(user.getPassword());
+        copy.setActive(user.isActive());
+        copy.setUnlocked(user.isUnlocked());
+        copy.setUserRolesList(copyList(user.getUserRolesList()
+                , userRole -> copy(userRole, factory, user, copy), lazily));
+        copyVersion(user, copy);
+        return copy;
+    }
+    
+    /**
+     * Copies a role-permission relationship, replacing the copied Role or
+     * Permission with its copy.
+     */
+    private static IRolePermission copy(IRolePermission rolePermission
+            , IDomainFactory factory, Object original, Object owner) {
+        IRolePermission copy = factory.newRolePermission(rolePermission.getId());
+        copy.setEnabled(rolePermission.isEnabled());
+        copy.setRole(rolePermission.getRole() == original
+                ? (IRole) owner : rolePermission.getRole());
+        copy.setPermission(rolePermission.getPermission() == original
+                ? (IPermission) owner : rolePermission.getPermission());
+        return copy;
+    }
+    
+    /**
+     * Copies a user-role relationship, replacing the copied User or Role
+     * with its copy.
+     */
+    private static IUserRole copy(IUserRole userRole, IDomainFactory factory
+            , Object original, Object owner) {
+        IUserRole copy = factory.newUserRole(userRole.getId());
+        copy.setUser(userRole.getUser() == original ? (IUser) owner : userRole.getUser());
+        copy.setRole(userRole.getRole() == original ? (IRole) owner : userRole.getRole());
+        return copy;
+    }
+    
+    private static <E> List<E> copyList(List<E> list, Function<E, E> copier
+            , boolean lazily) {
+        if (list == null) {
+            return null;
+        }
+        if (lazily || list instanceof LazyList && !((LazyList<E>) list).isLoaded()) {
+            return new LazyList<>(() -> copyElements(list, copier));
+        }
+        return copyElements(list, copier);
+    }
+    
+    private static <E> List<E> copyElements(List<E> list, Function<E, E> copier) {
+        List<E> copy = new ArrayList<>(list.size());
+        for (E element : list) {
+            copy.add(element == null ? null : copier.apply(element));
+        }
+        return copy;
+    }
+    
+    private static void copyVersion(Object original, Object copy) {
+        if (original instanceof IVersioned && copy instanceof IVersioned) {
+            ((IVersioned) copy).setVersion(((IVersioned) original).getVersion());
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.domain;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Null-safe helpers to walk the relationships between domain objects, such as
+ * the Roles of a User or the enabled Permissions of a Role.
+ * 
+ * @author Delcio Amarillo
+ */
+public final class DomainGraph {
+    
+    private DomainGraph() {
+    }
+    
+    /**
+     * Returns the primary key of the Module associated to a given Role.
+     * 
+     * @param role The Role.
+     * 
+     * @return The Module's primary key or {@code null} if there's none.
+     */
+    public static BigInteger getModuleId(IRole role) {
+        IModule module = role.getModule();
+        return module == null ? null : module.getId();
+    }
+    
+    /**
+     * Returns the primary key of the Module associated to a given Permission.
+     * 
+     * @param permission The Permission.
+     * 
+     * @return The Module's primary key or {@code null} if there's none.
+     */
+    public static BigInteger getModuleId(IPermission permission) {
+        IModule module = permission.getModule();
+        return module == null ? null : module.getId();
+    }
+    
+    /**
+     * Returns the codes of the Permissions associated to a given Role through
+     * an enabled {@code IRolePermission} relationship.
+     * 
+     * @param role The Role.
+     * 
+     * @return A set with the Permissions' codes.
+     */
+    public static Set<String> getEnabledPermissionCodes(IRole role) {
+        List<IRolePermission> rolePermissions = role.getRolePermissionsList();
+        if (rolePermissions == null || rolePermissions.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> codes = new LinkedHashSet<>();
+        for (IRolePermission rolePermission : rolePermissions) {
+            String code = getEnabledPermissionCode(rolePermission);
+            if (code != null) {
+                codes.add(code);
+            }
+        }
+        return codes;
+    }
+    
+    /**
+     * Returns the code of the Permission involved in a given role-permission
+     * relationship if the relationship is enabled.
+     * 
+     * @param rolePermission The role-permission relationship.
+     * 
+     * @return The Permission's code or {@code null} if the relationship is
+     * disabled or has no Permission.
+     */
+    public static String getEnabledPermissionCode(IRolePermission rolePermission) {
+        IPermission permission = rolePermission.getPermission();
+        return Boolean.TRUE.equals(rolePermission.isEnabled()) && permission != null
+                ? permission.getCode() : null;
+    }
+    
+    /**
+     * Returns whether a given Role holds a given Permission through an enabled
+     * {@code IRolePermission} relationship.
+     * 
+     * @param role The Role.
+     * 
+     * @param permissionCode The Permission's code.
+     * 
+     * @return {@code true} if the Role holds the Permission, {@code false}
+     * otherwise.
+     */
+    public static boolean hasEnabledPermission(IRole role, String permissionCode) {
+        List<IRolePermission> rolePermissions = role.getRolePermissionsList();
+        if (permissionCode == null || rolePermissions == null) {
+            return false;
+        }
+        for (IRolePermission rolePermission : rolePermissions) {
+            if (permissionCode.equals(getEnabledPermissionCode(rolePermission))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Returns whether a given Role holds a given Permission through an enabled
+     * {@code IRolePermission} relationship, either its own or one of the Roles
+     * it inherits from. The ancestors are those reachable through
+     * {@link IRole#getParentRolesList()}, so a parent whose relationships
+     * are not loaded contributes nothing.
+     * 
+     * @param role The Role.
+     * 
+     * @param permissionCode The Permission's code.
+     * 
+     * @return {@code true} if the Role holds the Permission, {@code false}
+     * otherwise.
+     */
+    public static boolean hasEffectivePermission(IRole role, String permissionCode) {
+        Map<IRole, Boolean> visited = new IdentityHashMap<>();
+        Deque<IRole> pending = new ArrayDeque<>();
+        pending.add(role);
+        while (!pending.isEmpty()) {
+            IRole current = pending.poll();
+            if (visited.put(current, Boolean.TRUE) != null) {
+                continue;
+            }
+            if (hasEnabledPermission(current, permissionCode)) {
+                return true;
+            }
+            List<IRole> parents = current.getParentRolesList();
+            if (parents != null) {
+                for (IRole parent : parents) {
+                    if (parent != null) {
+                        pending.add(parent);
+                    }
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Returns the primary keys of the Roles, among the given ones, holding a
+     * given Permission through an enabled {@code IRolePermission}
+     * relationship, either their own or one of a given Role they inherit
+     * from, directly or transitively. Inheritance is followed by primary key,
+     * so the parent Roles need not be loaded.
+     * 
+     * @param roles The Roles.
+     * 
+     * @param permissionCode The Permission's code.
+     * 
+     * @return A set with the Roles' primary keys.
+     */
+    public static Set<BigInteger> getGrantingRoleIds(Collection<IRole> roles
+            , String permissionCode) {
+        Map<BigInteger, List<BigInteger>> children = new HashMap<>();
+        Deque<BigInteger> pending = new ArrayDeque<>();
+        for (IRole role : roles) {
+            if (role == null || role.getId() == null) {
+                continue;
+            }
+            for (BigInteger parentId : getParentRoleIds(role)) {
+                children.computeIfAbsent(parentId, key -> new ArrayList<>())
+                        .add(role.getId());
+            }
+            if (hasEnabledPermission(role, permissionCode)) {
+                pending.add(role.getId());
+            }
+        }
+        Set<BigInteger> ids = new LinkedHashSet<>();
+        while (!pending.isEmpty()) {
+            BigInteger id = pending.poll();
+            if (ids.add(id)) {
+                pending.addAll(children.getOrDefault(id, Collections.emptyList()));
+            }
+        }
+        return ids;
+    }
+    
+    /**
+     * Returns the primary keys of the Roles a given Role inherits from
+     * directly.
+     * 
+     * @param role The Role.
+     * 
+     * @return A set with the parent Roles' primary keys.
+     */
+    public static Set<BigInteger> getParentRoleIds(IRole role) {
+        List<IRole> parents = role.getParentRolesList();
+        if (parents == null || parents.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<BigInteger> ids = new LinkedHashSet<>();
+        for (IRole parent : parents) {
+            if (parent != null && parent.getId() != null) {
+                ids.add(parent.getId());
+            }
+        }
+        return ids;
+    }
+    
+    /**
+     * Returns the Roles associated to a given User.
+     * 
+     * @param user The User.
+     * 
+     * @return A list with the User's Roles.
+     */
+    public static List<IRole> getRoles(IUser user) {
+        List<IUserRole> userRoles = user.getUserRolesList();
+        if (userRoles == null || userRoles.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<IRole> roles = new ArrayList<>(userRoles.size());
+        for (IUserRole userRole : userRoles) {
+            if (userRole.getRole() != null) {
+                roles.add(userRole.getRole());
+            }
+        }
+        return roles;
+    }
+    
+    /**
+     * Returns the primary keys of the Roles associated to a given User.
+     * 
+     * @param user The User.
+     * 
+     * @return A list with the Roles' primary keys.
+     */
+    public static List<BigInteger> getRoleIds(IUser user) {
+        List<IRole> roles = getRoles(user);
+        List<BigInteger> ids = new ArrayList<>(roles.size());
+        for (IRole role : roles) {
+            if (role.getId() != null) {
+                ids.add(role.getId());
+            }
+        }
+        return ids;
+    }
+    
+    /**
+     * Returns the primary keys of the Roles a given User holds, either
+     * directly or inherited through {@link IRole#getParentRolesList()}. As
+     * in {@link #hasEffectivePermission(IRole, String)}, a parent whose
+     * relationships are not loaded contributes only its own key.
+     * 
+     * @param user The User.
+     * 
+     * @return A new set with the Roles' primary keys, in ascending order.
+     */
+    public static Set<BigInteger> getEffectiveRoleIds(IUser user) {
+        Set<BigInteger> ids = new TreeSet<>();
+        Map<IRole, Boolean> visited = new IdentityHashMap<>();
+        Deque<IRole> pending = new ArrayDeque<>(getRoles(user));
+        while (!pending.isEmpty()) {
+            IRole current = pending.poll();
+            if (visited.put(current, Boolean.TRUE) != null) {
+                continue;
+            }
+            if (current.getId() != null) {
+                ids.add(current.getId());
+            }
+            List<IRole> parents = current.getParentRolesList();
+            if (parents != null) {
+                for (IRole parent : parents) {
+                    if (parent != null) {
+                        pending.add(parent);
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+}
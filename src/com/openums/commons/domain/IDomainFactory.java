@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.domain;
+
+import java.math.BigInteger;
+
+/**
+ * Creates empty instances of a given implementation of the domain
+ * interfaces. It lets generic code, such as decoders and importers, build
+ * domain objects without knowing their concrete classes. The returned
+ * objects only carry their {@code id}; every other property and
+ * relationship is set afterwards through the interfaces' setters.
+ * 
+ * @author Delcio Amarillo
+ */
+public interface IDomainFactory {
+    
+    /**
+     * Creates a new Module.
+     * 
+     * @param id The Module's primary key. Can be {@code null}.
+     * 
+     * @return A new {@code IModule} object.
+     */
+    public IModule newModule(BigInteger id);
+    
+    /**
+     * Creates a new Permission.
+     * 
+     * @param id The Permission's primary key. Can be {@code null}.
+     * 
+     * @return A new {@code IPermission} object.
+     */
+    public IPermission newPermission(BigInteger id);
+    
+    /**
+     * Creates a new Role.
+     * 
+     * @param id The Role's primary key. Can be {@code null}.
+     * 
+     * @return A new {@code IRole} object.
+     */
+    public IRole newRole(BigInteger id);
+    
+    /**
+     * Creates a new role-permission relationship.
+     * 
+     * @param id The relationship's primary key. Can be {@code null}.
+     * 
+     * @return A new {@code IRolePermission} object.
+     */
+    public IRolePermission newRolePermission(BigInteger id);
+    
+    /**
+     * Creates a new User.
+     * 
+     * @param id The User's primary key. Can be {@code null}.
+     * 
+     * @return A new {@code IUser} object.
+     */
+    public IUser newUser(BigInteger id);
+    
+    /**
+     * Creates a new user-role relationship.
+     * 
+     * @param id The relationship's primary key. Can be {@code null}.
+     * 
+     * @return A new {@code IUserRole} object.
+     */
+    public IUserRole newUserRole(BigInteger id);
+}
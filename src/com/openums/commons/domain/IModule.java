@@ -43,6 +43,20 @@ public interface IModule {
      */
     public BigInteger getId();
     
+    /**
+     * Returns the {@code id} property as a primitive {@code long}. Primitive 
+     * identifiers avoid one object per id on hot paths and allow primitive 
+     * collections to be used as indexes.
+     * 
+     * @return The module's id or 
+     * {@link Identifiers#NO_ID} if it has not been set.
+     * 
+     * @throws ArithmeticException If the id does not fit in a {@code long}.
+     */
+    public default long getLongId() {
+        return Identifiers.toLong(getId());
+    }
+    
     /**
      * Returns the {@code code} property. The code is a user-defined type of 
      * code to easily identify a Module.
@@ -83,7 +97,9 @@ public interface IModule {
     public void addRole(IRole role);
     
     /**
-     * Returns a list with the Roles associated to this Module.
+     * Returns a list with the Roles associated to this Module. The list may be 
+     * a {@link LazyList}, populated from the back-end storage the first time 
+     * it is accessed, so that loading this Module does not load its Roles.
      * 
      * @return A list of {@code IRole} objects.
      */
@@ -104,7 +120,9 @@ public interface IModule {
     public void addPermission(IPermission permission);
     
     /**
-     * Returns a list containing the Permissions associated to this Module.
+     * Returns a list containing the Permissions associated to this Module. The 
+     * list may be a {@link LazyList}, populated from the back-end storage the 
+     * first time it is accessed.
      * 
      * @return A list of {@code IPermission} objects.
      */
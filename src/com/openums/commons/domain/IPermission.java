@@ -45,6 +45,20 @@ public interface IPermission {
      */
     public BigInteger getId();
     
+    /**
+     * Returns the {@code id} property as a primitive {@code long}. Primitive 
+     * identifiers avoid one object per id on hot paths and allow primitive 
+     * collections to be used as indexes.
+     * 
+     * @return The permission's id or 
+     * {@link Identifiers#NO_ID} if it has not been set.
+     * 
+     * @throws ArithmeticException If the id does not fit in a {@code long}.
+     */
+    public default long getLongId() {
+        return Identifiers.toLong(getId());
+    }
+    
     /**
      * Returns the {@code code} property. The code is a user-defined type of 
      * code to easily identify the permission.
@@ -104,6 +118,10 @@ public interface IPermission {
      * Role.
      * <br />
      * <b>Note to implementors:</b> it is recommended the returned list be immutable.
+     * <br />
+     * The list may be a {@link LazyList}, populated from the back-end storage 
+     * the first time it is accessed, so that loading this Permission does not load 
+     * its Roles.
      * 
      * @return A {@code IRolePermission} list.
      */
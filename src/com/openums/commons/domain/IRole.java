@@ -18,6 +18,7 @@
 package com.openums.commons.domain;
 
 import java.math.BigInteger;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -29,6 +30,21 @@ import java.util.List;
  * or domain data related to the Role, such as code, description and associated 
  * module and permissions.
  * <p/>
+ * A Role may inherit from other Roles, its parents, and is then granted 
+ * their Permissions as well, transitively. Inheritance must not form cycles.
+ * <p/>
+ * Implementations shared between threads should make the relationship 
+ * mutators ({@code addRolePermission}, {@code addPermission}, 
+ * {@code addUserRole} and {@code addUser}) safe to call concurrently without 
+ * external synchronization, and return from the relationship getters snapshots 
+ * unaffected by later additions. The convenience methods update both sides of 
+ * a relationship one after the other, each under the locks of its own object 
+ * only: they never lock a whole aggregate nor two objects at once, so 
+ * concurrent grants do not serialize and cannot deadlock, while a concurrent 
+ * reader may briefly see the relationship on one side only. The 
+ * {@code com.openums.commons.domain.concurrent} package provides reference 
+ * implementations.
+ * <p/>
  * The reason this domain entity has been modeled as an interface is to allow 
  * multiple concrete implementations.
  * 
@@ -45,6 +61,20 @@ public interface IRole {
      */
     public BigInteger getId();
     
+    /**
+     * Returns the {@code id} property as a primitive {@code long}. Primitive 
+     * identifiers avoid one object per id on hot paths and allow primitive 
+     * collections to be used as indexes.
+     * 
+     * @return The role's id or 
+     * {@link Identifiers#NO_ID} if it has not been set.
+     * 
+     * @throws ArithmeticException If the id does not fit in a {@code long}.
+     */
+    public default long getLongId() {
+        return Identifiers.toLong(getId());
+    }
+    
     /**
      * Returns the {@code code} property. The code is a user-defined type of 
      * code to easily identify the role.
@@ -92,6 +122,9 @@ public interface IRole {
     /**
      * Adds a new {@code IRolePermission} object representing a new relationship 
      * between a given Permission and this Role.
+     * <br />
+     * <b>Note to implementors:</b> it is recommended that adding a relationship 
+     * with a Permission already associated to this Role have no effect.
      * 
      * @param rolePermission A {@code IRolePermission} object.
      */
@@ -102,6 +135,10 @@ public interface IRole {
      * Role.
      * <br />
      * <b>Note to implementors:</b> it is recommended the returned list be immutable.
+     * <br />
+     * The list may be a {@link LazyList}, populated from the back-end storage 
+     * the first time it is accessed, so that loading this Role does not load 
+     * its Permissions.
      * 
      * @return A {@code IRolePermission} list.
      */
@@ -116,7 +153,9 @@ public interface IRole {
     
     /**
      * Convenience method to associate a given Permission to this Role. The 
-     * relationship must be wrapped in a {@code IRolePermission} object.
+     * relationship must be wrapped in a {@code IRolePermission} object, which 
+     * is added to this Role and then to the Permission through 
+     * {@code IPermission.addRolePermission}.
      * 
      * @param permission The Permission which will be associated to this Role.
      */
@@ -125,8 +164,11 @@ public interface IRole {
     /**
      * Adds a new {@code IUserRole} object representing a new relationship 
      * between a given User and this Role.
+     * <br />
+     * <b>Note to implementors:</b> it is recommended that adding a relationship 
+     * with a User already associated to this Role have no effect.
      * 
-     * @param userRole 
+     * @param userRole A {@code IUserRole} object.
      */
     public void addUserRole(IUserRole userRole);
     
@@ -135,6 +177,10 @@ public interface IRole {
      * Role.
      * <br />
      * <b>Note to implementors:</b> it is recommended the returned list be immutable.
+     * <br />
+     * The list may be a {@link LazyList}, populated from the back-end storage 
+     * the first time it is accessed, so that loading this Role does not load 
+     * its Users.
      * 
      * @return A {@code IUserRole} list.
      */
@@ -149,10 +195,57 @@ public interface IRole {
     
     /**
      * Convenience method to associate a given User to this Role. The 
-     * relationship must be wrapped in a {@code IUserRole} object.
+     * relationship must be wrapped in a {@code IUserRole} object, which is 
+     * added through {@code IUser.addRole} so that both sides are updated the 
+     * same way whichever side the grant starts from.
      * 
      * @param user The User which will be associated to this Role.
      */
     public void addUser(IUser user);
     
+    /**
+     * Returns the Roles this Role inherits from. Every Permission granted to 
+     * a parent Role, directly or through its own parents, is granted to this 
+     * Role as well; "admin includes editor includes viewer" is modeled by 
+     * making viewer a parent of editor and editor a parent of admin, instead 
+     * of repeating the {@code IRolePermission} relationships of viewer and 
+     * editor.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation returns an empty 
+     * list, i.e.: Roles of implementations not supporting inheritance have no 
+     * parents. It is recommended the returned list be immutable.
+     * 
+     * @return A list with the parent Roles.
+     */
+    public default List<IRole> getParentRolesList() {
+        return Collections.emptyList();
+    }
+    
+    /**
+     * Sets the Roles this Role inherits from. DAOs reject storing a Role whose 
+     * parents, directly or transitively, include the Role itself.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation throws 
+     * {@code UnsupportedOperationException}.
+     * 
+     * @param parentRolesList A list with the parent Roles.
+     */
+    public default void setParentRolesList(List<IRole> parentRolesList) {
+        throw new UnsupportedOperationException("Role inheritance is not supported.");
+    }
+    
+    /**
+     * Adds a Role this Role inherits from. Unlike the other relationships, 
+     * inheritance is only recorded on the inheriting Role: the parent Role is 
+     * not modified.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation throws 
+     * {@code UnsupportedOperationException}. It is recommended that adding a 
+     * parent already present have no effect.
+     * 
+     * @param parentRole The parent Role.
+     */
+    public default void addParentRole(IRole parentRole) {
+        throw new UnsupportedOperationException("Role inheritance is not supported.");
+    }
 }
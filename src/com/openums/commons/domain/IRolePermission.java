@@ -43,6 +43,20 @@ public interface IRolePermission {
      */
     public BigInteger getId();
     
+    /**
+     * Returns the {@code id} property as a primitive {@code long}. Primitive 
+     * identifiers avoid one object per id on hot paths and allow primitive 
+     * collections to be used as indexes.
+     * 
+     * @return The role-permission relationship id or 
+     * {@link Identifiers#NO_ID} if it has not been set.
+     * 
+     * @throws ArithmeticException If the id does not fit in a {@code long}.
+     */
+    public default long getLongId() {
+        return Identifiers.toLong(getId());
+    }
+    
     /**
      * Returs the {@code enabled} property.
      * @return 
@@ -33,6 +33,11 @@ import java.util.List;
  * last point while users may have assoiciated different Roles in different 
  * Modules, they should have assigned a single Role per Module.
  * <p/>
+ * Implementations shared between threads should make {@code addUserRole} and 
+ * {@code addRole} safe to call concurrently without external synchronization, 
+ * following the contract described by {@code IRole}: each side of a 
+ * relationship is updated under the locks of its own object only.
+ * <p/>
  * The reason this domain entity has been modeled as an interface is to allow 
  * multiple concrete implementations.
  * 
@@ -49,6 +54,20 @@ public interface IUser {
      */
     public BigInteger getId();
     
+    /**
+     * Returns the {@code id} property as a primitive {@code long}. Primitive 
+     * identifiers avoid one object per id on hot paths and allow primitive 
+     * collections to be used as indexes.
+     * 
+     * @return The user's id or 
+     * {@link Identifiers#NO_ID} if it has not been set.
+     * 
+     * @throws ArithmeticException If the id does not fit in a {@code long}.
+     */
+    public default long getLongId() {
+        return Identifiers.toLong(getId());
+    }
+    
     /**
      * Returns the {@code name} proeprty. The name is the user's first name 
      * (i.e.: John).
@@ -210,8 +229,11 @@ public interface IUser {
     /**
      * Adds a new {@code IUserRole} object representing a new relationship 
      * between a given Role and this User.
+     * <br />
+     * <b>Note to implementors:</b> it is recommended that adding a relationship 
+     * with a Role already associated to this User have no effect.
      * 
-     * @param userRole 
+     * @param userRole A {@code IUserRole} object.
      */
     public void addUserRole(IUserRole userRole);
     
@@ -220,6 +242,10 @@ public interface IUser {
      * User.
      * <br />
      * <b>Note to implementors:</b> it is recommended the returned list be immutable.
+     * <br />
+     * The list may be a {@link LazyList}, populated from the back-end storage 
+     * the first time it is accessed, so that loading this User does not load 
+     * its Roles.
      * 
      * @return A {@code IUserRole} list.
      */
@@ -234,7 +260,9 @@ public interface IUser {
     
     /**
      * Convenience method to associate a given Role to this User. The 
-     * relationship must be wrapped in a {@code IUserRole} object.
+     * relationship must be wrapped in a {@code IUserRole} object, which is 
+     * added to this User and then, unless this User already held the Role, to 
+     * the Role through {@code IRole.addUserRole}.
      * 
      * @param role The Role which will be associated to this User.
      */
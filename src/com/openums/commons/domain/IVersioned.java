@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.domain;
+
+/**
+ * Optional contract for domain objects carrying a version stamp, which
+ * enables optimistic concurrency control: every successful insert or update
+ * of the object through a DAO assigns it a new version, and
+ * {@code IBasicDao.compareAndUpdate} only applies an update whose version
+ * still matches the stored one. Two administrators editing the same Role
+ * therefore never overwrite each other silently, and the storage does not
+ * need to hold locks while the edits are in progress.
+ * <p/>
+ * Implementations of {@code IModule}, {@code IPermission}, {@code IRole} and
+ * {@code IUser} may implement this interface along with the domain interface.
+ * The version is managed by the DAOs and should be treated as read-only by
+ * the application.
+ * 
+ * @author Delcio Amarillo
+ */
+public interface IVersioned {
+    
+    /**
+     * The version of an object that has never been stored.
+     */
+    public static final long NO_VERSION = 0L;
+    
+    /**
+     * Returns the {@code version} property: the version of the stored object
+     * this object was read from or written as.
+     * 
+     * @return The object's version or {@link #NO_VERSION} if it has never
+     * been stored.
+     */
+    public long getVersion();
+    
+    /**
+     * Sets the {@code version} property. Invoked by the DAOs once the object
+     * has been stored.
+     * 
+     * @param version The object's version.
+     */
+    public void setVersion(long version);
+}
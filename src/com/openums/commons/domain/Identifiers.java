@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.domain;
+
+import java.math.BigInteger;
+
+/**
+ * Conversions between the {@code BigInteger} identifiers exposed by the
+ * domain interfaces and their primitive {@code long} counterpart. Primitive
+ * identifiers avoid one object per id and allow implementations and caches
+ * to rely on primitive collections.
+ * 
+ * @author Delcio Amarillo
+ */
+public final class Identifiers {
+    
+    /**
+     * The {@code long} value that stands for a missing ({@code null})
+     * identifier. Relational primary keys are expected to start at 1.
+     */
+    public static final long NO_ID = 0L;
+    
+    private Identifiers() {
+    }
+    
+    /**
+     * Converts a {@code BigInteger} identifier to a {@code long}.
+     * 
+     * @param id The identifier.
+     * 
+     * @return The identifier as {@code long} or {@link #NO_ID} if the
+     * argument is {@code null}.
+     * 
+     * @throws ArithmeticException If the identifier does not fit in a
+     * {@code long}.
+     */
+    public static long toLong(BigInteger id) {
+        return id == null ? NO_ID : id.longValueExact();
+    }
+    
+    /**
+     * Converts a {@code long} identifier to a {@code BigInteger}.
+     * 
+     * @param id The identifier.
+     * 
+     * @return The identifier as {@code BigInteger} or {@code null} if the
+     * argument is {@link #NO_ID}.
+     */
+    public static BigInteger toBigInteger(long id) {
+        return id == NO_ID ? null : BigInteger.valueOf(id);
+    }
+    
+    /**
+     * Returns whether a given {@code BigInteger} identifier can be converted
+     * to a {@code long} without loss.
+     * 
+     * @param id The identifier.
+     * 
+     * @return {@code true} if the identifier is not {@code null} and fits in
+     * a {@code long}, {@code false} otherwise.
+     */
+    public static boolean fitsInLong(BigInteger id) {
+        return id != null && id.bitLength() < Long.SIZE;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.domain;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Supplier;
+
+/**
+ * List whose elements are fetched by a loader the first time any of them is
+ * accessed. Domain implementations return it from their relationship
+ * accessors (i.e.: {@link IModule#getRolesList()}) so that loading an entity
+ * does not load the entities associated to it until they are needed.
+ * <p/>
+ * The loader runs at most once, even when several threads access the list
+ * concurrently for the first time; the loaded elements are then copied into a
+ * private array list and the loader is released. Once loaded the list
+ * behaves like an {@code ArrayList}: it supports modifications and is not
+ * safe for concurrent modification. Modifying the list before it is loaded
+ * triggers the load first.
+ * <p/>
+ * Loaders backed by the model layer report failures through unchecked
+ * exceptions, which are propagated to the code that touched the list; the
+ * list stays unloaded and the next access tries again.
+ * 
+ * @param <E> The class of the elements.
+ * @author Delcio Amarillo
+ */
+public class LazyList<E> extends AbstractList<E> implements RandomAccess {
+    
+    private final Object lock = new Object();
+    private Supplier<? extends List<? extends E>> loader;
+    private volatile ArrayList<E> elements;
+    
+    /**
+     * Creates a new {@code LazyList}.
+     * 
+     * @param loader Returns the list's elements. A {@code null} result is
+     * treated as an empty list.
+     */
+    public LazyList(Supplier<? extends List<? extends E>> loader) {
+        if (loader == null) {
+            throw new IllegalArgumentException("The loader cannot be null.");
+        }
+        this.loader = loader;
+    }
+    
+    /**
+     * Returns whether the elements have already been loaded.
+     * 
+     * @return {@code true} if the loader has run, {@code false} otherwise.
+     */
+    public boolean isLoaded() {
+        return elements != null;
+    }
+    
+    @Override
+    public E get(int index) {
+        return elements().get(index);
+    }
+    
+    @Override
+    public int size() {
+        return elements().size();
+    }
+    
+    @Override
+    public E set(int index, E element) {
+        return elements().set(index, element);
+    }
+    
+    @Override
+    public void add(int index, E element) {
+        elements().add(index, element);
+        modCount++;
+    }
+    
+    @Override
+    public E remove(int index) {
+        E removed = elements().remove(index);
+        modCount++;
+        return removed;
+    }
+    
+    private ArrayList<E> elements() {
+        ArrayList<E> result = elements;
+        if (result == null) {
+            synchronized (lock) {
+                result = elements;
+                if (result == null) {
+                    List<? extends E> loaded = loader.get();
+                    result = loaded == null ? new ArrayList<E>() : new ArrayList<E>(loaded);
+                    elements = result;
+                    loader = null;
+                }
+            }
+        }
+        return result;
+    }
+}
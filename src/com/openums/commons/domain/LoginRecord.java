@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.domain;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Immutable projection of a User holding only what a login decision needs:
+ * id, user name, password hash, the active and unlocked flags and the
+ * primary keys of the User's effective Roles, i.e.: the ones associated to
+ * the User along with every Role they inherit from. Implementations of the
+ * Users DAO can read it with a single query, without materializing the
+ * whole {@code IUser} nor its relationships. The keys are kept as
+ * {@code BigInteger}, so any primary key can be recorded.
+ * 
+ * @author Delcio Amarillo
+ */
+public final class LoginRecord {
+    
+    private final BigInteger id;
+    private final String userName;
+    private final String passwordHash;
+    private final boolean active;
+    private final boolean unlocked;
+    private final BigInteger[] roleIds;
+    
+    /**
+     * Creates a new {@code LoginRecord}.
+     * 
+     * @param id The user's id.
+     * 
+     * @param userName The user's user name.
+     * 
+     * @param passwordHash The user's stored password.
+     * 
+     * @param active Whether the user is active.
+     * 
+     * @param unlocked Whether the user is unlocked.
+     * 
+     * @param roleIds The primary keys of the user's effective Roles, in any
+     * order. Duplicates and {@code null} keys are ignored.
+     */
+    public LoginRecord(BigInteger id, String userName, String passwordHash
+            , boolean active, boolean unlocked, Collection<BigInteger> roleIds) {
+        this.id = id;
+        this.userName = userName;
+        this.passwordHash = passwordHash;
+        this.active = active;
+        this.unlocked = unlocked;
+        TreeSet<BigInteger> sorted = new TreeSet<>();
+        for (BigInteger roleId : roleIds) {
+            if (roleId != null) {
+                sorted.add(roleId);
+            }
+        }
+        this.roleIds = sorted.toArray(new BigInteger[sorted.size()]);
+    }
+    
+    /**
+     * Returns the login record of a given User, whose effective Roles are
+     * found by walking the parents of its Roles (see
+     * {@code DomainGraph.getEffectiveRoleIds}). {@code null} flags are
+     * recorded as {@code false}.
+     * 
+     * @param user The User.
+     * 
+     * @return A new {@code LoginRecord} or {@code null} if the User is
+     * {@code null}.
+     */
+    public static LoginRecord of(IUser user) {
+        return user == null ? null : of(user, DomainGraph.getEffectiveRoleIds(user));
+    }
+    
+    /**
+     * Returns the login record of a given User whose effective Roles have
+     * already been resolved, i.e.: from an index of the Role inheritance.
+     * {@code null} flags are recorded as {@code false}.
+     * 
+     * @param user The User.
+     * 
+     * @param roleIds The primary keys of the User's effective Roles.
+     * 
+     * @return A new {@code LoginRecord} or {@code null} if the User is
+     * {@code null}.
+     */
+    public static LoginRecord of(IUser user, Collection<BigInteger> roleIds) {
+        if (user == null) {
+            return null;
+        }
+        return new LoginRecord(user.getId(), user.getUserName(), user.getPassword()
+                , Boolean.TRUE.equals(user.isActive()), Boolean.TRUE.equals(user.isUnlocked())
+                , roleIds);
+    }
+    
+    /**
+     * Returns the User's primary key.
+     * 
+     * @return The primary key.
+     */
+    public BigInteger getId() {
+        return id;
+    }
+    
+    /**
+     * Returns the User's user name.
+     * 
+     * @return The user name.
+     */
+    public String getUserName() {
+        return userName;
+    }
+    
+    /**
+     * Returns the User's stored password, i.e.: the password hash the
+     * credentials are verified against.
+     * 
+     * @return The password hash. Can be {@code null}.
+     */
+    public String getPasswordHash() {
+        return passwordHash;
+    }
+    
+    /**
+     * Indicates whether the User is active.
+     * 
+     * @return {@code true} if the User is active.
+     */
+    public boolean isActive() {
+        return active;
+    }
+    
+    /**
+     * Indicates whether the User is unlocked.
+     * 
+     * @return {@code true} if the User is unlocked.
+     */
+    public boolean isUnlocked() {
+        return unlocked;
+    }
+    
+    /**
+     * Indicates whether the User may log in, i.e. is both active and
+     * unlocked.
+     * 
+     * @return {@code true} if the User may log in.
+     */
+    public boolean isLoginAllowed() {
+        return active && unlocked;
+    }
+    
+    /**
+     * Returns the primary keys of the User's effective Roles.
+     * 
+     * @return An unmodifiable list with the Roles' primary keys, in
+     * ascending order.
+     */
+    public List<BigInteger> getRoleIds() {
+        return Collections.unmodifiableList(Arrays.asList(roleIds));
+    }
+    
+    /**
+     * Indicates whether the User has a given Role, either directly or through
+     * inheritance.
+     * 
+     * @param roleId The Role's primary key.
+     * 
+     * @return {@code true} if the User has the Role.
+     */
+    public boolean hasRole(BigInteger roleId) {
+        return roleId != null && Arrays.binarySearch(roleIds, roleId) >= 0;
+    }
+    
+    /**
+     * Indicates whether the User has a given Role, either directly or through
+     * inheritance.
+     * 
+     * @param roleId The Role's primary key.
+     * 
+     * @return {@code true} if the User has the Role.
+     */
+    public boolean hasRole(long roleId) {
+        return hasRole(BigInteger.valueOf(roleId));
+    }
+    
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof LoginRecord)) {
+            return false;
+        }
+        LoginRecord that = (LoginRecord) other;
+        return active == that.active && unlocked == that.unlocked
+                && Objects.equals(id, that.id)
+                && Objects.equals(userName, that.userName)
+                && Objects.equals(passwordHash, that.passwordHash)
+                && Arrays.equals(roleIds, that.roleIds);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, userName, passwordHash, active, unlocked)
+                * 31 + Arrays.hashCode(roleIds);
+    }
+    
+    /**
+     * Returns a description of this record. The password hash is left out.
+     * 
+     * @return A string describing this record.
+     */
+    @Override
+    public String toString() {
+        return "LoginRecord{id=" + id + ", userName=" + userName + ", active=" + active
+                + ", unlocked=" + unlocked + ", roleIds=" + Arrays.toString(roleIds) + '}';
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.domain;
+
+import java.math.BigInteger;
+import java.util.Objects;
+
+/**
+ * Immutable projection of a Role holding its id, code, description and the
+ * primary key of its Module, without the association lists.
+ * 
+ * @author Delcio Amarillo
+ */
+public final class RoleSummary {
+    
+    private final BigInteger id;
+    private final String code;
+    private final String description;
+    private final BigInteger moduleId;
+    
+    /**
+     * Creates a new {@code RoleSummary}.
+     * 
+     * @param id The role's id.
+     * 
+     * @param code The role's code.
+     * 
+     * @param description The role's description.
+     * 
+     * @param moduleId The primary key of the role's Module.
+     */
+    public RoleSummary(BigInteger id, String code, String description
+            , BigInteger moduleId) {
+        this.id = id;
+        this.code = code;
+        this.description = description;
+        this.moduleId = moduleId;
+    }
+    
+    /**
+     * Returns the summary of a given Role.
+     * 
+     * @param role The Role.
+     * 
+     * @return A new {@code RoleSummary} or {@code null} if the Role is
+     * {@code null}.
+     */
+    public static RoleSummary of(IRole role) {
+        return role == null ? null : new RoleSummary(role.getId(), role.getCode()
+                , role.getDescription(), DomainGraph.getModuleId(role));
+    }
+    
+    public BigInteger getId() {
+        return id;
+    }
+    
+    public String getCode() {
+        return code;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+    
+    public BigInteger getModuleId() {
+        return moduleId;
+    }
+    
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof RoleSummary)) {
+            return false;
+        }
+        RoleSummary that = (RoleSummary) other;
+        return Objects.equals(id, that.id) && Objects.equals(code, that.code)
+                && Objects.equals(description, that.description)
+                && Objects.equals(moduleId, that.moduleId);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, code, description, moduleId);
+    }
+    
+    @Override
+    public String toString() {
+        return "RoleSummary{id=" + id + ", code=" + code + ", moduleId=" + moduleId + '}';
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.domain;
+
+import java.math.BigInteger;
+import java.util.Objects;
+
+/**
+ * Immutable projection of a User holding only what listing and picker
+ * screens need: id, user name, first and last name and the active flag. It
+ * carries neither the password, personal data nor the Roles, so it is much
+ * cheaper to build, keep and serialize than a full {@code IUser}.
+ * 
+ * @author Delcio Amarillo
+ */
+public final class UserSummary {
+    
+    private final BigInteger id;
+    private final String userName;
+    private final String name;
+    private final String lastName;
+    private final boolean active;
+    
+    /**
+     * Creates a new {@code UserSummary}.
+     * 
+     * @param id The user's id.
+     * 
+     * @param userName The user's user name.
+     * 
+     * @param name The user's first name.
+     * 
+     * @param lastName The user's last name.
+     * 
+     * @param active Whether the user is active.
+     */
+    public UserSummary(BigInteger id, String userName, String name
+            , String lastName, boolean active) {
+        this.id = id;
+        this.userName = userName;
+        this.name = name;
+        this.lastName = lastName;
+        this.active = active;
+    }
+    
+    /**
+     * Returns the summary of a given User. A {@code null} active flag is
+     * summarized as {@code false}.
+     * 
+     * @param user The User.
+     * 
+     * @return A new {@code UserSummary} or {@code null} if the User is
+     * {@code null}.
+     */
+    public static UserSummary of(IUser user) {
+        return user == null ? null : new UserSummary(user.getId(), user.getUserName()
+                , user.getName(), user.getLastName(), Boolean.TRUE.equals(user.isActive()));
+    }
+    
+    public BigInteger getId() {
+        return id;
+    }
+    
+    public String getUserName() {
+        return userName;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public String getLastName() {
+        return lastName;
+    }
+    
+    public boolean isActive() {
+        return active;
+    }
+    
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof UserSummary)) {
+            return false;
+        }
+        UserSummary that = (UserSummary) other;
+        return active == that.active && Objects.equals(id, that.id)
+                && Objects.equals(userName, that.userName)
+                && Objects.equals(name, that.name)
+                && Objects.equals(lastName, that.lastName);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, userName, name, lastName, active);
+    }
+    
+    @Override
+    public String toString() {
+        return "UserSummary{id=" + id + ", userName=" + userName + ", name=" + name
+                + ", lastName=" + lastName + ", active=" + active + '}';
+    }
+}
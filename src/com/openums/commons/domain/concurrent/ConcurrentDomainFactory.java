@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.domain.concurrent;
+
+import com.openums.commons.domain.IDomainFactory;
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.IPermission;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IRolePermission;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.IUserRole;
+import java.math.BigInteger;
+
+/**
+ * {@code IDomainFactory} creating the thread-safe domain implementations of
+ * this package.
+ * 
+ * @author Delcio Amarillo
+ */
+public class ConcurrentDomainFactory implements IDomainFactory {
+    
+    @Override
+    public IModule newModule(BigInteger id) {
+        return new ConcurrentModule(id);
+    }
+    
+    @Override
+    public IPermission newPermission(BigInteger id) {
+        return new ConcurrentPermission(id);
+    }
+    
+    @Override
+    public IRole newRole(BigInteger id) {
+        return new ConcurrentRole(id);
+    }
+    
+    @Override
+    public IRolePermission newRolePermission(BigInteger id) {
+        return new ConcurrentRolePermission(id);
+    }
+    
+    @Override
+    public IUser newUser(BigInteger id) {
+        return new ConcurrentUser(id);
+    }
+    
+    @Override
+    public IUserRole newUserRole(BigInteger id) {
+        return new ConcurrentUserRole(id);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.domain.concurrent;
+
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.IPermission;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IVersioned;
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Thread-safe {@code IModule} implementation. Its properties are volatile
+ * and its Roles and Permissions are kept in striped lists, so they can be
+ * added concurrently and are read as immutable snapshots. Adding a Role or
+ * Permission that is already present has no effect.
+ * 
+ * @author Delcio Amarillo
+ */
+public class ConcurrentModule implements IModule, IVersioned {
+    
+    private static final int STRIPES = 4;
+    
+    private final BigInteger id;
+    private volatile String code;
+    private volatile String description;
+    private volatile long version = NO_VERSION;
+    private final StripedList<IRole> roles = new StripedList<>(STRIPES
+            , role -> StripedList.key(role.getId(), role, role));
+    private final StripedList<IPermission> permissions = new StripedList<>(STRIPES
+            , permission -> StripedList.key(permission.getId(), permission, permission));
+    
+    /**
+     * Creates a new Module.
+     * 
+     * @param id The Module's primary key. Can be {@code null}.
+     */
+    public ConcurrentModule(BigInteger id) {
+        this.id = id;
+    }
+    
+    @Override
+    public BigInteger getId() {
+        return id;
+    }
+    
+    @Override
+    public String getCode() {
+        return code;
+    }
+    
+    @Override
+    public void setCode(String code) {
+        this.code = code;
+    }
+    
+    @Override
+    public String getDescription() {
+        return description;
+    }
+    
+    @Override
+    public void setDescription(String description) {
+        this.description = description;
+    }
+    
+    @Override
+    public void addRole(IRole role) {
+        roles.add(role);
+    }
+    
+    @Override
+    public List<IRole> getRolesList() {
+        return roles.snapshot();
+    }
+    
+    @Override
+    public void setRolesList(List<IRole> roles) {
+        this.roles.set(roles);
+    }
+    
+    @Override
+    public void addPermission(IPermission permission) {
+        permissions.add(permission);
+    }
+    
+    @Override
+    public List<IPermission> getPermissionsList() {
+        return permissions.snapshot();
+    }
+    
+    @Override
+    public void setPermissionsList(List<IPermission> permissions) {
+        this.permissions.set(permissions);
+    }
+    
+    @Override
+    public long getVersion() {
+        return version;
+    }
+    
+    @Override
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
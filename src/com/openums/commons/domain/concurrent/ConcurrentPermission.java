@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.domain.concurrent;
+
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.IPermission;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IRolePermission;
+import com.openums.commons.domain.IVersioned;
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Thread-safe {@code IPermission} implementation. Its properties are
+ * volatile and its {@code IRolePermission} objects are kept in a striped
+ * list keyed by Role, so Roles can be granted this Permission concurrently
+ * and the relationships are read as immutable snapshots.
+ * 
+ * @author Delcio Amarillo
+ */
+public class ConcurrentPermission implements IPermission, IVersioned {
+    
+    private static final int STRIPES = 4;
+    
+    private final BigInteger id;
+    private volatile String code;
+    private volatile String description;
+    private volatile IModule module;
+    private volatile long version = NO_VERSION;
+    private final StripedList<IRolePermission> rolePermissions = new StripedList<>(STRIPES
+            , rolePermission -> {
+                IRole role = rolePermission.getRole();
+                return StripedList.key(role == null ? null : role.getId(), role, rolePermission);
+            });
+    
+    /**
+     * Creates a new Permission.
+     * 
+     * @param id The Permission's primary key. Can be {@code null}.
+     */
+    public ConcurrentPermission(BigInteger id) {
+        this.id = id;
+    }
+    
+    @Override
+    public BigInteger getId() {
+        return id;
+    }
+    
+    @Override
+    public String getCode() {
+        return code;
+    }
+    
+    @Override
+    public void setCode(String code) {
+        this.code = code;
+    }
+    
+    @Override
+    public String getDescription() {
+        return description;
+    }
+    
+    @Override
+    public void setDescription(String description) {
+        this.description = description;
+    }
+    
+    @Override
+    public IModule getModule() {
+        return module;
+    }
+    
+    @Override
+    public void setModule(IModule module) {
+        this.module = module;
+    }
+    
+    @Override
+    public void addRolePermission(IRolePermission rolePermission) {
+        rolePermissions.add(rolePermission);
+    }
+    
+    @Override
+    public List<IRolePermission> getRolePermissionsList() {
+        return rolePermissions.snapshot();
+    }
+    
+    @Override
+    public void setRolePermissionsList(List<IRolePermission> rolePermissionsList) {
+        rolePermissions.set(rolePermissionsList);
+    }
+    
+    @Override
+    public void addRole(IRole role) {
+        role.addPermission(this);
+    }
+    
+    @Override
+    public long getVersion() {
+        return version;
+    }
+    
+    @Override
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.domain.concurrent;
+
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.IPermission;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IRolePermission;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.IUserRole;
+import com.openums.commons.domain.IVersioned;
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Thread-safe {@code IRole} implementation. Its properties are volatile and
+ * its relationships are kept in striped lists keyed by the other side of the
+ * relationship: assigning this Role to different Users at the same time
+ * only contends when the Users fall in the same stripe, instead of
+ * serializing on the whole Role. The relationships are read as immutable
+ * snapshots.
+ * <p/>
+ * The convenience methods follow the contract described by {@code IRole}:
+ * each side of the relationship is updated under its own locks only, and a
+ * relationship already present is not added again.
+ * 
+ * @author Delcio Amarillo
+ */
+public class ConcurrentRole implements IRole, IVersioned {
+    
+    private static final int PERMISSION_STRIPES = 4;
+    private static final int USER_STRIPES = 16;
+    
+    private final BigInteger id;
+    private volatile String code;
+    private volatile String description;
+    private volatile IModule module;
+    private volatile long version = NO_VERSION;
+    private final StripedList<IRolePermission> rolePermissions = new StripedList<>(PERMISSION_STRIPES
+            , rolePermission -> {
+                IPermission permission = rolePermission.getPermission();
+                return StripedList.key(permission == null ? null : permission.getId()
+                        , permission, rolePermission);
+            });
+    private final StripedList<IUserRole> userRoles = new StripedList<>(USER_STRIPES
+            , userRole -> {
+                IUser user = userRole.getUser();
+                return StripedList.key(user == null ? null : user.getId(), user, userRole);
+            });
+    private final StripedList<IRole> parentRoles = new StripedList<>(1
+            , parentRole -> StripedList.key(parentRole.getId(), parentRole, parentRole));
+    
+    /**
+     * Creates a new Role.
+     * 
+     * @param id The Role's primary key. Can be {@code null}.
+     */
+    public ConcurrentRole(BigInteger id) {
+        this.id = id;
+    }
+    
+    @Override
+    public BigInteger getId() {
+        return id;
+    }
+    
+    @Override
+    public String getCode() {
+        return code;
+    }
+    
+    @Override
+    public void setCode(String code) {
+        this.code = code;
+    }
+    
+    @Override
+    public String getDescription() {
+        return description;
+    }
+    
+    @Override
+    public void setDescription(String description) {
+        this.description = description;
+    }
+    
+    @Override
+    public IModule getModule() {
+        return module;
+    }
+    
+    @Override
+    public void setModule(IModule module) {
+        this.module = module;
+    }
+    
+    @Override
+    public void addRolePermission(IRolePermission rolePermission) {
+        rolePermissions.add(rolePermission);
+    }
+    
+    @Override
+    public List<IRolePermission> getRolePermissionsList() {
+        return rolePermissions.snapshot();
+    }
+    
+    @Override
+    public void setRolePermissionsList(List<IRolePermission> rolePermissionsList) {
+        rolePermissions.set(rolePermissionsList);
+    }
+    
+    @Override
+    public void addPermission(IPermission permission) {
+        IRolePermission rolePermission = new ConcurrentRolePermission(this, permission);
+        if (rolePermissions.add(rolePermission)) {
+            permission.addRolePermission(rolePermission);
+        }
+    }
+    
+    @Override
+    public void addUserRole(IUserRole userRole) {
+        userRoles.add(userRole);
+    }
+    
+    @Override
+    public List<IUserRole> getUserRolesList() {
+        return userRoles.snapshot();
+    }
+    
+    @Override
+    public void setUserRolesList(List<IUserRole> userRolesList) {
+        userRoles.set(userRolesList);
+    }
+    
+    @Override
+    public void addUser(IUser user) {
+        user.addRole(this);
+    }
+    
+    @Override
+    public List<IRole> getParentRolesList() {
+        return parentRoles.snapshot();
+    }
+    
+    @Override
+    public void setParentRolesList(List<IRole> parentRolesList) {
+        parentRoles.set(parentRolesList);
+    }
+    
+    @Override
+    public void addParentRole(IRole parentRole) {
+        parentRoles.add(parentRole);
+    }
+    
+    @Override
+    public long getVersion() {
+        return version;
+    }
+    
+    @Override
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.domain.concurrent;
+
+import com.openums.commons.domain.IPermission;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IRolePermission;
+import java.math.BigInteger;
+
+/**
+ * Thread-safe {@code IRolePermission} implementation. Its properties are
+ * volatile, so a relationship built by one thread is fully visible to the
+ * threads that read it through either side. Relationships are created
+ * enabled.
+ * 
+ * @author Delcio Amarillo
+ */
+public class ConcurrentRolePermission implements IRolePermission {
+    
+    private final BigInteger id;
+    private volatile Boolean enabled = Boolean.TRUE;
+    private volatile IRole role;
+    private volatile IPermission permission;
+    
+    /**
+     * Creates a new relationship.
+     * 
+     * @param id The relationship's primary key. Can be {@code null}.
+     */
+    public ConcurrentRolePermission(BigInteger id) {
+        this.id = id;
+    }
+    
+    /**
+     * Creates a new relationship without id between a given Role and
+     * Permission.
+     * 
+     * @param role The Role.
+     * 
+     * @param permission The Permission.
+     */
+    public ConcurrentRolePermission(IRole role, IPermission permission) {
+        this(null);
+        this.role = role;
+        this.permission = permission;
+    }
+    
+    @Override
+    public BigInteger getId() {
+        return id;
+    }
+    
+    @Override
+    public Boolean isEnabled() {
+        return enabled;
+    }
+    
+    @Override
+    public void setEnabled(Boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    @Override
+    public IRole getRole() {
+        return role;
+    }
+    
+    @Override
+    public void setRole(IRole role) {
+        this.role = role;
+    }
+    
+    @Override
+    public IPermission getPermission() {
+        return permission;
+    }
+    
+    @Override
+    public void setPermission(IPermission permission) {
+        this.permission = permission;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.domain.concurrent;
+
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.IUserRole;
+import com.openums.commons.domain.IVersioned;
+import java.math.BigInteger;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Thread-safe {@code IUser} implementation. Its properties are volatile and
+ * its {@code IUserRole} objects are kept in a list keyed by Role and read as
+ * immutable snapshots. Users hold few Roles, so the list has a single lock;
+ * granting a Role to different Users never contends on the User side.
+ * <p/>
+ * {@link #addRole} follows the contract described by {@code IUser}: the
+ * relationship is added to this User first and then to the Role, each under
+ * its own locks only, and is not added again if this User already holds the
+ * Role.
+ * 
+ * @author Delcio Amarillo
+ */
+public class ConcurrentUser implements IUser, IVersioned {
+    
+    private final BigInteger id;
+    private volatile String name;
+    private volatile String lastName;
+    private volatile String gender;
+    private volatile Date dateOfBirth;
+    private volatile String email;
+    private volatile String userName;
+    private volatile String password;
+    private volatile Boolean active;
+    private volatile Boolean unlocked;
+    private volatile long version = NO_VERSION;
+    private final StripedList<IUserRole> userRoles = new StripedList<>(1
+            , userRole -> {
+                IRole role = userRole.getRole();
+                return StripedList.key(role == null ? null : role.getId(), role, userRole);
+            });
+    
+    /**
+     * Creates a new User.
+     * 
+     * @param id The User's primary key. Can be {@code null}.
+     */
+    public ConcurrentUser(BigInteger id) {
+        this.id = id;
+    }
+    
+    @Override
+    public BigInteger getId() {
+        return id;
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    @Override
+    public String getLastName() {
+        return lastName;
+    }
+    
+    @Override
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+    
+    @Override
+    public String getGender() {
+        return gender;
+    }
+    
+    @Override
+    public void setGender(String gender) {
+        this.gender = gender;
+    }
+    
+    @Override
+    public Date getDateOfBirth() {
+        return dateOfBirth;
+    }
+    
+    @Override
+    public void setDateOfBirth(Date dateOfBirth) {
+        this.dateOfBirth = dateOfBirth;
+    }
+    
+    @Override
+    public String getEmail() {
+        return email;
+    }
+    
+    @Override
+    public void setEmail(String email) {
+        this.email = email;
+    }
+    
+    @Override
+    public String getUserName() {
+        return userName;
+    }
+    
+    @Override
+    public void setUserName(String userName) {
+        this.userName = userName;
+    }
+    
+    @Override
+    public String getPassword() {
+        return password;
+    }
+    
+    @Override
+    public void setPassword(String password) {
+        this.password = password;
+    }
+    
+    @Override
+    public Boolean isActive() {
+        return active;
+    }
+    
+    @Override
+    public void setActive(Boolean active) {
+        this.active = active;
+    }
+    
+    @Override
+    public Boolean isUnlocked() {
+        return unlocked;
+    }
+    
+    @Override
+    public void setUnlocked(Boolean unlocked) {
+        this.unlocked = unlocked;
+    }
+    
+    @Override
+    public void addUserRole(IUserRole userRole) {
+        userRoles.add(userRole);
+    }
+    
+    @Override
+    public List<IUserRole> getUserRolesList() {
+        return userRoles.snapshot();
+    }
+    
+    @Override
+    public void setUserRolesList(List<IUserRole> userRolesList) {
+        userRoles.set(userRolesList);
+    }
+    
+    @Override
+    public void addRole(IRole role) {
+        IUserRole userRole = new ConcurrentUserRole(this, role);
+        if (userRoles.add(userRole)) {
+            role.addUserRole(userRole);
+        }
+    }
+    
+    @Override
+    public long getVersion() {
+        return version;
+    }
+    
+    @Override
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.domain.concurrent;
+
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.IUserRole;
+import java.math.BigInteger;
+
+/**
+ * Thread-safe {@code IUserRole} implementation. Its properties are volatile,
+ * so a relationship built by one thread is fully visible to the threads that
+ * read it through either side.
+ * 
+ * @author Delcio Amarillo
+ */
+public class ConcurrentUserRole implements IUserRole {
+    
+    private final BigInteger id;
+    private volatile IRole role;
+    private volatile IUser user;
+    
+    /**
+     * Creates a new relationship.
+     * 
+     * @param id The relationship's primary key. Can be {@code null}.
+     */
+    public ConcurrentUserRole(BigInteger id) {
+        this.id = id;
+    }
+    
+    /**
+     * Creates a new relationship without id between a given User and Role.
+     * 
+     * @param user The User.
+     * 
+     * @param role The Role.
+     */
+    public ConcurrentUserRole(IUser user, IRole role) {
+        this(null);
+        this.user = user;
+        this.role = role;
+    }
+    
+    @Override
+    public BigInteger getId() {
+        return id;
+    }
+    
+    @Override
+    public IRole getRole() {
+        return role;
+    }
+    
+    @Override
+    public void setRole(IRole role) {
+        this.role = role;
+    }
+    
+    @Override
+    public IUser getUser() {
+        return user;
+    }
+    
+    @Override
+    public void setUser(IUser user) {
+        this.user = user;
+    }
+}
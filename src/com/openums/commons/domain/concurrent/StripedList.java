@@ -0,0 +1,298 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.domain.concurrent;
+
+import com.openums.commons.domain.LazyList;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Relationship list shared by the concurrent domain implementations. The
+ * elements are spread over a fixed number of stripes by key, each stripe
+ * guarded by its own lock, so adding elements with different keys only
+ * contends when the keys fall in the same stripe. An element whose key is
+ * already present is not added again.
+ * <p/>
+ * Readers get an immutable snapshot, shared until the next modification.
+ * The stripes are append-only arrays that are replaced, never cleared, by
+ * {@link #set}, so a snapshot simply records the array and size of every
+ * stripe: taking one after an addition holds the stripe locks for a time
+ * proportional to the number of stripes, not of elements, and then copies
+ * nothing. Elements keep their insertion order within a stripe only.
+ * <p/>
+ * A {@link LazyList} that has not been loaded yet is kept as is by
+ * {@link #set}, so reading the relationship keeps loading it lazily; it is
+ * loaded, outside of the stripe locks, by the first modification.
+ * 
+ * @param <E> The class of the elements.
+ * @author Delcio Amarillo
+ */
+final class StripedList<E> {
+    
+    private static final Object[] EMPTY = new Object[0];
+    
+    private final Function<? super E, Object> keyFunction;
+    private final ReentrantLock[] locks;
+    private final int shift;
+    private final Stripe[] stripes;
+    private volatile List<E> snapshot = Collections.emptyList();
+    private volatile List<E> pending;
+    
+    /**
+     * Creates a new, empty list.
+     * 
+     * @param stripes The number of stripes; rounded up to a power of two.
+     * 
+     * @param keyFunction Returns the key identifying an element.
+     */
+    StripedList(int stripes, Function<? super E, Object> keyFunction) {
+        int size = Integer.highestOneBit(Math.max(stripes, 1));
+        if (size < stripes) {
+            size <<= 1;
+        }
+        this.keyFunction = keyFunction;
+        this.locks = new ReentrantLock[size];
+        this.shift = Integer.numberOfLeadingZeros(size) + 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+    
+    /**
+     * Returns the key of an entity: its id when it has one, the entity
+     * itself otherwise.
+     * 
+     * @param id The entity's id.
+     * 
+     * @param entity The entity.
+     * 
+     * @param fallback Returned when there is no entity.
+     * 
+     * @return The entity's key.
+     */
+    static Object key(Object id, Object entity, Object fallback) {
+        return entity == null ? fallback : id != null ? id : entity;
+    }
+    
+    /**
+     * Adds an element unless another one with the same key is present.
+     * 
+     * @param element The element.
+     * 
+     * @return {@code true} if the element has been added.
+     */
+    boolean add(E element) {
+        Object key = keyFunction.apply(element);
+        int index = indexOf(key);
+        ReentrantLock lock = locks[index];
+        while (true) {
+            materialize();
+            lock.lock();
+            try {
+                // A concurrent set may have installed a lazy list meanwhile,
+                // which must be merged first or its elements would be lost.
+                if (pending == null) {
+                    Stripe stripe = stripes[index];
+                    if (stripe == null) {
+                        stripe = new Stripe();
+                        stripes[index] = stripe;
+                    }
+                    if (!stripe.add(key, element)) {
+                        return false;
+                    }
+                    snapshot = null;
+                    return true;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Replaces every element of this list.
+     * 
+     * @param elements The new elements; {@code null} empties the list.
+     */
+    void set(List<E> elements) {
+        lockAll();
+        try {
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i] = null;
+            }
+            pending = null;
+            snapshot = Collections.emptyList();
+            if (elements instanceof LazyList && !((LazyList<E>) elements).isLoaded()) {
+                pending = elements;
+                snapshot = Collections.unmodifiableList(elements);
+            } else if (elements != null) {
+                for (E element : elements) {
+                    addLocked(element);
+                }
+                snapshot = null;
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+    
+    /**
+     * Returns an immutable snapshot of the elements.
+     * 
+     * @return The elements.
+     */
+    List<E> snapshot() {
+        List<E> result = snapshot;
+        if (result != null) {
+            return result;
+        }
+        lockAll();
+        try {
+            result = snapshot;
+            if (result == null) {
+                Object[][] arrays = new Object[stripes.length][];
+                int[] ends = new int[stripes.length];
+                int size = 0;
+                for (int i = 0; i < stripes.length; i++) {
+                    Stripe stripe = stripes[i];
+                    arrays[i] = stripe == null ? EMPTY : stripe.elements;
+                    size += stripe == null ? 0 : stripe.size;
+                    ends[i] = size;
+                }
+                result = new Snapshot<>(arrays, ends);
+                snapshot = result;
+            }
+            return result;
+        } finally {
+            unlockAll();
+        }
+    }
+    
+    private void materialize() {
+        List<E> lazy = pending;
+        if (lazy == null) {
+            return;
+        }
+        lazy.size();
+        lockAll();
+        try {
+            if (pending == lazy) {
+                pending = null;
+                for (E element : lazy) {
+                    addLocked(element);
+                }
+                snapshot = null;
+            }
+        } finally {
+            unlockAll();
+        }
+    }
+    
+    private void addLocked(E element) {
+        Object key = keyFunction.apply(element);
+        int index = indexOf(key);
+        if (stripes[index] == null) {
+            stripes[index] = new Stripe();
+        }
+        stripes[index].add(key, element);
+    }
+    
+    /**
+     * Picks the stripe from the high bits of a multiplicative hash: the hash
+     * sets of the stripes index by the low bits, which would otherwise be
+     * the same for every key of a stripe.
+     */
+    private int indexOf(Object key) {
+        return ((key.hashCode() * 0x9E3779B9) >>> shift) & (locks.length - 1);
+    }
+    
+    private void lockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+    
+    private void unlockAll() {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+    
+    /**
+     * The keys and elements of a stripe. The slots of the array below
+     * {@code size} are never written again, so snapshots can share it.
+     */
+    private static final class Stripe {
+        
+        private final Set<Object> keys = new HashSet<>(4);
+        private Object[] elements = new Object[4];
+        private int size;
+        
+        private boolean add(Object key, Object element) {
+            if (!keys.add(key)) {
+                return false;
+            }
+            if (size == elements.length) {
+                elements = Arrays.copyOf(elements, size * 2);
+            }
+            elements[size++] = element;
+            return true;
+        }
+    }
+    
+    /**
+     * Immutable list over the arrays of the stripes, as they were when the
+     * snapshot was taken.
+     */
+    private static final class Snapshot<E> extends AbstractList<E> implements RandomAccess {
+        
+        private final Object[][] arrays;
+        private final int[] ends;
+        
+        private Snapshot(Object[][] arrays, int[] ends) {
+            this.arrays = arrays;
+            this.ends = ends;
+        }
+        
+        @Override
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            int stripe = 0;
+            while (ends[stripe] <= index) {
+                stripe++;
+            }
+            return (E) arrays[stripe][index - (stripe == 0 ? 0 : ends[stripe - 1])];
+        }
+        
+        @Override
+        public int size() {
+            return ends.length == 0 ? 0 : ends[ends.length - 1];
+        }
+    }
+}
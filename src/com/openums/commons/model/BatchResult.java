@@ -0,0 +1,201 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-item outcome of a batch operation such as
+ * {@link IBasicDao#insertAll(java.util.Collection, int)}. Items are addressed
+ * by their position in the iteration order of the collection passed to the
+ * batch operation. Each item either succeeded, in which case its result is
+ * available, or failed, in which case the {@code ModelException} explaining
+ * the failure is available and its {@code ModelExceptionType} classifies it.
+ * <p/>
+ * Implementations of the batch operations fill the result through the
+ * {@code succeeded} and {@code failed} methods before returning it. Once
+ * returned to the caller it should be treated as read-only.
+ * 
+ * @param <R> The class of the per-item results.
+ * @author Delcio Amarillo
+ */
+public class BatchResult<R> {
+    
+    private final Object[] results;
+    private final ModelException[] failures;
+    private int failureCount;
+    
+    /**
+     * Creates a new {@code BatchResult} for a given number of items. All the
+     * items are initially considered successful with a {@code null} result.
+     * 
+     * @param size The number of items in the batch.
+     */
+    public BatchResult(int size) {
+        this.results = new Object[size];
+        this.failures = new ModelException[size];
+    }
+    
+    /**
+     * Records the successful outcome of a given item.
+     * 
+     * @param index The item's position.
+     * 
+     * @param result The item's result.
+     */
+    public void succeeded(int index, R result) {
+        if (failures[index] != null) {
+            failures[index] = null;
+            failureCount--;
+        }
+        results[index] = result;
+    }
+    
+    /**
+     * Records the failure of a given item.
+     * 
+     * @param index The item's position.
+     * 
+     * @param failure The exception explaining the failure.
+     */
+    public void failed(int index, ModelException failure) {
+        if (failure == null) {
+            throw new IllegalArgumentException("The failure cannot be null.");
+        }
+        if (failures[index] == null) {
+            failureCount++;
+        }
+        results[index] = null;
+        failures[index] = failure;
+    }
+    
+    /**
+     * Returns the number of items in the batch.
+     * 
+     * @return The batch size.
+     */
+    public int size() {
+        return results.length;
+    }
+    
+    /**
+     * Returns whether all the items succeeded.
+     * 
+     * @return {@code true} if no item failed, {@code false} otherwise.
+     */
+    public boolean isSuccess() {
+        return failureCount == 0;
+    }
+    
+    /**
+     * Returns whether a given item succeeded.
+     * 
+     * @param index The item's position.
+     * 
+     * @return {@code true} if the item succeeded, {@code false} otherwise.
+     */
+    public boolean isSuccess(int index) {
+        return failures[index] == null;
+    }
+    
+    /**
+     * Returns the result of a given item.
+     * 
+     * @param index The item's position.
+     * 
+     * @return The item's result or {@code null} if the item failed.
+     */
+    @SuppressWarnings("unchecked")
+    public R getResult(int index) {
+        return (R) results[index];
+    }
+    
+    /**
+     * Returns the failure of a given item.
+     * 
+     * @param index The item's position.
+     * 
+     * @return The exception explaining the failure or {@code null} if the
+     * item succeeded.
+     */
+    public ModelException getFailure(int index) {
+        return failures[index];
+    }
+    
+    /**
+     * Returns the type of the failure of a given item.
+     * 
+     * @param index The item's position.
+     * 
+     * @return The failure's type or {@code null} if the item succeeded.
+     */
+    public ModelExceptionType getFailureType(int index) {
+        return failures[index] == null ? null : failures[index].getExceptionType();
+    }
+    
+    /**
+     * Returns the number of successful items.
+     * 
+     * @return The number of successful items.
+     */
+    public int getSuccessCount() {
+        return results.length - failureCount;
+    }
+    
+    /**
+     * Returns the number of failed items.
+     * 
+     * @return The number of failed items.
+     */
+    public int getFailureCount() {
+        return failureCount;
+    }
+    
+    /**
+     * Returns the number of items that failed with a given type.
+     * 
+     * @param type The failure's type.
+     * 
+     * @return The number of items that failed with the given type.
+     */
+    public int getFailureCount(ModelExceptionType type) {
+        int count = 0;
+        for (ModelException failure : failures) {
+            if (failure != null && failure.getExceptionType() == type) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Returns the positions of the failed items in ascending order.
+     * 
+     * @return A list with the positions of the failed items.
+     */
+    public List<Integer> getFailedIndexes() {
+        List<Integer> indexes = new ArrayList<>(failureCount);
+        for (int i = 0; i < failures.length && indexes.size() < failureCount; i++) {
+            if (failures[i] != null) {
+                indexes.add(i);
+            }
+        }
+        return indexes;
+    }
+}
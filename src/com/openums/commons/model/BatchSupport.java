@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model;
+
+import java.util.Collection;
+
+/**
+ * Item-by-item fallback used by the default batch operations of
+ * {@code IBasicDao}.
+ * 
+ * @author Delcio Amarillo
+ */
+final class BatchSupport {
+    
+    private BatchSupport() {
+    }
+    
+    /**
+     * Validates the batch size shared by all the batch operations.
+     * 
+     * @param batchSize The batch size.
+     */
+    static void checkBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive.");
+        }
+    }
+    
+    /**
+     * Applies a given operation to every item, recording each outcome.
+     */
+    static <T, R> BatchResult<R> applyEach(Collection<? extends T> dataObjects
+            , int batchSize, IItemOperation<T, R> operation) {
+        checkBatchSize(batchSize);
+        BatchResult<R> result = new BatchResult<>(dataObjects.size());
+        int index = 0;
+        for (T dataObject : dataObjects) {
+            try {
+                result.succeeded(index, operation.apply(dataObject));
+            } catch (ModelException ex) {
+                result.failed(index, ex);
+            }
+            index++;
+        }
+        return result;
+    }
+}
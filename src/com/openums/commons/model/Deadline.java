@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in time by which a DAO call must complete.
+ * <p/>
+ * Deadlines are propagated implicitly instead of through an extra parameter
+ * on every DAO method: {@link #run(ICall)} makes a deadline current for the
+ * calling thread while a block of DAO calls executes, and implementations
+ * read it back through {@link #current()}, i.e.: to set the query timeout of
+ * a JDBC statement or to give up between two round trips. Nested blocks
+ * never extend the enclosing deadline: the earlier of both applies.
+ * Deadlines are based on {@code System.nanoTime()}, so they are not affected
+ * by changes of the wall clock.
+ * 
+ * @author Delcio Amarillo
+ * @see com.openums.commons.model.async.TimeLimitedDaos
+ */
+public final class Deadline implements Comparable<Deadline> {
+    
+    /**
+     * Block of DAO calls executed within a deadline.
+     * 
+     * @param <R> The class of the block's result.
+     */
+    @FunctionalInterface
+    public interface ICall<R> {
+        R call() throws ModelException;
+    }
+    
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+    
+    private final long nanoTime;
+    
+    private Deadline(long nanoTime) {
+        this.nanoTime = nanoTime;
+    }
+    
+    /**
+     * Returns a deadline expiring after a given timeout from now.
+     * 
+     * @param timeout The timeout. Negative values yield an expired deadline.
+     * 
+     * @param unit The time unit of the {@code timeout} argument.
+     * 
+     * @return A new {@code Deadline}.
+     */
+    public static Deadline after(long timeout, TimeUnit unit) {
+        long now = System.nanoTime();
+        long nanos = unit.toNanos(timeout);
+        // Saturate instead of wrapping around for huge timeouts.
+        long expiry = nanos > Long.MAX_VALUE - Math.max(now, 0L) ? Long.MAX_VALUE : now + nanos;
+        return new Deadline(expiry);
+    }
+    
+    /**
+     * Returns the deadline current for the calling thread.
+     * 
+     * @return The innermost deadline set through {@link #run(ICall)} or
+     * {@code null} if there is none.
+     */
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+    
+    /**
+     * Throws a {@code TIME_OUT_EXCEPTION} if the deadline current for the
+     * calling thread has expired. Does nothing when there is no current
+     * deadline.
+     * 
+     * @throws ModelException If the current deadline has expired.
+     */
+    public static void checkCurrent() throws ModelException {
+        Deadline deadline = CURRENT.get();
+        if (deadline != null) {
+            deadline.check();
+        }
+    }
+    
+    /**
+     * Returns the time left until this deadline expires.
+     * 
+     * @param unit The time unit of the result.
+     * 
+     * @return The remaining time, or a non-positive value if expired.
+     */
+    public long getRemaining(TimeUnit unit) {
+        return unit.convert(nanoTime - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Returns whether this deadline has expired.
+     * 
+     * @return {@code true} if expired, {@code false} otherwise.
+     */
+    public boolean isExpired() {
+        return nanoTime - System.nanoTime() <= 0L;
+    }
+    
+    /**
+     * Throws a {@code TIME_OUT_EXCEPTION} if this deadline has expired.
+     * 
+     * @throws ModelException If this deadline has expired.
+     */
+    public void check() throws ModelException {
+        if (isExpired()) {
+            throw new ModelException(ModelExceptionType.TIME_OUT_EXCEPTION
+                    , "The deadline expired " + (-getRemaining(TimeUnit.MILLISECONDS))
+                    + " ms ago.");
+        }
+    }
+    
+    /**
+     * Returns the earlier of this deadline and a given one.
+     * 
+     * @param other The other deadline. Can be {@code null}.
+     * 
+     * @return The earlier deadline, or this one if {@code other} is
+     * {@code null}.
+     */
+    public Deadline min(Deadline other) {
+        return other == null || compareTo(other) <= 0 ? this : other;
+    }
+    
+    /**
+     * Executes a block of DAO calls with this deadline, or the enclosing one
+     * if earlier, as the current deadline of the calling thread. The block
+     * is not started if the deadline has already expired.
+     * 
+     * @param <R> The class of the block's result.
+     * 
+     * @param call The block of DAO calls.
+     * 
+     * @return The block's result.
+     * 
+     * @throws ModelException A {@code TIME_OUT_EXCEPTION} if the deadline
+     * expired before the block started, or the exception raised by the block.
+     */
+    public <R> R run(ICall<R> call) throws ModelException {
+        Deadline previous = CURRENT.get();
+        Deadline effective = min(previous);
+        effective.check();
+        CURRENT.set(effective);
+        try {
+            return call.call();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+    
+    @Override
+    public int compareTo(Deadline other) {
+        return Long.signum(nanoTime - other.nanoTime);
+    }
+    
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Deadline && ((Deadline) obj).nanoTime == nanoTime;
+    }
+    
+    @Override
+    public int hashCode() {
+        return Long.hashCode(nanoTime);
+    }
+    
+    @Override
+    public String toString() {
+        return "Deadline{remaining=" + getRemaining(TimeUnit.MILLISECONDS) + " ms}";
+    }
+}
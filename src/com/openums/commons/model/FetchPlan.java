@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Immutable hint telling a DAO finder which relationships of the returned
+ * entities must be loaded eagerly. Relationships left out of the plan should
+ * be loaded on demand (i.e.: returned as a
+ * {@link com.openums.commons.domain.LazyList}), so that finding a Module does
+ * not bring every Role, Permission and User under it into memory.
+ * <p/>
+ * A plan is only a hint: implementations may always fetch more than
+ * requested, for example when they serve a cached object as a whole.
+ * 
+ * @author Delcio Amarillo
+ */
+public final class FetchPlan {
+    
+    /**
+     * Relationships between domain entities that can be fetched eagerly.
+     */
+    public enum Relationship {
+        /** {@code IModule.getRolesList()}. */
+        MODULE_ROLES,
+        /** {@code IModule.getPermissionsList()}. */
+        MODULE_PERMISSIONS,
+        /** {@code IRole.getRolePermissionsList()}. */
+        ROLE_PERMISSIONS,
+        /** {@code IRole.getUserRolesList()}. */
+        ROLE_USERS,
+        /** {@code IPermission.getRolePermissionsList()}. */
+        PERMISSION_ROLES,
+        /** {@code IUser.getUserRolesList()}. */
+        USER_ROLES
+    }
+    
+    /**
+     * Plan that loads every relationship lazily.
+     */
+    public static final FetchPlan NONE = new FetchPlan(EnumSet.noneOf(Relationship.class));
+    
+    /**
+     * Plan that loads every relationship eagerly. This is what the finders
+     * without a {@code FetchPlan} argument do.
+     */
+    public static final FetchPlan ALL = new FetchPlan(EnumSet.allOf(Relationship.class));
+    
+    private final Set<Relationship> relationships;
+    
+    private FetchPlan(EnumSet<Relationship> relationships) {
+        this.relationships = Collections.unmodifiableSet(relationships);
+    }
+    
+    /**
+     * Returns a plan that loads the given relationships eagerly and every
+     * other one lazily.
+     * 
+     * @param relationships The relationships to be loaded eagerly.
+     * 
+     * @return A {@code FetchPlan} object.
+     */
+    public static FetchPlan of(Relationship... relationships) {
+        EnumSet<Relationship> set = EnumSet.noneOf(Relationship.class);
+        Collections.addAll(set, relationships);
+        return new FetchPlan(set);
+    }
+    
+    /**
+     * Returns a plan that also loads a given relationship eagerly.
+     * 
+     * @param relationship The relationship.
+     * 
+     * @return A new {@code FetchPlan}, or this one if it already includes the
+     * relationship.
+     */
+    public FetchPlan with(Relationship relationship) {
+        if (relationships.contains(relationship)) {
+            return this;
+        }
+        EnumSet<Relationship> set = EnumSet.of(relationship);
+        set.addAll(relationships);
+        return new FetchPlan(set);
+    }
+    
+    /**
+     * Returns whether a given relationship must be loaded eagerly.
+     * 
+     * @param relationship The relationship.
+     * 
+     * @return {@code true} if the relationship is part of the plan.
+     */
+    public boolean fetches(Relationship relationship) {
+        return relationships.contains(relationship);
+    }
+    
+    /**
+     * Returns the relationships to be loaded eagerly.
+     * 
+     * @return A read-only set.
+     */
+    public Set<Relationship> getRelationships() {
+        return relationships;
+    }
+    
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof FetchPlan
+                && relationships.equals(((FetchPlan) other).relationships);
+    }
+    
+    @Override
+    public int hashCode() {
+        return relationships.hashCode();
+    }
+    
+    @Override
+    public String toString() {
+        return "FetchPlan" + relationships;
+    }
+}
@@ -17,8 +17,14 @@
 
 package com.openums.commons.model;
 
+import com.openums.commons.model.event.IMutationListener;
+import com.openums.commons.model.event.ISubscription;
 import java.math.BigInteger;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Generic base interface to implement DAO pattern with specific classes. 
@@ -58,6 +64,39 @@ public interface IBasicDao<T> {
      */
     public T update(T dataObject) throws ModelException;
     
+    /**
+     * Updates a given {@code T} object only if it has not been modified since
+     * it was read, i.e. if its {@code version} matches the one of the stored
+     * object. The comparison and the update are applied atomically, and on
+     * success the data object receives its new version. Unlike a lock held
+     * for the whole edit, a stale update simply fails and the caller decides
+     * whether to reload and retry.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation throws
+     * {@code UnsupportedOperationException}, since it cannot compare and
+     * update atomically. Implementations should perform the comparison in
+     * the same transaction as the update, e.g. with a
+     * {@code WHERE version = ?} clause.
+     * 
+     * @param dataObject The data object to be modified. Must implement
+     * {@code IVersioned}.
+     * 
+     * @return The updated {@code T} object.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing. The type is {@code VERSION_CONFLICT_EXCEPTION} if the data
+     * object is stale, and {@code CONSTRAINT_VIOLATED_EXCEPTION} if it does
+     * not implement {@code IVersioned} or is not stored.
+     * 
+     * @throws UnsupportedOperationException If this DAO does not support
+     * versioned updates.
+     * 
+     * @see com.openums.commons.domain.IVersioned
+     */
+    public default T compareAndUpdate(T dataObject) throws ModelException {
+        throw new UnsupportedOperationException("Versioned updates not supported.");
+    }
+    
     /**
      * Removes a given {@code T} object.
      * 
@@ -87,6 +126,52 @@ public interface IBasicDao<T> {
      */
     public T getUnique(BigInteger dataObjectId) throws ModelException;
     
+    /**
+     * Returns the {@code T} object matching a given identifier, loading 
+     * eagerly only the relationships named in a fetch plan. The ones left out 
+     * are loaded the first time they are accessed, so callers needing only 
+     * the object's own fields do not pay for its relationships.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation ignores the plan 
+     * and calls {@link #getUnique(BigInteger)}, which loads the whole object.
+     * 
+     * @param dataObjectId The data object's primary key.
+     * 
+     * @param plan The relationships to be loaded eagerly.
+     * 
+     * @return A {@code T} object matching the argument or {@code null} 
+     * otherwise.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     * 
+     * @see FetchPlan
+     */
+    public default T getUnique(BigInteger dataObjectId, FetchPlan plan) 
+            throws ModelException {
+        return getUnique(dataObjectId);
+    }
+    
+    /**
+     * Returns a {@code T} object based on a given primitive identifier. This 
+     * overload lets callers and implementations holding primitive ids avoid 
+     * allocating a {@code BigInteger} per lookup.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation converts the 
+     * identifier and calls {@link #getUnique(BigInteger)}.
+     * 
+     * @param dataObjectId The data object's primary key.
+     * 
+     * @return A {@code T} object matching the argument or {@code null} if 
+     * there's no match.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     */
+    public default T getUnique(long dataObjectId) throws ModelException {
+        return getUnique(BigInteger.valueOf(dataObjectId));
+    }
+    
     /**
      * Returns a list containing all the {@code T} objects.
      * 
@@ -97,4 +182,236 @@ public interface IBasicDao<T> {
      */
     public List<T> getAll() throws ModelException;
     
+    /**
+     * Returns the {@code T} objects matching several identifiers at once. This 
+     * allows implementations to resolve all of them with a single query (i.e.: 
+     * an {@code IN} clause) instead of one {@link #getUnique(BigInteger)} call 
+     * per identifier. As {@code getUnique} this method relies on the numeric 
+     * primary key concept of the Relational Model.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation simply calls 
+     * {@link #getUnique(BigInteger)} for every identifier.
+     * 
+     * @param dataObjectIds The data objects' primary keys.
+     * 
+     * @return A map from primary key to {@code T} object. Keys with no match, 
+     * as well as {@code null} keys, are absent from the map.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     */
+    public default Map<BigInteger, T> getUniqueAll(
+            Collection<BigInteger> dataObjectIds) throws ModelException {
+        Map<BigInteger, T> result = new LinkedHashMap<>();
+        for (BigInteger dataObjectId : dataObjectIds) {
+            if (dataObjectId != null && !result.containsKey(dataObjectId)) {
+                T dataObject = getUnique(dataObjectId);
+                if (dataObject != null) {
+                    result.put(dataObjectId, dataObject);
+                }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Returns a page of {@code T} objects ordered by their primary key. This
+     * is the offset/limit flavor of {@link #getAll()} and allows callers to
+     * process tables of any size in bounded memory. Offset based paging may
+     * skip or repeat objects if the table is modified between two calls; use
+     * {@link #getPageAfter(BigInteger, int)} when that matters.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation sorts the
+     * objects returned by {@link #getAll()}; implementations should let the
+     * back-end storage apply the offset and the limit instead.
+     * 
+     * @param offset The number of objects to skip. Must not be negative.
+     * 
+     * @param limit The maximum number of objects to return. Must be positive.
+     * 
+     * @return A list with at most {@code limit} {@code T} objects. An empty
+     * list means there are no more objects.
+     * 
+     * @throws ModelException When an error occurred during the request
+     * processing.
+     */
+    public default List<T> getPage(int offset, int limit) throws ModelException {
+        return PageSupport.page(getAll(), offset, limit);
+    }
+    
+    /**
+     * Returns a page of {@code T} objects whose primary key is strictly
+     * greater than {@code lastId}, ordered by primary key. This is the keyset
+     * flavor of {@link #getAll()}: the caller passes the id of the last object
+     * of the previous page, so each page costs the same regardless of its
+     * position and concurrent changes never make the iteration skip objects.
+     * As {@link #getUnique(BigInteger)} this method relies on the Relational
+     * Model's primary key concept.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation reads all the
+     * objects through {@link #getAll()} once per page and sorts those whose
+     * primary key is greater than {@code lastId}. Implementations should
+     * override it with a {@code WHERE id > ?} query.
+     * 
+     * @param lastId The primary key of the last object already processed or
+     * {@code null} to start from the beginning.
+     * 
+     * @param limit The maximum number of objects to return. Must be positive.
+     * 
+     * @return A list with at most {@code limit} {@code T} objects. An empty
+     * list means there are no more objects.
+     * 
+     * @throws ModelException When an error occurred during the request
+     * processing.
+     */
+    public default List<T> getPageAfter(BigInteger lastId, int limit)
+            throws ModelException {
+        return PageSupport.pageAfter(getAll(), lastId, limit);
+    }
+    
+    /**
+     * Returns a lazily populated stream over all the {@code T} objects. The
+     * objects are fetched in chunks of {@code chunkSize} elements through
+     * {@link #getPageAfter(BigInteger, int)}, thus at most one chunk is held
+     * in memory at a time and every chunk costs the same regardless of its
+     * position. Errors raised while fetching a chunk are delivered as
+     * {@code UncheckedModelException}.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation takes the
+     * primary key of the last object of every chunk from the domain
+     * interfaces; DAOs of other classes must override this method.
+     * 
+     * @param chunkSize The number of objects fetched per round trip. Must be
+     * positive.
+     * 
+     * @return A sequential {@code Stream} of {@code T} objects.
+     * 
+     * @see PagedIterator
+     */
+    public default Stream<T> streamAll(int chunkSize) {
+        final BigInteger[] lastId = new BigInteger[1];
+        return PagedIterator.stream((offset, limit) -> {
+            List<T> chunk = getPageAfter(lastId[0], limit);
+            if (!chunk.isEmpty()) {
+                lastId[0] = PageSupport.idOf(chunk.get(chunk.size() - 1));
+            }
+            return chunk;
+        }, chunkSize);
+    }
+    
+    /**
+     * Inserts several {@code T} objects. Implementations are expected to send
+     * the objects to the back-end storage in groups of {@code batchSize}
+     * elements (i.e.: one JDBC batch per group) instead of one round trip per
+     * object. The same preventive copy mechanism of {@link #insert(Object)}
+     * applies to every object.
+     * <p/>
+     * The failure of an item does not abort the rest of the operation: it is
+     * reported in the returned {@code BatchResult} at the item's position and
+     * classified by its {@code ModelExceptionType}.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation simply calls
+     * {@link #insert(Object)} for every object.
+     * 
+     * @param dataObjects The new data objects.
+     * 
+     * @param batchSize The maximum number of objects sent per round trip.
+     * Must be positive.
+     * 
+     * @return A {@code BatchResult} whose per-item results are the objects
+     * that {@link #insert(Object)} would have returned.
+     * 
+     * @throws ModelException When an error affecting the whole operation
+     * occurred during the request processing.
+     */
+    public default BatchResult<T> insertAll(Collection<? extends T> dataObjects
+            , int batchSize) throws ModelException {
+        return BatchSupport.applyEach(dataObjects, batchSize, this::insert);
+    }
+    
+    /**
+     * Updates several {@code T} objects in groups of {@code batchSize}
+     * elements. The failure of an item does not abort the rest of the
+     * operation: it is reported in the returned {@code BatchResult}.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation simply calls
+     * {@link #update(Object)} for every object.
+     * 
+     * @param dataObjects The data objects to be modified.
+     * 
+     * @param batchSize The maximum number of objects sent per round trip.
+     * Must be positive.
+     * 
+     * @return A {@code BatchResult} whose per-item results are the objects
+     * that {@link #update(Object)} would have returned.
+     * 
+     * @throws ModelException When an error affecting the whole operation
+     * occurred during the request processing.
+     * 
+     * @see #insertAll(Collection, int)
+     */
+    public default BatchResult<T> updateAll(Collection<? extends T> dataObjects
+            , int batchSize) throws ModelException {
+        return BatchSupport.applyEach(dataObjects, batchSize, this::update);
+    }
+    
+    /**
+     * Removes several {@code T} objects in groups of {@code batchSize}
+     * elements. The failure of an item does not abort the rest of the
+     * operation: it is reported in the returned {@code BatchResult}.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation simply calls
+     * {@link #delete(Object)} for every object.
+     * 
+     * @param dataObjects The data objects to be removed.
+     * 
+     * @param batchSize The maximum number of objects sent per round trip.
+     * Must be positive.
+     * 
+     * @return A {@code BatchResult} whose per-item results are the values
+     * that {@link #delete(Object)} would have returned.
+     * 
+     * @throws ModelException When an error affecting the whole operation
+     * occurred during the request processing.
+     * 
+     * @see #insertAll(Collection, int)
+     */
+    public default BatchResult<Boolean> deleteAll(
+            Collection<? extends T> dataObjects, int batchSize)
+            throws ModelException {
+        return BatchSupport.applyEach(dataObjects, batchSize, this::delete);
+    }
+    
+    /**
+     * Registers a listener notified of every insert, update and delete
+     * applied through this DAO, so that caches and indexes derived from its
+     * data can be maintained incrementally instead of being rebuilt from
+     * {@link #getAll()}. Events are delivered asynchronously and never block
+     * the mutating thread; see {@code MutationPublisher} for the delivery
+     * and overflow guarantees.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation throws
+     * {@code UnsupportedOperationException}. Implementations able to observe
+     * their own mutations should publish them through a
+     * {@code MutationPublisher}.
+     * 
+     * @param listener The listener.
+     * 
+     * @param capacity The maximum number of events waiting to be delivered
+     * to the listener; further events are dropped until it catches up. Must
+     * be positive.
+     * 
+     * @return The subscription, which cancels the delivery of events.
+     * 
+     * @throws UnsupportedOperationException If this DAO does not publish
+     * mutation events.
+     * 
+     * @see com.openums.commons.model.event.MutationEvent
+     */
+    public default ISubscription subscribe(IMutationListener listener
+            , int capacity) {
+        throw new UnsupportedOperationException(
+                "This DAO does not publish mutation events.");
+    }
+    
 }
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model;
+
+/**
+ * Single item operation of a batch, which may fail with a
+ * {@code ModelException}. Batch implementations apply it to every item and
+ * record each outcome in a {@code BatchResult}.
+ * 
+ * @param <T> The class of the items.
+ * @param <R> The class of the per-item results.
+ * @author Delcio Amarillo
+ * @see BatchResult
+ */
+@FunctionalInterface
+public interface IItemOperation<T, R> {
+    
+    /**
+     * Applies the operation to a given item.
+     * 
+     * @param dataObject The item.
+     * 
+     * @return The item's result.
+     * 
+     * @throws ModelException When the operation failed for this item.
+     */
+    public R apply(T dataObject) throws ModelException;
+}
@@ -18,6 +18,9 @@
 package com.openums.commons.model;
 
 import com.openums.commons.domain.IModule;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * This interface is intended to implement DAO pattern for {@code IModule} 
@@ -43,4 +46,59 @@ public interface IModulesDao extends IBasicDao<IModule> {
      */
     public IModule getModuleByCode(String code) throws ModelException;
     
+    /**
+     * Returns the Module matching a given code, loading eagerly only those of 
+     * its Role and Permission lists named in a fetch plan; a list left out is 
+     * loaded the first time it is accessed.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation ignores the plan 
+     * and calls {@link #getModuleByCode(String)}, which loads the whole object.
+     * 
+     * @param code The Module's code.
+     * 
+     * @param plan The relationships to be loaded eagerly.
+     * 
+     * @return A {@code IModule} object matching the argument or {@code null} 
+     * otherwise.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     * 
+     * @see FetchPlan
+     */
+    public default IModule getModuleByCode(String code, FetchPlan plan) 
+            throws ModelException {
+        return getModuleByCode(code);
+    }
+    
+    /**
+     * Returns the {@code IModule} objects matching several codes at once, so 
+     * that implementations can resolve all of them with a single query instead 
+     * of one {@link #getModuleByCode(String)} call per code.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation simply calls 
+     * {@link #getModuleByCode(String)} for every code.
+     * 
+     * @param codes The Modules' codes.
+     * 
+     * @return A map from code to {@code IModule} object. Codes with no match, 
+     * as well as {@code null} ones, are absent from the map.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     */
+    public default Map<String, IModule> getModulesByCodes(
+            Collection<String> codes) throws ModelException {
+        Map<String, IModule> result = new LinkedHashMap<>();
+        for (String code : codes) {
+            if (code != null && !result.containsKey(code)) {
+                IModule module = getModuleByCode(code);
+                if (module != null) {
+                    result.put(code, module);
+                }
+            }
+        }
+        return result;
+    }
+    
 }
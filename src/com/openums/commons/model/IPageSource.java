@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model;
+
+import java.util.List;
+
+/**
+ * Functional interface that abstracts any offset/limit paged finder, such as
+ * {@link IBasicDao#getPage(int, int)}, so it can be consumed in bounded chunks
+ * through a {@code PagedIterator}.
+ * 
+ * @param <T> The class of the objects returned by the finder.
+ * @author Delcio Amarillo
+ * @see PagedIterator
+ */
+@FunctionalInterface
+public interface IPageSource<T> {
+    
+    /**
+     * Returns a page of {@code T} objects.
+     * 
+     * @param offset The number of objects to skip.
+     * 
+     * @param limit The maximum number of objects to return.
+     * 
+     * @return A list with at most {@code limit} {@code T} objects. An empty
+     * list means there are no more objects.
+     * 
+     * @throws ModelException When an error occurred during the request
+     * processing.
+     */
+    public List<T> getPage(int offset, int limit) throws ModelException;
+
+}
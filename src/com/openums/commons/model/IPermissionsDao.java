@@ -19,8 +19,13 @@ package com.openums.commons.model;
 
 import com.openums.commons.domain.IModule;
 import com.openums.commons.domain.IPermission;
+import com.openums.commons.domain.PermissionSummary;
 import java.math.BigInteger;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * This interface is intended to implement DAO pattern for {@code IPermission} 
@@ -46,6 +51,63 @@ public interface IPermissionsDao extends IBasicDao<IPermission> {
      */
     public IPermission getPermissionByCode(String code) throws ModelException;
     
+    /**
+     * Returns the Permission matching a given code, loading its 
+     * role-permission relationships eagerly only when a fetch plan includes 
+     * {@code PERMISSION_ROLES}; otherwise they are loaded the first time they 
+     * are accessed.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation ignores the plan 
+     * and calls {@link #getPermissionByCode(String)}, which loads the whole 
+     * object.
+     * 
+     * @param code The Permission's code.
+     * 
+     * @param plan The relationships to be loaded eagerly.
+     * 
+     * @return A {@code IPermission} object matching the argument or 
+     * {@code null} otherwise.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     * 
+     * @see FetchPlan
+     */
+    public default IPermission getPermissionByCode(String code, FetchPlan plan) 
+            throws ModelException {
+        return getPermissionByCode(code);
+    }
+    
+    /**
+     * Returns the {@code IPermission} objects matching several codes at once, 
+     * so that implementations can resolve all of them with a single query 
+     * instead of one {@link #getPermissionByCode(String)} call per code.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation simply calls 
+     * {@link #getPermissionByCode(String)} for every code.
+     * 
+     * @param codes The Permissions' codes.
+     * 
+     * @return A map from code to {@code IPermission} object. Codes with no 
+     * match, as well as {@code null} ones, are absent from the map.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     */
+    public default Map<String, IPermission> getPermissionsByCodes(
+            Collection<String> codes) throws ModelException {
+        Map<String, IPermission> result = new LinkedHashMap<>();
+        for (String code : codes) {
+            if (code != null && !result.containsKey(code)) {
+                IPermission permission = getPermissionByCode(code);
+                if (permission != null) {
+                    result.put(code, permission);
+                }
+            }
+        }
+        return result;
+    }
+    
     /**
      * Returns a list of {@code IPermisison} objects associated to a given 
      * Module. The {@code idModule} argument is based on the numeric foreign key 
@@ -76,5 +138,61 @@ public interface IPermissionsDao extends IBasicDao<IPermission> {
      * processing.
      */
     public List<IPermission> getPermissionsByModule(IModule module) 
-            throws ModelException;    
+            throws ModelException;
+    
+    /**
+     * Returns a list of {@code IPermission} objects associated to a given Module, based 
+     * on its primitive identifier. This overload lets callers holding 
+     * primitive ids avoid allocating a {@code BigInteger} per lookup.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation converts the 
+     * identifier and calls {@link #getPermissionsByModule(BigInteger)}.
+     * 
+     * @param idModule The Module's primary key.
+     * 
+     * @return A list of {@code IPermission} objects that match the argument.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     */
+    public default List<IPermission> getPermissionsByModule(long idModule) 
+            throws ModelException {
+        return getPermissionsByModule(BigInteger.valueOf(idModule));
+    }
+    
+    /**
+     * Returns the summaries of all the Permissions. Summaries hold neither the 
+     * Module nor the association lists, only the Module's primary key.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation summarizes the 
+     * Permissions returned by {@link #getAll()}.
+     * 
+     * @return A list of {@code PermissionSummary} objects.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     */
+    public default List<PermissionSummary> getPermissionSummaries() throws ModelException {
+        return getAll().stream().map(PermissionSummary::of).collect(Collectors.toList());
+    }
+    
+    /**
+     * Returns the summaries of the Permissions associated to a given Module.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation summarizes the 
+     * Permissions returned by {@link #getPermissionsByModule(BigInteger)}.
+     * 
+     * @param idModule The Module's primary key.
+     * 
+     * @return A list of {@code PermissionSummary} objects.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     */
+    public default List<PermissionSummary> getPermissionSummariesByModule(BigInteger idModule) 
+            throws ModelException {
+        return getPermissionsByModule(idModule).stream().map(PermissionSummary::of)
+                .collect(Collectors.toList());
+    }
+    
 }
@@ -17,10 +17,23 @@
 
 package com.openums.commons.model;
 
+import com.openums.commons.domain.DomainGraph;
 import com.openums.commons.domain.IModule;
 import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.RoleSummary;
 import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * This interface is intended to implement DAO pattern for {@code IRole} 
@@ -46,6 +59,62 @@ public interface IRolesDao extends IBasicDao<IRole> {
      */
     public IRole getRoleByCode(String code) throws ModelException;
     
+    /**
+     * Returns the Role matching a given code, loading eagerly only those of 
+     * its Permissions and Users named in a fetch plan 
+     * ({@code ROLE_PERMISSIONS} and {@code ROLE_USERS}); the others are 
+     * loaded the first time they are accessed.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation ignores the plan 
+     * and calls {@link #getRoleByCode(String)}, which loads the whole object.
+     * 
+     * @param code The Role's code.
+     * 
+     * @param plan The relationships to be loaded eagerly.
+     * 
+     * @return A {@code IRole} object matching the argument or {@code null} 
+     * otherwise.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     * 
+     * @see FetchPlan
+     */
+    public default IRole getRoleByCode(String code, FetchPlan plan) 
+            throws ModelException {
+        return getRoleByCode(code);
+    }
+    
+    /**
+     * Returns the {@code IRole} objects matching several codes at once, so 
+     * that implementations can resolve all of them with a single query instead 
+     * of one {@link #getRoleByCode(String)} call per code.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation simply calls 
+     * {@link #getRoleByCode(String)} for every code.
+     * 
+     * @param codes The Roles' codes.
+     * 
+     * @return A map from code to {@code IRole} object. Codes with no match, as 
+     * well as {@code null} ones, are absent from the map.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     */
+    public default Map<String, IRole> getRolesByCodes(
+            Collection<String> codes) throws ModelException {
+        Map<String, IRole> result = new LinkedHashMap<>();
+        for (String code : codes) {
+            if (code != null && !result.containsKey(code)) {
+                IRole role = getRoleByCode(code);
+                if (role != null) {
+                    result.put(code, role);
+                }
+            }
+        }
+        return result;
+    }
+    
     /**
      * Returns a list of {@code IRole} objects associated to a given Module. 
      * The {@code idModule} argument is based on the numeric foreign key 
@@ -76,4 +145,231 @@ public interface IRolesDao extends IBasicDao<IRole> {
      */
     public List<IRole> getRolesByModule(IModule module)throws ModelException;
     
+    /**
+     * Returns a list of {@code IRole} objects that hold a given Permission 
+     * through an enabled {@code IRolePermission} relationship, either their 
+     * own or one of their ancestors', as {@link #roleHasPermission(BigInteger, String)} 
+     * does. This answers "which roles grant permission P" without walking 
+     * every Role.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation scans all the 
+     * Roles; implementations are expected to keep a reverse index from 
+     * permission to roles, expanded with the inheriting Roles, instead.
+     * 
+     * @param permissionCode The Permission's code.
+     * 
+     * @return A {@code IRole} list that match the argument.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     */
+    public default List<IRole> getRolesByPermission(String permissionCode) 
+            throws ModelException {
+        List<IRole> all = getAll();
+        Set<BigInteger> ids = DomainGraph.getGrantingRoleIds(all, permissionCode);
+        List<IRole> roles = new ArrayList<>();
+        for (IRole role : all) {
+            if (ids.contains(role.getId())) {
+                roles.add(role);
+            }
+        }
+        return roles;
+    }
+    
+    /**
+     * Returns a list of {@code IRole} objects associated to a given Module, based 
+     * on its primitive identifier. This overload lets callers holding 
+     * primitive ids avoid allocating a {@code BigInteger} per lookup.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation converts the 
+     * identifier and calls {@link #getRolesByModule(BigInteger)}.
+     * 
+     * @param idModule The Module's primary key.
+     * 
+     * @return A list of {@code IRole} objects that match the argument.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     */
+    public default List<IRole> getRolesByModule(long idModule) throws ModelException {
+        return getRolesByModule(BigInteger.valueOf(idModule));
+    }
+    
+    /**
+     * Returns the summaries of all the Roles. Summaries hold neither the 
+     * Module nor the association lists, only the Module's primary key.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation summarizes the 
+     * Roles returned by {@link #getAll()}.
+     * 
+     * @return A list of {@code RoleSummary} objects.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     */
+    public default List<RoleSummary> getRoleSummaries() throws ModelException {
+        return getAll().stream().map(RoleSummary::of).collect(Collectors.toList());
+    }
+    
+    /**
+     * Returns the summaries of the Roles associated to a given Module.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation summarizes the 
+     * Roles returned by {@link #getRolesByModule(BigInteger)}.
+     * 
+     * @param idModule The Module's primary key.
+     * 
+     * @return A list of {@code RoleSummary} objects.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     */
+    public default List<RoleSummary> getRoleSummariesByModule(BigInteger idModule) 
+            throws ModelException {
+        return getRolesByModule(idModule).stream().map(RoleSummary::of)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Returns the Roles a given Role inherits from directly.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation returns the 
+     * parents of the Role returned by {@link #getUnique(BigInteger)}.
+     * 
+     * @param roleId The Role's primary key.
+     * 
+     * @return A {@code IRole} list with the parent Roles, empty if the Role 
+     * does not exist.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     * 
+     * @see IRole#getParentRolesList()
+     */
+    public default List<IRole> getParentRoles(BigInteger roleId) 
+            throws ModelException {
+        IRole role = roleId == null ? null : getUnique(roleId);
+        return role == null ? new ArrayList<IRole>() 
+                : new ArrayList<>(role.getParentRolesList());
+    }
+    
+    /**
+     * Returns the Roles a given Role inherits from, directly or through its 
+     * parents.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation walks the 
+     * parents one level at a time through {@link #getUniqueAll(Collection)}; 
+     * implementations are expected to keep the transitive closure of the 
+     * hierarchy instead.
+     * 
+     * @param roleId The Role's primary key.
+     * 
+     * @return A {@code IRole} list with the ancestor Roles.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     */
+    public default List<IRole> getAncestorRoles(BigInteger roleId) 
+            throws ModelException {
+        Set<BigInteger> visited = new HashSet<>();
+        List<IRole> ancestors = new ArrayList<>();
+        Set<BigInteger> level = new LinkedHashSet<>();
+        for (IRole parent : getParentRoles(roleId)) {
+            level.add(parent.getId());
+        }
+        visited.add(roleId);
+        while (!level.isEmpty()) {
+            Set<BigInteger> next = new LinkedHashSet<>();
+            level.remove(null);
+            level.removeAll(visited);
+            visited.addAll(level);
+            for (IRole role : getUniqueAll(level).values()) {
+                ancestors.add(role);
+                next.addAll(DomainGraph.getParentRoleIds(role));
+            }
+            level = next;
+        }
+        return ancestors;
+    }
+    
+    /**
+     * Returns the Roles inheriting from a given Role, directly or through 
+     * other Roles. These are the Roles affected by a change 
+     * in the Permissions of the given one.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation scans all the 
+     * Roles; implementations are expected to keep the transitive closure of 
+     * the hierarchy instead.
+     * 
+     * @param roleId The Role's primary key.
+     * 
+     * @return A {@code IRole} list with the descendant Roles.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     */
+    public default List<IRole> getDescendantRoles(BigInteger roleId) 
+            throws ModelException {
+        Map<BigInteger, List<IRole>> children = new HashMap<>();
+        for (IRole role : getAll()) {
+            for (BigInteger parentId : DomainGraph.getParentRoleIds(role)) {
+                children.computeIfAbsent(parentId, id -> new ArrayList<>()).add(role);
+            }
+        }
+        Set<BigInteger> visited = new HashSet<>();
+        List<IRole> descendants = new ArrayList<>();
+        Deque<BigInteger> pending = new ArrayDeque<>();
+        visited.add(roleId);
+        pending.add(roleId);
+        while (!pending.isEmpty()) {
+            List<IRole> roles = children.get(pending.poll());
+            if (roles == null) {
+                continue;
+            }
+            for (IRole child : roles) {
+                if (visited.add(child.getId())) {
+                    descendants.add(child);
+                    pending.add(child.getId());
+                }
+            }
+        }
+        return descendants;
+    }
+    
+    /**
+     * Returns whether a given Role holds a given Permission through an enabled 
+     * {@code IRolePermission} relationship, either its own or one of its 
+     * ancestors'.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation checks the 
+     * Role and then its ancestors, so its cost grows with the depth of the 
+     * hierarchy; implementations are expected to answer it from a 
+     * precomputed closure instead.
+     * 
+     * @param roleId The Role's primary key.
+     * 
+     * @param permissionCode The Permission's code.
+     * 
+     * @return {@code true} if the Role holds the Permission, {@code false} 
+     * otherwise, including unknown Roles.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     */
+    public default boolean roleHasPermission(BigInteger roleId, String permissionCode) 
+            throws ModelException {
+        IRole role = roleId == null ? null : getUnique(roleId);
+        if (role == null) {
+            return false;
+        }
+        if (DomainGraph.hasEnabledPermission(role, permissionCode)) {
+            return true;
+        }
+        for (IRole ancestor : getAncestorRoles(roleId)) {
+            if (DomainGraph.hasEnabledPermission(ancestor, permissionCode)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
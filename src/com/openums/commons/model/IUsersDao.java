@@ -17,10 +17,18 @@
 
 package com.openums.commons.model;
 
+import com.openums.commons.domain.DomainGraph;
 import com.openums.commons.domain.IRole;
 import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.LoginRecord;
+import com.openums.commons.domain.UserSummary;
 import java.math.BigInteger;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * This interface is intended to implement DAO pattern for {@code IUser} 
@@ -46,6 +54,85 @@ public interface IUsersDao extends IBasicDao<IUser> {
      */
     public IUser getUserByName(String userName) throws ModelException;
     
+    /**
+     * Returns the User matching a given user name, loading its Roles eagerly 
+     * only when a fetch plan includes {@code USER_ROLES}. Callers that only 
+     * check the User's own fields can leave them out; they are then loaded 
+     * the first time they are accessed.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation ignores the plan 
+     * and calls {@link #getUserByName(String)}, which loads the whole object.
+     * 
+     * @param userName The user's name.
+     * 
+     * @param plan The relationships to be loaded eagerly.
+     * 
+     * @return A {@code IUser} object matching the argument or {@code null} 
+     * otherwise.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     * 
+     * @see FetchPlan
+     */
+    public default IUser getUserByName(String userName, FetchPlan plan) 
+            throws ModelException {
+        return getUserByName(userName);
+    }
+    
+    /**
+     * Returns what a login decision needs to know about the User matching a 
+     * given user name: id, password hash, active and unlocked flags and the 
+     * primary keys of its Roles, including the inherited ones. Logins call it 
+     * once instead of loading the whole {@code IUser} and walking its Roles.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation builds the 
+     * record from {@link #getUserByName(String)}, following the parents of 
+     * the loaded Roles. Implementations backed by a database should read it 
+     * with a single query selecting only the needed columns and the keys of 
+     * the Roles and their ancestors.
+     * 
+     * @param userName The user's name.
+     * 
+     * @return The login record or {@code null} if there's no match.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     */
+    public default LoginRecord getLoginRecord(String userName) throws ModelException {
+        return LoginRecord.of(getUserByName(userName));
+    }
+    
+    /**
+     * Returns the {@code IUser} objects matching several user names at once, 
+     * so that implementations can resolve all of them with a single query 
+     * instead of one {@link #getUserByName(String)} call per user name.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation simply calls 
+     * {@link #getUserByName(String)} for every user name.
+     * 
+     * @param userNames The users' names.
+     * 
+     * @return A map from user name to {@code IUser} object. User names with no 
+     * match, as well as {@code null} ones, are absent from the map.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     */
+    public default Map<String, IUser> getUsersByNames(
+            Collection<String> userNames) throws ModelException {
+        Map<String, IUser> result = new LinkedHashMap<>();
+        for (String userName : userNames) {
+            if (userName != null && !result.containsKey(userName)) {
+                IUser user = getUserByName(userName);
+                if (user != null) {
+                    result.put(userName, user);
+                }
+            }
+        }
+        return result;
+    }
+    
     /**
      * Returns a list of {@code IUser} objects whose status is {@code active}.
      * 
@@ -114,4 +201,288 @@ public interface IUsersDao extends IBasicDao<IUser> {
      */
     public List<IUser> getUsersByRole(IRole role) throws ModelException;
     
+    /**
+     * Returns a list of {@code IUser} objects that hold a given Permission 
+     * through any of their Roles, directly or inherited from the Roles' 
+     * ancestors. This answers "who can do P" without walking every User.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation streams all the 
+     * Users and walks their Roles and the Roles' parents; implementations are 
+     * expected to keep a reverse index from permission to roles to users 
+     * instead.
+     * 
+     * @param permissionCode The Permission's code.
+     * 
+     * @return A list of {@code IUser} objects that match the argument.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     * 
+     * @see IRolesDao#getRolesByPermission(String)
+     */
+    public default List<IUser> getUsersByPermission(String permissionCode) 
+            throws ModelException {
+        try {
+            return streamAll(500).filter(user -> {
+                for (IRole role : DomainGraph.getRoles(user)) {
+                    if (DomainGraph.hasEffectivePermission(role, permissionCode)) {
+                        return true;
+                    }
+                }
+                return false;
+            }).collect(Collectors.toList());
+        } catch (UncheckedModelException ex) {
+            throw ex.getCause();
+        }
+    }
+    
+    /**
+     * Returns a list of {@code IUser} objects associated to a given Role, based 
+     * on its primitive identifier. This overload lets callers holding 
+     * primitive ids avoid allocating a {@code BigInteger} per lookup.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation converts the 
+     * identifier and calls {@link #getUsersByRole(BigInteger)}.
+     * 
+     * @param idRole The Role's primary key.
+     * 
+     * @return A list of {@code IUser} objects that match the argument.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     */
+    public default List<IUser> getUsersByRole(long idRole) throws ModelException {
+        return getUsersByRole(BigInteger.valueOf(idRole));
+    }
+    
+    /**
+     * Returns a page of {@code IUser} objects whose status is {@code active},
+     * ordered by primary key.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation pages the 
+     * result of {@link #getActiveUsers()}.
+     * 
+     * @param offset The number of objects to skip. Must not be negative.
+     * 
+     * @param limit The maximum number of objects to return. Must be positive.
+     * 
+     * @return A list with at most {@code limit} {@code IUser} objects.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     * 
+     * @see IBasicDao#getPage(int, int)
+     */
+    public default List<IUser> getActiveUsers(int offset, int limit) 
+            throws ModelException {
+        return PageSupport.page(getActiveUsers(), offset, limit);
+    }
+    
+    /**
+     * Returns a page of {@code IUser} objects whose status is {@code inactive},
+     * ordered by primary key.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation pages the 
+     * result of {@link #getInactiveUsers()}.
+     * 
+     * @param offset The number of objects to skip. Must not be negative.
+     * 
+     * @param limit The maximum number of objects to return. Must be positive.
+     * 
+     * @return A list with at most {@code limit} {@code IUser} objects.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     * 
+     * @see IBasicDao#getPage(int, int)
+     */
+    public default List<IUser> getInactiveUsers(int offset, int limit) 
+            throws ModelException {
+        return PageSupport.page(getInactiveUsers(), offset, limit);
+    }
+    
+    /**
+     * Returns a page of {@code IUser} objects whose status is {@code locked},
+     * ordered by primary key.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation pages the 
+     * result of {@link #getLockedUsers()}.
+     * 
+     * @param offset The number of objects to skip. Must not be negative.
+     * 
+     * @param limit The maximum number of objects to return. Must be positive.
+     * 
+     * @return A list with at most {@code limit} {@code IUser} objects.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     * 
+     * @see IBasicDao#getPage(int, int)
+     */
+    public default List<IUser> getLockedUsers(int offset, int limit) 
+            throws ModelException {
+        return PageSupport.page(getLockedUsers(), offset, limit);
+    }
+    
+    /**
+     * Returns a page of {@code IUser} objects whose status is {@code unlocked},
+     * ordered by primary key.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation pages the 
+     * result of {@link #getUnlockedUsers()}.
+     * 
+     * @param offset The number of objects to skip. Must not be negative.
+     * 
+     * @param limit The maximum number of objects to return. Must be positive.
+     * 
+     * @return A list with at most {@code limit} {@code IUser} objects.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     * 
+     * @see IBasicDao#getPage(int, int)
+     */
+    public default List<IUser> getUnlockedUsers(int offset, int limit) 
+            throws ModelException {
+        return PageSupport.page(getUnlockedUsers(), offset, limit);
+    }
+    
+    /**
+     * Returns a page of {@code IUser} objects associated to a given Role, 
+     * ordered by primary key. As {@link #getUsersByRole(BigInteger)} this 
+     * method relies on the Relational Model's foreign key concept.
+     * <p/>
+     * Any of the paged finders can be consumed in bounded chunks through a 
+     * {@code PagedIterator}, for instance: 
+     * {@code PagedIterator.stream((offset, limit) -> dao.getUsersByRole(idRole, offset, limit), 500)}.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation pages the 
+     * result of {@link #getUsersByRole(BigInteger)}.
+     * 
+     * @param idRole The Role's primary key.
+     * 
+     * @param offset The number of objects to skip. Must not be negative.
+     * 
+     * @param limit The maximum number of objects to return. Must be positive.
+     * 
+     * @return A list with at most {@code limit} {@code IUser} objects.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     */
+    public default List<IUser> getUsersByRole(BigInteger idRole, int offset
+            , int limit) throws ModelException {
+        return PageSupport.page(getUsersByRole(idRole), offset, limit);
+    }
+    
+    /**
+     * Returns the Users whose given property matches a search text, such as 
+     * the Users whose user name starts with what has been typed so far in a 
+     * type-ahead box. Users whose property is {@code null} never match.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation streams all the 
+     * Users keeping the best {@code limit} matches; implementations are 
+     * expected to answer it from an index or from the back-end's own text 
+     * search facilities instead.
+     * 
+     * @param field The property to search.
+     * 
+     * @param text The search text. An empty text matches every User in the 
+     * prefix modes.
+     * 
+     * @param mode How the text is matched.
+     * 
+     * @param limit The maximum number of Users to return. Must be positive.
+     * 
+     * @return A list with at most {@code limit} {@code IUser} objects, in the 
+     * order defined by the {@code mode}.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     */
+    public default List<IUser> searchUsers(UserSearchField field, String text
+            , SearchMode mode, int limit) throws ModelException {
+        UserSearchSupport.checkSearch(field, text, mode, limit);
+        try (Stream<IUser> users = streamAll(500)) {
+            return UserSearchSupport.search(users.iterator(), field, text, mode, limit);
+        } catch (UncheckedModelException ex) {
+            throw ex.getCause();
+        }
+    }
+    
+    /**
+     * Returns a page of {@code UserSummary} objects ordered by primary key. 
+     * Summaries only hold what listings need, so implementations can read a 
+     * handful of columns instead of whole Users with their Roles.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation summarizes the 
+     * Users returned by {@link #getPage(int, int)}.
+     * 
+     * @param offset The number of Users to skip. Must not be negative.
+     * 
+     * @param limit The maximum number of summaries to return. Must be 
+     * positive.
+     * 
+     * @return A list with at most {@code limit} {@code UserSummary} objects.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     */
+    public default List<UserSummary> getUserSummaries(int offset, int limit) 
+            throws ModelException {
+        return getPage(offset, limit).stream().map(UserSummary::of)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Returns a page of summaries of the active Users, ordered by primary key.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation summarizes the 
+     * Users returned by {@link #getActiveUsers(int, int)}.
+     * 
+     * @param offset The number of Users to skip. Must not be negative.
+     * 
+     * @param limit The maximum number of summaries to return. Must be 
+     * positive.
+     * 
+     * @return A list with at most {@code limit} {@code UserSummary} objects.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     * 
+     * @see #getUserSummaries(int, int)
+     */
+    public default List<UserSummary> getActiveUserSummaries(int offset, int limit) 
+            throws ModelException {
+        return getActiveUsers(offset, limit).stream().map(UserSummary::of)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Returns a page of summaries of the Users associated to a given Role, 
+     * ordered by primary key.
+     * <br />
+     * <b>Note to implementors:</b> the default implementation summarizes the 
+     * Users returned by {@link #getUsersByRole(BigInteger, int, int)}.
+     * 
+     * @param idRole The Role's primary key.
+     * 
+     * @param offset The number of Users to skip. Must not be negative.
+     * 
+     * @param limit The maximum number of summaries to return. Must be 
+     * positive.
+     * 
+     * @return A list with at most {@code limit} {@code UserSummary} objects.
+     * 
+     * @throws ModelException When an error occurred during the request 
+     * processing.
+     * 
+     * @see #getUserSummaries(int, int)
+     */
+    public default List<UserSummary> getUserSummariesByRole(BigInteger idRole
+            , int offset, int limit) throws ModelException {
+        return getUsersByRole(idRole, offset, limit).stream().map(UserSummary::of)
+                .collect(Collectors.toList());
+    }
+    
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model;
+
+import com.openums.commons.domain.LazyList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Helpers for DAO implementations that return entities with lazily loaded
+ * relationships.
+ * 
+ * @author Delcio Amarillo
+ * @see FetchPlan
+ */
+public final class LazyRelations {
+    
+    /**
+     * Loads the entities of a relationship from the model layer.
+     * 
+     * @param <E> The class of the related entities.
+     */
+    @FunctionalInterface
+    public interface ILoader<E> {
+        List<? extends E> load() throws ModelException;
+    }
+    
+    private LazyRelations() {
+    }
+    
+    /**
+     * Returns a list that is populated through a given loader the first time
+     * it is accessed. A {@code ModelException} raised by the loader reaches
+     * the caller that touched the list as an {@code UncheckedModelException}.
+     * 
+     * @param <E> The class of the related entities.
+     * 
+     * @param loader The loader, typically a call to a DAO finder such as
+     * {@code () -> rolesDao.getRolesByModule(moduleId)}.
+     * 
+     * @return A new {@code LazyList}.
+     */
+    public static <E> LazyList<E> lazy(ILoader<E> loader) {
+        return new LazyList<>(() -> {
+            try {
+                return loader.load();
+            } catch (ModelException ex) {
+                throw new UncheckedModelException(ex);
+            }
+        });
+    }
+    
+    /**
+     * Returns either the list loaded right away or a lazily loaded one,
+     * depending on whether a fetch plan includes a given relationship.
+     * 
+     * @param <E> The class of the related entities.
+     * 
+     * @param plan The fetch plan.
+     * 
+     * @param relationship The relationship.
+     * 
+     * @param loader The loader.
+     * 
+     * @return A new list with the loaded entities if the plan fetches the
+     * relationship, or a new {@code LazyList} otherwise.
+     * 
+     * @throws ModelException When the relationship is loaded eagerly and the
+     * loader fails.
+     */
+    public static <E> List<E> fetch(FetchPlan plan, FetchPlan.Relationship relationship
+            , ILoader<E> loader) throws ModelException {
+        if (plan.fetches(relationship)) {
+            List<? extends E> loaded = loader.load();
+            return loaded == null ? new ArrayList<E>() : new ArrayList<E>(loaded);
+        }
+        return lazy(loader);
+    }
+}
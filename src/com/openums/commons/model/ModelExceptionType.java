@@ -39,5 +39,11 @@ public enum ModelExceptionType {
      * A given constraint has been violated when trying to perform the current 
      * operation.
      */
-    CONSTRAINT_VIOLATED_EXCEPTION    
+    CONSTRAINT_VIOLATED_EXCEPTION,
+    
+    /**
+     * The data object has been modified by another operation since it was 
+     * read, so the current operation would overwrite that modification.
+     */
+    VERSION_CONFLICT_EXCEPTION
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model;
+
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.IPermission;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IRolePermission;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.IUserRole;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Fallbacks used by the default paged finders of the DAO interfaces. They
+ * page the results of the unpaged finders, which suits implementations that
+ * only provide those.
+ * 
+ * @author Delcio Amarillo
+ */
+final class PageSupport {
+    
+    private static final Comparator<Object> BY_ID = Comparator.comparing(
+            PageSupport::idOf, Comparator.nullsLast(Comparator.<BigInteger>naturalOrder()));
+    
+    private PageSupport() {
+    }
+    
+    /**
+     * Validates the arguments of a paged finder.
+     * 
+     * @param offset The number of objects to skip.
+     * 
+     * @param limit The maximum number of objects to return.
+     */
+    static void checkPage(int offset, int limit) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("The offset cannot be negative.");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The limit must be positive.");
+        }
+    }
+    
+    /**
+     * Returns a page of the given domain objects ordered by primary key.
+     */
+    static <T> List<T> page(Collection<? extends T> dataObjects, int offset
+            , int limit) {
+        checkPage(offset, limit);
+        List<T> sorted = new ArrayList<>(dataObjects);
+        sorted.sort(BY_ID);
+        int from = Math.min(offset, sorted.size());
+        int to = (int) Math.min((long) from + limit, sorted.size());
+        return new ArrayList<>(sorted.subList(from, to));
+    }
+    
+    /**
+     * Returns the first {@code limit} domain objects, ordered by primary key,
+     * whose primary key is greater than {@code lastId}. Only those objects
+     * are sorted.
+     */
+    static <T> List<T> pageAfter(Collection<? extends T> dataObjects
+            , BigInteger lastId, int limit) {
+        checkPage(0, limit);
+        List<T> remaining = new ArrayList<>();
+        for (T dataObject : dataObjects) {
+            BigInteger id = idOf(dataObject);
+            if (lastId == null || (id != null && id.compareTo(lastId) > 0)) {
+                remaining.add(dataObject);
+            }
+        }
+        remaining.sort(BY_ID);
+        return remaining.size() <= limit ? remaining
+                : new ArrayList<>(remaining.subList(0, limit));
+    }
+    
+    /**
+     * Returns the primary key of a given domain object.
+     * 
+     * @throws IllegalArgumentException If the object does not implement any
+     * of the domain interfaces.
+     */
+    static BigInteger idOf(Object dataObject) {
+        if (dataObject instanceof IUser) {
+            return ((IUser) dataObject).getId();
+        } else if (dataObject instanceof IRole) {
+            return ((IRole) dataObject).getId();
+        } else if (dataObject instanceof IPermission) {
+            return ((IPermission) dataObject).getId();
+        } else if (dataObject instanceof IModule) {
+            return ((IModule) dataObject).getId();
+        } else if (dataObject instanceof IUserRole) {
+            return ((IUserRole) dataObject).getId();
+        } else if (dataObject instanceof IRolePermission) {
+            return ((IRolePermission) dataObject).getId();
+        }
+        throw new IllegalArgumentException("Not a domain object: " + dataObject);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterator that walks over the results of an offset/limit paged finder,
+ * fetching one chunk at a time. At most one chunk is held in memory, so any
+ * number of objects can be processed in constant memory.
+ * <p/>
+ * Since {@code Iterator} methods cannot throw checked exceptions, a
+ * {@code ModelException} raised while fetching a chunk is rethrown wrapped in
+ * an {@code UncheckedModelException}.
+ * 
+ * @param <T> The class of the iterated objects.
+ * @author Delcio Amarillo
+ * @see IPageSource
+ */
+public class PagedIterator<T> implements Iterator<T> {
+    
+    private final IPageSource<T> source;
+    private final int chunkSize;
+    private List<T> chunk = Collections.emptyList();
+    private int index;
+    private int offset;
+    private boolean exhausted;
+    
+    /**
+     * Creates a new {@code PagedIterator} over a given page source.
+     * 
+     * @param source The paged finder.
+     * 
+     * @param chunkSize The number of objects fetched per call. Must be
+     * positive.
+     */
+    public PagedIterator(IPageSource<T> source, int chunkSize) {
+        if (source == null) {
+            throw new IllegalArgumentException("The page source cannot be null.");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("The chunk size must be positive.");
+        }
+        this.source = source;
+        this.chunkSize = chunkSize;
+    }
+    
+    /**
+     * Convenience method that wraps a {@code PagedIterator} in a sequential
+     * {@code Stream}.
+     * 
+     * @param <T> The class of the streamed objects.
+     * 
+     * @param source The paged finder.
+     * 
+     * @param chunkSize The number of objects fetched per call. Must be
+     * positive.
+     * 
+     * @return A lazily populated {@code Stream}.
+     */
+    public static <T> Stream<T> stream(IPageSource<T> source, int chunkSize) {
+        Iterator<T> iterator = new PagedIterator<>(source, chunkSize);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator
+                , Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+    
+    @Override
+    public boolean hasNext() {
+        if (index < chunk.size()) {
+            return true;
+        }
+        if (exhausted) {
+            return false;
+        }
+        try {
+            chunk = source.getPage(offset, chunkSize);
+        } catch (ModelException ex) {
+            throw new UncheckedModelException(ex);
+        }
+        index = 0;
+        offset += chunk.size();
+        exhausted = chunk.size() < chunkSize;
+        return !chunk.isEmpty();
+    }
+    
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return chunk.get(index++);
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model;
+
+/**
+ * How a search text is matched against a property's value.
+ * 
+ * @author Delcio Amarillo
+ */
+public enum SearchMode {
+    
+    /**
+     * The value starts with the text. Results are ordered by lower cased
+     * value, then by primary key.
+     */
+    PREFIX,
+    
+    /**
+     * The value starts with the text, ignoring case. Results are ordered by
+     * lower cased value, then by primary key.
+     */
+    PREFIX_IGNORE_CASE,
+    
+    /**
+     * The value and the text share enough trigrams to reach
+     * {@link com.openums.commons.util.Trigrams#DEFAULT_THRESHOLD}, ignoring
+     * case. Results are ordered by descending similarity, then by primary
+     * key.
+     */
+    FUZZY
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model;
+
+/**
+ * Wraps a {@code ModelException} with an unchecked exception. It is thrown
+ * from places where checked exceptions are not allowed, such as iterators and
+ * streams that fetch their elements lazily from the model layer.
+ * 
+ * @author Delcio Amarillo
+ */
+public class UncheckedModelException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    /**
+     * Creates a new {@code UncheckedModelException} wrapping a given
+     * {@code ModelException}.
+     * 
+     * @param cause The wrapped exception. Can be retrieved later through
+     * {@code getCause()} method.
+     */
+    public UncheckedModelException(ModelException cause) {
+        super(cause.getMessage(), cause);
+    }
+    
+    /**
+     * Returns the wrapped {@code ModelException}.
+     * 
+     * @return The wrapped exception.
+     */
+    @Override
+    public ModelException getCause() {
+        return (ModelException) super.getCause();
+    }
+    
+    /**
+     * Returns the type of the wrapped exception.
+     * 
+     * @return The exception type.
+     */
+    public ModelExceptionType getExceptionType() {
+        return getCause().getExceptionType();
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model;
+
+import com.openums.commons.domain.IUser;
+
+/**
+ * User properties that can be searched through
+ * {@link IUsersDao#searchUsers(UserSearchField, String, SearchMode, int)}.
+ * 
+ * @author Delcio Amarillo
+ */
+public enum UserSearchField {
+    
+    /** {@code IUser.getUserName()}. */
+    USER_NAME {
+        @Override
+        public String valueOf(IUser user) {
+            return user.getUserName();
+        }
+    },
+    
+    /** {@code IUser.getEmail()}. */
+    EMAIL {
+        @Override
+        public String valueOf(IUser user) {
+            return user.getEmail();
+        }
+    },
+    
+    /** {@code IUser.getLastName()}. */
+    LAST_NAME {
+        @Override
+        public String valueOf(IUser user) {
+            return user.getLastName();
+        }
+    };
+    
+    /**
+     * Returns the value of this property for a given User.
+     * 
+     * @param user The User.
+     * 
+     * @return The property's value. Can be {@code null}.
+     */
+    public abstract String valueOf(IUser user);
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model;
+
+import com.openums.commons.domain.IUser;
+import com.openums.commons.util.Trigrams;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * Brute force implementation of the user search, shared by the
+ * {@code IUsersDao} default method. It keeps only the best {@code limit}
+ * matches while scanning, so memory stays bounded regardless of the number
+ * of Users.
+ * 
+ * @author Delcio Amarillo
+ */
+final class UserSearchSupport {
+    
+    private static final class Match {
+        private final IUser user;
+        private final String key;
+        private final double score;
+        
+        private Match(IUser user, String key, double score) {
+            this.user = user;
+            this.key = key;
+            this.score = score;
+        }
+    }
+    
+    private static final Comparator<BigInteger> IDS = Comparator.nullsLast(
+            Comparator.<BigInteger>naturalOrder());
+    
+    private static final Comparator<Match> BY_KEY = Comparator
+            .<Match, String>comparing(match -> match.key)
+            .thenComparing(match -> match.user.getId(), IDS);
+    
+    private static final Comparator<Match> BY_SCORE = Comparator
+            .<Match>comparingDouble(match -> -match.score)
+            .thenComparing(match -> match.user.getId(), IDS);
+    
+    private UserSearchSupport() {
+    }
+    
+    /**
+     * Validates the arguments of a search.
+     */
+    static void checkSearch(UserSearchField field, String text, SearchMode mode
+            , int limit) {
+        if (field == null || text == null || mode == null) {
+            throw new IllegalArgumentException("The field, text and mode cannot be null.");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The limit must be positive.");
+        }
+    }
+    
+    /**
+     * Returns the best {@code limit} matches among the given Users.
+     */
+    static List<IUser> search(Iterator<IUser> users, UserSearchField field
+            , String text, SearchMode mode, int limit) {
+        checkSearch(field, text, mode, limit);
+        Comparator<Match> order = mode == SearchMode.FUZZY ? BY_SCORE : BY_KEY;
+        PriorityQueue<Match> best = new PriorityQueue<>(Math.min(limit, 1024) + 1
+                , order.reversed());
+        String lowerText = text.toLowerCase(Locale.ROOT);
+        long[] textTrigrams = mode == SearchMode.FUZZY ? Trigrams.of(text) : null;
+        while (users.hasNext()) {
+            IUser user = users.next();
+            String value = user == null ? null : field.valueOf(user);
+            if (value == null) {
+                continue;
+            }
+            String lowerValue = value.toLowerCase(Locale.ROOT);
+            Match match = null;
+            if (mode == SearchMode.FUZZY) {
+                double score = Trigrams.similarity(textTrigrams, Trigrams.of(value));
+                if (score >= Trigrams.DEFAULT_THRESHOLD) {
+                    match = new Match(user, lowerValue, score);
+                }
+            } else if (mode == SearchMode.PREFIX ? value.startsWith(text)
+                    : lowerValue.startsWith(lowerText)) {
+                match = new Match(user, lowerValue, 1.0);
+            }
+            if (match != null) {
+                best.add(match);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+        List<Match> matches = new ArrayList<>(best);
+        Collections.sort(matches, order);
+        List<IUser> result = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            result.add(match.user);
+        }
+        return result;
+    }
+}
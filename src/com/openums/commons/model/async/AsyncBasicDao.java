@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.async;
+
+import com.openums.commons.model.BatchResult;
+import com.openums.commons.model.IBasicDao;
+import com.openums.commons.model.ModelException;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Adapter exposing a blocking {@code IBasicDao} through the
+ * {@code IAsyncBasicDao} interface. Every call is submitted to an
+ * {@code Executor}, which runs the blocking method and completes the returned
+ * future with its result or, exceptionally, with the {@code ModelException}
+ * or unchecked exception it raised. A rejected submission also completes the
+ * future exceptionally.
+ * <p/>
+ * The adapter adds no synchronization of its own: the decorated DAO must be
+ * safe to call from several threads at once.
+ * 
+ * @param <T> The class managed by this DAO.
+ * @param <D> The class of the decorated DAO.
+ * @author Delcio Amarillo
+ * @see AsyncExecutors
+ */
+public abstract class AsyncBasicDao<T, D extends IBasicDao<T>>
+        implements IAsyncBasicDao<T> {
+    
+    /**
+     * Blocking call to the decorated DAO.
+     * 
+     * @param <R> The class of the call's result.
+     */
+    @FunctionalInterface
+    protected interface ICall<R> {
+        R call() throws ModelException;
+    }
+    
+    private final D delegate;
+    private final Executor executor;
+    
+    /**
+     * Creates a new {@code AsyncBasicDao}.
+     * 
+     * @param delegate The decorated DAO.
+     * 
+     * @param executor The executor running the blocking calls.
+     */
+    protected AsyncBasicDao(D delegate, Executor executor) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("The delegate cannot be null.");
+        }
+        if (executor == null) {
+            throw new IllegalArgumentException("The executor cannot be null.");
+        }
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+    
+    /**
+     * Returns the decorated DAO.
+     * 
+     * @return The decorated DAO.
+     */
+    protected D getDelegate() {
+        return delegate;
+    }
+    
+    /**
+     * Returns the executor running the blocking calls.
+     * 
+     * @return The executor.
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+    
+    /**
+     * Submits a blocking call to the executor.
+     * 
+     * @param <R> The class of the call's result.
+     * 
+     * @param call The blocking call.
+     * 
+     * @return A future completed with the call's outcome.
+     */
+    protected <R> CompletableFuture<R> submit(ICall<R> call) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(call.call());
+                } catch (ModelException | RuntimeException | Error ex) {
+                    future.completeExceptionally(ex);
+                }
+            });
+        } catch (RuntimeException ex) {
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+    
+    @Override
+    public CompletableFuture<T> insertAsync(T dataObject) {
+        return submit(() -> delegate.insert(dataObject));
+    }
+    
+    @Override
+    public CompletableFuture<T> updateAsync(T dataObject) {
+        return submit(() -> delegate.update(dataObject));
+    }
+    
+    @Override
+    public CompletableFuture<T> compareAndUpdateAsync(T dataObject) {
+        return submit(() -> delegate.compareAndUpdate(dataObject));
+    }
+    
+    @Override
+    public CompletableFuture<Boolean> deleteAsync(T dataObject) {
+        return submit(() -> delegate.delete(dataObject));
+    }
+    
+    @Override
+    public CompletableFuture<T> getUniqueAsync(BigInteger dataObjectId) {
+        return submit(() -> delegate.getUnique(dataObjectId));
+    }
+    
+    @Override
+    public CompletableFuture<T> getUniqueAsync(long dataObjectId) {
+        return submit(() -> delegate.getUnique(dataObjectId));
+    }
+    
+    @Override
+    public CompletableFuture<List<T>> getAllAsync() {
+        return submit(delegate::getAll);
+    }
+    
+    @Override
+    public CompletableFuture<Map<BigInteger, T>> getUniqueAllAsync(
+            Collection<BigInteger> dataObjectIds) {
+        return submit(() -> delegate.getUniqueAll(dataObjectIds));
+    }
+    
+    @Override
+    public CompletableFuture<List<T>> getPageAsync(int offset, int limit) {
+        return submit(() -> delegate.getPage(offset, limit));
+    }
+    
+    @Override
+    public CompletableFuture<List<T>> getPageAfterAsync(BigInteger lastId
+            , int limit) {
+        return submit(() -> delegate.getPageAfter(lastId, limit));
+    }
+    
+    @Override
+    public CompletableFuture<BatchResult<T>> insertAllAsync(
+            Collection<? extends T> dataObjects, int batchSize) {
+        return submit(() -> delegate.insertAll(dataObjects, batchSize));
+    }
+    
+    @Override
+    public CompletableFuture<BatchResult<T>> updateAllAsync(
+            Collection<? extends T> dataObjects, int batchSize) {
+        return submit(() -> delegate.updateAll(dataObjects, batchSize));
+    }
+    
+    @Override
+    public CompletableFuture<BatchResult<Boolean>> deleteAllAsync(
+            Collection<? extends T> dataObjects, int batchSize) {
+        return submit(() -> delegate.deleteAll(dataObjects, batchSize));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.async;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory of the executors that run the blocking DAO calls behind the
+ * asynchronous adapters.
+ * <p/>
+ * On Java 21 or later the default executor starts a virtual thread per call,
+ * so a blocked lookup only parks a virtual thread and any number of lookups
+ * can be in flight at once. On older runtimes it falls back to an unbounded
+ * pool of daemon platform threads.
+ * 
+ * @author Delcio Amarillo
+ */
+public final class AsyncExecutors {
+    
+    private static final class DefaultHolder {
+        private static final ExecutorService EXECUTOR = newExecutor();
+    }
+    
+    private AsyncExecutors() {
+    }
+    
+    /**
+     * Returns the executor shared by the adapters that are not given an
+     * explicit one. It is created on first use and never shut down.
+     * 
+     * @return The shared executor.
+     */
+    public static ExecutorService getDefaultExecutor() {
+        return DefaultHolder.EXECUTOR;
+    }
+    
+    /**
+     * Creates a new executor that starts a virtual thread per task when the
+     * runtime supports it, or an unbounded pool of daemon threads otherwise.
+     * 
+     * @return A new {@code ExecutorService}. The caller is responsible for
+     * shutting it down.
+     */
+    public static ExecutorService newExecutor() {
+        ExecutorService executor = newVirtualThreadExecutor();
+        return executor != null ? executor
+                : Executors.newCachedThreadPool(new DaemonThreadFactory("openums-async-dao-"));
+    }
+    
+    /**
+     * Creates a new executor running the tasks on at most a given number of
+     * daemon platform threads. Tasks submitted while every thread is busy
+     * wait in an unbounded queue, and idle threads end after a minute.
+     * 
+     * @param threads The maximum number of threads. Must be positive.
+     * 
+     * @param threadNamePrefix The prefix of the names of the threads.
+     * 
+     * @return A new {@code ExecutorService}. The caller is responsible for
+     * shutting it down.
+     */
+    public static ExecutorService newBoundedExecutor(int threads, String threadNamePrefix) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 1
+                , TimeUnit.MINUTES, new LinkedBlockingQueue<>()
+                , new DaemonThreadFactory(threadNamePrefix));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+    
+    /**
+     * Returns whether the runtime supports virtual threads.
+     * 
+     * @return {@code true} on Java 21 or later.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return findVirtualThreadFactoryMethod() != null;
+    }
+    
+    private static ExecutorService newVirtualThreadExecutor() {
+        Method factory = findVirtualThreadFactoryMethod();
+        if (factory == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return null;
+        }
+    }
+    
+    private static Method findVirtualThreadFactoryMethod() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException ex) {
+            return null;
+        }
+    }
+    
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+        
+        private DaemonThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+        
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
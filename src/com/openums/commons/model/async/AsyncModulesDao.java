@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.async;
+
+import com.openums.commons.domain.IModule;
+import com.openums.commons.model.IModulesDao;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Adapter exposing a blocking {@code IModulesDao} through the
+ * {@code IAsyncModulesDao} interface.
+ * 
+ * @author Delcio Amarillo
+ * @see AsyncBasicDao
+ */
+public class AsyncModulesDao extends AsyncBasicDao<IModule, IModulesDao>
+        implements IAsyncModulesDao {
+    
+    /**
+     * Creates a new {@code AsyncModulesDao} running the blocking calls on
+     * {@link AsyncExecutors#getDefaultExecutor()}.
+     * 
+     * @param delegate The decorated DAO.
+     */
+    public AsyncModulesDao(IModulesDao delegate) {
+        this(delegate, AsyncExecutors.getDefaultExecutor());
+    }
+    
+    /**
+     * Creates a new {@code AsyncModulesDao}.
+     * 
+     * @param delegate The decorated DAO.
+     * 
+     * @param executor The executor running the blocking calls.
+     */
+    public AsyncModulesDao(IModulesDao delegate, Executor executor) {
+        super(delegate, executor);
+    }
+    
+    @Override
+    public CompletableFuture<IModule> getModuleByCodeAsync(String code) {
+        return submit(() -> getDelegate().getModuleByCode(code));
+    }
+    
+    @Override
+    public CompletableFuture<Map<String, IModule>> getModulesByCodesAsync(
+            Collection<String> codes) {
+        return submit(() -> getDelegate().getModulesByCodes(codes));
+    }
+}
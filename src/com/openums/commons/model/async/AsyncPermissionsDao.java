@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.async;
+
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.IPermission;
+import com.openums.commons.domain.PermissionSummary;
+import com.openums.commons.model.IPermissionsDao;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Adapter exposing a blocking {@code IPermissionsDao} through the
+ * {@code IAsyncPermissionsDao} interface.
+ * 
+ * @author Delcio Amarillo
+ * @see AsyncBasicDao
+ */
+public class AsyncPermissionsDao extends AsyncBasicDao<IPermission, IPermissionsDao>
+        implements IAsyncPermissionsDao {
+    
+    /**
+     * Creates a new {@code AsyncPermissionsDao} running the blocking calls on
+     * {@link AsyncExecutors#getDefaultExecutor()}.
+     * 
+     * @param delegate The decorated DAO.
+     */
+    public AsyncPermissionsDao(IPermissionsDao delegate) {
+        this(delegate, AsyncExecutors.getDefaultExecutor());
+    }
+    
+    /**
+     * Creates a new {@code AsyncPermissionsDao}.
+     * 
+     * @param delegate The decorated DAO.
+     * 
+     * @param executor The executor running the blocking calls.
+     */
+    public AsyncPermissionsDao(IPermissionsDao delegate, Executor executor) {
+        super(delegate, executor);
+    }
+    
+    @Override
+    public CompletableFuture<IPermission> getPermissionByCodeAsync(String code) {
+        return submit(() -> getDelegate().getPermissionByCode(code));
+    }
+    
+    @Override
+    public CompletableFuture<Map<String, IPermission>> getPermissionsByCodesAsync(
+            Collection<String> codes) {
+        return submit(() -> getDelegate().getPermissionsByCodes(codes));
+    }
+    
+    @Override
+    public CompletableFuture<List<IPermission>> getPermissionsByModuleAsync(
+            BigInteger idModule) {
+        return submit(() -> getDelegate().getPermissionsByModule(idModule));
+    }
+    
+    @Override
+    public CompletableFuture<List<IPermission>> getPermissionsByModuleAsync(
+            IModule module) {
+        return submit(() -> getDelegate().getPermissionsByModule(module));
+    }
+    
+    @Override
+    public CompletableFuture<List<IPermission>> getPermissionsByModuleAsync(
+            long idModule) {
+        return submit(() -> getDelegate().getPermissionsByModule(idModule));
+    }
+    
+    @Override
+    public CompletableFuture<List<PermissionSummary>> getPermissionSummariesAsync() {
+        return submit(() -> getDelegate().getPermissionSummaries());
+    }
+    
+    @Override
+    public CompletableFuture<List<PermissionSummary>> getPermissionSummariesByModuleAsync(
+            BigInteger idModule) {
+        return submit(() -> getDelegate().getPermissionSummariesByModule(idModule));
+    }
+}
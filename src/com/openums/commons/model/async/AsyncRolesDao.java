@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.async;
+
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.RoleSummary;
+import com.openums.commons.model.IRolesDao;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Adapter exposing a blocking {@code IRolesDao} through the
+ * {@code IAsyncRolesDao} interface.
+ * 
+ * @author Delcio Amarillo
+ * @see AsyncBasicDao
+ */
+public class AsyncRolesDao extends AsyncBasicDao<IRole, IRolesDao>
+        implements IAsyncRolesDao {
+    
+    /**
+     * Creates a new {@code AsyncRolesDao} running the blocking calls on
+     * {@link AsyncExecutors#getDefaultExecutor()}.
+     * 
+     * @param delegate The decorated DAO.
+     */
+    public AsyncRolesDao(IRolesDao delegate) {
+        this(delegate, AsyncExecutors.getDefaultExecutor());
+    }
+    
+    /**
+     * Creates a new {@code AsyncRolesDao}.
+     * 
+     * @param delegate The decorated DAO.
+     * 
+     * @param executor The executor running the blocking calls.
+     */
+    public AsyncRolesDao(IRolesDao delegate, Executor executor) {
+        super(delegate, executor);
+    }
+    
+    @Override
+    public CompletableFuture<IRole> getRoleByCodeAsync(String code) {
+        return submit(() -> getDelegate().getRoleByCode(code));
+    }
+    
+    @Override
+    public CompletableFuture<Map<String, IRole>> getRolesByCodesAsync(
+            Collection<String> codes) {
+        return submit(() -> getDelegate().getRolesByCodes(codes));
+    }
+    
+    @Override
+    public CompletableFuture<List<IRole>> getRolesByModuleAsync(BigInteger idModule) {
+        return submit(() -> getDelegate().getRolesByModule(idModule));
+    }
+    
+    @Override
+    public CompletableFuture<List<IRole>> getRolesByModuleAsync(IModule module) {
+        return submit(() -> getDelegate().getRolesByModule(module));
+    }
+    
+    @Override
+    public CompletableFuture<List<IRole>> getRolesByModuleAsync(long idModule) {
+        return submit(() -> getDelegate().getRolesByModule(idModule));
+    }
+    
+    @Override
+    public CompletableFuture<List<IRole>> getRolesByPermissionAsync(
+            String permissionCode) {
+        return submit(() -> getDelegate().getRolesByPermission(permissionCode));
+    }
+    
+    @Override
+    public CompletableFuture<List<IRole>> getParentRolesAsync(BigInteger roleId) {
+        return submit(() -> getDelegate().getParentRoles(roleId));
+    }
+    
+    @Override
+    public CompletableFuture<List<IRole>> getAncestorRolesAsync(BigInteger roleId) {
+        return submit(() -> getDelegate().getAncestorRoles(roleId));
+    }
+    
+    @Override
+    public CompletableFuture<List<IRole>> getDescendantRolesAsync(BigInteger roleId) {
+        return submit(() -> getDelegate().getDescendantRoles(roleId));
+    }
+    
+    @Override
+    public CompletableFuture<List<RoleSummary>> getRoleSummariesAsync() {
+        return submit(() -> getDelegate().getRoleSummaries());
+    }
+    
+    @Override
+    public CompletableFuture<List<RoleSummary>> getRoleSummariesByModuleAsync(
+            BigInteger idModule) {
+        return submit(() -> getDelegate().getRoleSummariesByModule(idModule));
+    }
+}
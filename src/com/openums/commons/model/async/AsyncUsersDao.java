@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.async;
+
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.UserSummary;
+import com.openums.commons.model.IUsersDao;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Adapter exposing a blocking {@code IUsersDao} through the
+ * {@code IAsyncUsersDao} interface.
+ * 
+ * @author Delcio Amarillo
+ * @see AsyncBasicDao
+ */
+public class AsyncUsersDao extends AsyncBasicDao<IUser, IUsersDao>
+        implements IAsyncUsersDao {
+    
+    /**
+     * Creates a new {@code AsyncUsersDao} running the blocking calls on
+     * {@link AsyncExecutors#getDefaultExecutor()}.
+     * 
+     * @param delegate The decorated DAO.
+     */
+    public AsyncUsersDao(IUsersDao delegate) {
+        this(delegate, AsyncExecutors.getDefaultExecutor());
+    }
+    
+    /**
+     * Creates a new {@code AsyncUsersDao}.
+     * 
+     * @param delegate The decorated DAO.
+     * 
+     * @param executor The executor running the blocking calls.
+     */
+    public AsyncUsersDao(IUsersDao delegate, Executor executor) {
+        super(delegate, executor);
+    }
+    
+    @Override
+    public CompletableFuture<IUser> getUserByNameAsync(String userName) {
+        return submit(() -> getDelegate().getUserByName(userName));
+    }
+    
+    @Override
+    public CompletableFuture<Map<String, IUser>> getUsersByNamesAsync(
+            Collection<String> userNames) {
+        return submit(() -> getDelegate().getUsersByNames(userNames));
+    }
+    
+    @Override
+    public CompletableFuture<List<IUser>> getActiveUsersAsync() {
+        return submit(getDelegate()::getActiveUsers);
+    }
+    
+    @Override
+    public CompletableFuture<List<IUser>> getInactiveUsersAsync() {
+        return submit(getDelegate()::getInactiveUsers);
+    }
+    
+    @Override
+    public CompletableFuture<List<IUser>> getLockedUsersAsync() {
+        return submit(getDelegate()::getLockedUsers);
+    }
+    
+    @Override
+    public CompletableFuture<List<IUser>> getUnlockedUsersAsync() {
+        return submit(getDelegate()::getUnlockedUsers);
+    }
+    
+    @Override
+    public CompletableFuture<List<IUser>> getActiveUsersAsync(int offset
+            , int limit) {
+        return submit(() -> getDelegate().getActiveUsers(offset, limit));
+    }
+    
+    @Override
+    public CompletableFuture<List<IUser>> getInactiveUsersAsync(int offset
+            , int limit) {
+        return submit(() -> getDelegate().getInactiveUsers(offset, limit));
+    }
+    
+    @Override
+    public CompletableFuture<List<IUser>> getLockedUsersAsync(int offset
+            , int limit) {
+        return submit(() -> getDelegate().getLockedUsers(offset, limit));
+    }
+    
+    @Override
+    public CompletableFuture<List<IUser>> getUnlockedUsersAsync(int offset
+            , int limit) {
+        return submit(() -> getDelegate().getUnlockedUsers(offset, limit));
+    }
+    
+    @Override
+    public CompletableFuture<List<IUser>> getUsersByRoleAsync(BigInteger idRole) {
+        return submit(() -> getDelegate().getUsersByRole(idRole));
+    }
+    
+    @Override
+    public CompletableFuture<List<IUser>> getUsersByRoleAsync(IRole role) {
+        return submit(() -> getDelegate().getUsersByRole(role));
+    }
+    
+    @Override
+    public CompletableFuture<List<IUser>> getUsersByRoleAsync(long idRole) {
+        return submit(() -> getDelegate().getUsersByRole(idRole));
+    }
+    
+    @Override
+    public CompletableFuture<List<IUser>> getUsersByRoleAsync(BigInteger idRole
+            , int offset, int limit) {
+        return submit(() -> getDelegate().getUsersByRole(idRole, offset, limit));
+    }
+    
+    @Override
+    public CompletableFuture<List<IUser>> getUsersByPermissionAsync(
+            String permissionCode) {
+        return submit(() -> getDelegate().getUsersByPermission(permissionCode));
+    }
+    
+    @Override
+    public CompletableFuture<List<UserSummary>> getUserSummariesAsync(int offset
+            , int limit) {
+        return submit(() -> getDelegate().getUserSummaries(offset, limit));
+    }
+    
+    @Override
+    public CompletableFuture<List<UserSummary>> getActiveUserSummariesAsync(
+            int offset, int limit) {
+        return submit(() -> getDelegate().getActiveUserSummaries(offset, limit));
+    }
+    
+    @Override
+    public CompletableFuture<List<UserSummary>> getUserSummariesByRoleAsync(
+            BigInteger idRole, int offset, int limit) {
+        return submit(() -> getDelegate().getUserSummariesByRole(idRole, offset, limit));
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.async;
+
+import com.openums.commons.model.BatchResult;
+import com.openums.commons.model.IBasicDao;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous counterpart of {@code IBasicDao}. Every method returns
+ * immediately with a {@code CompletableFuture} that completes with the result
+ * of the equivalent blocking method. A {@code ModelException} raised while
+ * processing the request completes the future exceptionally with that same
+ * exception; dependent stages see it wrapped in a
+ * {@code CompletionException}.
+ * <p/>
+ * Independent lookups can thus be started together and combined, i.e.:
+ * through {@code CompletableFuture.allOf}, instead of being performed one
+ * after another.
+ * 
+ * @param <T> The class managed by this interface.
+ * @author Delcio Amarillo
+ * @see IBasicDao
+ */
+public interface IAsyncBasicDao<T> {
+    
+    /**
+     * Asynchronous counterpart of {@link IBasicDao#insert(Object)}.
+     * 
+     * @param dataObject The new data object.
+     * 
+     * @return A future completed with the inserted {@code T} object.
+     */
+    public CompletableFuture<T> insertAsync(T dataObject);
+    
+    /**
+     * Asynchronous counterpart of {@link IBasicDao#update(Object)}.
+     * 
+     * @param dataObject The data object to be modified.
+     * 
+     * @return A future completed with the updated {@code T} object.
+     */
+    public CompletableFuture<T> updateAsync(T dataObject);
+    
+    /**
+     * Asynchronous counterpart of {@link IBasicDao#compareAndUpdate(Object)}.
+     * 
+     * @param dataObject The data object to be modified.
+     * 
+     * @return A future completed with the updated {@code T} object, or
+     * completed exceptionally with a {@code VERSION_CONFLICT_EXCEPTION} if
+     * the data object is stale.
+     */
+    public CompletableFuture<T> compareAndUpdateAsync(T dataObject);
+    
+    /**
+     * Asynchronous counterpart of {@link IBasicDao#delete(Object)}.
+     * 
+     * @param dataObject The data object to be removed.
+     * 
+     * @return A future completed with {@code true} if the data object was
+     * removed, {@code false} otherwise.
+     */
+    public CompletableFuture<Boolean> deleteAsync(T dataObject);
+    
+    /**
+     * Asynchronous counterpart of {@link IBasicDao#getUnique(BigInteger)}.
+     * 
+     * @param dataObjectId The data object's primary key.
+     * 
+     * @return A future completed with the matching {@code T} object or
+     * {@code null} if there's no match.
+     */
+    public CompletableFuture<T> getUniqueAsync(BigInteger dataObjectId);
+    
+    /**
+     * Asynchronous counterpart of {@link IBasicDao#getUnique(long)}.
+     * 
+     * @param dataObjectId The data object's primary key.
+     * 
+     * @return A future completed with the matching {@code T} object or
+     * {@code null} if there's no match.
+     */
+    public CompletableFuture<T> getUniqueAsync(long dataObjectId);
+    
+    /**
+     * Asynchronous counterpart of {@link IBasicDao#getAll()}.
+     * 
+     * @return A future completed with a list of {@code T} objects.
+     */
+    public CompletableFuture<List<T>> getAllAsync();
+    
+    /**
+     * Asynchronous counterpart of {@link IBasicDao#getUniqueAll(Collection)}.
+     * 
+     * @param dataObjectIds The data objects' primary keys.
+     * 
+     * @return A future completed with a map from primary key to {@code T}
+     * object.
+     */
+    public CompletableFuture<Map<BigInteger, T>> getUniqueAllAsync(
+            Collection<BigInteger> dataObjectIds);
+    
+    /**
+     * Asynchronous counterpart of {@link IBasicDao#getPage(int, int)}.
+     * 
+     * @param offset The number of objects to skip.
+     * 
+     * @param limit The maximum number of objects to return.
+     * 
+     * @return A future completed with a page of {@code T} objects.
+     */
+    public CompletableFuture<List<T>> getPageAsync(int offset, int limit);
+    
+    /**
+     * Asynchronous counterpart of
+     * {@link IBasicDao#getPageAfter(BigInteger, int)}.
+     * 
+     * @param lastId The primary key of the last object already processed or
+     * {@code null} to start from the beginning.
+     * 
+     * @param limit The maximum number of objects to return.
+     * 
+     * @return A future completed with a page of {@code T} objects.
+     */
+    public CompletableFuture<List<T>> getPageAfterAsync(BigInteger lastId
+            , int limit);
+    
+    /**
+     * Asynchronous counterpart of
+     * {@link IBasicDao#insertAll(Collection, int)}.
+     * 
+     * @param dataObjects The new data objects.
+     * 
+     * @param batchSize The maximum number of objects sent per round trip.
+     * 
+     * @return A future completed with the per-item results.
+     */
+    public CompletableFuture<BatchResult<T>> insertAllAsync(
+            Collection<? extends T> dataObjects, int batchSize);
+    
+    /**
+     * Asynchronous counterpart of
+     * {@link IBasicDao#updateAll(Collection, int)}.
+     * 
+     * @param dataObjects The data objects to be modified.
+     * 
+     * @param batchSize The maximum number of objects sent per round trip.
+     * 
+     * @return A future completed with the per-item results.
+     */
+    public CompletableFuture<BatchResult<T>> updateAllAsync(
+            Collection<? extends T> dataObjects, int batchSize);
+    
+    /**
+     * Asynchronous counterpart of
+     * {@link IBasicDao#deleteAll(Collection, int)}.
+     * 
+     * @param dataObjects The data objects to be removed.
+     * 
+     * @param batchSize The maximum number of objects sent per round trip.
+     * 
+     * @return A future completed with the per-item results.
+     */
+    public CompletableFuture<BatchResult<Boolean>> deleteAllAsync(
+            Collection<? extends T> dataObjects, int batchSize);
+    
+}
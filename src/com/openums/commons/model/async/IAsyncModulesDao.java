@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.async;
+
+import com.openums.commons.domain.IModule;
+import com.openums.commons.model.IModulesDao;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous counterpart of {@code IModulesDao}.
+ * 
+ * @author Delcio Amarillo
+ * @see IAsyncBasicDao
+ */
+public interface IAsyncModulesDao extends IAsyncBasicDao<IModule> {
+    
+    /**
+     * Asynchronous counterpart of {@link IModulesDao#getModuleByCode(String)}.
+     * 
+     * @param code The Module's code.
+     * 
+     * @return A future completed with the matching {@code IModule} object or
+     * {@code null}.
+     */
+    public CompletableFuture<IModule> getModuleByCodeAsync(String code);
+    
+    /**
+     * Asynchronous counterpart of
+     * {@link IModulesDao#getModulesByCodes(Collection)}.
+     * 
+     * @param codes The Modules' codes.
+     * 
+     * @return A future completed with a map from code to {@code IModule}
+     * object.
+     */
+    public CompletableFuture<Map<String, IModule>> getModulesByCodesAsync(
+            Collection<String> codes);
+    
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.async;
+
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.IPermission;
+import com.openums.commons.domain.PermissionSummary;
+import com.openums.commons.model.IPermissionsDao;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous counterpart of {@code IPermissionsDao}.
+ * 
+ * @author Delcio Amarillo
+ * @see IAsyncBasicDao
+ */
+public interface IAsyncPermissionsDao extends IAsyncBasicDao<IPermission> {
+    
+    /**
+     * Asynchronous counterpart of
+     * {@link IPermissionsDao#getPermissionByCode(String)}.
+     * 
+     * @param code The Permission's code.
+     * 
+     * @return A future completed with the matching {@code IPermission} object
+     * or {@code null}.
+     */
+    public CompletableFuture<IPermission> getPermissionByCodeAsync(String code);
+    
+    /**
+     * Asynchronous counterpart of
+     * {@link IPermissionsDao#getPermissionsByCodes(Collection)}.
+     * 
+     * @param codes The Permissions' codes.
+     * 
+     * @return A future completed with a map from code to {@code IPermission}
+     * object.
+     */
+    public CompletableFuture<Map<String, IPermission>> getPermissionsByCodesAsync(
+            Collection<String> codes);
+    
+    /**
+     * Asynchronous counterpart of
+     * {@link IPermissionsDao#getPermissionsByModule(BigInteger)}.
+     * 
+     * @param idModule The Module's primary key.
+     * 
+     * @return A future completed with a list of {@code IPermission} objects.
+     */
+    public CompletableFuture<List<IPermission>> getPermissionsByModuleAsync(
+            BigInteger idModule);
+    
+    /**
+     * Asynchronous counterpart of
+     * {@link IPermissionsDao#getPermissionsByModule(IModule)}.
+     * 
+     * @param module The Module.
+     * 
+     * @return A future completed with a list of {@code IPermission} objects.
+     */
+    public CompletableFuture<List<IPermission>> getPermissionsByModuleAsync(
+            IModule module);
+    
+    /**
+     * Asynchronous counterpart of
+     * {@link IPermissionsDao#getPermissionsByModule(long)}.
+     * 
+     * @param idModule The Module's primary key.
+     * 
+     * @return A future completed with a list of {@code IPermission} objects.
+     */
+    public CompletableFuture<List<IPermission>> getPermissionsByModuleAsync(
+            long idModule);
+    
+    /**
+     * Asynchronous counterpart of
+     * {@link IPermissionsDao#getPermissionSummaries()}.
+     * 
+     * @return A future completed with a list of {@code PermissionSummary}
+     * objects.
+     */
+    public CompletableFuture<List<PermissionSummary>> getPermissionSummariesAsync();
+    
+    /**
+     * Asynchronous counterpart of
+     * {@link IPermissionsDao#getPermissionSummariesByModule(BigInteger)}.
+     * 
+     * @param idModule The Module's primary key.
+     * 
+     * @return A future completed with a list of {@code PermissionSummary}
+     * objects.
+     */
+    public CompletableFuture<List<PermissionSummary>> getPermissionSummariesByModuleAsync(
+            BigInteger idModule);
+    
+}
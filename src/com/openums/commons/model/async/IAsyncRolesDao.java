@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.async;
+
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.RoleSummary;
+import com.openums.commons.model.IRolesDao;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous counterpart of {@code IRolesDao}.
+ * 
+ * @author Delcio Amarillo
+ * @see IAsyncBasicDao
+ */
+public interface IAsyncRolesDao extends IAsyncBasicDao<IRole> {
+    
+    /**
+     * Asynchronous counterpart of {@link IRolesDao#getRoleByCode(String)}.
+     * 
+     * @param code The Role's code.
+     * 
+     * @return A future completed with the matching {@code IRole} object or
+     * {@code null}.
+     */
+    public CompletableFuture<IRole> getRoleByCodeAsync(String code);
+    
+    /**
+     * Asynchronous counterpart of {@link IRolesDao#getRolesByCodes(Collection)}.
+     * 
+     * @param codes The Roles' codes.
+     * 
+     * @return A future completed with a map from code to {@code IRole} object.
+     */
+    public CompletableFuture<Map<String, IRole>> getRolesByCodesAsync(
+            Collection<String> codes);
+    
+    /**
+     * Asynchronous counterpart of {@link IRolesDao#getRolesByModule(BigInteger)}.
+     * 
+     * @param idModule The Module's primary key.
+     * 
+     * @return A future completed with a list of {@code IRole} objects.
+     */
+    public CompletableFuture<List<IRole>> getRolesByModuleAsync(BigInteger idModule);
+    
+    /**
+     * Asynchronous counterpart of {@link IRolesDao#getRolesByModule(IModule)}.
+     * 
+     * @param module The Module.
+     * 
+     * @return A future completed with a list of {@code IRole} objects.
+     */
+    public CompletableFuture<List<IRole>> getRolesByModuleAsync(IModule module);
+    
+    /**
+     * Asynchronous counterpart of {@link IRolesDao#getRolesByModule(long)}.
+     * 
+     * @param idModule The Module's primary key.
+     * 
+     * @return A future completed with a list of {@code IRole} objects.
+     */
+    public CompletableFuture<List<IRole>> getRolesByModuleAsync(long idModule);
+    
+    /**
+     * Asynchronous counterpart of
+     * {@link IRolesDao#getRolesByPermission(String)}.
+     * 
+     * @param permissionCode The Permission's code.
+     * 
+     * @return A future completed with a list of {@code IRole} objects.
+     */
+    public CompletableFuture<List<IRole>> getRolesByPermissionAsync(
+            String permissionCode);
+    
+    /**
+     * Asynchronous counterpart of
+     * {@link IRolesDao#getParentRoles(BigInteger)}.
+     * 
+     * @param roleId The Role's primary key.
+     * 
+     * @return A future completed with a list of {@code IRole} objects.
+     */
+    public CompletableFuture<List<IRole>> getParentRolesAsync(BigInteger roleId);
+    
+    /**
+     * Asynchronous counterpart of
+     * {@link IRolesDao#getAncestorRoles(BigInteger)}.
+     * 
+     * @param roleId The Role's primary key.
+     * 
+     * @return A future completed with a list of {@code IRole} objects.
+     */
+    public CompletableFuture<List<IRole>> getAncestorRolesAsync(BigInteger roleId);
+    
+    /**
+     * Asynchronous counterpart of
+     * {@link IRolesDao#getDescendantRoles(BigInteger)}.
+     * 
+     * @param roleId The Role's primary key.
+     * 
+     * @return A future completed with a list of {@code IRole} objects.
+     */
+    public CompletableFuture<List<IRole>> getDescendantRolesAsync(BigInteger roleId);
+    
+    /**
+     * Asynchronous counterpart of {@link IRolesDao#getRoleSummaries()}.
+     * 
+     * @return A future completed with a list of {@code RoleSummary} objects.
+     */
+    public CompletableFuture<List<RoleSummary>> getRoleSummariesAsync();
+    
+    /**
+     * Asynchronous counterpart of
+     * {@link IRolesDao#getRoleSummariesByModule(BigInteger)}.
+     * 
+     * @param idModule The Module's primary key.
+     * 
+     * @return A future completed with a list of {@code RoleSummary} objects.
+     */
+    public CompletableFuture<List<RoleSummary>> getRoleSummariesByModuleAsync(
+            BigInteger idModule);
+    
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.async;
+
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.UserSummary;
+import com.openums.commons.model.IUsersDao;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous counterpart of {@code IUsersDao}.
+ * 
+ * @author Delcio Amarillo
+ * @see IAsyncBasicDao
+ */
+public interface IAsyncUsersDao extends IAsyncBasicDao<IUser> {
+    
+    /**
+     * Asynchronous counterpart of {@link IUsersDao#getUserByName(String)}.
+     * 
+     * @param userName The User's user name.
+     * 
+     * @return A future completed with the matching {@code IUser} object or
+     * {@code null}.
+     */
+    public CompletableFuture<IUser> getUserByNameAsync(String userName);
+    
+    /**
+     * Asynchronous counterpart of {@link IUsersDao#getUsersByNames(Collection)}.
+     * 
+     * @param userNames The Users' user names.
+     * 
+     * @return A future completed with a map from user name to {@code IUser}
+     * object.
+     */
+    public CompletableFuture<Map<String, IUser>> getUsersByNamesAsync(
+            Collection<String> userNames);
+    
+    /**
+     * Asynchronous counterpart of {@link IUsersDao#getActiveUsers()}.
+     * 
+     * @return A future completed with a list of {@code IUser} objects.
+     */
+    public CompletableFuture<List<IUser>> getActiveUsersAsync();
+    
+    /**
+     * Asynchronous counterpart of {@link IUsersDao#getInactiveUsers()}.
+     * 
+     * @return A future completed with a list of {@code IUser} objects.
+     */
+    public CompletableFuture<List<IUser>> getInactiveUsersAsync();
+    
+    /**
+     * Asynchronous counterpart of {@link IUsersDao#getLockedUsers()}.
+     * 
+     * @return A future completed with a list of {@code IUser} objects.
+     */
+    public CompletableFuture<List<IUser>> getLockedUsersAsync();
+    
+    /**
+     * Asynchronous counterpart of {@link IUsersDao#getUnlockedUsers()}.
+     * 
+     * @return A future completed with a list of {@code IUser} objects.
+     */
+    public CompletableFuture<List<IUser>> getUnlockedUsersAsync();
+    
+    /**
+     * Asynchronous counterpart of {@link IUsersDao#getActiveUsers(int, int)}.
+     * 
+     * @param offset The number of Users to skip.
+     * 
+     * @param limit The maximum number of Users to return.
+     * 
+     * @return A future completed with a page of {@code IUser} objects.
+     */
+    public CompletableFuture<List<IUser>> getActiveUsersAsync(int offset
+            , int limit);
+    
+    /**
+     * Asynchronous counterpart of {@link IUsersDao#getInactiveUsers(int, int)}.
+     * 
+     * @param offset The number of Users to skip.
+     * 
+     * @param limit The maximum number of Users to return.
+     * 
+     * @return A future completed with a page of {@code IUser} objects.
+     */
+    public CompletableFuture<List<IUser>> getInactiveUsersAsync(int offset
+            , int limit);
+    
+    /**
+     * Asynchronous counterpart of {@link IUsersDao#getLockedUsers(int, int)}.
+     * 
+     * @param offset The number of Users to skip.
+     * 
+     * @param limit The maximum number of Users to return.
+     * 
+     * @return A future completed with a page of {@code IUser} objects.
+     */
+    public CompletableFuture<List<IUser>> getLockedUsersAsync(int offset
+            , int limit);
+    
+    /**
+     * Asynchronous counterpart of {@link IUsersDao#getUnlockedUsers(int, int)}.
+     * 
+     * @param offset The number of Users to skip.
+     * 
+     * @param limit The maximum number of Users to return.
+     * 
+     * @return A future completed with a page of {@code IUser} objects.
+     */
+    public CompletableFuture<List<IUser>> getUnlockedUsersAsync(int offset
+            , int limit);
+    
+    /**
+     * Asynchronous counterpart of {@link IUsersDao#getUsersByRole(BigInteger)}.
+     * 
+     * @param idRole The Role's primary key.
+     * 
+     * @return A future completed with a list of {@code IUser} objects.
+     */
+    public CompletableFuture<List<IUser>> getUsersByRoleAsync(BigInteger idRole);
+    
+    /**
+     * Asynchronous counterpart of {@link IUsersDao#getUsersByRole(IRole)}.
+     * 
+     * @param role The Role.
+     * 
+     * @return A future completed with a list of {@code IUser} objects.
+     */
+    public CompletableFuture<List<IUser>> getUsersByRoleAsync(IRole role);
+    
+    /**
+     * Asynchronous counterpart of {@link IUsersDao#getUsersByRole(long)}.
+     * 
+     * @param idRole The Role's primary key.
+     * 
+     * @return A future completed with a list of {@code IUser} objects.
+     */
+    public CompletableFuture<List<IUser>> getUsersByRoleAsync(long idRole);
+    
+    /**
+     * Asynchronous counterpart of
+     * {@link IUsersDao#getUsersByRole(BigInteger, int, int)}.
+     * 
+     * @param idRole The Role's primary key.
+     * 
+     * @param offset The number of Users to skip.
+     * 
+     * @param limit The maximum number of Users to return.
+     * 
+     * @return A future completed with a page of {@code IUser} objects.
+     */
+    public CompletableFuture<List<IUser>> getUsersByRoleAsync(BigInteger idRole
+            , int offset, int limit);
+    
+    /**
+     * Asynchronous counterpart of
+     * {@link IUsersDao#getUsersByPermission(String)}.
+     * 
+     * @param permissionCode The Permission's code.
+     * 
+     * @return A future completed with a list of {@code IUser} objects.
+     */
+    public CompletableFuture<List<IUser>> getUsersByPermissionAsync(
+            String permissionCode);
+    
+    /**
+     * Asynchronous counterpart of
+     * {@link IUsersDao#getUserSummaries(int, int)}.
+     * 
+     * @param offset The number of Users to skip.
+     * 
+     * @param limit The maximum number of summaries to return.
+     * 
+     * @return A future completed with a page of {@code UserSummary} objects.
+     */
+    public CompletableFuture<List<UserSummary>> getUserSummariesAsync(int offset
+            , int limit);
+    
+    /**
+     * Asynchronous counterpart of
+     * {@link IUsersDao#getActiveUserSummaries(int, int)}.
+     * 
+     * @param offset The number of Users to skip.
+     * 
+     * @param limit The maximum number of summaries to return.
+     * 
+     * @return A future completed with a page of {@code UserSummary} objects.
+     */
+    public CompletableFuture<List<UserSummary>> getActiveUserSummariesAsync(
+            int offset, int limit);
+    
+    /**
+     * Asynchronous counterpart of
+     * {@link IUsersDao#getUserSummariesByRole(BigInteger, int, int)}.
+     * 
+     * @param idRole The Role's primary key.
+     * 
+     * @param offset The number of Users to skip.
+     * 
+     * @param limit The maximum number of summaries to return.
+     * 
+     * @return A future completed with a page of {@code UserSummary} objects.
+     */
+    public CompletableFuture<List<UserSummary>> getUserSummariesByRoleAsync(
+            BigInteger idRole, int offset, int limit);
+    
+}
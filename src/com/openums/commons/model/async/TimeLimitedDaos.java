@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.async;
+
+import com.openums.commons.model.Deadline;
+import com.openums.commons.model.IBasicDao;
+import com.openums.commons.model.IModulesDao;
+import com.openums.commons.model.IPermissionsDao;
+import com.openums.commons.model.IRolesDao;
+import com.openums.commons.model.IUsersDao;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.ModelExceptionType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Factory of DAO decorators that bound the time the caller waits for every
+ * call.
+ * <p/>
+ * Each call runs on an executor while the calling thread waits until the
+ * earlier of the decorator's default timeout and the {@code Deadline}
+ * current for the calling thread. If the call has not completed by then it
+ * is cancelled, interrupting the thread running it, and the caller gets a
+ * {@code ModelException} of type {@code TIME_OUT_EXCEPTION}. The deadline
+ * is also made current on the executor's thread, so the decorated DAO can
+ * honor it by itself, i.e.: by setting the query timeout of its statements
+ * to release the back-end resources as well.
+ * <p/>
+ * A timeout only bounds the wait: it does not undo the call. A mutation
+ * (insert, update, compare-and-update, delete or their batch variants)
+ * that times out may have been applied already, or may still be applied
+ * if the decorated DAO does not react to the interruption. Callers must
+ * not assume it failed; they should read the data object back, or rely on
+ * {@code compareAndUpdate} and idempotent writes, before retrying it. The
+ * message of the {@code TIME_OUT_EXCEPTION} thrown for a mutation says so.
+ * <p/>
+ * Methods that do not perform a blocking call, such as
+ * {@code streamAll(int)} whose elements are fetched lazily, are forwarded
+ * without any time limit. The decorated DAO must be safe to call from
+ * several threads at once.
+ * 
+ * @author Delcio Amarillo
+ * @see Deadline
+ */
+public final class TimeLimitedDaos {
+    
+    private static final Set<String> MUTATIONS = new HashSet<>(Arrays.asList(
+            "insert", "update", "compareAndUpdate", "delete"
+            , "insertAll", "updateAll", "deleteAll"));
+    
+    private TimeLimitedDaos() {
+    }
+    
+    /**
+     * Bounds the calls to a modules DAO, running them on the executor
+     * returned by {@link AsyncExecutors#getDefaultExecutor()}.
+     * 
+     * @param dao The DAO to be decorated.
+     * 
+     * @param timeout The maximum time a call may take when no earlier
+     * deadline is current.
+     * 
+     * @param unit The time unit of the {@code timeout} argument.
+     * 
+     * @return The decorated DAO.
+     */
+    public static IModulesDao limit(IModulesDao dao, long timeout, TimeUnit unit) {
+        return limit(IModulesDao.class, dao, timeout, unit, AsyncExecutors.getDefaultExecutor());
+    }
+    
+    /**
+     * Bounds the calls to a permissions DAO, running them on the executor
+     * returned by {@link AsyncExecutors#getDefaultExecutor()}.
+     * 
+     * @param dao The DAO to be decorated.
+     * 
+     * @param timeout The maximum time a call may take when no earlier
+     * deadline is current.
+     * 
+     * @param unit The time unit of the {@code timeout} argument.
+     * 
+     * @return The decorated DAO.
+     */
+    public static IPermissionsDao limit(IPermissionsDao dao, long timeout, TimeUnit unit) {
+        return limit(IPermissionsDao.class, dao, timeout, unit, AsyncExecutors.getDefaultExecutor());
+    }
+    
+    /**
+     * Bounds the calls to a roles DAO, running them on the executor returned
+     * by {@link AsyncExecutors#getDefaultExecutor()}.
+     * 
+     * @param dao The DAO to be decorated.
+     * 
+     * @param timeout The maximum time a call may take when no earlier
+     * deadline is current.
+     * 
+     * @param unit The time unit of the {@code timeout} argument.
+     * 
+     * @return The decorated DAO.
+     */
+    public static IRolesDao limit(IRolesDao dao, long timeout, TimeUnit unit) {
+        return limit(IRolesDao.class, dao, timeout, unit, AsyncExecutors.getDefaultExecutor());
+    }
+    
+    /**
+     * Bounds the calls to a users DAO, running them on the executor returned
+     * by {@link AsyncExecutors#getDefaultExecutor()}.
+     * 
+     * @param dao The DAO to be decorated.
+     * 
+     * @param timeout The maximum time a call may take when no earlier
+     * deadline is current.
+     * 
+     * @param unit The time unit of the {@code timeout} argument.
+     * 
+     * @return The decorated DAO.
+     */
+    public static IUsersDao limit(IUsersDao dao, long timeout, TimeUnit unit) {
+        return limit(IUsersDao.class, dao, timeout, unit, AsyncExecutors.getDefaultExecutor());
+    }
+    
+    /**
+     * Bounds the calls to a DAO through a given DAO interface. Only the
+     * methods of that interface are exposed by the decorator.
+     * 
+     * @param <D> The class of the DAO interface.
+     * 
+     * @param daoInterface The DAO interface.
+     * 
+     * @param dao The DAO to be decorated.
+     * 
+     * @param timeout The maximum time a call may take when no earlier
+     * deadline is current. Must be positive.
+     * 
+     * @param unit The time unit of the {@code timeout} argument.
+     * 
+     * @param executor The executor running the calls. It must start the
+     * calls promptly (i.e.: not queue them behind other long calls), since
+     * the waiting time counts against the deadline.
+     * 
+     * @return The decorated DAO.
+     */
+    public static <D extends IBasicDao<?>> D limit(Class<D> daoInterface, D dao
+            , long timeout, TimeUnit unit, Executor executor) {
+        if (daoInterface == null || dao == null || unit == null || executor == null) {
+            throw new IllegalArgumentException("The DAO interface, the DAO, the unit and the executor cannot be null.");
+        }
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("The timeout must be positive.");
+        }
+        Object proxy = Proxy.newProxyInstance(daoInterface.getClassLoader()
+                , new Class<?>[] {daoInterface}
+                , new Handler(dao, unit.toNanos(timeout), executor));
+        return daoInterface.cast(proxy);
+    }
+    
+    private static final class Handler implements InvocationHandler {
+        
+        private final Object dao;
+        private final long timeoutNanos;
+        private final Executor executor;
+        
+        private Handler(Object dao, long timeoutNanos, Executor executor) {
+            this.dao = dao;
+            this.timeoutNanos = timeoutNanos;
+            this.executor = executor;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args)
+                throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return invokeDao(method, args);
+                }
+            }
+            if (!Arrays.asList(method.getExceptionTypes()).contains(ModelException.class)) {
+                return invokeDao(method, args);
+            }
+            Deadline deadline = Deadline.after(timeoutNanos, TimeUnit.NANOSECONDS)
+                    .min(Deadline.current());
+            deadline.check();
+            FutureTask<Object> task = new FutureTask<>(
+                    () -> deadline.run(() -> callDao(method, args)));
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException ex) {
+                throw new ModelException(ModelExceptionType.UNSPECIFIED_EXCEPTION
+                        , "The call was rejected by the executor.", ex);
+            }
+            try {
+                return task.get(Math.max(0L, deadline.getRemaining(TimeUnit.NANOSECONDS))
+                        , TimeUnit.NANOSECONDS);
+            } catch (TimeoutException ex) {
+                task.cancel(true);
+                String message = "The call to " + method.getName() + " did not complete before its deadline.";
+                if (MUTATIONS.contains(method.getName())) {
+                    message += " The mutation may have been applied anyway.";
+                }
+                throw new ModelException(ModelExceptionType.TIME_OUT_EXCEPTION, message, ex);
+            } catch (ExecutionException ex) {
+                throw ex.getCause();
+            } catch (InterruptedException ex) {
+                task.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new ModelException(ModelExceptionType.UNSPECIFIED_EXCEPTION
+                        , "Interrupted while waiting for " + method.getName() + '.', ex);
+            }
+        }
+        
+        private Object callDao(Method method, Object[] args) throws ModelException {
+            try {
+                return invokeDao(method, args);
+            } catch (ModelException | RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new ModelException(ModelExceptionType.UNSPECIFIED_EXCEPTION, ex);
+            }
+        }
+        
+        private Object invokeDao(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(dao, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+}
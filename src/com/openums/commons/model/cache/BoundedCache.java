@@ -0,0 +1,303 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Size-bounded, least-recently-used cache whose entries expire after a fixed
+ * time-to-live. All the operations are thread-safe.
+ * <p/>
+ * The entries are spread by key over up to {@value #MAX_SEGMENTS} segments,
+ * each one guarded by its own lock and holding its share of the maximum
+ * size, so concurrent readers of different keys seldom contend. The
+ * least-recently-used order is kept per segment: the evicted entry is the
+ * eldest of its segment, not necessarily of the whole cache.
+ * <p/>
+ * To avoid caching values that were read from the back-end before a
+ * concurrent invalidation, loaders should take a {@link #stamp()} before
+ * reading and store the value through {@link #putIfCurrent(Object, Object, long)}:
+ * the value is discarded if any invalidation happened in between.
+ * <p/>
+ * Caches of mutable values can be given a copier, applied to every value
+ * stored and to every value returned, so that callers never share the
+ * cached instances.
+ * 
+ * @param <K> The class of the keys.
+ * @param <V> The class of the values.
+ * @author Delcio Amarillo
+ */
+public class BoundedCache<K, V> {
+    
+    private static final int MAX_SEGMENTS = 16;
+    
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+    
+    private static final class Segment<K, V> {
+        private final int maximumSize;
+        private final LinkedHashMap<K, Entry<V>> entries
+                = new LinkedHashMap<>(16, 0.75f, true);
+
+        private Segment(int maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+    }
+    
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+    private final UnaryOperator<V> copier;
+    private final Segment<K, V>[] segments;
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    
+    /**
+     * Creates a new {@code BoundedCache} storing and returning the values
+     * themselves.
+     * 
+     * @param maximumSize The maximum number of entries. Must be positive.
+     * 
+     * @param timeToLive The time an entry stays valid after being stored.
+     * Must be positive.
+     * 
+     * @param unit The time unit of the {@code timeToLive} argument.
+     */
+    public BoundedCache(int maximumSize, long timeToLive, TimeUnit unit) {
+        this(maximumSize, timeToLive, unit, UnaryOperator.identity());
+    }
+    
+    /**
+     * Creates a new {@code BoundedCache} storing and returning copies of the
+     * values.
+     * 
+     * @param maximumSize The maximum number of entries. Must be positive.
+     * 
+     * @param timeToLive The time an entry stays valid after being stored.
+     * Must be positive.
+     * 
+     * @param unit The time unit of the {@code timeToLive} argument.
+     * 
+     * @param copier Copies the values on the way in and on the way out.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public BoundedCache(int maximumSize, long timeToLive, TimeUnit unit
+            , UnaryOperator<V> copier) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("The maximum size must be positive.");
+        }
+        if (timeToLive <= 0) {
+            throw new IllegalArgumentException("The time to live must be positive.");
+        }
+        if (copier == null) {
+            throw new IllegalArgumentException("The copier cannot be null.");
+        }
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = unit.toNanos(timeToLive);
+        this.copier = copier;
+        int count = Math.min(MAX_SEGMENTS, Integer.highestOneBit(maximumSize));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(maximumSize / count
+                    + (i < maximumSize % count ? 1 : 0));
+        }
+    }
+    
+    /**
+     * Returns the value associated to a given key.
+     * 
+     * @param key The key.
+     * 
+     * @return The cached value or {@code null} if there's no valid entry for
+     * the key.
+     */
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        Entry<V> entry;
+        synchronized (segment) {
+            entry = segment.entries.get(key);
+            if (entry != null && entry.expiresAt - System.nanoTime() <= 0L) {
+                segment.entries.remove(key);
+                expirations.increment();
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return copier.apply(entry.value);
+    }
+    
+    /**
+     * Returns a stamp that must be passed to
+     * {@link #putIfCurrent(Object, Object, long)}.
+     * 
+     * @return The current invalidation stamp.
+     */
+    public long stamp() {
+        return generation.get();
+    }
+    
+    /**
+     * Associates a value to a given key, evicting the least recently used
+     * entry of its segment if the segment is full. {@code null} values are
+     * ignored.
+     * 
+     * @param key The key.
+     * 
+     * @param value The value.
+     */
+    public void put(K key, V value) {
+        if (value == null) {
+            return;
+        }
+        Entry<V> entry = newEntry(value);
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            putLocked(segment, key, entry);
+        }
+    }
+    
+    /**
+     * Associates a value to a given key only if no invalidation happened since
+     * the given stamp was taken.
+     * 
+     * @param key The key.
+     * 
+     * @param value The value.
+     * 
+     * @param stamp A stamp obtained through {@link #stamp()}.
+     * 
+     * @return {@code true} if the value was stored, {@code false} otherwise.
+     */
+    public boolean putIfCurrent(K key, V value, long stamp) {
+        if (stamp != generation.get()) {
+            return false;
+        }
+        if (value == null) {
+            return true;
+        }
+        Entry<V> entry = newEntry(value);
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            // Invalidations bump the generation before taking the segment lock.
+            if (stamp != generation.get()) {
+                return false;
+            }
+            putLocked(segment, key, entry);
+            return true;
+        }
+    }
+    
+    /**
+     * Removes the entry associated to a given key.
+     * 
+     * @param key The key.
+     */
+    public void invalidate(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        generation.incrementAndGet();
+        synchronized (segment) {
+            segment.entries.remove(key);
+        }
+    }
+    
+    /**
+     * Removes all the entries.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.entries.clear();
+            }
+        }
+    }
+    
+    /**
+     * Returns the number of entries, including expired entries that have not
+     * been purged yet.
+     * 
+     * @return The number of entries.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+    
+    /**
+     * Returns the maximum number of entries.
+     * 
+     * @return The maximum number of entries.
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+    
+    /**
+     * Returns a snapshot of this cache's counters.
+     * 
+     * @return A {@code CacheStatistics} object.
+     */
+    public CacheStatistics getStatistics() {
+        return new CacheStatistics(hits.sum(), misses.sum(), evictions.sum()
+                , expirations.sum());
+    }
+    
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key == null ? 0 : key.hashCode();
+        hash ^= hash >>> 16;
+        return segments[hash & (segments.length - 1)];
+    }
+    
+    private Entry<V> newEntry(V value) {
+        return new Entry<>(copier.apply(value), System.nanoTime() + timeToLiveNanos);
+    }
+    
+    private void putLocked(Segment<K, V> segment, K key, Entry<V> entry) {
+        segment.entries.put(key, entry);
+        if (segment.entries.size() > segment.maximumSize) {
+            Iterator<Map.Entry<K, Entry<V>>> eldest = segment.entries.entrySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.cache;
+
+/**
+ * Immutable snapshot of the counters of one or more caches.
+ * 
+ * @author Delcio Amarillo
+ * @see BoundedCache
+ */
+public final class CacheStatistics {
+    
+    /**
+     * Statistics with all the counters set to zero.
+     */
+    public static final CacheStatistics EMPTY = new CacheStatistics(0L, 0L, 0L, 0L);
+    
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long expirationCount;
+    
+    /**
+     * Creates a new {@code CacheStatistics} object.
+     * 
+     * @param hitCount The number of lookups that found a valid entry.
+     * 
+     * @param missCount The number of lookups that found no valid entry.
+     * 
+     * @param evictionCount The number of entries removed due to the size
+     * bound.
+     * 
+     * @param expirationCount The number of entries removed due to the
+     * time-to-live.
+     */
+    public CacheStatistics(long hitCount, long missCount, long evictionCount
+            , long expirationCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.expirationCount = expirationCount;
+    }
+    
+    /**
+     * Returns the number of lookups that found a valid entry.
+     * 
+     * @return The hit count.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+    
+    /**
+     * Returns the number of lookups that found no valid entry.
+     * 
+     * @return The miss count.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+    
+    /**
+     * Returns the number of entries removed due to the size bound.
+     * 
+     * @return The eviction count.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+    
+    /**
+     * Returns the number of entries removed due to the time-to-live.
+     * 
+     * @return The expiration count.
+     */
+    public long getExpirationCount() {
+        return expirationCount;
+    }
+    
+    /**
+     * Returns the ratio of lookups that found a valid entry.
+     * 
+     * @return A value between {@code 0.0} and {@code 1.0}, or {@code 0.0} if
+     * there were no lookups.
+     */
+    public double getHitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0L ? 0.0 : (double) hitCount / requests;
+    }
+    
+    /**
+     * Returns the sum of these statistics and another ones.
+     * 
+     * @param other The other statistics.
+     * 
+     * @return A new {@code CacheStatistics} object.
+     */
+    public CacheStatistics plus(CacheStatistics other) {
+        return new CacheStatistics(hitCount + other.hitCount
+                , missCount + other.missCount
+                , evictionCount + other.evictionCount
+                , expirationCount + other.expirationCount);
+    }
+    
+    @Override
+    public String toString() {
+        return "CacheStatistics{hits=" + hitCount + ", misses=" + missCount
+                + ", evictions=" + evictionCount
+                + ", expirations=" + expirationCount + '}';
+    }
+}
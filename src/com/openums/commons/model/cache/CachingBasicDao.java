@@ -0,0 +1,547 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.cache;
+
+import com.openums.commons.model.BatchResult;
+import com.openums.commons.model.FetchPlan;
+import com.openums.commons.model.IBasicDao;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.event.IMutationListener;
+import com.openums.commons.model.event.MutationEvent;
+import com.openums.commons.model.event.ISubscription;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Read-through caching decorator for {@code IBasicDao} implementations.
+ * {@link #getUnique(BigInteger)} and {@link #getUniqueAll(Collection)} are
+ * served from a bounded cache keyed by primary key, while subclasses cache
+ * their own finders in query caches created through {@link #newQueryCache()}.
+ * <p/>
+ * Like the DAOs they decorate, the caches never share their objects with the
+ * callers: the data objects are copied through {@link #copy(Object)} when
+ * they are stored and every time they are returned, so a caller modifying a
+ * returned object, or stamping a new version on it, does not affect the
+ * cached object nor the objects returned to other callers. Caches of data
+ * objects or lists of data objects are created through
+ * {@link #newQueryCache(UnaryOperator)} with {@link #copy(Object)} or
+ * {@link #copyAll(List)}.
+ * <p/>
+ * Every insert, update or delete performed through the decorator evicts the
+ * involved objects from the primary key cache and clears all the query
+ * caches, since any mutation may change the result of a finder. Subclasses
+ * that can tell which entries a mutation affects use caches created through
+ * {@link #newCache()} instead, and evict those entries themselves by
+ * overriding {@link #evict(Object)} and {@link #evict(MutationEvent)}. Mutations
+ * performed directly on the decorated DAO are only seen once the cached
+ * entries expire, unless the decorator is subscribed to the decorated DAO's
+ * mutation events through {@link #invalidateOnMutation(int)}.
+ * 
+ * @param <T> The class managed by this DAO.
+ * @param <D> The class of the decorated DAO.
+ * @author Delcio Amarillo
+ */
+public abstract class CachingBasicDao<T, D extends IBasicDao<T>>
+        implements IBasicDao<T> {
+    
+    /**
+     * Reads a single value from the decorated DAO.
+     * 
+     * @param <V> The class of the value.
+     */
+    @FunctionalInterface
+    protected interface ILoader<V> {
+        V load() throws ModelException;
+    }
+    
+    /**
+     * Reads several values from the decorated DAO.
+     * 
+     * @param <K> The class of the keys.
+     * @param <V> The class of the values.
+     */
+    @FunctionalInterface
+    protected interface IBulkLoader<K, V> {
+        Map<K, V> loadAll(Collection<K> keys) throws ModelException;
+    }
+    
+    private final D delegate;
+    private final int maximumSize;
+    private final long timeToLive;
+    private final TimeUnit unit;
+    private final BoundedCache<BigInteger, T> entities;
+    private final List<BoundedCache<?, ?>> queryCaches = new CopyOnWriteArrayList<>();
+    private final List<BoundedCache<?, ?>> caches = new CopyOnWriteArrayList<>();
+    
+    /**
+     * Creates a new {@code CachingBasicDao}. The primary key cache and every
+     * query cache share the same size bound and time-to-live.
+     * 
+     * @param delegate The decorated DAO.
+     * 
+     * @param maximumSize The maximum number of entries per cache.
+     * 
+     * @param timeToLive The time an entry stays valid after being stored.
+     * 
+     * @param unit The time unit of the {@code timeToLive} argument.
+     */
+    protected CachingBasicDao(D delegate, int maximumSize, long timeToLive
+            , TimeUnit unit) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("The delegate cannot be null.");
+        }
+        this.delegate = delegate;
+        this.maximumSize = maximumSize;
+        this.timeToLive = timeToLive;
+        this.unit = unit;
+        this.entities = new BoundedCache<>(maximumSize, timeToLive, unit, this::copy);
+    }
+    
+    /**
+     * Returns the primary key of a given data object.
+     * 
+     * @param dataObject The data object.
+     * 
+     * @return The data object's primary key.
+     */
+    protected abstract BigInteger getId(T dataObject);
+    
+    /**
+     * Returns a copy of a given data object, so that the cached objects are
+     * never shared with the callers. Invoked whenever an object is cached or
+     * served from a cache.
+     * 
+     * @param dataObject The data object.
+     * 
+     * @return A new {@code T} object holding the same state.
+     * 
+     * @see com.openums.commons.domain.DomainCopies
+     */
+    protected abstract T copy(T dataObject);
+    
+    /**
+     * Returns an immutable list holding a copy of every data object of a
+     * given list, as made by {@link #copy(Object)}.
+     * 
+     * @param dataObjects The data objects.
+     * 
+     * @return A new immutable list.
+     */
+    protected List<T> copyAll(List<T> dataObjects) {
+        List<T> copies = new ArrayList<>(dataObjects.size());
+        for (T dataObject : dataObjects) {
+            copies.add(dataObject == null ? null : copy(dataObject));
+        }
+        return Collections.unmodifiableList(copies);
+    }
+    
+    /**
+     * Returns the decorated DAO.
+     * 
+     * @return The decorated DAO.
+     */
+    protected D getDelegate() {
+        return delegate;
+    }
+    
+    /**
+     * Creates a new cache for a finder's results of immutable values, which
+     * are stored and returned as they are. The cache is cleared on every
+     * mutation and its counters are included in {@link #getStatistics()}.
+     * 
+     * @param <K> The class of the keys.
+     * 
+     * @param <V> The class of the values.
+     * 
+     * @return A new {@code BoundedCache}.
+     */
+    protected <K, V> BoundedCache<K, V> newQueryCache() {
+        return newQueryCache(UnaryOperator.identity());
+    }
+    
+    /**
+     * Creates a new cache for a finder's results whose values are copied on
+     * the way in and on the way out. The cache is cleared on every mutation
+     * and its counters are included in {@link #getStatistics()}.
+     * 
+     * @param <K> The class of the keys.
+     * 
+     * @param <V> The class of the values.
+     * 
+     * @param copier Copies the values, usually {@link #copy(Object)} or
+     * {@link #copyAll(List)}.
+     * 
+     * @return A new {@code BoundedCache}.
+     */
+    protected <K, V> BoundedCache<K, V> newQueryCache(UnaryOperator<V> copier) {
+        BoundedCache<K, V> cache = new BoundedCache<>(maximumSize, timeToLive, unit
+                , copier);
+        queryCaches.add(cache);
+        return cache;
+    }
+    
+    /**
+     * Creates a new cache which, unlike the query caches, is not cleared on
+     * every mutation: the subclass evicts the affected entries in
+     * {@link #evict(Object)} and {@link #evict(MutationEvent)}. The cache is
+     * cleared by {@link #invalidateAll()} and its counters are included in
+     * {@link #getStatistics()}.
+     * 
+     * @param <K> The class of the keys.
+     * 
+     * @param <V> The class of the values.
+     * 
+     * @return A new {@code BoundedCache}.
+     */
+    protected <K, V> BoundedCache<K, V> newCache() {
+        BoundedCache<K, V> cache = new BoundedCache<>(maximumSize, timeToLive, unit);
+        caches.add(cache);
+        return cache;
+    }
+    
+    /**
+     * Returns the value cached for a given key or loads it from the decorated
+     * DAO on a miss.
+     * 
+     * @param <K> The class of the keys.
+     * 
+     * @param <V> The class of the values.
+     * 
+     * @param cache The cache.
+     * 
+     * @param key The key.
+     * 
+     * @param loader Loads the value on a miss.
+     * 
+     * @return The value, possibly {@code null}. {@code null} values are not
+     * cached.
+     * 
+     * @throws ModelException When the loader fails.
+     */
+    protected <K, V> V load(BoundedCache<K, V> cache, K key, ILoader<V> loader)
+            throws ModelException {
+        V value = cache.get(key);
+        if (value == null) {
+            long stamp = cache.stamp();
+            value = loader.load();
+            cache.putIfCurrent(key, value, stamp);
+        }
+        return value;
+    }
+    
+    /**
+     * Returns the value cached for a given key or reads it from the decorated
+     * DAO on a miss without caching it. Finders taking a {@code FetchPlan}
+     * use it: a cached object is already in memory, so serving a copy of it
+     * costs no read, while objects read with a partial plan are kept out of the
+     * cache so they are never served to callers expecting them fully loaded.
+     * 
+     * @param <K> The class of the keys.
+     * 
+     * @param <V> The class of the values.
+     * 
+     * @param cache The cache.
+     * 
+     * @param key The key. Can be {@code null}.
+     * 
+     * @param loader Reads the value on a miss.
+     * 
+     * @return The value, possibly {@code null}.
+     * 
+     * @throws ModelException When the loader fails.
+     */
+    protected <K, V> V loadUncached(BoundedCache<K, V> cache, K key
+            , ILoader<V> loader) throws ModelException {
+        V value = key == null ? null : cache.get(key);
+        return value != null ? value : loader.load();
+    }
+    
+    /**
+     * Returns the values cached for several keys, loading all the misses from
+     * the decorated DAO in a single call.
+     * 
+     * @param <K> The class of the keys.
+     * 
+     * @param <V> The class of the values.
+     * 
+     * @param cache The cache.
+     * 
+     * @param keys The keys.
+     * 
+     * @param loader Loads the missing values.
+     * 
+     * @return A map with the values found. Keys with no value are absent.
+     * 
+     * @throws ModelException When the loader fails.
+     */
+    protected <K, V> Map<K, V> loadAll(BoundedCache<K, V> cache
+            , Collection<K> keys, IBulkLoader<K, V> loader) throws ModelException {
+        Map<K, V> result = new LinkedHashMap<>();
+        List<K> missing = new ArrayList<>();
+        for (K key : keys) {
+            if (key == null || result.containsKey(key)) {
+                continue;
+            }
+            V value = cache.get(key);
+            if (value == null) {
+                missing.add(key);
+            } else {
+                result.put(key, value);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long stamp = cache.stamp();
+            Map<K, V> loaded = loader.loadAll(missing);
+            for (Map.Entry<K, V> entry : loaded.entrySet()) {
+                cache.putIfCurrent(entry.getKey(), entry.getValue(), stamp);
+            }
+            result.putAll(loaded);
+        }
+        return result;
+    }
+    
+    /**
+     * Evicts a given data object through {@link #evict(Object)} and clears
+     * all the query caches.
+     * 
+     * @param dataObject The mutated data object.
+     */
+    protected void invalidate(T dataObject) {
+        evict(dataObject);
+        clearQueryCaches();
+    }
+    
+    /**
+     * Evicts the entries affected by a mutation performed through this
+     * decorator. The default implementation evicts the data object from the
+     * primary key cache.
+     * 
+     * @param dataObject The mutated data object. Can be {@code null}.
+     */
+    protected void evict(T dataObject) {
+        BigInteger id = dataObject == null ? null : getId(dataObject);
+        if (id != null) {
+            entities.invalidate(id);
+        }
+    }
+    
+    /**
+     * Evicts the entries affected by a mutation event of the decorated DAO.
+     * The default implementation evicts the mutated data object from the
+     * primary key cache.
+     * 
+     * @param event The mutation event.
+     * 
+     * @see #invalidateOnMutation(int)
+     */
+    protected void evict(MutationEvent event) {
+        entities.invalidate(event.getId());
+    }
+    
+    /**
+     * Clears all the caches.
+     */
+    public void invalidateAll() {
+        entities.invalidateAll();
+        clearQueryCaches();
+        for (BoundedCache<?, ?> cache : caches) {
+            cache.invalidateAll();
+        }
+    }
+    
+    /**
+     * Subscribes this decorator to the mutation events of the decorated DAO,
+     * so that mutations performed directly on it evict the affected objects
+     * as soon as the events are delivered instead of when the cached entries
+     * expire. A gap in the event sequence, meaning that events were dropped,
+     * clears all the caches.
+     * 
+     * @param capacity The maximum number of events waiting to be processed.
+     * Must be positive.
+     * 
+     * @return The subscription. Cancel it to stop the invalidation.
+     * 
+     * @throws UnsupportedOperationException If the decorated DAO does not
+     * publish mutation events.
+     */
+    public ISubscription invalidateOnMutation(int capacity) {
+        AtomicLong lastSequence = new AtomicLong();
+        return delegate.subscribe(event -> {
+            long previous = lastSequence.getAndSet(event.getSequence());
+            if (previous != 0 && event.getSequence() != previous + 1) {
+                invalidateAll();
+            } else {
+                evict(event);
+                clearQueryCaches();
+            }
+        }, capacity);
+    }
+    
+    @Override
+    public ISubscription subscribe(IMutationListener listener, int capacity) {
+        return delegate.subscribe(listener, capacity);
+    }
+    
+    /**
+     * Returns the aggregated counters of all the caches held by this
+     * decorator.
+     * 
+     * @return A {@code CacheStatistics} object.
+     */
+    public CacheStatistics getStatistics() {
+        CacheStatistics statistics = entities.getStatistics();
+        for (BoundedCache<?, ?> cache : queryCaches) {
+            statistics = statistics.plus(cache.getStatistics());
+        }
+        for (BoundedCache<?, ?> cache : caches) {
+            statistics = statistics.plus(cache.getStatistics());
+        }
+        return statistics;
+    }
+    
+    @Override
+    public T insert(T dataObject) throws ModelException {
+        try {
+            return delegate.insert(dataObject);
+        } finally {
+            invalidate(dataObject);
+        }
+    }
+    
+    @Override
+    public T update(T dataObject) throws ModelException {
+        try {
+            return delegate.update(dataObject);
+        } finally {
+            invalidate(dataObject);
+        }
+    }
+    
+    @Override
+    public T compareAndUpdate(T dataObject) throws ModelException {
+        try {
+            return delegate.compareAndUpdate(dataObject);
+        } finally {
+            invalidate(dataObject);
+        }
+    }
+    
+    @Override
+    public Boolean delete(T dataObject) throws ModelException {
+        try {
+            return delegate.delete(dataObject);
+        } finally {
+            invalidate(dataObject);
+        }
+    }
+    
+    @Override
+    public T getUnique(BigInteger dataObjectId) throws ModelException {
+        if (dataObjectId == null) {
+            return delegate.getUnique(null);
+        }
+        return load(entities, dataObjectId, () -> delegate.getUnique(dataObjectId));
+    }
+    
+    @Override
+    public T getUnique(BigInteger dataObjectId, FetchPlan plan)
+            throws ModelException {
+        return loadUncached(entities, dataObjectId
+                , () -> delegate.getUnique(dataObjectId, plan));
+    }
+    
+    @Override
+    public Map<BigInteger, T> getUniqueAll(Collection<BigInteger> dataObjectIds)
+            throws ModelException {
+        return loadAll(entities, dataObjectIds, delegate::getUniqueAll);
+    }
+    
+    @Override
+    public List<T> getAll() throws ModelException {
+        return delegate.getAll();
+    }
+    
+    @Override
+    public List<T> getPage(int offset, int limit) throws ModelException {
+        return delegate.getPage(offset, limit);
+    }
+    
+    @Override
+    public List<T> getPageAfter(BigInteger lastId, int limit)
+            throws ModelException {
+        return delegate.getPageAfter(lastId, limit);
+    }
+    
+    @Override
+    public Stream<T> streamAll(int chunkSize) {
+        return delegate.streamAll(chunkSize);
+    }
+    
+    @Override
+    public BatchResult<T> insertAll(Collection<? extends T> dataObjects
+            , int batchSize) throws ModelException {
+        try {
+            return delegate.insertAll(dataObjects, batchSize);
+        } finally {
+            invalidateEach(dataObjects);
+        }
+    }
+    
+    @Override
+    public BatchResult<T> updateAll(Collection<? extends T> dataObjects
+            , int batchSize) throws ModelException {
+        try {
+            return delegate.updateAll(dataObjects, batchSize);
+        } finally {
+            invalidateEach(dataObjects);
+        }
+    }
+    
+    @Override
+    public BatchResult<Boolean> deleteAll(Collection<? extends T> dataObjects
+            , int batchSize) throws ModelException {
+        try {
+            return delegate.deleteAll(dataObjects, batchSize);
+        } finally {
+            invalidateEach(dataObjects);
+        }
+    }
+    
+    private void invalidateEach(Collection<? extends T> dataObjects) {
+        for (T dataObject : dataObjects) {
+            evict(dataObject);
+        }
+        clearQueryCaches();
+    }
+    
+    private void clearQueryCaches() {
+        for (BoundedCache<?, ?> cache : queryCaches) {
+            cache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.cache;
+
+import com.openums.commons.domain.DomainCopies;
+import com.openums.commons.domain.IDomainFactory;
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.concurrent.ConcurrentDomainFactory;
+import com.openums.commons.model.FetchPlan;
+import com.openums.commons.model.IModulesDao;
+import com.openums.commons.model.ModelException;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through caching decorator for {@code IModulesDao} implementations. On
+ * top of the primary key cache it caches {@link #getModuleByCode(String)}.
+ * 
+ * @author Delcio Amarillo
+ * @see CachingBasicDao
+ */
+public class CachingModulesDao extends CachingBasicDao<IModule, IModulesDao>
+        implements IModulesDao {
+    
+    private final IDomainFactory factory;
+    private final BoundedCache<String, IModule> byCode = newQueryCache(this::copy);
+    
+    /**
+     * Creates a new {@code CachingModulesDao} that copies the cached
+     * Modules through a {@code ConcurrentDomainFactory}.
+     * 
+     * @param delegate The decorated DAO.
+     * 
+     * @param maximumSize The maximum number of entries per cache.
+     * 
+     * @param timeToLive The time an entry stays valid after being stored.
+     * 
+     * @param unit The time unit of the {@code timeToLive} argument.
+     */
+    public CachingModulesDao(IModulesDao delegate, int maximumSize
+            , long timeToLive, TimeUnit unit) {
+        this(new ConcurrentDomainFactory(), delegate, maximumSize, timeToLive, unit);
+    }
+    
+    /**
+     * Creates a new {@code CachingModulesDao} that copies the cached
+     * Modules through a given factory.
+     * 
+     * @param factory The factory used to copy the cached Modules.
+     * 
+     * @param delegate The decorated DAO.
+     * 
+     * @param maximumSize The maximum number of entries per cache.
+     * 
+     * @param timeToLive The time an entry stays valid after being stored.
+     * 
+     * @param unit The time unit of the {@code timeToLive} argument.
+     */
+    public CachingModulesDao(IDomainFactory factory, IModulesDao delegate
+            , int maximumSize, long timeToLive, TimeUnit unit) {
+        super(delegate, maximumSize, timeToLive, unit);
+        this.factory = factory;
+    }
+    
+    @Override
+    protected BigInteger getId(IModule dataObject) {
+        return dataObject.getId();
+    }
+    
+    @Override
+    protected IModule copy(IModule dataObject) {
+        return DomainCopies.copy(dataObject, factory);
+    }
+    
+    @Override
+    public IModule getModuleByCode(String code) throws ModelException {
+        if (code == null) {
+            return getDelegate().getModuleByCode(null);
+        }
+        return load(byCode, code, () -> getDelegate().getModuleByCode(code));
+    }
+    
+    @Override
+    public IModule getModuleByCode(String code, FetchPlan plan)
+            throws ModelException {
+        return loadUncached(byCode, code, () -> getDelegate().getModuleByCode(code, plan));
+    }
+    
+    @Override
+    public Map<String, IModule> getModulesByCodes(Collection<String> codes)
+            throws ModelException {
+        return loadAll(byCode, codes, getDelegate()::getModulesByCodes);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.cache;
+
+import com.openums.commons.domain.DomainCopies;
+import com.openums.commons.domain.IDomainFactory;
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.IPermission;
+import com.openums.commons.domain.PermissionSummary;
+import com.openums.commons.domain.concurrent.ConcurrentDomainFactory;
+import com.openums.commons.model.FetchPlan;
+import com.openums.commons.model.IPermissionsDao;
+import com.openums.commons.model.ModelException;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through caching decorator for {@code IPermissionsDao} implementations. On
+ * top of the primary key cache it caches {@link #getPermissionByCode(String)} and
+ * {@link #getPermissionsByModule(BigInteger)}. Cached lists are immutable.
+ * 
+ * @author Delcio Amarillo
+ * @see CachingBasicDao
+ */
+public class CachingPermissionsDao extends CachingBasicDao<IPermission, IPermissionsDao>
+        implements IPermissionsDao {
+    
+    private final IDomainFactory factory;
+    private final BoundedCache<String, IPermission> byCode = newQueryCache(this::copy);
+    private final BoundedCache<BigInteger, List<IPermission>> byModule
+            = newQueryCache(this::copyAll);
+    
+    /**
+     * Creates a new {@code CachingPermissionsDao} that copies the cached
+     * Permissions through a {@code ConcurrentDomainFactory}.
+     * 
+     * @param delegate The decorated DAO.
+     * 
+     * @param maximumSize The maximum number of entries per cache.
+     * 
+     * @param timeToLive The time an entry stays valid after being stored.
+     * 
+     * @param unit The time unit of the {@code timeToLive} argument.
+     */
+    public CachingPermissionsDao(IPermissionsDao delegate, int maximumSize
+            , long timeToLive, TimeUnit unit) {
+        this(new ConcurrentDomainFactory(), delegate, maximumSize, timeToLive, unit);
+    }
+    
+    /**
+     * Creates a new {@code CachingPermissionsDao} that copies the cached
+     * Permissions through a given factory.
+     * 
+     * @param factory The factory used to copy the cached Permissions.
+     * 
+     * @param delegate The decorated DAO.
+     * 
+     * @param maximumSize The maximum number of entries per cache.
+     * 
+     * @param timeToLive The time an entry stays valid after being stored.
+     * 
+     * @param unit The time unit of the {@code timeToLive} argument.
+     */
+    public CachingPermissionsDao(IDomainFactory factory, IPermissionsDao delegate
+            , int maximumSize, long timeToLive, TimeUnit unit) {
+        super(delegate, maximumSize, timeToLive, unit);
+        this.factory = factory;
+    }
+    
+    @Override
+    protected BigInteger getId(IPermission dataObject) {
+        return dataObject.getId();
+    }
+    
+    @Override
+    protected IPermission copy(IPermission dataObject) {
+        return DomainCopies.copy(dataObject, factory);
+    }
+    
+    @Override
+    public IPermission getPermissionByCode(String code) throws ModelException {
+        if (code == null) {
+            return getDelegate().getPermissionByCode(null);
+        }
+        return load(byCode, code, () -> getDelegate().getPermissionByCode(code));
+    }
+    
+    @Override
+    public IPermission getPermissionByCode(String code, FetchPlan plan)
+            throws ModelException {
+        return loadUncached(byCode, code
+                , () -> getDelegate().getPermissionByCode(code, plan));
+    }
+    
+    @Override
+    public Map<String, IPermission> getPermissionsByCodes(Collection<String> codes)
+            throws ModelException {
+        return loadAll(byCode, codes, getDelegate()::getPermissionsByCodes);
+    }
+    
+    @Override
+    public List<IPermission> getPermissionsByModule(BigInteger idModule)
+            throws ModelException {
+        if (idModule == null) {
+            return getDelegate().getPermissionsByModule((BigInteger) null);
+        }
+        return load(byModule, idModule, () -> Collections.unmodifiableList(
+                getDelegate().getPermissionsByModule(idModule)));
+    }
+    
+    @Override
+    public List<IPermission> getPermissionsByModule(IModule module) throws ModelException {
+        if (module == null || module.getId() == null) {
+            return getDelegate().getPermissionsByModule(module);
+        }
+        return getPermissionsByModule(module.getId());
+    }
+    
+    @Override
+    public List<PermissionSummary> getPermissionSummaries() throws ModelException {
+        return getDelegate().getPermissionSummaries();
+    }
+    
+    @Override
+    public List<PermissionSummary> getPermissionSummariesByModule(BigInteger idModule)
+            throws ModelException {
+        return getDelegate().getPermissionSummariesByModule(idModule);
+    }
+}
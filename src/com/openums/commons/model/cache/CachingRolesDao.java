@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.cache;
+
+import com.openums.commons.domain.DomainCopies;
+import com.openums.commons.domain.IDomainFactory;
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.RoleSummary;
+import com.openums.commons.domain.concurrent.ConcurrentDomainFactory;
+import com.openums.commons.model.FetchPlan;
+import com.openums.commons.model.IRolesDao;
+import com.openums.commons.model.ModelException;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through caching decorator for {@code IRolesDao} implementations. On
+ * top of the primary key cache it caches {@link #getRoleByCode(String)} and
+ * {@link #getRolesByModule(BigInteger)}. Cached lists are immutable.
+ * 
+ * @author Delcio Amarillo
+ * @see CachingBasicDao
+ */
+public class CachingRolesDao extends CachingBasicDao<IRole, IRolesDao>
+        implements IRolesDao {
+    
+    private final IDomainFactory factory;
+    private final BoundedCache<String, IRole> byCode = newQueryCache(this::copy);
+    private final BoundedCache<BigInteger, List<IRole>> byModule
+            = newQueryCache(this::copyAll);
+    
+    /**
+     * Creates a new {@code CachingRolesDao} that copies the cached
+     * Roles through a {@code ConcurrentDomainFactory}.
+     * 
+     * @param delegate The decorated DAO.
+     * 
+     * @param maximumSize The maximum number of entries per cache.
+     * 
+     * @param timeToLive The time an entry stays valid after being stored.
+     * 
+     * @param unit The time unit of the {@code timeToLive} argument.
+     */
+    public CachingRolesDao(IRolesDao delegate, int maximumSize
+            , long timeToLive, TimeUnit unit) {
+        this(new ConcurrentDomainFactory(), delegate, maximumSize, timeToLive, unit);
+    }
+    
+    /**
+     * Creates a new {@code CachingRolesDao} that copies the cached
+     * Roles through a given factory.
+     * 
+     * @param factory The factory used to copy the cached Roles.
+     * 
+     * @param delegate The decorated DAO.
+     * 
+     * @param maximumSize The maximum number of entries per cache.
+     * 
+     * @param timeToLive The time an entry stays valid after being stored.
+     * 
+     * @param unit The time unit of the {@code timeToLive} argument.
+     */
+    public CachingRolesDao(IDomainFactory factory, IRolesDao delegate
+            , int maximumSize, long timeToLive, TimeUnit unit) {
+        super(delegate, maximumSize, timeToLive, unit);
+        this.factory = factory;
+    }
+    
+    @Override
+    protected BigInteger getId(IRole dataObject) {
+        return dataObject.getId();
+    }
+    
+    @Override
+    protected IRole copy(IRole dataObject) {
+        return DomainCopies.copy(dataObject, factory);
+    }
+    
+    @Override
+    public IRole getRoleByCode(String code) throws ModelException {
+        if (code == null) {
+            return getDelegate().getRoleByCode(null);
+        }
+        return load(byCode, code, () -> getDelegate().getRoleByCode(code));
+    }
+    
+    @Override
+    public IRole getRoleByCode(String code, FetchPlan plan) throws ModelException {
+        return loadUncached(byCode, code, () -> getDelegate().getRoleByCode(code, plan));
+    }
+    
+    @Override
+    public Map<String, IRole> getRolesByCodes(Collection<String> codes)
+            throws ModelException {
+        return loadAll(byCode, codes, getDelegate()::getRolesByCodes);
+    }
+    
+    @Override
+    public List<IRole> getRolesByModule(BigInteger idModule)
+            throws ModelException {
+        if (idModule == null) {
+            return getDelegate().getRolesByModule((BigInteger) null);
+        }
+        return load(byModule, idModule, () -> Collections.unmodifiableList(
+                getDelegate().getRolesByModule(idModule)));
+    }
+    
+    @Override
+    public List<IRole> getRolesByModule(IModule module) throws ModelException {
+        if (module == null || module.getId() == null) {
+            return getDelegate().getRolesByModule(module);
+        }
+        return getRolesByModule(module.getId());
+    }
+    
+    @Override
+    public List<IRole> getRolesByPermission(String permissionCode)
+            throws ModelException {
+        return getDelegate().getRolesByPermission(permissionCode);
+    }
+    
+    @Override
+    public List<IRole> getParentRoles(BigInteger roleId) throws ModelException {
+        return getDelegate().getParentRoles(roleId);
+    }
+    
+    @Override
+    public List<IRole> getAncestorRoles(BigInteger roleId) throws ModelException {
+        return getDelegate().getAncestorRoles(roleId);
+    }
+    
+    @Override
+    public List<IRole> getDescendantRoles(BigInteger roleId) throws ModelException {
+        return getDelegate().getDescendantRoles(roleId);
+    }
+    
+    @Override
+    public boolean roleHasPermission(BigInteger roleId, String permissionCode)
+            throws ModelException {
+        return getDelegate().roleHasPermission(roleId, permissionCode);
+    }
+    
+    @Override
+    public List<RoleSummary> getRoleSummaries() throws ModelException {
+        return getDelegate().getRoleSummaries();
+    }
+    
+    @Override
+    public List<RoleSummary> getRoleSummariesByModule(BigInteger idModule)
+            throws ModelException {
+        return getDelegate().getRoleSummariesByModule(idModule);
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.cache;
+
+import com.openums.commons.domain.DomainCopies;
+import com.openums.commons.domain.IDomainFactory;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.LoginRecord;
+import com.openums.commons.domain.UserSummary;
+import com.openums.commons.domain.concurrent.ConcurrentDomainFactory;
+import com.openums.commons.model.FetchPlan;
+import com.openums.commons.model.IUsersDao;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.SearchMode;
+import com.openums.commons.model.UserSearchField;
+import com.openums.commons.model.event.MutationEvent;
+import com.openums.commons.model.event.MutationType;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through caching decorator for {@code IUsersDao} implementations. On
+ * top of the primary key cache it caches {@link #getUserByName(String)} and
+ * {@link #getLoginRecord(String)}. The status and role finders and the
+ * summary finders are not cached since their results change with every user
+ * mutation; they are forwarded to the decorated DAO. Cached login records
+ * also hold the Roles the User inherits, which change with the mutations of
+ * the Roles rather than of the Users: such changes are only seen once the
+ * record expires or a User mutation clears the cache.
+ * <p/>
+ * Login lookups of unknown user names are cached as well, so credential
+ * stuffing traffic made of made-up user names does not reach the decorated
+ * DAO more than once per name and time to live. Unlike the query caches, the
+ * negative cache is not cleared by every mutation: inserting or updating a
+ * User evicts only its user name, so a new or renamed User can log in
+ * immediately while the cached unknown names survive the mutations of other
+ * Users. Mutation events, which carry no user name, clear it when they
+ * report an insert or a change of user name.
+ * 
+ * @author Delcio Amarillo
+ * @see CachingBasicDao
+ */
+public class CachingUsersDao extends CachingBasicDao<IUser, IUsersDao>
+        implements IUsersDao {
+    
+    private final IDomainFactory factory;
+    private final BoundedCache<String, IUser> byName = newQueryCache(this::copy);
+    private final BoundedCache<String, LoginRecord> loginRecords = newQueryCache();
+    private final BoundedCache<String, Boolean> unknownNames = newCache();
+    
+    /**
+     * Creates a new {@code CachingUsersDao} that copies the cached
+     * Users through a {@code ConcurrentDomainFactory}.
+     * 
+     * @param delegate The decorated DAO.
+     * 
+     * @param maximumSize The maximum number of entries per cache.
+     * 
+     * @param timeToLive The time an entry stays valid after being stored.
+     * 
+     * @param unit The time unit of the {@code timeToLive} argument.
+     */
+    public CachingUsersDao(IUsersDao delegate, int maximumSize
+            , long timeToLive, TimeUnit unit) {
+        this(new ConcurrentDomainFactory(), delegate, maximumSize, timeToLive, unit);
+    }
+    
+    /**
+     * Creates a new {@code CachingUsersDao} that copies the cached
+     * Users through a given factory.
+     * 
+     * @param factory The factory used to copy the cached Users.
+     * 
+     * @param delegate The decorated DAO.
+     * 
+     * @param maximumSize The maximum number of entries per cache.
+     * 
+     * @param timeToLive The time an entry stays valid after being stored.
+     * 
+     * @param unit The time unit of the {@code timeToLive} argument.
+     */
+    public CachingUsersDao(IDomainFactory factory, IUsersDao delegate
+            , int maximumSize, long timeToLive, TimeUnit unit) {
+        super(delegate, maximumSize, timeToLive, unit);
+        this.factory = factory;
+    }
+    
+    @Override
+    protected BigInteger getId(IUser dataObject) {
+        return dataObject.getId();
+    }
+    
+    @Override
+    protected IUser copy(IUser dataObject) {
+        return DomainCopies.copy(dataObject, factory);
+    }
+    
+    @Override
+    protected void evict(IUser dataObject) {
+        super.evict(dataObject);
+        String userName = dataObject == null ? null : dataObject.getUserName();
+        if (userName != null) {
+            unknownNames.invalidate(userName);
+        }
+    }
+    
+    @Override
+    protected void evict(MutationEvent event) {
+        super.evict(event);
+        Set<String> changedFields = event.getChangedFields();
+        if (event.getType() != MutationType.DELETE && (changedFields.isEmpty()
+                || changedFields.contains("userName"))) {
+            unknownNames.invalidateAll();
+        }
+    }
+    
+    @Override
+    public IUser getUserByName(String userName) throws ModelException {
+        if (userName == null) {
+            return getDelegate().getUserByName(null);
+        }
+        return load(byName, userName, () -> getDelegate().getUserByName(userName));
+    }
+    
+    @Override
+    public IUser getUserByName(String userName, FetchPlan plan)
+            throws ModelException {
+        return loadUncached(byName, userName
+                , () -> getDelegate().getUserByName(userName, plan));
+    }
+    
+    @Override
+    public LoginRecord getLoginRecord(String userName) throws ModelException {
+        if (userName == null) {
+            return getDelegate().getLoginRecord(null);
+        }
+        LoginRecord record = loginRecords.get(userName);
+        if (record != null || unknownNames.get(userName) != null) {
+            return record;
+        }
+        long stamp = loginRecords.stamp();
+        long unknownStamp = unknownNames.stamp();
+        record = getDelegate().getLoginRecord(userName);
+        if (record == null) {
+            unknownNames.putIfCurrent(userName, Boolean.TRUE, unknownStamp);
+        } else {
+            loginRecords.putIfCurrent(userName, record, stamp);
+        }
+        return record;
+    }
+    
+    @Override
+    public Map<String, IUser> getUsersByNames(Collection<String> userNames)
+            throws ModelException {
+        return loadAll(byName, userNames, getDelegate()::getUsersByNames);
+    }
+    
+    @Override
+    public List<IUser> getActiveUsers() throws ModelException {
+        return getDelegate().getActiveUsers();
+    }
+    
+    @Override
+    public List<IUser> getInactiveUsers() throws ModelException {
+        return getDelegate().getInactiveUsers();
+    }
+    
+    @Override
+    public List<IUser> getLockedUsers() throws ModelException {
+        return getDelegate().getLockedUsers();
+    }
+    
+    @Override
+    public List<IUser> getUnlockedUsers() throws ModelException {
+        return getDelegate().getUnlockedUsers();
+    }
+    
+    @Override
+    public List<IUser> getUsersByRole(BigInteger idRole) throws ModelException {
+        return getDelegate().getUsersByRole(idRole);
+    }
+    
+    @Override
+    public List<IUser> getUsersByRole(IRole role) throws ModelException {
+        return getDelegate().getUsersByRole(role);
+    }
+    
+    @Override
+    public List<IUser> getActiveUsers(int offset, int limit)
+            throws ModelException {
+        return getDelegate().getActiveUsers(offset, limit);
+    }
+    
+    @Override
+    public List<IUser> getInactiveUsers(int offset, int limit)
+            throws ModelException {
+        return getDelegate().getInactiveUsers(offset, limit);
+    }
+    
+    @Override
+    public List<IUser> getLockedUsers(int offset, int limit)
+            throws ModelException {
+        return getDelegate().getLockedUsers(offset, limit);
+    }
+    
+    @Override
+    public List<IUser> getUnlockedUsers(int offset, int limit)
+            throws ModelException {
+        return getDelegate().getUnlockedUsers(offset, limit);
+    }
+    
+    @Override
+    public List<IUser> getUsersByRole(BigInteger idRole, int offset, int limit)
+            throws ModelException {
+        return getDelegate().getUsersByRole(idRole, offset, limit);
+    }
+    
+    @Override
+    public List<IUser> getUsersByPermission(String permissionCode)
+            throws ModelException {
+        return getDelegate().getUsersByPermission(permissionCode);
+    }
+    
+    @Override
+    public List<IUser> searchUsers(UserSearchField field, String text
+            , SearchMode mode, int limit) throws ModelException {
+        return getDelegate().searchUsers(field, text, mode, limit);
+    }
+    
+    @Override
+    public List<UserSummary> getUserSummaries(int offset, int limit)
+            throws ModelException {
+        return getDelegate().getUserSummaries(offset, limit);
+    }
+    
+    @Override
+    public List<UserSummary> getActiveUserSummaries(int offset, int limit)
+            throws ModelException {
+        return getDelegate().getActiveUserSummaries(offset, limit);
+    }
+    
+    @Override
+    public List<UserSummary> getUserSummariesByRole(BigInteger idRole
+            , int offset, int limit) throws ModelException {
+        return getDelegate().getUserSummariesByRole(idRole, offset, limit);
+    }
+}
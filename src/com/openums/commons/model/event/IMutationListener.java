@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.event;
+
+/**
+ * Receives the {@code MutationEvent} objects published by a DAO.
+ * <p/>
+ * Events are delivered on the publisher's executor, never on the thread that
+ * performed the mutation, and one at a time per subscription in sequence
+ * order. Implementations should return quickly: while a listener is busy its
+ * pending events accumulate in the subscription's bounded queue, and the
+ * ones that do not fit are dropped.
+ * 
+ * @author Delcio Amarillo
+ */
+@FunctionalInterface
+public interface IMutationListener {
+    
+    /**
+     * Handles a mutation event.
+     * 
+     * @param event The event.
+     */
+    public void onMutation(MutationEvent event);
+}
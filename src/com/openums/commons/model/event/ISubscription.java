@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.event;
+
+/**
+ * Handle of a listener registered to receive {@code MutationEvent} objects.
+ * 
+ * @author Delcio Amarillo
+ */
+public interface ISubscription {
+    
+    /**
+     * Stops the delivery of events. Pending events are discarded, although
+     * an event already being delivered completes normally. Cancelling an
+     * already cancelled subscription has no effect.
+     */
+    public void cancel();
+    
+    /**
+     * Returns whether this subscription has been cancelled.
+     * 
+     * @return {@code true} if cancelled, {@code false} otherwise.
+     */
+    public boolean isCancelled();
+    
+    /**
+     * Returns the number of events discarded because the subscription's
+     * queue was full.
+     * 
+     * @return The number of dropped events.
+     */
+    public long getDroppedCount();
+}
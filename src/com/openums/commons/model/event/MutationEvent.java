@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.event;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Immutable notification of a data object inserted, updated or removed
+ * through a DAO.
+ * <p/>
+ * Every publisher numbers its events with a sequence that starts at 1 and
+ * grows by one with every mutation, in the order the mutations were applied.
+ * A subscriber that observes a gap between two consecutive sequence numbers
+ * has missed events because its queue was full, and must resynchronize
+ * (i.e.: clear whatever it derived from the DAO) before relying on the next
+ * ones.
+ * 
+ * @author Delcio Amarillo
+ * @see MutationPublisher
+ */
+public final class MutationEvent {
+    
+    private final long sequence;
+    private final MutationType type;
+    private final Class<?> entityType;
+    private final BigInteger id;
+    private final Set<String> changedFields;
+    
+    /**
+     * Creates a new {@code MutationEvent}.
+     * 
+     * @param sequence The event's sequence number.
+     * 
+     * @param type The kind of mutation.
+     * 
+     * @param entityType The class of the mutated data object.
+     * 
+     * @param id The mutated data object's primary key.
+     * 
+     * @param changedFields The names of the changed fields.
+     */
+    public MutationEvent(long sequence, MutationType type, Class<?> entityType
+            , BigInteger id, Set<String> changedFields) {
+        if (type == null || entityType == null || id == null) {
+            throw new IllegalArgumentException("The type, the entity type and the id cannot be null.");
+        }
+        this.sequence = sequence;
+        this.type = type;
+        this.entityType = entityType;
+        this.id = id;
+        this.changedFields = changedFields == null || changedFields.isEmpty()
+                ? Collections.<String>emptySet()
+                : Collections.unmodifiableSet(new LinkedHashSet<>(changedFields));
+    }
+    
+    /**
+     * Returns the event's sequence number.
+     * 
+     * @return A positive number, greater than the one of every event
+     * previously published by the same publisher.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+    
+    /**
+     * Returns the kind of mutation.
+     * 
+     * @return The mutation type.
+     */
+    public MutationType getType() {
+        return type;
+    }
+    
+    /**
+     * Returns the class of the mutated data object, i.e.: the domain
+     * interface managed by the DAO that published the event.
+     * 
+     * @return The entity type.
+     */
+    public Class<?> getEntityType() {
+        return entityType;
+    }
+    
+    /**
+     * Returns the mutated data object's primary key.
+     * 
+     * @return The primary key.
+     */
+    public BigInteger getId() {
+        return id;
+    }
+    
+    /**
+     * Returns the names of the fields whose value changed. Inserts and
+     * deletes report all the fields known to the publisher. Updates report
+     * the fields whose value differs from the previous state, or all of
+     * them when the publisher could not tell; the set may thus contain
+     * fields that did not actually change, but never misses one that did.
+     * 
+     * @return An unmodifiable set of field names. Empty if the publisher
+     * does not track fields.
+     */
+    public Set<String> getChangedFields() {
+        return changedFields;
+    }
+    
+    @Override
+    public String toString() {
+        return "MutationEvent{sequence=" + sequence + ", type=" + type
+                + ", entityType=" + entityType.getSimpleName() + ", id=" + id
+                + ", changedFields=" + changedFields + '}';
+    }
+}
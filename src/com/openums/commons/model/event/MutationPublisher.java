@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.event;
+
+import com.openums.commons.model.async.AsyncExecutors;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Numbers the mutations of a DAO and fans them out to the subscribed
+ * listeners.
+ * <p/>
+ * Publishing never blocks the mutating thread: every subscription owns a
+ * bounded queue, the event is offered to each queue and, when a queue is
+ * full, dropped for that subscription only and counted in its
+ * {@link ISubscription#getDroppedCount()}. Each subscription is drained by
+ * a task submitted to the publisher's executor, which delivers its events
+ * one at a time and in sequence order, so a slow listener only delays
+ * itself. By default the tasks run on a small pool shared by every
+ * publisher (see {@link #getDefaultExecutor()}), so a burst of mutations
+ * cannot start an unbounded number of threads.
+ * <p/>
+ * Sequence numbers are assigned even when nobody is subscribed, so they
+ * reflect the number of mutations applied, but events are only created
+ * while there is at least one subscription. Callers must serialize the
+ * calls to {@link #enqueue(MutationType, BigInteger, Set)} (i.e.: invoke it
+ * while holding the lock that serializes the mutations) for the sequence to
+ * follow the order in which the mutations were applied, and then call
+ * {@link #dispatch()} once the lock has been released, so that handing the
+ * drain tasks to the executor never happens under that lock.
+ * {@link #publish(MutationType, BigInteger, Set)} does both at once.
+ * 
+ * @author Delcio Amarillo
+ */
+public class MutationPublisher {
+    
+    private static final int DRAIN_LIMIT = 256;
+    
+    private static final class DefaultHolder {
+        private static final Executor EXECUTOR = AsyncExecutors.newBoundedExecutor(
+                Math.max(2, Runtime.getRuntime().availableProcessors() / 2)
+                , "openums-mutation-events-");
+    }
+    
+    private final Class<?> entityType;
+    private final Executor executor;
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    
+    /**
+     * Creates a new {@code MutationPublisher} that delivers the events on
+     * the executor returned by {@link #getDefaultExecutor()}.
+     * 
+     * @param entityType The class of the data objects whose mutations are
+     * published.
+     */
+    public MutationPublisher(Class<?> entityType) {
+        this(entityType, getDefaultExecutor());
+    }
+    
+    /**
+     * Creates a new {@code MutationPublisher}.
+     * 
+     * @param entityType The class of the data objects whose mutations are
+     * published.
+     * 
+     * @param executor The executor that delivers the events.
+     */
+    public MutationPublisher(Class<?> entityType, Executor executor) {
+        if (entityType == null || executor == null) {
+            throw new IllegalArgumentException("The entity type and the executor cannot be null.");
+        }
+        this.entityType = entityType;
+        this.executor = executor;
+    }
+    
+    /**
+     * Returns the executor shared by the publishers that are not given an
+     * explicit one: a pool of daemon threads, half as many as there are
+     * processors and at least two. It is created on first use and never
+     * shut down.
+     * 
+     * @return The shared executor.
+     */
+    public static Executor getDefaultExecutor() {
+        return DefaultHolder.EXECUTOR;
+    }
+    
+    /**
+     * Registers a listener. It receives the events published from now on.
+     * 
+     * @param listener The listener.
+     * 
+     * @param capacity The maximum number of events waiting to be delivered
+     * to the listener. Must be positive.
+     * 
+     * @return The new subscription.
+     */
+    public ISubscription subscribe(IMutationListener listener, int capacity) {
+        if (listener == null) {
+            throw new IllegalArgumentException("The listener cannot be null.");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive.");
+        }
+        Subscription subscription = new Subscription(listener, capacity);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+    
+    /**
+     * Returns whether there is at least one active subscription. Publishers
+     * may skip preparing an event's contents when there is none.
+     * 
+     * @return {@code true} if somebody is subscribed, {@code false} otherwise.
+     */
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+    
+    /**
+     * Returns the sequence number of the last published event.
+     * 
+     * @return The last sequence number or zero if nothing was published yet.
+     */
+    public long getLastSequence() {
+        return sequence.get();
+    }
+    
+    /**
+     * Assigns the next sequence number to a mutation, offers the resulting
+     * event to every subscription and starts delivering it. Never blocks.
+     * 
+     * @param type The kind of mutation.
+     * 
+     * @param id The mutated data object's primary key.
+     * 
+     * @param changedFields The names of the changed fields.
+     * 
+     * @return The published event or {@code null} if there were no
+     * subscriptions.
+     */
+    public MutationEvent publish(MutationType type, BigInteger id
+            , Set<String> changedFields) {
+        MutationEvent event = enqueue(type, id, changedFields);
+        dispatch();
+        return event;
+    }
+    
+    /**
+     * Assigns the next sequence number to a mutation and offers the
+     * resulting event to every subscription, without handing anything to the
+     * executor: the event waits in the queues until the next
+     * {@link #dispatch()}. Never blocks.
+     * 
+     * @param type The kind of mutation.
+     * 
+     * @param id The mutated data object's primary key.
+     * 
+     * @param changedFields The names of the changed fields.
+     * 
+     * @return The queued event or {@code null} if there were no
+     * subscriptions.
+     */
+    public MutationEvent enqueue(MutationType type, BigInteger id
+            , Set<String> changedFields) {
+        long next = sequence.incrementAndGet();
+        if (subscriptions.isEmpty()) {
+            return null;
+        }
+        MutationEvent event = new MutationEvent(next, type, entityType, id, changedFields);
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+        return event;
+    }
+    
+    /**
+     * Starts delivering the queued events of every subscription that is not
+     * being drained already.
+     */
+    public void dispatch() {
+        for (Subscription subscription : subscriptions) {
+            if (!subscription.queue.isEmpty()) {
+                subscription.schedule();
+            }
+        }
+    }
+    
+    private final class Subscription implements ISubscription, Runnable {
+        
+        private final IMutationListener listener;
+        private final Queue<MutationEvent> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean cancelled;
+        
+        private Subscription(IMutationListener listener, int capacity) {
+            this.listener = listener;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+        
+        private void offer(MutationEvent event) {
+            if (!queue.offer(event)) {
+                dropped.incrementAndGet();
+            }
+        }
+        
+        private void schedule() {
+            if (!cancelled && scheduled.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException ex) {
+                    // The events stay queued until the next dispatch.
+                    scheduled.set(false);
+                }
+            }
+        }
+        
+        @Override
+        public void run() {
+            try {
+                for (int i = 0; i < DRAIN_LIMIT && !cancelled; i++) {
+                    MutationEvent event = queue.poll();
+                    if (event == null) {
+                        break;
+                    }
+                    try {
+                        listener.onMutation(event);
+                    } catch (RuntimeException ex) {
+                        Thread thread = Thread.currentThread();
+                        thread.getUncaughtExceptionHandler().uncaughtException(thread, ex);
+                    }
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            // Events offered after the last poll found the task still scheduled.
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+        
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            queue.clear();
+        }
+        
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+        
+        @Override
+        public long getDroppedCount() {
+            return dropped.get();
+        }
+    }
+}
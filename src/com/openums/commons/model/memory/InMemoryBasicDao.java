@@ -0,0 +1,740 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.memory;
+
+import com.openums.commons.domain.IVersioned;
+import com.openums.commons.domain.Identifiers;
+import com.openums.commons.model.BatchResult;
+import com.openums.commons.model.FetchPlan;
+import com.openums.commons.model.IBasicDao;
+import com.openums.commons.model.IItemOperation;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.ModelExceptionType;
+import com.openums.commons.model.PagedIterator;
+import com.openums.commons.model.event.IMutationListener;
+import com.openums.commons.model.event.ISubscription;
+import com.openums.commons.model.event.MutationPublisher;
+import com.openums.commons.model.event.MutationType;
+import com.openums.commons.util.LongObjectHashMap;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Reference implementation of {@code IBasicDao} that keeps the data objects in
+ * memory, indexed and ordered by their primary key. Readers share a read lock
+ * and writers take an exclusive write lock, so every read observes a
+ * consistent state.
+ * <p/>
+ * As required by the {@code IBasicDao} contract, the stored objects are never
+ * shared with the callers: inserts and updates store a copy of the given
+ * object, made through {@link #copy(Object)}, and every finder returns fresh
+ * copies of the stored ones, made through {@link #copyForCaller(Object)}.
+ * Callers can therefore modify the objects they read without affecting the
+ * stored state or other readers until they save them, and a reader never
+ * observes an update half applied.
+ * <p/>
+ * A stored object is replaced, never modified, by an update, so the copies
+ * handed to the callers may defer copying its relationships until they are
+ * first accessed, after the read lock has been released. The finders taking
+ * a {@code FetchPlan} copy the planned relationships before returning,
+ * through {@link #fetch(Object, FetchPlan)}, and leave the other ones to be
+ * copied on first access.
+ * <p/>
+ * Batch operations take the write lock once per group of {@code batchSize}
+ * objects, which mirrors what a database implementation does with one
+ * round trip per group: the items of a group are applied together, and the
+ * failure of an item is recorded in the {@code BatchResult} without affecting
+ * the other items.
+ * <p/>
+ * Primary keys are not generated by this class: every data object must
+ * carry its own non-null {@code id}. Keys that fit in a {@code long} are also
+ * indexed in a primitive hash map, which serves every lookup by primary key
+ * in constant time (including {@link #getUnique(long)}, without allocating a
+ * {@code BigInteger}); the ordered map is only walked by the finders that
+ * return objects in primary key order.
+ * <p/>
+ * Subclasses maintain their secondary indexes through the {@link #validate},
+ * {@link #index}, {@link #unindex} and {@link #reindex} hooks, which are always invoked while
+ * the write lock is held, and read them through {@link #read(Supplier)}.
+ * <p/>
+ * Every mutation is queued for the listeners registered through
+ * {@link #subscribe(IMutationListener, int)} while the write lock is still
+ * held, so event sequence numbers follow the order of the mutations, and
+ * handed to the delivery executor once the lock has been released. Updates
+ * report as changed only the fields whose value, as returned by
+ * {@link #getFieldValues(Object)}, differs from the one recorded on the
+ * previous mutation. Those values are only recorded while somebody is
+ * subscribed; the first update of an object after subscribing reports all
+ * its fields.
+ * <p/>
+ * Data objects implementing {@code IVersioned} receive version 1 when
+ * inserted and the next version on every update; the saved object and the
+ * stored copy receive the same version. The versions are recorded by this
+ * class, so {@link #compareAndUpdate(Object)} compares the version of the
+ * given object, i.e. the one its caller read, against the last version
+ * actually written.
+ * 
+ * @param <T> The class managed by this DAO.
+ * @author Delcio Amarillo
+ */
+public abstract class InMemoryBasicDao<T> implements IBasicDao<T> {
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final NavigableMap<BigInteger, T> data = new TreeMap<>();
+    private final LongObjectHashMap<T> dataByLongId = new LongObjectHashMap<>();
+    private final MutationPublisher publisher;
+    private final Set<String> fieldNames;
+    private final Map<BigInteger, Object[]> fieldValues = new HashMap<>();
+    private final Map<BigInteger, Long> versions = new HashMap<>();
+    
+    /**
+     * Creates a new {@code InMemoryBasicDao} whose mutation events are
+     * delivered on the executor returned by
+     * {@code MutationPublisher.getDefaultExecutor()}.
+     * 
+     * @param entityType The class of the data objects, reported in the
+     * mutation events.
+     * 
+     * @param fieldNames The names of the fields reported in the mutation
+     * events, in the order of {@link #getFieldValues(Object)}.
+     */
+    protected InMemoryBasicDao(Class<T> entityType, String... fieldNames) {
+        this.publisher = new MutationPublisher(entityType);
+        this.fieldNames = Collections.unmodifiableSet(
+                new LinkedHashSet<>(Arrays.asList(fieldNames)));
+    }
+    
+    /**
+     * Returns the primary key of a given data object.
+     * 
+     * @param dataObject The data object.
+     * 
+     * @return The data object's primary key.
+     */
+    protected abstract BigInteger getId(T dataObject);
+    
+    /**
+     * Returns a copy of a given data object, so that the stored objects are
+     * never shared with the callers. Invoked whenever an object is stored,
+     * while the write lock is held, and by the default
+     * {@link #copyForCaller(Object)}.
+     * 
+     * @param dataObject The data object.
+     * 
+     * @return A new {@code T} object holding the same state.
+     * 
+     * @see com.openums.commons.domain.DomainCopies
+     */
+    protected abstract T copy(T dataObject);
+    
+    /**
+     * Returns the copy of a stored data object handed to the callers.
+     * Invoked while a lock is held, so implementations should defer the
+     * costly part of the copy, such as large relationship lists, until it is
+     * first accessed; the stored object is never modified. The default
+     * implementation calls {@link #copy(Object)}.
+     * 
+     * @param dataObject The stored data object.
+     * 
+     * @return A new {@code T} object holding the same state.
+     * 
+     * @see com.openums.commons.domain.DomainCopies
+     */
+    protected T copyForCaller(T dataObject) {
+        return copy(dataObject);
+    }
+    
+    /**
+     * Loads the relationships of a copy returned by
+     * {@link #copyForCaller(Object)} that are included in a given fetch
+     * plan. Invoked without holding any lock. The default implementation
+     * leaves every relationship as it is.
+     * 
+     * @param dataObject The copy. Can be {@code null}.
+     * 
+     * @param plan The relationships to be loaded eagerly.
+     * 
+     * @return The copy.
+     */
+    protected T fetch(T dataObject, FetchPlan plan) {
+        return dataObject;
+    }
+    
+    /**
+     * Loads a relationship list of a copy if its copy was deferred.
+     * 
+     * @param relationship The relationship list. Can be {@code null}.
+     */
+    protected static void load(List<?> relationship) {
+        if (relationship != null) {
+            relationship.size();
+        }
+    }
+    
+    /**
+     * Checks the constraints of a data object about to be inserted or
+     * updated, such as unique codes. Invoked while the write lock is held.
+     * 
+     * @param id The data object's primary key.
+     * 
+     * @param dataObject The data object.
+     * 
+     * @throws ModelException If a constraint is violated.
+     */
+    protected void validate(BigInteger id, T dataObject) throws ModelException {
+    }
+    
+    /**
+     * Adds a data object to the secondary indexes. Invoked while the write
+     * lock is held, right after the object has been stored.
+     * 
+     * @param id The data object's primary key.
+     * 
+     * @param dataObject The data object.
+     */
+    protected void index(BigInteger id, T dataObject) {
+    }
+    
+    /**
+     * Removes a data object from the secondary indexes. Invoked while the
+     * write lock is held, right before the object is removed and, through
+     * {@link #reindex}, when it is replaced.
+     * 
+     * @param id The data object's primary key.
+     */
+    protected void unindex(BigInteger id) {
+    }
+    
+    /**
+     * Replaces a data object in the secondary indexes. Invoked while the
+     * write lock is held, right after an updated object has been stored.
+     * <br />
+     * The default implementation calls {@link #unindex} and then
+     * {@link #index}; subclasses maintaining indexes that are expensive to
+     * rebuild can override it to apply only the difference.
+     * 
+     * @param id The data object's primary key.
+     * 
+     * @param dataObject The data object.
+     */
+    protected void reindex(BigInteger id, T dataObject) {
+        unindex(id);
+        index(id, dataObject);
+    }
+    
+    /**
+     * Returns the values of the fields reported in the mutation events, in
+     * the order of the field names given to the constructor. Mutable values,
+     * such as dates, must be copied. Invoked while the write lock is held.
+     * 
+     * @param dataObject The data object.
+     * 
+     * @return A new array with one value per field name.
+     */
+    protected Object[] getFieldValues(T dataObject) {
+        return new Object[fieldNames.size()];
+    }
+    
+    /**
+     * Runs a given reader while the read lock is held.
+     * 
+     * @param <R> The class of the reader's result.
+     * 
+     * @param reader The reader.
+     * 
+     * @return The reader's result.
+     */
+    protected <R> R read(Supplier<R> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns whether a data object with a given primary key is stored. Must
+     * be invoked while a lock is held.
+     * 
+     * @param id The primary key.
+     * 
+     * @return {@code true} if there is a matching data object.
+     */
+    protected boolean contains(BigInteger id) {
+        return id != null && find(id) != null;
+    }
+    
+    /**
+     * Returns a copy of the data object identified by a given primary key.
+     * Must be invoked while a lock is held.
+     * 
+     * @param id The primary key.
+     * 
+     * @return A copy of the matching data object or {@code null} if there's
+     * none.
+     */
+    protected T lookup(BigInteger id) {
+        return id == null ? null : export(find(id));
+    }
+    
+    /**
+     * Returns copies of the data objects identified by several primary keys,
+     * in the iteration order of the keys. Must be invoked while a lock is
+     * held.
+     * 
+     * @param ids The primary keys.
+     * 
+     * @return A new list with copies of the matching data objects.
+     */
+    protected List<T> lookup(Collection<BigInteger> ids) {
+        List<T> result = new ArrayList<>(ids.size());
+        for (BigInteger id : ids) {
+            T dataObject = find(id);
+            if (dataObject != null) {
+                result.add(copyForCaller(dataObject));
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Returns copies of the data objects matching a given filter, ordered by
+     * primary key. The whole data set is scanned while the read lock is held;
+     * the filter is given the stored objects and must not modify them.
+     * 
+     * @param filter The filter.
+     * 
+     * @param offset The number of matching objects to skip.
+     * 
+     * @param limit The maximum number of objects to return.
+     * 
+     * @return A new list with copies of the matching data objects.
+     */
+    protected List<T> select(Predicate<? super T> filter, int offset, int limit) {
+        checkPage(offset, limit);
+        lock.readLock().lock();
+        try {
+            List<T> result = new ArrayList<>();
+            int skipped = 0;
+            for (T dataObject : data.values()) {
+                if (filter.test(dataObject)) {
+                    if (skipped < offset) {
+                        skipped++;
+                    } else if (result.size() < limit) {
+                        result.add(copyForCaller(dataObject));
+                    } else {
+                        break;
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public T insert(T dataObject) throws ModelException {
+        lock.writeLock().lock();
+        try {
+            return insertLocked(dataObject);
+        } finally {
+            lock.writeLock().unlock();
+            publisher.dispatch();
+        }
+    }
+    
+    @Override
+    public T update(T dataObject) throws ModelException {
+        lock.writeLock().lock();
+        try {
+            return updateLocked(dataObject);
+        } finally {
+            lock.writeLock().unlock();
+            publisher.dispatch();
+        }
+    }
+    
+    @Override
+    public Boolean delete(T dataObject) throws ModelException {
+        lock.writeLock().lock();
+        try {
+            return deleteLocked(dataObject);
+        } finally {
+            lock.writeLock().unlock();
+            publisher.dispatch();
+        }
+    }
+    
+    @Override
+    public T getUnique(BigInteger dataObjectId) throws ModelException {
+        lock.readLock().lock();
+        try {
+            return dataObjectId == null ? null : export(find(dataObjectId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public T getUnique(BigInteger dataObjectId, FetchPlan plan) throws ModelException {
+        return fetch(getUnique(dataObjectId), plan);
+    }
+    
+    @Override
+    public T getUnique(long dataObjectId) throws ModelException {
+        lock.readLock().lock();
+        try {
+            return export(dataByLongId.get(dataObjectId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public List<T> getAll() throws ModelException {
+        lock.readLock().lock();
+        try {
+            return copies(data.values(), 0, Integer.MAX_VALUE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Resolves all the identifiers under a single read lock acquisition.
+     */
+    @Override
+    public Map<BigInteger, T> getUniqueAll(Collection<BigInteger> dataObjectIds)
+            throws ModelException {
+        Map<BigInteger, T> result = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            for (BigInteger dataObjectId : dataObjectIds) {
+                T dataObject = dataObjectId == null ? null : find(dataObjectId);
+                if (dataObject != null) {
+                    result.put(dataObjectId, copyForCaller(dataObject));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+    
+    @Override
+    public List<T> getPage(int offset, int limit) throws ModelException {
+        checkPage(offset, limit);
+        lock.readLock().lock();
+        try {
+            return copies(data.values(), offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    @Override
+    public List<T> getPageAfter(BigInteger lastId, int limit)
+            throws ModelException {
+        checkPage(0, limit);
+        lock.readLock().lock();
+        try {
+            Collection<T> tail = lastId == null
+                    ? data.values() : data.tailMap(lastId, false).values();
+            return copies(tail, 0, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns a lazily populated stream over all the data objects, fetched in
+     * chunks through {@link #getPageAfter(BigInteger, int)}.
+     */
+    @Override
+    public Stream<T> streamAll(int chunkSize) {
+        final BigInteger[] lastId = new BigInteger[1];
+        return PagedIterator.stream((offset, limit) -> {
+            List<T> chunk = getPageAfter(lastId[0], limit);
+            if (!chunk.isEmpty()) {
+                lastId[0] = getId(chunk.get(chunk.size() - 1));
+            }
+            return chunk;
+        }, chunkSize);
+    }
+    
+    @Override
+    public T compareAndUpdate(T dataObject) throws ModelException {
+        lock.writeLock().lock();
+        try {
+            return compareAndUpdateLocked(dataObject);
+        } finally {
+            lock.writeLock().unlock();
+            publisher.dispatch();
+        }
+    }
+    
+    @Override
+    public ISubscription subscribe(IMutationListener listener, int capacity) {
+        return publisher.subscribe(listener, capacity);
+    }
+    
+    @Override
+    public BatchResult<T> insertAll(Collection<? extends T> dataObjects
+            , int batchSize) throws ModelException {
+        return applyInBatches(dataObjects, batchSize, this::insertLocked);
+    }
+    
+    @Override
+    public BatchResult<T> updateAll(Collection<? extends T> dataObjects
+            , int batchSize) throws ModelException {
+        return applyInBatches(dataObjects, batchSize, this::updateLocked);
+    }
+    
+    @Override
+    public BatchResult<Boolean> deleteAll(Collection<? extends T> dataObjects
+            , int batchSize) throws ModelException {
+        return applyInBatches(dataObjects, batchSize, this::deleteLocked);
+    }
+    
+    /**
+     * Validates the arguments of a paged finder.
+     * 
+     * @param offset The number of objects to skip.
+     * 
+     * @param limit The maximum number of objects to return.
+     */
+    protected static void checkPage(int offset, int limit) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("The offset cannot be negative.");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The limit must be positive.");
+        }
+    }
+    
+    /**
+     * Copies a page of a given collection into a new list.
+     * 
+     * @param <E> The class of the elements.
+     * 
+     * @param source The whole collection.
+     * 
+     * @param offset The number of elements to skip.
+     * 
+     * @param limit The maximum number of elements to copy.
+     * 
+     * @return A new list with at most {@code limit} elements.
+     */
+    protected static <E> List<E> page(Collection<E> source, int offset, int limit) {
+        List<E> page = new ArrayList<>(Math.min(limit, 1024));
+        Iterator<E> iterator = source.iterator();
+        for (int i = 0; i < offset && iterator.hasNext(); i++) {
+            iterator.next();
+        }
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return page;
+    }
+    
+    private List<T> copies(Collection<T> source, int offset, int limit) {
+        List<T> page = page(source, offset, limit);
+        for (int i = 0; i < page.size(); i++) {
+            page.set(i, copyForCaller(page.get(i)));
+        }
+        return page;
+    }
+    
+    private T export(T dataObject) {
+        return dataObject == null ? null : copyForCaller(dataObject);
+    }
+    
+    private T find(BigInteger id) {
+        return Identifiers.fitsInLong(id) ? dataByLongId.get(id.longValue())
+                : data.get(id);
+    }
+    
+    private <R> BatchResult<R> applyInBatches(Collection<? extends T> dataObjects
+            , int batchSize, IItemOperation<T, R> operation) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive.");
+        }
+        BatchResult<R> result = new BatchResult<>(dataObjects.size());
+        Iterator<? extends T> iterator = dataObjects.iterator();
+        int index = 0;
+        while (iterator.hasNext()) {
+            lock.writeLock().lock();
+            try {
+                for (int i = 0; i < batchSize && iterator.hasNext(); i++, index++) {
+                    try {
+                        result.succeeded(index, operation.apply(iterator.next()));
+                    } catch (ModelException ex) {
+                        result.failed(index, ex);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+                publisher.dispatch();
+            }
+        }
+        return result;
+    }
+    
+    private T insertLocked(T dataObject) throws ModelException {
+        BigInteger id = requireId(dataObject);
+        if (data.containsKey(id)) {
+            throw new ModelException(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION
+                    , "Duplicated id: " + id);
+        }
+        validate(id, dataObject);
+        T stored = copy(dataObject);
+        data.put(id, stored);
+        if (Identifiers.fitsInLong(id)) {
+            dataByLongId.put(id.longValue(), stored);
+        }
+        index(id, stored);
+        stamp(id, stored, dataObject);
+        publish(MutationType.INSERT, id, stored);
+        return dataObject;
+    }
+    
+    private T updateLocked(T dataObject) throws ModelException {
+        BigInteger id = requireId(dataObject);
+        if (!data.containsKey(id)) {
+            throw new ModelException(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION
+                    , "There is no data object with id: " + id);
+        }
+        validate(id, dataObject);
+        T stored = copy(dataObject);
+        data.put(id, stored);
+        if (Identifiers.fitsInLong(id)) {
+            dataByLongId.put(id.longValue(), stored);
+        }
+        reindex(id, stored);
+        stamp(id, stored, dataObject);
+        publish(MutationType.UPDATE, id, stored);
+        return dataObject;
+    }
+    
+    private T compareAndUpdateLocked(T dataObject) throws ModelException {
+        BigInteger id = requireId(dataObject);
+        if (!(dataObject instanceof IVersioned)) {
+            throw new ModelException(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION
+                    , "The data object is not versioned: " + id);
+        }
+        if (!data.containsKey(id)) {
+            throw new ModelException(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION
+                    , "There is no data object with id: " + id);
+        }
+        long expected = ((IVersioned) dataObject).getVersion();
+        long current = versions.getOrDefault(id, IVersioned.NO_VERSION);
+        if (expected != current) {
+            throw new ModelException(ModelExceptionType.VERSION_CONFLICT_EXCEPTION
+                    , "The data object with id " + id + " has been modified: version "
+                    + expected + " is stale, current version is " + current + ".");
+        }
+        return updateLocked(dataObject);
+    }
+    
+    private Boolean deleteLocked(T dataObject) throws ModelException {
+        BigInteger id = requireId(dataObject);
+        if (!data.containsKey(id)) {
+            return false;
+        }
+        unindex(id);
+        if (Identifiers.fitsInLong(id)) {
+            dataByLongId.remove(id.longValue());
+        }
+        data.remove(id);
+        versions.remove(id);
+        publish(MutationType.DELETE, id, dataObject);
+        return true;
+    }
+    
+    private void stamp(BigInteger id, T stored, T dataObject) {
+        if (stored instanceof IVersioned) {
+            long version = versions.merge(id, 1L, Long::sum);
+            ((IVersioned) stored).setVersion(version);
+            if (dataObject instanceof IVersioned) {
+                ((IVersioned) dataObject).setVersion(version);
+            }
+        } else {
+            versions.remove(id);
+        }
+    }
+    
+    private void publish(MutationType type, BigInteger id, T dataObject) {
+        Set<String> changedFields = fieldNames;
+        if (fieldNames.isEmpty()) {
+            // Nothing to record.
+        } else if (!publisher.hasSubscribers()) {
+            if (!fieldValues.isEmpty()) {
+                fieldValues.clear();
+            }
+        } else if (type == MutationType.DELETE) {
+            fieldValues.remove(id);
+        } else {
+            Object[] values = getFieldValues(dataObject);
+            Object[] previous = fieldValues.put(id, values);
+            if (type == MutationType.UPDATE && previous != null) {
+                changedFields = new LinkedHashSet<>();
+                int i = 0;
+                for (String fieldName : fieldNames) {
+                    if (!Objects.equals(previous[i], values[i])) {
+                        changedFields.add(fieldName);
+                    }
+                    i++;
+                }
+            }
+        }
+        publisher.enqueue(type, id, changedFields);
+    }
+    
+    private BigInteger requireId(T dataObject) throws ModelException {
+        if (dataObject == null) {
+            throw new ModelException(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION
+                    , "The data object cannot be null.");
+        }
+        BigInteger id = getId(dataObject);
+        if (id == null) {
+            throw new ModelException(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION
+                    , "The data object's id cannot be null.");
+        }
+        return id;
+    }
+}
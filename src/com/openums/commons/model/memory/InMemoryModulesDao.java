@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.memory;
+
+import com.openums.commons.domain.DomainCopies;
+import com.openums.commons.domain.IDomainFactory;
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.concurrent.ConcurrentDomainFactory;
+import com.openums.commons.model.FetchPlan;
+import com.openums.commons.model.FetchPlan.Relationship;
+import com.openums.commons.model.IModulesDao;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.ModelExceptionType;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory reference implementation of {@code IModulesDao}. Besides the
+ * primary key it keeps a unique index on the Module's code, maintained
+ * incrementally on every insert, update and delete.
+ * <p/>
+ * Module codes must be unique: inserting or updating a Module whose code is
+ * held by another Module fails with {@code CONSTRAINT_VIOLATED_EXCEPTION}.
+ * 
+ * @author Delcio Amarillo
+ */
+public class InMemoryModulesDao extends InMemoryBasicDao<IModule> implements IModulesDao {
+    
+    private final IDomainFactory factory;
+    private final UniqueIndex<String> codes = new UniqueIndex<>();
+    
+    /**
+     * Creates a new {@code InMemoryModulesDao} that copies the Modules through
+     * a {@code ConcurrentDomainFactory}.
+     */
+    public InMemoryModulesDao() {
+        this(new ConcurrentDomainFactory());
+    }
+    
+    /**
+     * Creates a new {@code InMemoryModulesDao} that copies the Modules through
+     * a given factory.
+     * 
+     * @param factory The factory used to copy the stored Modules.
+     */
+    public InMemoryModulesDao(IDomainFactory factory) {
+        super(IModule.class, "code", "description");
+        this.factory = factory;
+    }
+    
+    @Override
+    protected BigInteger getId(IModule dataObject) {
+        return dataObject.getId();
+    }
+    
+    @Override
+    protected IModule copy(IModule dataObject) {
+        return DomainCopies.copy(dataObject, factory);
+    }
+    
+    @Override
+    protected IModule copyForCaller(IModule dataObject) {
+        return DomainCopies.lazyCopy(dataObject, factory);
+    }
+    
+    @Override
+    protected IModule fetch(IModule dataObject, FetchPlan plan) {
+        if (dataObject != null) {
+            if (plan.fetches(Relationship.MODULE_ROLES)) {
+                load(dataObject.getRolesList());
+            }
+            if (plan.fetches(Relationship.MODULE_PERMISSIONS)) {
+                load(dataObject.getPermissionsList());
+            }
+        }
+        return dataObject;
+    }
+    
+    @Override
+    protected Object[] getFieldValues(IModule dataObject) {
+        return new Object[] {dataObject.getCode(), dataObject.getDescription()};
+    }
+    
+    @Override
+    protected void validate(BigInteger id, IModule dataObject) throws ModelException {
+        if (codes.isTakenByOther(dataObject.getCode(), id)) {
+            throw new ModelException(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION
+                    , "Duplicated module code: " + dataObject.getCode());
+        }
+    }
+    
+    @Override
+    protected void index(BigInteger id, IModule dataObject) {
+        codes.put(id, dataObject.getCode());
+    }
+    
+    @Override
+    protected void unindex(BigInteger id) {
+        codes.remove(id);
+    }
+    
+    @Override
+    public IModule getModuleByCode(String code) throws ModelException {
+        return read(() -> lookup(codes.get(code)));
+    }
+    
+    @Override
+    public IModule getModuleByCode(String code, FetchPlan plan) throws ModelException {
+        return fetch(getModuleByCode(code), plan);
+    }
+    
+    @Override
+    public Map<String, IModule> getModulesByCodes(Collection<String> codes)
+            throws ModelException {
+        return read(() -> {
+            Map<String, IModule> result = new LinkedHashMap<>();
+            for (String code : codes) {
+                IModule module = lookup(this.codes.get(code));
+                if (module != null) {
+                    result.put(code, module);
+                }
+            }
+            return result;
+        });
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.memory;
+
+import com.openums.commons.domain.DomainGraph;
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.DomainCopies;
+import com.openums.commons.domain.IDomainFactory;
+import com.openums.commons.domain.IPermission;
+import com.openums.commons.domain.concurrent.ConcurrentDomainFactory;
+import com.openums.commons.model.FetchPlan;
+import com.openums.commons.model.FetchPlan.Relationship;
+import com.openums.commons.model.IPermissionsDao;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.ModelExceptionType;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory reference implementation of {@code IPermissionsDao}. Besides the
+ * primary key it keeps a unique index on the Permission's code and an index
+ * on the Module's primary key, maintained incrementally on every insert,
+ * update and delete.
+ * <p/>
+ * Permission codes must be unique: inserting or updating a Permission whose
+ * code is held by another Permission fails with
+ * {@code CONSTRAINT_VIOLATED_EXCEPTION}.
+ * 
+ * @author Delcio Amarillo
+ */
+public class InMemoryPermissionsDao extends InMemoryBasicDao<IPermission>
+        implements IPermissionsDao {
+    
+    private final IDomainFactory factory;
+    private final UniqueIndex<String> codes = new UniqueIndex<>();
+    private final MultiIndex<BigInteger> modules = new MultiIndex<>();
+    
+    /**
+     * Creates a new {@code InMemoryPermissionsDao} that copies the
+     * Permissions through a {@code ConcurrentDomainFactory}.
+     */
+    public InMemoryPermissionsDao() {
+        this(new ConcurrentDomainFactory());
+    }
+    
+    /**
+     * Creates a new {@code InMemoryPermissionsDao} that copies the
+     * Permissions through a given factory.
+     * 
+     * @param factory The factory used to copy the stored Permissions.
+     */
+    public InMemoryPermissionsDao(IDomainFactory factory) {
+        super(IPermission.class, "code", "description", "module");
+        this.factory = factory;
+    }
+    
+    @Override
+    protected BigInteger getId(IPermission dataObject) {
+        return dataObject.getId();
+    }
+    
+    @Override
+    protected IPermission copy(IPermission dataObject) {
+        return DomainCopies.copy(dataObject, factory);
+    }
+    
+    @Override
+    protected IPermission copyForCaller(IPermission dataObject) {
+        return DomainCopies.lazyCopy(dataObject, factory);
+    }
+    
+    @Override
+    protected IPermission fetch(IPermission dataObject, FetchPlan plan) {
+        if (dataObject != null) {
+            if (plan.fetches(Relationship.PERMISSION_ROLES)) {
+                load(dataObject.getRolePermissionsList());
+            }
+        }
+        return dataObject;
+    }
+    
+    @Override
+    protected Object[] getFieldValues(IPermission dataObject) {
+        return new Object[] {dataObject.getCode(), dataObject.getDescription()
+                , DomainGraph.getModuleId(dataObject)};
+    }
+    
+    @Override
+    protected void validate(BigInteger id, IPermission dataObject)
+            throws ModelException {
+        if (codes.isTakenByOther(dataObject.getCode(), id)) {
+            throw new ModelException(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION
+                    , "Duplicated permission code: " + dataObject.getCode());
+        }
+    }
+    
+    @Override
+    protected void index(BigInteger id, IPermission dataObject) {
+        codes.put(id, dataObject.getCode());
+        modules.put(id, Collections.singleton(DomainGraph.getModuleId(dataObject)));
+    }
+    
+    @Override
+    protected void unindex(BigInteger id) {
+        codes.remove(id);
+        modules.remove(id);
+    }
+    
+    @Override
+    public IPermission getPermissionByCode(String code) throws ModelException {
+        return read(() -> lookup(codes.get(code)));
+    }
+    
+    @Override
+    public IPermission getPermissionByCode(String code, FetchPlan plan) throws ModelException {
+        return fetch(getPermissionByCode(code), plan);
+    }
+    
+    @Override
+    public Map<String, IPermission> getPermissionsByCodes(Collection<String> codes)
+            throws ModelException {
+        return read(() -> {
+            Map<String, IPermission> result = new LinkedHashMap<>();
+            for (String code : codes) {
+                IPermission permission = lookup(this.codes.get(code));
+                if (permission != null) {
+                    result.put(code, permission);
+                }
+            }
+            return result;
+        });
+    }
+    
+    @Override
+    public List<IPermission> getPermissionsByModule(BigInteger idModule)
+            throws ModelException {
+        return read(() -> lookup(modules.get(idModule)));
+    }
+    
+    @Override
+    public List<IPermission> getPermissionsByModule(IModule module)
+            throws ModelException {
+        return module == null ? new ArrayList<IPermission>()
+                : getPermissionsByModule(module.getId());
+    }
+}
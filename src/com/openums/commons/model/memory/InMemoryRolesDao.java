@@ -0,0 +1,314 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.memory;
+
+import com.openums.commons.domain.DomainGraph;
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.DomainCopies;
+import com.openums.commons.domain.IDomainFactory;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.concurrent.ConcurrentDomainFactory;
+import com.openums.commons.model.FetchPlan;
+import com.openums.commons.model.FetchPlan.Relationship;
+import com.openums.commons.model.IRolesDao;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.ModelExceptionType;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * In-memory reference implementation of {@code IRolesDao}. Besides the
+ * primary key it keeps a unique index on the Role's code, an index on the
+ * Module's primary key and a reverse index from the code of every enabled
+ * Permission to the Roles holding it. The indexes are maintained
+ * incrementally on every insert, update and delete.
+ * <p/>
+ * The transitive closure of the Role inheritance is maintained incrementally
+ * as well, along with the permission codes every Role holds directly or
+ * through its ancestors, so {@link #getAncestorRoles(BigInteger)},
+ * {@link #getDescendantRoles(BigInteger)} and
+ * {@link #roleHasPermission(BigInteger, String)} cost the same whatever the
+ * depth of the hierarchy. {@link #getRolesByPermission(String)} adds the
+ * descendants of the Roles holding the Permission directly. Parents are referenced by primary key and do not
+ * need to be stored first.
+ * <p/>
+ * Role codes must be unique: inserting or updating a Role whose code is held
+ * by another Role fails with {@code CONSTRAINT_VIOLATED_EXCEPTION}. So does
+ * inserting or updating a Role that would inherit from itself, directly or
+ * transitively.
+ * 
+ * @author Delcio Amarillo
+ */
+public class InMemoryRolesDao extends InMemoryBasicDao<IRole> implements IRolesDao {
+    
+    private final IDomainFactory factory;
+    private final UniqueIndex<String> codes = new UniqueIndex<>();
+    private final MultiIndex<BigInteger> modules = new MultiIndex<>();
+    private final MultiIndex<String> permissions = new MultiIndex<>();
+    private final RoleHierarchy hierarchy = new RoleHierarchy();
+    
+    /**
+     * Creates a new {@code InMemoryRolesDao} that copies the Roles through
+     * a {@code ConcurrentDomainFactory}.
+     */
+    public InMemoryRolesDao() {
+        this(new ConcurrentDomainFactory());
+    }
+    
+    /**
+     * Creates a new {@code InMemoryRolesDao} that copies the Roles through
+     * a given factory.
+     * 
+     * @param factory The factory used to copy the stored Roles.
+     */
+    public InMemoryRolesDao(IDomainFactory factory) {
+        super(IRole.class, "code", "description", "module", "permissions", "parents");
+        this.factory = factory;
+    }
+    
+    @Override
+    protected BigInteger getId(IRole dataObject) {
+        return dataObject.getId();
+    }
+    
+    @Override
+    protected IRole copy(IRole dataObject) {
+        return DomainCopies.copy(dataObject, factory);
+    }
+    
+    @Override
+    protected IRole copyForCaller(IRole dataObject) {
+        return DomainCopies.lazyCopy(dataObject, factory);
+    }
+    
+    @Override
+    protected IRole fetch(IRole dataObject, FetchPlan plan) {
+        if (dataObject != null) {
+            if (plan.fetches(Relationship.ROLE_PERMISSIONS)) {
+                load(dataObject.getRolePermissionsList());
+            }
+            if (plan.fetches(Relationship.ROLE_USERS)) {
+                load(dataObject.getUserRolesList());
+            }
+        }
+        return dataObject;
+    }
+    
+    @Override
+    protected Object[] getFieldValues(IRole dataObject) {
+        return new Object[] {dataObject.getCode(), dataObject.getDescription()
+                , DomainGraph.getModuleId(dataObject)
+                , DomainGraph.getEnabledPermissionCodes(dataObject)
+                , DomainGraph.getParentRoleIds(dataObject)};
+    }
+    
+    @Override
+    protected void validate(BigInteger id, IRole dataObject) throws ModelException {
+        if (codes.isTakenByOther(dataObject.getCode(), id)) {
+            throw new ModelException(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION
+                    , "Duplicated role code: " + dataObject.getCode());
+        }
+        BigInteger parentId = hierarchy.findCycle(id
+                , DomainGraph.getParentRoleIds(dataObject));
+        if (parentId != null) {
+            throw new ModelException(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION
+                    , "Role " + id + " cannot inherit from role " + parentId
+                    + ": the inheritance would form a cycle.");
+        }
+    }
+    
+    @Override
+    protected void index(BigInteger id, IRole dataObject) {
+        codes.put(id, dataObject.getCode());
+        modules.put(id, Collections.singleton(DomainGraph.getModuleId(dataObject)));
+        Set<String> permissionCodes = DomainGraph.getEnabledPermissionCodes(dataObject);
+        permissions.put(id, permissionCodes);
+        hierarchy.put(id, DomainGraph.getParentRoleIds(dataObject), permissionCodes);
+    }
+    
+    @Override
+    protected void unindex(BigInteger id) {
+        codes.remove(id);
+        modules.remove(id);
+        permissions.remove(id);
+        hierarchy.remove(id);
+    }
+    
+    /**
+     * Applies only the difference to the inheritance closure, rather than
+     * detaching the Role and its descendants and attaching them back.
+     */
+    @Override
+    protected void reindex(BigInteger id, IRole dataObject) {
+        codes.remove(id);
+        modules.remove(id);
+        permissions.remove(id);
+        index(id, dataObject);
+    }
+    
+    @Override
+    public IRole getRoleByCode(String code) throws ModelException {
+        return read(() -> {
+            return lookup(codes.get(code));
+        });
+    }
+    
+    @Override
+    public IRole getRoleByCode(String code, FetchPlan plan) throws ModelException {
+        return fetch(getRoleByCode(code), plan);
+    }
+    
+    @Override
+    public Map<String, IRole> getRolesByCodes(Collection<String> codes)
+            throws ModelException {
+        return read(() -> {
+            Map<String, IRole> result = new LinkedHashMap<>();
+            for (String code : codes) {
+                IRole role = lookup(this.codes.get(code));
+                if (role != null) {
+                    result.put(code, role);
+                }
+            }
+            return result;
+        });
+    }
+    
+    @Override
+    public List<IRole> getRolesByModule(BigInteger idModule) throws ModelException {
+        return read(() -> lookup(modules.get(idModule)));
+    }
+    
+    @Override
+    public List<IRole> getRolesByModule(IModule module) throws ModelException {
+        return module == null ? new ArrayList<IRole>() : getRolesByModule(module.getId());
+    }
+    
+    /**
+     * Returns the Roles holding a given Permission straight from the reverse
+     * index and the descendants recorded in the inheritance closure, in
+     * ascending primary key order.
+     */
+    @Override
+    public List<IRole> getRolesByPermission(String permissionCode)
+            throws ModelException {
+        return read(() -> lookup(grantingRoleIds(permissionCode)));
+    }
+    
+    /**
+     * Returns the primary keys of the Roles holding a given Permission,
+     * either directly or through inheritance, in ascending order.
+     * 
+     * @param permissionCode The Permission's code.
+     * 
+     * @return A new set with the Roles' primary keys.
+     */
+    public NavigableSet<BigInteger> getRoleIdsByPermission(String permissionCode) {
+        return read(() -> grantingRoleIds(permissionCode));
+    }
+    
+    /**
+     * Returns the primary keys of the Roles some given Roles are or inherit
+     * from, directly or transitively, straight from the inheritance closure.
+     * Parents that are not stored are included as well.
+     * 
+     * @param roleIds The Roles' primary keys.
+     * 
+     * @return A new set with the given keys and their ancestors' keys, in
+     * ascending order.
+     */
+    public NavigableSet<BigInteger> getEffectiveRoleIds(Collection<BigInteger> roleIds) {
+        return read(() -> {
+            NavigableSet<BigInteger> ids = new TreeSet<>();
+            for (BigInteger roleId : roleIds) {
+                if (roleId != null) {
+                    ids.add(roleId);
+                    ids.addAll(hierarchy.ancestorsOf(roleId));
+                }
+            }
+            return ids;
+        });
+    }
+    
+    @Override
+    public List<IRole> getParentRoles(BigInteger roleId) throws ModelException {
+        return read(() -> lookup(hierarchy.parentsOf(roleId)));
+    }
+    
+    /**
+     * Returns the ancestors straight from the inheritance closure, in
+     * ascending primary key order.
+     */
+    @Override
+    public List<IRole> getAncestorRoles(BigInteger roleId) throws ModelException {
+        return read(() -> lookup(new TreeSet<>(hierarchy.ancestorsOf(roleId))));
+    }
+    
+    /**
+     * Returns the descendants straight from the inheritance closure, in
+     * ascending primary key order.
+     */
+    @Override
+    public List<IRole> getDescendantRoles(BigInteger roleId) throws ModelException {
+        return read(() -> lookup(new TreeSet<>(hierarchy.descendantsOf(roleId))));
+    }
+    
+    /**
+     * Answers from the permission codes precomputed for every Role and its
+     * ancestors.
+     */
+    @Override
+    public boolean roleHasPermission(BigInteger roleId, String permissionCode) {
+        return read(() -> contains(roleId)
+                && hierarchy.grants(roleId, permissionCode));
+    }
+    
+    /**
+     * Returns whether a given Role inherits, directly or transitively, from
+     * another one.
+     * 
+     * @param roleId The inheriting Role's primary key.
+     * 
+     * @param ancestorId The ancestor Role's primary key.
+     * 
+     * @return {@code true} if the first Role inherits from the second one.
+     */
+    public boolean inheritsFrom(BigInteger roleId, BigInteger ancestorId) {
+        return read(() -> hierarchy.inheritsFrom(roleId, ancestorId));
+    }
+    
+    /**
+     * Returns the Roles granting a given Permission themselves along with the
+     * Roles inheriting from them.
+     */
+    private NavigableSet<BigInteger> grantingRoleIds(String permissionCode) {
+        NavigableSet<BigInteger> ids = new TreeSet<>();
+        for (BigInteger id : permissions.get(permissionCode)) {
+            ids.add(id);
+            ids.addAll(hierarchy.descendantsOf(id));
+        }
+        return ids;
+    }
+}
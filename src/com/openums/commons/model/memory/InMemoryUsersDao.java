@@ -0,0 +1,332 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.memory;
+
+import com.openums.commons.domain.DomainGraph;
+import com.openums.commons.domain.DomainCopies;
+import com.openums.commons.domain.IDomainFactory;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.LoginRecord;
+import com.openums.commons.domain.concurrent.ConcurrentDomainFactory;
+import com.openums.commons.model.FetchPlan;
+import com.openums.commons.model.FetchPlan.Relationship;
+import com.openums.commons.model.IUsersDao;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.ModelExceptionType;
+import com.openums.commons.model.SearchMode;
+import com.openums.commons.model.UserSearchField;
+import com.openums.commons.util.Trigrams;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * In-memory reference implementation of {@code IUsersDao}. Besides the
+ * primary key it keeps a unique index on the user name, an index from every
+ * Role's primary key to the Users associated to it and two indexes on the
+ * active and unlocked flags, so none of the finders scans the whole data set.
+ * Every {@code UserSearchField} is also kept in a {@code TextIndex} that
+ * serves {@link #searchUsers(UserSearchField, String, SearchMode, int)}.
+ * The indexes are maintained incrementally on every insert, update and
+ * delete, and every finder reads them under the DAO's read lock, so results
+ * never mix the states before and after a concurrent write. A {@code null}
+ * flag is indexed as {@code false}.
+ * <p/>
+ * When built on top of an {@code InMemoryRolesDao},
+ * {@link #getUsersByPermission(String)} resolves the Roles holding the
+ * Permission, directly or through inheritance, through the roles DAO's
+ * reverse index and inheritance closure and then the Users of
+ * those Roles through this DAO's role index, so changes to a Role's
+ * permissions are reflected as soon as the Role is updated in the roles DAO.
+ * {@link #getLoginRecord(String)} resolves the inherited Roles through the
+ * same inheritance closure.
+ * <p/>
+ * User names must be unique: inserting or updating a User whose name is held
+ * by another User fails with {@code CONSTRAINT_VIOLATED_EXCEPTION}.
+ * 
+ * @author Delcio Amarillo
+ */
+public class InMemoryUsersDao extends InMemoryBasicDao<IUser> implements IUsersDao {
+    
+    private final IDomainFactory factory;
+    private final InMemoryRolesDao rolesDao;
+    private final UniqueIndex<String> userNames = new UniqueIndex<>();
+    private final MultiIndex<BigInteger> roles = new MultiIndex<>();
+    private final MultiIndex<Boolean> active = new MultiIndex<>();
+    private final MultiIndex<Boolean> unlocked = new MultiIndex<>();
+    private final Map<UserSearchField, TextIndex> texts = new EnumMap<>(UserSearchField.class);
+    
+    /**
+     * Creates a new {@code InMemoryUsersDao} with no associated roles DAO.
+     * Permission queries walk the Users' own object graph.
+     */
+    public InMemoryUsersDao() {
+        this(null);
+    }
+    
+    /**
+     * Creates a new {@code InMemoryUsersDao} that resolves permission queries
+     * through a given roles DAO and copies the Users through a
+     * {@code ConcurrentDomainFactory}.
+     * 
+     * @param rolesDao The roles DAO. Can be {@code null}.
+     */
+    public InMemoryUsersDao(InMemoryRolesDao rolesDao) {
+        this(new ConcurrentDomainFactory(), rolesDao);
+    }
+    
+    /**
+     * Creates a new {@code InMemoryUsersDao} that resolves permission queries
+     * through a given roles DAO and copies the Users through a given factory.
+     * 
+     * @param factory The factory used to copy the stored Users.
+     * 
+     * @param rolesDao The roles DAO. Can be {@code null}.
+     */
+    public InMemoryUsersDao(IDomainFactory factory, InMemoryRolesDao rolesDao) {
+        super(IUser.class, "userName", "name", "lastName", "gender", "dateOfBirth"
+                , "email", "password", "active", "unlocked", "roles");
+        this.factory = factory;
+        this.rolesDao = rolesDao;
+        for (UserSearchField field : UserSearchField.values()) {
+            texts.put(field, new TextIndex());
+        }
+    }
+    
+    @Override
+    protected BigInteger getId(IUser dataObject) {
+        return dataObject.getId();
+    }
+    
+    @Override
+    protected IUser copy(IUser dataObject) {
+        return DomainCopies.copy(dataObject, factory);
+    }
+    
+    @Override
+    protected IUser copyForCaller(IUser dataObject) {
+        return DomainCopies.lazyCopy(dataObject, factory);
+    }
+    
+    @Override
+    protected IUser fetch(IUser dataObject, FetchPlan plan) {
+        if (dataObject != null) {
+            if (plan.fetches(Relationship.USER_ROLES)) {
+                load(dataObject.getUserRolesList());
+            }
+        }
+        return dataObject;
+    }
+    
+    @Override
+    protected Object[] getFieldValues(IUser dataObject) {
+        Date dateOfBirth = dataObject.getDateOfBirth();
+        return new Object[] {dataObject.getUserName(), dataObject.getName()
+                , dataObject.getLastName(), dataObject.getGender()
+                , dateOfBirth == null ? null : dateOfBirth.getTime()
+                , dataObject.getEmail(), dataObject.getPassword()
+                , dataObject.isActive(), dataObject.isUnlocked()
+                , new HashSet<>(DomainGraph.getRoleIds(dataObject))};
+    }
+    
+    @Override
+    protected void validate(BigInteger id, IUser dataObject) throws ModelException {
+        if (userNames.isTakenByOther(dataObject.getUserName(), id)) {
+            throw new ModelException(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION
+                    , "Duplicated user name: " + dataObject.getUserName());
+        }
+    }
+    
+    @Override
+    protected void index(BigInteger id, IUser dataObject) {
+        userNames.put(id, dataObject.getUserName());
+        roles.put(id, DomainGraph.getRoleIds(dataObject));
+        active.put(id, Collections.singleton(Boolean.TRUE.equals(dataObject.isActive())));
+        unlocked.put(id, Collections.singleton(Boolean.TRUE.equals(dataObject.isUnlocked())));
+        for (Map.Entry<UserSearchField, TextIndex> text : texts.entrySet()) {
+            text.getValue().put(id, text.getKey().valueOf(dataObject));
+        }
+    }
+    
+    @Override
+    protected void unindex(BigInteger id) {
+        userNames.remove(id);
+        roles.remove(id);
+        active.remove(id);
+        unlocked.remove(id);
+        for (TextIndex text : texts.values()) {
+            text.remove(id);
+        }
+    }
+    
+    @Override
+    public IUser getUserByName(String userName) throws ModelException {
+        return read(() -> lookup(userNames.get(userName)));
+    }
+    
+    @Override
+    public IUser getUserByName(String userName, FetchPlan plan) throws ModelException {
+        return fetch(getUserByName(userName), plan);
+    }
+    
+    /**
+     * Records as effective Roles the User's own Roles along with their
+     * ancestors in the associated roles DAO's inheritance closure. Falls back
+     * to walking the User's object graph when there is no roles DAO.
+     */
+    @Override
+    public LoginRecord getLoginRecord(String userName) throws ModelException {
+        IUser user = getUserByName(userName);
+        if (user == null || rolesDao == null) {
+            return LoginRecord.of(user);
+        }
+        return LoginRecord.of(user, rolesDao.getEffectiveRoleIds(
+                DomainGraph.getRoleIds(user)));
+    }
+    
+    @Override
+    public Map<String, IUser> getUsersByNames(Collection<String> userNames)
+            throws ModelException {
+        return read(() -> {
+            Map<String, IUser> result = new LinkedHashMap<>();
+            for (String userName : userNames) {
+                IUser user = lookup(this.userNames.get(userName));
+                if (user != null) {
+                    result.put(userName, user);
+                }
+            }
+            return result;
+        });
+    }
+    
+    @Override
+    public List<IUser> getActiveUsers() throws ModelException {
+        return getActiveUsers(0, Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public List<IUser> getInactiveUsers() throws ModelException {
+        return getInactiveUsers(0, Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public List<IUser> getLockedUsers() throws ModelException {
+        return getLockedUsers(0, Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public List<IUser> getUnlockedUsers() throws ModelException {
+        return getUnlockedUsers(0, Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public List<IUser> getActiveUsers(int offset, int limit)
+            throws ModelException {
+        return find(active, Boolean.TRUE, offset, limit);
+    }
+    
+    @Override
+    public List<IUser> getInactiveUsers(int offset, int limit)
+            throws ModelException {
+        return find(active, Boolean.FALSE, offset, limit);
+    }
+    
+    @Override
+    public List<IUser> getLockedUsers(int offset, int limit)
+            throws ModelException {
+        return find(unlocked, Boolean.FALSE, offset, limit);
+    }
+    
+    @Override
+    public List<IUser> getUnlockedUsers(int offset, int limit)
+            throws ModelException {
+        return find(unlocked, Boolean.TRUE, offset, limit);
+    }
+    
+    @Override
+    public List<IUser> getUsersByRole(BigInteger idRole) throws ModelException {
+        return read(() -> lookup(roles.get(idRole)));
+    }
+    
+    @Override
+    public List<IUser> getUsersByRole(IRole role) throws ModelException {
+        return role == null ? new ArrayList<IUser>() : getUsersByRole(role.getId());
+    }
+    
+    @Override
+    public List<IUser> getUsersByRole(BigInteger idRole, int offset, int limit)
+            throws ModelException {
+        checkPage(offset, limit);
+        return read(() -> lookup(page(roles.get(idRole), offset, limit)));
+    }
+    
+    /**
+     * Returns the Users holding a given Permission through the reverse
+     * permission-to-roles index of the roles DAO and the roles-to-users index
+     * of this DAO. Falls back to walking every User's object graph when there
+     * is no associated roles DAO.
+     */
+    @Override
+    public List<IUser> getUsersByPermission(String permissionCode)
+            throws ModelException {
+        if (rolesDao == null) {
+            return IUsersDao.super.getUsersByPermission(permissionCode);
+        }
+        NavigableSet<BigInteger> roleIds = rolesDao.getRoleIdsByPermission(permissionCode);
+        return read(() -> {
+            NavigableSet<BigInteger> userIds = new TreeSet<>();
+            for (BigInteger roleId : roleIds) {
+                userIds.addAll(roles.get(roleId));
+            }
+            return lookup(userIds);
+        });
+    }
+    
+    /**
+     * Answers the search from the field's {@code TextIndex} without scanning
+     * the Users.
+     */
+    @Override
+    public List<IUser> searchUsers(UserSearchField field, String text
+            , SearchMode mode, int limit) throws ModelException {
+        if (field == null || text == null || mode == null) {
+            throw new IllegalArgumentException("The field, text and mode cannot be null.");
+        }
+        checkPage(0, limit);
+        TextIndex index = texts.get(field);
+        return read(() -> lookup(mode == SearchMode.FUZZY
+                ? index.findSimilar(text, Trigrams.DEFAULT_THRESHOLD, limit)
+                : index.findByPrefix(text, mode == SearchMode.PREFIX_IGNORE_CASE, limit)));
+    }
+    
+    private List<IUser> find(MultiIndex<Boolean> flag, Boolean value, int offset
+            , int limit) {
+        checkPage(offset, limit);
+        return read(() -> lookup(page(flag.get(value), offset, limit)));
+    }
+}
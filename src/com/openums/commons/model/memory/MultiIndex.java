@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.memory;
+
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Index from a non-unique key (i.e.: a module id, a role id or a permission
+ * code) to the primary keys of the data objects holding it, kept in ascending
+ * order. Each object may hold several keys. The keys of every indexed object
+ * are remembered, so the index can be maintained even when the object was
+ * modified in place before being updated.
+ * <p/>
+ * This class is not thread-safe: it is guarded by the owner DAO's lock.
+ * 
+ * @param <K> The class of the keys.
+ * @author Delcio Amarillo
+ */
+class MultiIndex<K> {
+    
+    private final Map<K, NavigableSet<BigInteger>> idsByKey = new HashMap<>();
+    private final Map<BigInteger, Set<K>> keysById = new HashMap<>();
+    
+    /**
+     * Returns the primary keys of the objects holding a given key, in
+     * ascending order. The returned set is a read-only view.
+     */
+    NavigableSet<BigInteger> get(K key) {
+        NavigableSet<BigInteger> ids = key == null ? null : idsByKey.get(key);
+        return ids == null ? Collections.<BigInteger>emptyNavigableSet()
+                : Collections.unmodifiableNavigableSet(ids);
+    }
+    
+    /**
+     * Returns the keys held by a given object. The returned set is a
+     * read-only view.
+     */
+    Set<K> keysOf(BigInteger id) {
+        Set<K> keys = keysById.get(id);
+        return keys == null ? Collections.<K>emptySet()
+                : Collections.unmodifiableSet(keys);
+    }
+    
+    /**
+     * Associates several keys to an object, replacing its previous keys.
+     */
+    void put(BigInteger id, Collection<K> keys) {
+        remove(id);
+        Set<K> ownKeys = new HashSet<>();
+        for (K key : keys) {
+            if (key != null && ownKeys.add(key)) {
+                NavigableSet<BigInteger> ids = idsByKey.get(key);
+                if (ids == null) {
+                    ids = new TreeSet<>();
+                    idsByKey.put(key, ids);
+                }
+                ids.add(id);
+            }
+        }
+        if (!ownKeys.isEmpty()) {
+            keysById.put(id, ownKeys);
+        }
+    }
+    
+    /**
+     * Removes all the keys associated to an object.
+     */
+    void remove(BigInteger id) {
+        Set<K> keys = keysById.remove(id);
+        if (keys == null) {
+            return;
+        }
+        for (K key : keys) {
+            NavigableSet<BigInteger> ids = idsByKey.get(key);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                idsByKey.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.memory;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Transitive closure of the inheritance between Roles, maintained
+ * incrementally as Roles are stored and removed. The inheritance edges are
+ * owned by the inheriting Role; a parent does not need to be stored itself,
+ * so Roles can be stored in any order.
+ * <p/>
+ * Besides the direct parents, every Role records all its ancestors and all
+ * its descendants and, for every permission code, how many Roles among
+ * itself and its ancestors grant it. Inheritance and permission queries are
+ * therefore answered with a hash lookup whatever the depth of the hierarchy,
+ * and a change only touches the Roles whose closure actually changes: the
+ * Role itself and its descendants.
+ * <p/>
+ * This class is not thread-safe: it is guarded by the owner DAO's lock.
+ * 
+ * @author Delcio Amarillo
+ */
+class RoleHierarchy {
+    
+    private final Map<BigInteger, Set<BigInteger>> parents = new HashMap<>();
+    private final Map<BigInteger, Set<BigInteger>> children = new HashMap<>();
+    private final Map<BigInteger, Set<BigInteger>> ancestors = new HashMap<>();
+    private final Map<BigInteger, Set<BigInteger>> descendants = new HashMap<>();
+    private final Map<BigInteger, Set<String>> codes = new HashMap<>();
+    private final Map<BigInteger, Map<String, int[]>> grants = new HashMap<>();
+    
+    /**
+     * Returns the Roles a given Role inherits from directly. The returned set
+     * is a read-only view.
+     */
+    Set<BigInteger> parentsOf(BigInteger id) {
+        return view(parents, id);
+    }
+    
+    /**
+     * Returns the Roles a given Role inherits from, directly or transitively.
+     * The returned set is a read-only view.
+     */
+    Set<BigInteger> ancestorsOf(BigInteger id) {
+        return view(ancestors, id);
+    }
+    
+    /**
+     * Returns the Roles inheriting from a given Role, directly or
+     * transitively. The returned set is a read-only view.
+     */
+    Set<BigInteger> descendantsOf(BigInteger id) {
+        return view(descendants, id);
+    }
+    
+    /**
+     * Returns whether a Role inherits, directly or transitively, from
+     * another one.
+     */
+    boolean inheritsFrom(BigInteger id, BigInteger ancestorId) {
+        return ancestorsOf(id).contains(ancestorId);
+    }
+    
+    /**
+     * Returns whether a Role or any of its ancestors grants a given
+     * permission code.
+     */
+    boolean grants(BigInteger id, String code) {
+        Map<String, int[]> counts = grants.get(id);
+        return counts != null && counts.containsKey(code);
+    }
+    
+    /**
+     * Returns the parent of a given Role that would close a cycle if the
+     * Role inherited from the given parents, i.e.: the Role itself or one of
+     * its descendants.
+     * 
+     * @return The offending parent or {@code null} if there's none.
+     */
+    BigInteger findCycle(BigInteger id, Collection<BigInteger> newParents) {
+        Set<BigInteger> below = descendantsOf(id);
+        for (BigInteger parentId : newParents) {
+            if (id.equals(parentId) || below.contains(parentId)) {
+                return parentId;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Records the parents and the granted permission codes of a Role,
+     * replacing the previous ones. The caller must have checked the parents
+     * with {@link #findCycle}.
+     */
+    void put(BigInteger id, Collection<BigInteger> newParents
+            , Collection<String> newCodes) {
+        Set<String> oldCodes = view(codes, id);
+        Set<String> ownCodes = withoutNulls(newCodes);
+        if (!oldCodes.equals(ownCodes)) {
+            List<BigInteger> affected = new ArrayList<>(descendantsOf(id));
+            affected.add(id);
+            for (BigInteger roleId : affected) {
+                for (String code : oldCodes) {
+                    if (!ownCodes.contains(code)) {
+                        count(roleId, code, -1);
+                    }
+                }
+                for (String code : ownCodes) {
+                    if (!oldCodes.contains(code)) {
+                        count(roleId, code, 1);
+                    }
+                }
+            }
+            store(codes, id, ownCodes);
+        }
+        Set<BigInteger> ownParents = withoutNulls(newParents);
+        Set<BigInteger> oldParents = parentsOf(id);
+        if (!oldParents.equals(ownParents)) {
+            for (BigInteger parentId : oldParents) {
+                if (!ownParents.contains(parentId)) {
+                    unlink(children, parentId, id);
+                }
+            }
+            for (BigInteger parentId : ownParents) {
+                children.computeIfAbsent(parentId, key -> new HashSet<>()).add(id);
+            }
+            store(parents, id, ownParents);
+            for (BigInteger roleId : parentsFirst(id)) {
+                relink(roleId);
+            }
+        }
+    }
+    
+    /**
+     * Forgets the parents and the granted permission codes of a Role. The
+     * Roles inheriting from it keep doing so, should it be stored again.
+     */
+    void remove(BigInteger id) {
+        put(id, Collections.<BigInteger>emptySet(), Collections.<String>emptySet());
+    }
+    
+    /**
+     * Recomputes the ancestors of a Role from those of its parents, which
+     * must be up to date, and applies the difference to the descendants and
+     * the grant counters.
+     */
+    private void relink(BigInteger id) {
+        Set<BigInteger> newAncestors = new HashSet<>();
+        for (BigInteger parentId : parentsOf(id)) {
+            newAncestors.add(parentId);
+            newAncestors.addAll(ancestorsOf(parentId));
+        }
+        Set<BigInteger> oldAncestors = ancestorsOf(id);
+        for (BigInteger ancestorId : oldAncestors) {
+            if (!newAncestors.contains(ancestorId)) {
+                unlink(descendants, ancestorId, id);
+                for (String code : view(codes, ancestorId)) {
+                    count(id, code, -1);
+                }
+            }
+        }
+        for (BigInteger ancestorId : newAncestors) {
+            if (!oldAncestors.contains(ancestorId)) {
+                descendants.computeIfAbsent(ancestorId, key -> new HashSet<>()).add(id);
+                for (String code : view(codes, ancestorId)) {
+                    count(id, code, 1);
+                }
+            }
+        }
+        store(ancestors, id, newAncestors);
+    }
+    
+    /**
+     * Returns a Role and its descendants, every Role after all its parents.
+     */
+    private List<BigInteger> parentsFirst(BigInteger id) {
+        Set<BigInteger> affected = new HashSet<>(descendantsOf(id));
+        Map<BigInteger, int[]> pending = new HashMap<>();
+        for (BigInteger roleId : affected) {
+            int[] count = new int[1];
+            for (BigInteger parentId : parentsOf(roleId)) {
+                if (parentId.equals(id) || affected.contains(parentId)) {
+                    count[0]++;
+                }
+            }
+            pending.put(roleId, count);
+        }
+        List<BigInteger> order = new ArrayList<>(affected.size() + 1);
+        Deque<BigInteger> ready = new ArrayDeque<>();
+        ready.add(id);
+        while (!ready.isEmpty()) {
+            BigInteger roleId = ready.poll();
+            order.add(roleId);
+            for (BigInteger childId : view(children, roleId)) {
+                if (--pending.get(childId)[0] == 0) {
+                    ready.add(childId);
+                }
+            }
+        }
+        return order;
+    }
+    
+    private void count(BigInteger id, String code, int delta) {
+        Map<String, int[]> counts = grants.computeIfAbsent(id, key -> new HashMap<>());
+        int[] count = counts.computeIfAbsent(code, key -> new int[1]);
+        count[0] += delta;
+        if (count[0] == 0) {
+            counts.remove(code);
+            if (counts.isEmpty()) {
+                grants.remove(id);
+            }
+        }
+    }
+    
+    private static <E> Set<E> withoutNulls(Collection<E> elements) {
+        Set<E> result = new LinkedHashSet<>(elements);
+        result.remove(null);
+        return result;
+    }
+    
+    private static <E> Set<E> view(Map<BigInteger, Set<E>> map, BigInteger id) {
+        Set<E> set = id == null ? null : map.get(id);
+        return set == null ? Collections.<E>emptySet() : Collections.unmodifiableSet(set);
+    }
+    
+    private static <E> void store(Map<BigInteger, Set<E>> map, BigInteger id, Set<E> set) {
+        if (set.isEmpty()) {
+            map.remove(id);
+        } else {
+            map.put(id, set);
+        }
+    }
+    
+    private static void unlink(Map<BigInteger, Set<BigInteger>> map, BigInteger id
+            , BigInteger other) {
+        Set<BigInteger> set = map.get(id);
+        if (set != null && set.remove(other) && set.isEmpty()) {
+            map.remove(id);
+        }
+    }
+}
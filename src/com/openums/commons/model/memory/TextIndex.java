@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.memory;
+
+import com.openums.commons.util.LongObjectHashMap;
+import com.openums.commons.util.Trigrams;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Search index over a text property of the data objects (i.e.: a user name).
+ * <p/>
+ * Prefix searches walk a sorted map from lower cased value to primary keys,
+ * starting at the prefix and stopping at the first value that does not start
+ * with it, so they cost a logarithmic seek plus the number of visited
+ * matches.
+ * <p/>
+ * Fuzzy searches rely on trigram posting lists. Since a value can only reach
+ * the similarity threshold if it shares at least {@code threshold * n} of the
+ * {@code n} trigrams of the search text, candidates are only collected from
+ * the {@code n - minimum + 1} shortest posting lists of the text's trigrams
+ * and then verified against their own trigrams, which keeps very common
+ * trigrams out of the candidate generation most of the time.
+ * <p/>
+ * This class is not thread-safe: it is guarded by the owner DAO's lock.
+ * 
+ * @author Delcio Amarillo
+ */
+class TextIndex {
+    
+    private final NavigableMap<String, NavigableSet<BigInteger>> idsByValue = new TreeMap<>();
+    private final Map<BigInteger, String> valuesById = new HashMap<>();
+    private final LongObjectHashMap<Set<BigInteger>> idsByTrigram = new LongObjectHashMap<>();
+    private final Map<BigInteger, long[]> trigramsById = new HashMap<>();
+    
+    /**
+     * Associates a value to an object, replacing its previous value.
+     */
+    void put(BigInteger id, String value) {
+        remove(id);
+        if (value == null) {
+            return;
+        }
+        String key = value.toLowerCase(Locale.ROOT);
+        NavigableSet<BigInteger> ids = idsByValue.get(key);
+        if (ids == null) {
+            ids = new TreeSet<>();
+            idsByValue.put(key, ids);
+        }
+        ids.add(id);
+        valuesById.put(id, value);
+        long[] trigrams = Trigrams.of(value);
+        for (long trigram : trigrams) {
+            Set<BigInteger> postings = idsByTrigram.get(trigram);
+            if (postings == null) {
+                postings = new HashSet<>();
+                idsByTrigram.put(trigram, postings);
+            }
+            postings.add(id);
+        }
+        trigramsById.put(id, trigrams);
+    }
+    
+    /**
+     * Removes the value associated to an object.
+     */
+    void remove(BigInteger id) {
+        String value = valuesById.remove(id);
+        if (value == null) {
+            return;
+        }
+        String key = value.toLowerCase(Locale.ROOT);
+        NavigableSet<BigInteger> ids = idsByValue.get(key);
+        ids.remove(id);
+        if (ids.isEmpty()) {
+            idsByValue.remove(key);
+        }
+        for (long trigram : trigramsById.remove(id)) {
+            Set<BigInteger> postings = idsByTrigram.get(trigram);
+            postings.remove(id);
+            if (postings.isEmpty()) {
+                idsByTrigram.remove(trigram);
+            }
+        }
+    }
+    
+    /**
+     * Returns the primary keys of the objects whose value starts with a given
+     * prefix, ordered by lower cased value and then by primary key.
+     */
+    List<BigInteger> findByPrefix(String prefix, boolean ignoreCase, int limit) {
+        String lowerPrefix = prefix.toLowerCase(Locale.ROOT);
+        List<BigInteger> result = new ArrayList<>(Math.min(limit, 1024));
+        for (Map.Entry<String, NavigableSet<BigInteger>> entry
+                : idsByValue.tailMap(lowerPrefix, true).entrySet()) {
+            if (!entry.getKey().startsWith(lowerPrefix)) {
+                break;
+            }
+            for (BigInteger id : entry.getValue()) {
+                if (ignoreCase || valuesById.get(id).startsWith(prefix)) {
+                    result.add(id);
+                    if (result.size() == limit) {
+                        return result;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the primary keys of the objects whose value is similar to a
+     * given text, ordered by descending similarity and then by primary key.
+     */
+    List<BigInteger> findSimilar(String text, double threshold, int limit) {
+        long[] textTrigrams = Trigrams.of(text);
+        if (textTrigrams.length == 0) {
+            return new ArrayList<>();
+        }
+        List<Set<BigInteger>> postings = new ArrayList<>(textTrigrams.length);
+        for (long trigram : textTrigrams) {
+            Set<BigInteger> ids = idsByTrigram.get(trigram);
+            postings.add(ids == null ? new HashSet<BigInteger>() : ids);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        int minimum = Math.max(1, (int) Math.ceil(threshold * textTrigrams.length - 1e-9));
+        Set<BigInteger> candidates = new HashSet<>();
+        for (int i = 0; i <= textTrigrams.length - minimum; i++) {
+            candidates.addAll(postings.get(i));
+        }
+        List<BigInteger> ids = new ArrayList<>();
+        Map<BigInteger, Double> scores = new HashMap<>();
+        for (BigInteger id : candidates) {
+            double score = Trigrams.similarity(textTrigrams, trigramsById.get(id));
+            if (score >= threshold) {
+                ids.add(id);
+                scores.put(id, score);
+            }
+        }
+        ids.sort(Comparator.<BigInteger>comparingDouble(id -> -scores.get(id))
+                .thenComparing(Comparator.naturalOrder()));
+        return ids.size() > limit ? new ArrayList<>(ids.subList(0, limit)) : ids;
+    }
+}
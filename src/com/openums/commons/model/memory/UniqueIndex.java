@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.memory;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index from a unique key (i.e.: a code or a user name) to the primary key of
+ * the data object holding it. The key of every indexed object is remembered,
+ * so the index can be maintained even when the object was modified in place
+ * before being updated.
+ * <p/>
+ * This class is not thread-safe: it is guarded by the owner DAO's lock.
+ * 
+ * @param <K> The class of the keys.
+ * @author Delcio Amarillo
+ */
+class UniqueIndex<K> {
+    
+    private final Map<K, BigInteger> idsByKey = new HashMap<>();
+    private final Map<BigInteger, K> keysById = new HashMap<>();
+    
+    /**
+     * Returns the primary key of the object holding a given key.
+     */
+    BigInteger get(K key) {
+        return key == null ? null : idsByKey.get(key);
+    }
+    
+    /**
+     * Returns whether a given key is held by an object other than the one
+     * identified by {@code id}.
+     */
+    boolean isTakenByOther(K key, BigInteger id) {
+        BigInteger owner = get(key);
+        return owner != null && !owner.equals(id);
+    }
+    
+    /**
+     * Associates a given key to an object, replacing its previous key.
+     */
+    void put(BigInteger id, K key) {
+        remove(id);
+        if (key != null) {
+            idsByKey.put(key, id);
+            keysById.put(id, key);
+        }
+    }
+    
+    /**
+     * Removes the key associated to an object.
+     */
+    void remove(BigInteger id) {
+        K key = keysById.remove(id);
+        if (key != null) {
+            idsByKey.remove(key);
+        }
+    }
+}
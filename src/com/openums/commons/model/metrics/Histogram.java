@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent histogram of non-negative {@code long} values with a bounded
+ * relative error, in the manner of HdrHistogram. Values below 64 have their
+ * own bucket; above that every power of two is split into 32 linear
+ * buckets, so any recorded value is reported with an error below 3.2%
+ * using a fixed array of 1888 counters, whatever the range of the values.
+ * <p/>
+ * Recording a value is lock free and does not allocate. Readers may observe
+ * a value recorded concurrently in some counters but not in others.
+ * 
+ * @author Delcio Amarillo
+ */
+public class Histogram {
+    
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+    
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+    
+    /**
+     * Records a value. Negative values are recorded as zero.
+     * 
+     * @param value The value.
+     */
+    public void record(long value) {
+        long recorded = Math.max(0L, value);
+        counts.incrementAndGet(indexOf(recorded));
+        count.increment();
+        total.add(recorded);
+        if (recorded > max.get()) {
+            max.accumulateAndGet(recorded, Math::max);
+        }
+    }
+    
+    /**
+     * Returns the number of recorded values.
+     * 
+     * @return The number of values.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+    
+    /**
+     * Returns the sum of the recorded values.
+     * 
+     * @return The sum.
+     */
+    public long getTotal() {
+        return total.sum();
+    }
+    
+    /**
+     * Returns the exact maximum recorded value.
+     * 
+     * @return The maximum or zero if no value was recorded.
+     */
+    public long getMax() {
+        return max.get();
+    }
+    
+    /**
+     * Returns the mean of the recorded values.
+     * 
+     * @return The mean or zero if no value was recorded.
+     */
+    public double getMean() {
+        long values = getCount();
+        return values == 0L ? 0.0 : (double) getTotal() / values;
+    }
+    
+    /**
+     * Returns the value below which a given percentage of the recorded
+     * values fall, i.e.: {@code getValueAtPercentile(99.0)} is the 99th
+     * percentile.
+     * 
+     * @param percentile The percentage, between 0 and 100.
+     * 
+     * @return The highest value equivalent to the bucket holding the
+     * percentile, capped by {@link #getMax()}; zero if no value was
+     * recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0.0 || percentile > 100.0) {
+            throw new IllegalArgumentException("The percentile must be between 0 and 100.");
+        }
+        long[] snapshot = new long[BUCKETS];
+        long values = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            values += snapshot[i];
+        }
+        if (values == 0L) {
+            return 0L;
+        }
+        long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * values));
+        long seen = 0L;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+    
+    @Override
+    public String toString() {
+        return "Histogram{count=" + getCount() + ", mean=" + getMean()
+                + ", p50=" + getValueAtPercentile(50.0)
+                + ", p99=" + getValueAtPercentile(99.0)
+                + ", max=" + getMax() + '}';
+    }
+    
+    /**
+     * Returns the index of the bucket counting a given non-negative value.
+     */
+    static int indexOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+    
+    /**
+     * Returns the highest value counted by a given bucket.
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long lowest = (long) ((index & (SUB_BUCKETS - 1)) + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1L;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.metrics;
+
+import com.openums.commons.model.ModelExceptionType;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * {@code IMetricsSink} that aggregates the measurements in memory, in one
+ * {@code OperationMetrics} per operation. It is meant to be read
+ * periodically, i.e.: by a reporter exporting the percentiles to a
+ * monitoring system, or by an administration endpoint.
+ * 
+ * @author Delcio Amarillo
+ */
+public class HistogramMetricsSink implements IMetricsSink {
+    
+    private final ConcurrentMap<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    
+    @Override
+    public void record(String operation, long elapsedNanos, int resultSize
+            , ModelExceptionType failure) {
+        OperationMetrics metrics = operations.get(operation);
+        if (metrics == null) {
+            metrics = operations.computeIfAbsent(operation, OperationMetrics::new);
+        }
+        metrics.record(elapsedNanos, resultSize, failure);
+    }
+    
+    /**
+     * Returns the metrics of a given operation.
+     * 
+     * @param operation The operation's name.
+     * 
+     * @return The metrics or {@code null} if the operation was never called.
+     */
+    public OperationMetrics getMetrics(String operation) {
+        return operations.get(operation);
+    }
+    
+    /**
+     * Returns the metrics of all the operations called so far.
+     * 
+     * @return An unmodifiable map from operation name to metrics, sorted by
+     * name. The metrics keep being updated after this method returns.
+     */
+    public Map<String, OperationMetrics> getMetrics() {
+        return Collections.unmodifiableMap(new TreeMap<>(operations));
+    }
+    
+    /**
+     * Discards all the aggregated metrics.
+     */
+    public void clear() {
+        operations.clear();
+    }
+}
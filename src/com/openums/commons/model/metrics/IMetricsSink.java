@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.metrics;
+
+import com.openums.commons.model.ModelExceptionType;
+
+/**
+ * Receives one measurement per DAO call performed through a decorator
+ * created by {@code InstrumentedDaos}. Implementations are invoked on the
+ * calling thread right after every call, so they must be thread-safe and
+ * cheap; typically they only update counters and hand the aggregation off
+ * to a metrics library.
+ * 
+ * @author Delcio Amarillo
+ * @see HistogramMetricsSink
+ */
+@FunctionalInterface
+public interface IMetricsSink {
+    
+    /**
+     * Sink that discards every measurement. DAOs instrumented with it are
+     * not decorated at all.
+     */
+    public static final IMetricsSink NO_OP = (operation, elapsedNanos
+            , resultSize, failure) -> { };
+    
+    /**
+     * Records a DAO call.
+     * 
+     * @param operation The name of the invoked method, including the DAO
+     * interface and the parameter types, i.e.:
+     * {@code IUsersDao.getUsersByRole(BigInteger)}.
+     * 
+     * @param elapsedNanos The call's duration in nanoseconds.
+     * 
+     * @param resultSize The number of elements returned by methods returning
+     * a collection, a map or a {@code BatchResult}; {@code -1} for other
+     * methods and for failed calls.
+     * 
+     * @param failure The type of the error raised by the call or {@code null}
+     * if it succeeded. Errors other than {@code ModelException} are reported
+     * as {@code UNSPECIFIED_EXCEPTION}.
+     */
+    public void record(String operation, long elapsedNanos, int resultSize
+            , ModelExceptionType failure);
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.metrics;
+
+import com.openums.commons.model.ModelExceptionType;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics aggregated by a {@code HistogramMetricsSink} for a single DAO
+ * operation.
+ * 
+ * @author Delcio Amarillo
+ */
+public class OperationMetrics {
+    
+    private final String operation;
+    private final Histogram latencies = new Histogram();
+    private final Histogram resultSizes = new Histogram();
+    private final Map<ModelExceptionType, LongAdder> failures = new EnumMap<>(ModelExceptionType.class);
+    
+    /**
+     * Creates a new {@code OperationMetrics}.
+     * 
+     * @param operation The operation's name.
+     */
+    public OperationMetrics(String operation) {
+        this.operation = operation;
+        for (ModelExceptionType type : ModelExceptionType.values()) {
+            failures.put(type, new LongAdder());
+        }
+    }
+    
+    /**
+     * Records a call.
+     * 
+     * @param elapsedNanos The call's duration in nanoseconds.
+     * 
+     * @param resultSize The number of returned elements or {@code -1} if not
+     * applicable.
+     * 
+     * @param failure The type of the raised error or {@code null}.
+     * 
+     * @see IMetricsSink#record(String, long, int, ModelExceptionType)
+     */
+    public void record(long elapsedNanos, int resultSize, ModelExceptionType failure) {
+        latencies.record(elapsedNanos);
+        if (resultSize >= 0) {
+            resultSizes.record(resultSize);
+        }
+        if (failure != null) {
+            failures.get(failure).increment();
+        }
+    }
+    
+    /**
+     * Returns the operation's name.
+     * 
+     * @return The operation's name.
+     */
+    public String getOperation() {
+        return operation;
+    }
+    
+    /**
+     * Returns the number of calls, including the failed ones.
+     * 
+     * @return The number of calls.
+     */
+    public long getCallCount() {
+        return latencies.getCount();
+    }
+    
+    /**
+     * Returns the histogram of the calls' durations in nanoseconds.
+     * 
+     * @return The latency histogram.
+     */
+    public Histogram getLatencies() {
+        return latencies;
+    }
+    
+    /**
+     * Returns the histogram of the number of elements returned by the
+     * successful calls. Empty for operations that do not return a
+     * collection.
+     * 
+     * @return The result size histogram.
+     */
+    public Histogram getResultSizes() {
+        return resultSizes;
+    }
+    
+    /**
+     * Returns the number of failed calls of a given type.
+     * 
+     * @param type The type of the error.
+     * 
+     * @return The number of failed calls.
+     */
+    public long getFailureCount(ModelExceptionType type) {
+        return failures.get(type).sum();
+    }
+    
+    /**
+     * Returns the number of failed calls.
+     * 
+     * @return The number of failed calls of any type.
+     */
+    public long getFailureCount() {
+        long count = 0L;
+        for (LongAdder adder : failures.values()) {
+            count += adder.sum();
+        }
+        return count;
+    }
+    
+    @Override
+    public String toString() {
+        return operation + "{calls=" + getCallCount() + ", failures="
+                + getFailureCount() + ", latencyNanos=" + latencies
+                + ", resultSizes=" + resultSizes + '}';
+    }
+}
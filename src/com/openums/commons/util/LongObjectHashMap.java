@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.util;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from primitive {@code long} keys to object values. Keys are stored
+ * in a plain {@code long[]} with open addressing and linear probing, so
+ * lookups neither box the key nor allocate entry objects. {@code null} values
+ * are not allowed.
+ * <p/>
+ * This class is not thread-safe. Instances must be confined to a thread,
+ * guarded by a lock or published once fully built and never modified again.
+ * 
+ * @param <V> The class of the values.
+ * @author Delcio Amarillo
+ */
+public class LongObjectHashMap<V> {
+    
+    private static final int MINIMUM_CAPACITY = 8;
+    
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private int resizeAt;
+    
+    /**
+     * Creates a new, empty {@code LongObjectHashMap}.
+     */
+    public LongObjectHashMap() {
+        this(MINIMUM_CAPACITY);
+    }
+    
+    /**
+     * Creates a new, empty {@code LongObjectHashMap} able to hold a given
+     * number of entries without resizing.
+     * 
+     * @param expectedSize The expected number of entries.
+     */
+    public LongObjectHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+    
+    /**
+     * Returns the value associated to a given key.
+     * 
+     * @param key The key.
+     * 
+     * @return The value or {@code null} if the key is absent.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Returns whether a given key is present.
+     * 
+     * @param key The key.
+     * 
+     * @return {@code true} if the key is present, {@code false} otherwise.
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+    
+    /**
+     * Associates a value to a given key.
+     * 
+     * @param key The key.
+     * 
+     * @param value The value. Cannot be {@code null}.
+     * 
+     * @return The previous value or {@code null} if the key was absent.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("The value cannot be null.");
+        }
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        for (; values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+    
+    /**
+     * Removes the entry associated to a given key.
+     * 
+     * @param key The key.
+     * 
+     * @return The removed value or {@code null} if the key was absent.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); values[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                shiftBack(slot, mask);
+                size--;
+                return previous;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Returns the number of entries.
+     * 
+     * @return The number of entries.
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Returns whether this map has no entries.
+     * 
+     * @return {@code true} if the map is empty, {@code false} otherwise.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * Removes all the entries.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+    
+    private void shiftBack(int slot, int mask) {
+        int gap = slot;
+        for (int next = (gap + 1) & mask; values[next] != null; next = (next + 1) & mask) {
+            int home = slot(keys[next], mask);
+            // Move the entry into the gap unless its home lies cyclically in (gap, next].
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+        }
+        values[gap] = null;
+    }
+    
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = slot(oldKeys[i], mask);
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+    
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        resizeAt = (capacity >>> 1) + (capacity >>> 2);
+    }
+    
+    private static int capacityFor(int expectedSize) {
+        int capacity = MINIMUM_CAPACITY;
+        while (capacity - (capacity >>> 2) <= expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+    
+    private static int slot(long key, int mask) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
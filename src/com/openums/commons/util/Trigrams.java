@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.util;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Trigram decomposition of text, used for fuzzy matching. A text is lower
+ * cased, padded with two leading blanks and one trailing blank, and split into
+ * every run of three consecutive characters, so that {@code "ann"} yields
+ * {@code "  a"}, {@code " an"}, {@code "ann"} and {@code "nn "}. Each trigram
+ * is packed in a {@code long} (16 bits per character).
+ * <p/>
+ * The similarity of two texts is the number of trigrams they share divided by
+ * the number of distinct trigrams of both (Jaccard index), which tolerates
+ * typos, missing and transposed characters.
+ * 
+ * @author Delcio Amarillo
+ */
+public final class Trigrams {
+    
+    /**
+     * Default minimum similarity for two texts to be considered a match.
+     */
+    public static final double DEFAULT_THRESHOLD = 0.3;
+    
+    private static final long[] NONE = new long[0];
+    
+    private Trigrams() {
+    }
+    
+    /**
+     * Returns the distinct trigrams of a given text, in ascending order.
+     * 
+     * @param text The text. Can be {@code null}.
+     * 
+     * @return A new array with the packed trigrams, empty if the text is
+     * {@code null} or empty.
+     */
+    public static long[] of(String text) {
+        if (text == null || text.isEmpty()) {
+            return NONE;
+        }
+        String padded = "  " + text.toLowerCase(Locale.ROOT) + " ";
+        long[] trigrams = new long[padded.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = ((long) padded.charAt(i) << 32)
+                    | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+        }
+        Arrays.sort(trigrams);
+        int distinct = 0;
+        for (int i = 0; i < trigrams.length; i++) {
+            if (i == 0 || trigrams[i] != trigrams[distinct - 1]) {
+                trigrams[distinct++] = trigrams[i];
+            }
+        }
+        return distinct == trigrams.length ? trigrams : Arrays.copyOf(trigrams, distinct);
+    }
+    
+    /**
+     * Returns the similarity of two sets of trigrams given the size of their
+     * intersection.
+     * 
+     * @param common The number of shared trigrams.
+     * 
+     * @param first The number of distinct trigrams of the first text.
+     * 
+     * @param second The number of distinct trigrams of the second text.
+     * 
+     * @return A value between {@code 0.0} and {@code 1.0}.
+     */
+    public static double similarity(int common, int first, int second) {
+        int union = first + second - common;
+        return union == 0 ? 0.0 : (double) common / union;
+    }
+    
+    /**
+     * Returns the similarity of two texts.
+     * 
+     * @param first The first text. Can be {@code null}.
+     * 
+     * @param second The second text. Can be {@code null}.
+     * 
+     * @return A value between {@code 0.0} and {@code 1.0}.
+     */
+    public static double similarity(String first, String second) {
+        return similarity(of(first), of(second));
+    }
+    
+    /**
+     * Returns the similarity of two sets of trigrams.
+     * 
+     * @param first The distinct trigrams of the first text, in ascending
+     * order, as returned by {@link #of(String)}.
+     * 
+     * @param second The distinct trigrams of the second text, in ascending
+     * order.
+     * 
+     * @return A value between {@code 0.0} and {@code 1.0}.
+     */
+    public static double similarity(long[] first, long[] second) {
+        int common = 0;
+        for (int i = 0, j = 0; i < first.length && j < second.length;) {
+            if (first[i] == second[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (first[i] < second[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return similarity(common, first.length, second.length);
+    }
+}
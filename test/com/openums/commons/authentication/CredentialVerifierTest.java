@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.authentication;
+
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.LoginRecord;
+import com.openums.commons.domain.concurrent.ConcurrentUser;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.memory.InMemoryUsersDao;
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the password checks and the transparent rehashing of
+ * {@code CredentialVerifier}.
+ * 
+ * @author Delcio Amarillo
+ */
+public class CredentialVerifierTest {
+    
+    private final Pbkdf2PasswordHasher legacy = new Pbkdf2PasswordHasher(
+            "PBKDF2WithHmacSHA1", 1_000, 16, 20);
+    private final Pbkdf2PasswordHasher current = new Pbkdf2PasswordHasher(2_000);
+    
+    private InMemoryUsersDao usersDao;
+    private CredentialVerifier verifier;
+    
+    @Before
+    public void setUp() {
+        usersDao = new InMemoryUsersDao();
+        verifier = new CredentialVerifier(usersDao, 2, 1, TimeUnit.SECONDS, current, legacy);
+    }
+    
+    @Test
+    public void passwordsSetByTheVerifierAuthenticate() throws ModelException {
+        ConcurrentUser user = user(1, "jdoe");
+        verifier.setPassword(user, "secret");
+        usersDao.insert(user);
+        
+        assertNotNull(verifier.authenticate("jdoe", "secret"));
+        assertNull(verifier.authenticate("jdoe", "wrong"));
+        assertNull(verifier.authenticate("jdoe", null));
+        assertNull(verifier.authenticate("nobody", "secret"));
+        assertNull(verifier.authenticate(null, "secret"));
+        LoginRecord record = verifier.login("jdoe", "secret");
+        assertEquals(BigInteger.ONE, record.getId());
+        assertNull(verifier.login("jdoe", "wrong"));
+        assertEquals(0, verifier.getRehashedCount());
+    }
+    
+    @Test
+    public void legacyHashesAreUpgradedOnSuccess() throws ModelException {
+        ConcurrentUser user = user(1, "jdoe");
+        user.setPassword(legacy.hash("secret"));
+        usersDao.insert(user);
+        
+        assertNull(verifier.authenticate("jdoe", "wrong"));
+        assertEquals(0, verifier.getRehashedCount());
+        assertTrue(legacy.supports(usersDao.getUserByName("jdoe").getPassword()));
+        
+        assertNotNull(verifier.authenticate("jdoe", "secret"));
+        assertEquals(1, verifier.getRehashedCount());
+        String upgraded = usersDao.getUserByName("jdoe").getPassword();
+        assertTrue(upgraded.startsWith("pbkdf2-sha256$2000$"));
+        assertFalse(current.needsRehash(upgraded));
+        assertNotNull(verifier.authenticate("jdoe", "secret"));
+        assertEquals(1, verifier.getRehashedCount());
+    }
+    
+    @Test
+    public void outdatedCostIsUpgradedThroughLogin() throws ModelException {
+        ConcurrentUser user = user(1, "jdoe");
+        user.setPassword(new Pbkdf2PasswordHasher(1_000).hash("secret"));
+        usersDao.insert(user);
+        
+        assertNotNull(verifier.login("jdoe", "secret"));
+        assertEquals(1, verifier.getRehashedCount());
+        assertFalse(current.needsRehash(usersDao.getUserByName("jdoe").getPassword()));
+    }
+    
+    @Test
+    public void malformedHashesNeverAuthenticate() throws ModelException {
+        String[] malformed = {null, "", "secret", "pbkdf2-sha256$2000$$"
+                , "pbkdf2-sha384$2000$AAAA$AAAA", "pbkdf2-sha256$999999999$AAAA$AAAA"};
+        for (int i = 0; i < malformed.length; i++) {
+            ConcurrentUser user = user(i + 1, "user" + i);
+            user.setPassword(malformed[i]);
+            usersDao.insert(user);
+            assertNull(malformed[i], verifier.authenticate("user" + i, "secret"));
+            assertNull(malformed[i], verifier.login("user" + i, "secret"));
+            IUser stored = usersDao.getUserByName("user" + i);
+            assertFalse(malformed[i], verifier.verify(stored, malformed[i]));
+            assertEquals(malformed[i], stored.getPassword());
+        }
+        assertEquals(0, verifier.getRehashedCount());
+    }
+    
+    private static ConcurrentUser user(long id, String userName) {
+        ConcurrentUser user = new ConcurrentUser(BigInteger.valueOf(id));
+        user.setUserName(userName);
+        return user;
+    }
+}
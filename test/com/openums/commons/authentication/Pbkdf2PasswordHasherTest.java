@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.authentication;
+
+import java.util.Base64;
+import org.junit.Test;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the encoding, verification and rehash decisions of
+ * {@code Pbkdf2PasswordHasher}.
+ * 
+ * @author Delcio Amarillo
+ */
+public class Pbkdf2PasswordHasherTest {
+    
+    private final Pbkdf2PasswordHasher hasher = new Pbkdf2PasswordHasher(1_000);
+    
+    @Test
+    public void hashesVerifyOnlyTheirPassword() {
+        String encoded = hasher.hash("secret");
+        assertTrue(encoded.startsWith("pbkdf2-sha256$1000$"));
+        assertTrue(hasher.supports(encoded));
+        assertTrue(hasher.verify("secret", encoded));
+        assertFalse(hasher.verify("Secret", encoded));
+        assertFalse(hasher.verify("", encoded));
+        assertFalse(hasher.verify(null, encoded));
+        assertFalse(hasher.needsRehash(encoded));
+        assertNotEquals(encoded, hasher.hash("secret"));
+    }
+    
+    @Test
+    public void algorithmNamesAreNormalized() {
+        for (String algorithm : new String[] {"PBKDF2WithHmacSHA1"
+                , "pbkdf2withhmacsha256", "PBKDF2WITHHMACSHA512"}) {
+            Pbkdf2PasswordHasher other = new Pbkdf2PasswordHasher(algorithm, 1_000, 16, 32);
+            String encoded = other.hash("secret");
+            assertTrue(encoded, other.verify("secret", encoded));
+            assertFalse(encoded, other.needsRehash(encoded));
+            assertTrue(encoded, hasher.verify("secret", encoded));
+        }
+    }
+    
+    @Test
+    public void unsupportedParametersAreRejected() {
+        assertRejected(null, 1_000, 32);
+        assertRejected("PBKDF2WithHmacSHA384", 1_000, 32);
+        assertRejected("PBKDF2WithHmacMD5", 1_000, 32);
+        assertRejected("SHA256", 1_000, 32);
+        assertRejected(Pbkdf2PasswordHasher.DEFAULT_ALGORITHM, 0, 32);
+        assertRejected(Pbkdf2PasswordHasher.DEFAULT_ALGORITHM
+                , Pbkdf2PasswordHasher.MAX_ITERATIONS + 1, 32);
+        assertRejected(Pbkdf2PasswordHasher.DEFAULT_ALGORITHM, 1_000
+                , Pbkdf2PasswordHasher.MAX_KEY_LENGTH + 1);
+    }
+    
+    @Test
+    public void hashesWithOtherParametersNeedRehash() {
+        String encoded = hasher.hash("secret");
+        assertTrue(new Pbkdf2PasswordHasher(2_000).needsRehash(encoded));
+        assertTrue(new Pbkdf2PasswordHasher("PBKDF2WithHmacSHA512", 1_000, 16, 32)
+                .needsRehash(encoded));
+        assertTrue(new Pbkdf2PasswordHasher(Pbkdf2PasswordHasher.DEFAULT_ALGORITHM
+                , 1_000, 8, 32).needsRehash(encoded));
+        assertTrue(new Pbkdf2PasswordHasher(Pbkdf2PasswordHasher.DEFAULT_ALGORITHM
+                , 1_000, 16, 64).needsRehash(encoded));
+        // Older parameters are still verified.
+        assertTrue(new Pbkdf2PasswordHasher(2_000).verify("secret", encoded));
+    }
+    
+    @Test
+    public void malformedHashesAreNotSupported() {
+        String[] parts = hasher.hash("secret").split("\\$");
+        String salt = parts[2];
+        String key = parts[3];
+        String[] malformed = {null, "", "pbkdf2-sha256", "pbkdf2-sha256$1000$" + salt
+                , "pbkdf2-sha256$1000$" + salt + "$" + key + "$"
+                , "bcrypt-sha256$1000$" + salt + "$" + key
+                , "pbkdf2-sha384$1000$" + salt + "$" + key
+                , "pbkdf2-sha256$abc$" + salt + "$" + key
+                , "pbkdf2-sha256$0$" + salt + "$" + key
+                , "pbkdf2-sha256$-1$" + salt + "$" + key
+                , "pbkdf2-sha256$" + (Pbkdf2PasswordHasher.MAX_ITERATIONS + 1L) + "$"
+                        + salt + "$" + key
+                , "pbkdf2-sha256$99999999999$" + salt + "$" + key
+                , "pbkdf2-sha256$1000$$" + key
+                , "pbkdf2-sha256$1000$" + salt + "$"
+                , "pbkdf2-sha256$1000$" + salt + "$!!!"
+                , "pbkdf2-sha256$1000$" + salt + "$" + Base64.getEncoder().withoutPadding()
+                        .encodeToString(new byte[Pbkdf2PasswordHasher.MAX_KEY_LENGTH + 1])};
+        for (String encoded : malformed) {
+            assertFalse(encoded, hasher.supports(encoded));
+            assertFalse(encoded, hasher.verify("secret", encoded));
+            assertTrue(encoded, hasher.needsRehash(encoded));
+        }
+    }
+    
+    private static void assertRejected(String algorithm, int iterations, int keyLength) {
+        try {
+            new Pbkdf2PasswordHasher(algorithm, iterations, 16, keyLength);
+            fail("Accepted " + algorithm + " with " + iterations + " iterations and "
+                    + keyLength + " key bytes");
+        } catch (IllegalArgumentException ex) {
+            // Expected.
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.authorization;
+
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IRolePermission;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.concurrent.ConcurrentPermission;
+import com.openums.commons.domain.concurrent.ConcurrentRole;
+import com.openums.commons.domain.concurrent.ConcurrentUser;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.memory.InMemoryRolesDao;
+import com.openums.commons.model.memory.InMemoryUsersDao;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that {@code AuthorizationEngine} answers like the in-memory DAOs
+ * before and after the snapshot is rebuilt following a mutation.
+ * 
+ * @author Delcio Amarillo
+ */
+public class AuthorizationEngineTest {
+    
+    private final ConcurrentPermission read = permission(1, "read");
+    private final ConcurrentPermission write = permission(2, "write");
+    private final ConcurrentPermission admin = permission(3, "admin");
+    
+    private ConcurrentRole viewer;
+    private ConcurrentRole editor;
+    private ConcurrentUser alice;
+    private ConcurrentUser bob;
+    private InMemoryRolesDao rolesDao;
+    private InMemoryUsersDao usersDao;
+    private AuthorizationEngine engine;
+    
+    @Before
+    public void setUp() throws ModelException {
+        viewer = role(10, read);
+        editor = role(11, write);
+        editor.addPermission(admin);
+        disable(editor, admin);
+        editor.addParentRole(viewer);
+        alice = user(20);
+        alice.addRole(editor);
+        bob = user(21);
+        bob.addRole(viewer);
+        rolesDao = new InMemoryRolesDao();
+        usersDao = new InMemoryUsersDao(rolesDao);
+        rolesDao.insert(viewer);
+        rolesDao.insert(editor);
+        usersDao.insert(alice);
+        usersDao.insert(bob);
+        engine = new AuthorizationEngine();
+        engine.rebuild(rolesDao, usersDao);
+    }
+    
+    @Test
+    public void answersMatchTheDaos() throws ModelException {
+        assertMatchesDaos();
+        assertTrue(engine.hasPermission(alice.getId(), "read"));
+        assertTrue(engine.hasPermission(alice, "write"));
+        assertFalse(engine.hasPermission(alice.getId().longValue(), "admin"));
+        assertFalse(engine.hasPermission(bob, "write"));
+        assertFalse(engine.hasPermission((IUser) null, "read"));
+    }
+    
+    @Test
+    public void rebuiltSnapshotsFollowTheMutations() throws ModelException {
+        PermissionSnapshot before = engine.getSnapshot();
+        
+        enable(editor, admin);
+        disable(viewer, read);
+        rolesDao.update(editor);
+        rolesDao.update(viewer);
+        bob.setUserRolesList(null);
+        bob.addRole(editor);
+        usersDao.update(bob);
+        // Nothing changes until the snapshot is rebuilt.
+        assertSame(before, engine.getSnapshot());
+        assertTrue(engine.hasPermission(alice, "read"));
+        assertFalse(engine.hasPermission(bob, "admin"));
+        
+        PermissionSnapshot after = engine.rebuild(rolesDao, usersDao);
+        assertSame(after, engine.getSnapshot());
+        assertMatchesDaos();
+        assertFalse(engine.hasPermission(alice, "read"));
+        assertTrue(engine.hasPermission(alice, "admin"));
+        assertTrue(engine.hasPermission(bob, "admin"));
+        // Snapshots are immutable: the previous one still answers as before.
+        assertTrue(before.hasPermission(alice.getId(), "read"));
+        assertFalse(before.hasPermission(bob.getId(), "admin"));
+        
+        ConcurrentRole reader = role(12, read);
+        editor.setParentRolesList(null);
+        editor.addParentRole(reader);
+        rolesDao.insert(reader);
+        rolesDao.update(editor);
+        engine.rebuild(rolesDao, usersDao);
+        assertMatchesDaos();
+        assertTrue(engine.hasPermission(alice, "read"));
+        
+        engine.setSnapshot(PermissionSnapshot.EMPTY);
+        assertFalse(engine.hasPermission(alice, "write"));
+    }
+    
+    private void assertMatchesDaos() throws ModelException {
+        for (String code : new String[] {"read", "write", "admin"}) {
+            Set<BigInteger> holders = new HashSet<>();
+            for (IUser user : usersDao.getUsersByPermission(code)) {
+                holders.add(user.getId());
+            }
+            for (ConcurrentUser user : new ConcurrentUser[] {alice, bob}) {
+                assertEquals(user.getId() + " " + code, holders.contains(user.getId())
+                        , engine.hasPermission(user.getId(), code));
+            }
+            for (IRole role : rolesDao.getAll()) {
+                assertEquals(role.getId() + " " + code
+                        , rolesDao.roleHasPermission(role.getId(), code)
+                        , engine.getSnapshot().roleHasPermission(role.getId(), code));
+            }
+        }
+        assertEquals(Collections.emptyList(), usersDao.getUsersByPermission("unknown"));
+    }
+    
+    private static void enable(ConcurrentRole role, ConcurrentPermission permission) {
+        setEnabled(role, permission, true);
+    }
+    
+    private static void disable(ConcurrentRole role, ConcurrentPermission permission) {
+        setEnabled(role, permission, false);
+    }
+    
+    private static void setEnabled(ConcurrentRole role, ConcurrentPermission permission
+            , boolean enabled) {
+        for (IRolePermission rolePermission : role.getRolePermissionsList()) {
+            if (rolePermission.getPermission() == permission) {
+                rolePermission.setEnabled(enabled);
+            }
+        }
+    }
+    
+    private static ConcurrentPermission permission(long id, String code) {
+        ConcurrentPermission permission = new ConcurrentPermission(BigInteger.valueOf(id));
+        permission.setCode(code);
+        return permission;
+    }
+    
+    private static ConcurrentRole role(long id, ConcurrentPermission permission) {
+        ConcurrentRole role = new ConcurrentRole(BigInteger.valueOf(id));
+        role.setCode("role" + id);
+        role.addPermission(permission);
+        return role;
+    }
+    
+    private static ConcurrentUser user(long id) {
+        ConcurrentUser user = new ConcurrentUser(BigInteger.valueOf(id));
+        user.setUserName("user" + id);
+        return user;
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.authorization;
+
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.concurrent.ConcurrentModule;
+import com.openums.commons.domain.concurrent.ConcurrentPermission;
+import com.openums.commons.domain.concurrent.ConcurrentRole;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.memory.InMemoryRolesDao;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the Role inheritance of {@code MappedAuthorizationModel} and
+ * {@code AuthorizationModel}.
+ * 
+ * @author Delcio Amarillo
+ */
+public class AuthorizationModelTest {
+    
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    
+    private final ConcurrentModule module = new ConcurrentModule(BigInteger.ONE);
+    private final ConcurrentPermission read = permission(1, "read");
+    private final ConcurrentPermission write = permission(2, "write");
+    private final ConcurrentPermission admin = permission(3, "admin");
+    private final ConcurrentPermission audit = permission(4, "audit");
+    
+    private ConcurrentRole viewer;
+    private ConcurrentRole editor;
+    private ConcurrentRole owner;
+    private Path file;
+    
+    @Before
+    public void setUp() throws IOException {
+        module.setCode("docs");
+        viewer = role(10, "viewer", read);
+        editor = role(11, "editor", write);
+        editor.addParentRole(viewer);
+        owner = role(12, "owner", admin);
+        owner.addParentRole(editor);
+        file = folder.getRoot().toPath().resolve("model.snapshot");
+    }
+    
+    @Test
+    public void snapshotIncludesInheritedGrants() throws IOException {
+        // The ancestors are written even if only the owner is given.
+        MappedAuthorizationModel.write(file, Collections.singletonList(module)
+                , Collections.emptyList(), Collections.singletonList(owner));
+        MappedAuthorizationModel model = MappedAuthorizationModel.open(file);
+        
+        assertEquals(3, model.getRolesCount());
+        assertArrayEquals(new long[] {3}, model.getRoleDirectPermissionIds(12));
+        assertArrayEquals(new long[] {11}, model.getRoleParentIds(12));
+        assertArrayEquals(new long[] {10, 11}, model.getAncestorRoleIds(12));
+        assertArrayEquals(new long[] {1, 2, 3}, model.getRolePermissionIds(12));
+        assertTrue(model.roleHasPermission(12, "read"));
+        assertTrue(model.roleHasPermission(11, 1));
+        assertFalse(model.roleHasPermission(10, 2));
+        assertEquals(Arrays.asList("read", "write"), model.getRolePermissionCodes(11));
+    }
+    
+    @Test
+    public void snapshotPrecomputesInheritedGrants() throws IOException {
+        // A deep chain: every Role inherits the grants of all the previous ones.
+        List<IRole> chain = new ArrayList<>();
+        ConcurrentRole previous = null;
+        for (int i = 0; i < 50; i++) {
+            ConcurrentRole role = role(100 + i, "level" + i, permission(100 + i, "p" + i));
+            if (previous != null) {
+                role.addParentRole(previous);
+            }
+            chain.add(role);
+            previous = role;
+        }
+        MappedAuthorizationModel.write(file, Collections.emptyList()
+                , Collections.emptyList(), chain);
+        MappedAuthorizationModel model = MappedAuthorizationModel.open(file);
+        
+        assertEquals(50, model.getRolePermissionIds(149).length);
+        assertEquals(1, model.getRolePermissionIds(100).length);
+        assertTrue(model.roleHasPermission(149, 100));
+        assertFalse(model.roleHasPermission(100, 149));
+        assertFalse(model.roleHasPermission(999, 100));
+        
+        // Without pending Role changes the live model answers from the closure.
+        AuthorizationModel live = new AuthorizationModel(model);
+        assertTrue(live.roleHasPermission(149, "p0"));
+        assertArrayEquals(model.getRolePermissionIds(120), live.getRolePermissionIds(120));
+    }
+    
+    @Test
+    public void cyclesAreTolerated() throws IOException {
+        viewer.addParentRole(owner);
+        MappedAuthorizationModel.write(file, Collections.emptyList()
+                , Collections.emptyList(), Arrays.asList(viewer, editor, owner));
+        MappedAuthorizationModel model = MappedAuthorizationModel.open(file);
+        
+        assertArrayEquals(new long[] {11, 12}, model.getAncestorRoleIds(10));
+        assertArrayEquals(new long[] {1, 2, 3}, model.getRolePermissionIds(10));
+        assertFalse(model.roleHasPermission(10, 4));
+    }
+    
+    @Test
+    public void overlayChangesReachDescendants() throws IOException {
+        MappedAuthorizationModel.write(file, Collections.emptyList()
+                , Collections.emptyList(), Arrays.asList(viewer, editor, owner));
+        AuthorizationModel model = new AuthorizationModel(file);
+        
+        ConcurrentRole auditor = role(13, "auditor", audit);
+        model.updatePermission(audit);
+        model.updateRole(auditor);
+        viewer.addParentRole(auditor);
+        model.updateRole(viewer);
+        assertTrue(model.roleHasPermission(12, "audit"));
+        assertArrayEquals(new long[] {1, 2, 3, 4}, model.getRolePermissionIds(12));
+        
+        model.removeRole(BigInteger.valueOf(11));
+        assertFalse(model.roleHasPermission(12, "read"));
+        assertArrayEquals(new long[] {3}, model.getRolePermissionIds(12));
+        
+        // Writing the overlay into a new snapshot keeps the parents.
+        model.writeSnapshot(folder.getRoot().toPath().resolve("next.snapshot"));
+        assertEquals(0, model.getPendingChangesCount());
+        assertArrayEquals(new long[] {13}, model.getRoleParentIds(10));
+        assertArrayEquals(new long[] {1, 4}, model.getRolePermissionIds(10));
+        assertArrayEquals(new long[] {3}, model.getRolePermissionIds(12));
+    }
+    
+    @Test
+    public void snapshotAgreesWithTheRolesDao() throws IOException, ModelException {
+        ConcurrentRole auditor = role(13, "auditor", audit);
+        ConcurrentRole reviewer = role(14, "reviewer", read);
+        reviewer.addParentRole(auditor);
+        reviewer.addParentRole(editor);
+        InMemoryRolesDao dao = new InMemoryRolesDao();
+        for (IRole role : Arrays.asList(viewer, editor, owner, auditor, reviewer)) {
+            dao.insert(role);
+        }
+        MappedAuthorizationModel.write(file, Collections.emptyList()
+                , Collections.emptyList(), dao.getAll());
+        MappedAuthorizationModel model = MappedAuthorizationModel.open(file);
+        
+        List<String> codes = Arrays.asList("read", "write", "admin", "audit");
+        for (long roleId = 10; roleId <= 14; roleId++) {
+            for (String code : codes) {
+                assertEquals(roleId + " " + code
+                        , dao.roleHasPermission(BigInteger.valueOf(roleId), code)
+                        , model.roleHasPermission(roleId, code));
+            }
+        }
+    }
+    
+    private ConcurrentPermission permission(long id, String code) {
+        ConcurrentPermission permission = new ConcurrentPermission(BigInteger.valueOf(id));
+        permission.setCode(code);
+        permission.setModule(module);
+        return permission;
+    }
+    
+    private ConcurrentRole role(long id, String code, ConcurrentPermission permission) {
+        ConcurrentRole role = new ConcurrentRole(BigInteger.valueOf(id));
+        role.setCode(code);
+        role.addPermission(permission);
+        return role;
+    }
+}
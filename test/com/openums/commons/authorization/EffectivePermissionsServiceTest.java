@@ -0,0 +1,305 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.authorization;
+
+import com.openums.commons.domain.DomainGraph;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IRolePermission;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.IUserRole;
+import com.openums.commons.domain.concurrent.ConcurrentPermission;
+import com.openums.commons.domain.concurrent.ConcurrentRole;
+import com.openums.commons.domain.concurrent.ConcurrentUser;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@code EffectivePermissionsService} by applying random mutations to
+ * a small domain graph, reported through both the relationship level and
+ * the entity level methods, and comparing the maintained sets with the ones
+ * computed from scratch by walking the graph after every mutation.
+ * 
+ * @author Delcio Amarillo
+ */
+public class EffectivePermissionsServiceTest {
+    
+    private static final int ROLES = 10;
+    private static final int USERS = 12;
+    private static final int STEPS = 400;
+    
+    private final List<ConcurrentPermission> permissions = new ArrayList<>();
+    private final List<ConcurrentRole> roles = new ArrayList<>();
+    private final List<ConcurrentUser> users = new ArrayList<>();
+    private final Set<ConcurrentRole> removedRoles = Collections.newSetFromMap(
+            new IdentityHashMap<>());
+    private Random random;
+    private EffectivePermissionsService service;
+    
+    @Test
+    public void countersMatchAFullRecomputation() {
+        for (long seed = 0; seed < 25; seed++) {
+            setUp(seed);
+            for (int step = 0; step < STEPS; step++) {
+                String mutation = mutate();
+                assertConsistent(seed, step, mutation);
+            }
+            EffectivePermissionsService reloaded = new EffectivePermissionsService(
+                    liveRoles(), users);
+            for (ConcurrentUser user : users) {
+                assertEquals(expected(user), reloaded.getEffectivePermissions(user));
+            }
+        }
+    }
+    
+    @Test
+    public void disabledAndInheritedGrants() {
+        setUp(0);
+        ConcurrentRole parent = roles.get(0);
+        ConcurrentRole child = roles.get(1);
+        ConcurrentUser user = users.get(0);
+        parent.addPermission(permissions.get(0));
+        child.addParentRole(parent);
+        user.addRole(child);
+        service.updateRole(parent);
+        service.updateRole(child);
+        service.updateUser(user);
+        assertTrue(service.hasPermission(user.getId(), "p0"));
+        
+        IRolePermission rolePermission = parent.getRolePermissionsList().get(0);
+        rolePermission.setEnabled(false);
+        service.rolePermissionChanged(rolePermission);
+        assertEquals(Collections.emptySet(), service.getEffectivePermissions(user));
+        rolePermission.setEnabled(true);
+        service.rolePermissionChanged(rolePermission);
+        assertTrue(service.hasPermission(user.getId(), "p0"));
+        
+        service.removeRole(parent.getId());
+        assertEquals(Collections.emptySet(), service.getEffectivePermissions(user));
+    }
+    
+    private void setUp(long seed) {
+        random = new Random(seed);
+        permissions.clear();
+        roles.clear();
+        users.clear();
+        removedRoles.clear();
+        for (int i = 0; i < 6; i++) {
+            ConcurrentPermission permission = new ConcurrentPermission(id(100 + i));
+            permission.setCode("p" + i);
+            permissions.add(permission);
+        }
+        for (int i = 0; i < ROLES; i++) {
+            roles.add(new ConcurrentRole(id(200 + i)));
+        }
+        for (int i = 0; i < USERS; i++) {
+            users.add(new ConcurrentUser(id(300 + i)));
+        }
+        service = new EffectivePermissionsService(roles, users);
+    }
+    
+    /**
+     * Applies a random mutation to the graph and reports it to the service,
+     * either at relationship or at entity level.
+     * 
+     * @return A description of the mutation.
+     */
+    private String mutate() {
+        boolean entityLevel = random.nextBoolean();
+        ConcurrentRole role = roles.get(random.nextInt(roles.size()));
+        ConcurrentUser user = users.get(random.nextInt(users.size()));
+        int operation = random.nextInt(100);
+        if (removedRoles.contains(role) && operation < 90) {
+            return "none";
+        }
+        if (operation < 20) {
+            IUserRole userRole = find(user.getUserRolesList(), role);
+            if (userRole == null) {
+                user.addRole(role);
+                report(entityLevel, user, () -> service.userRoleAdded(find(
+                        user.getUserRolesList(), role)));
+                return "add " + role.getId() + " to " + user.getId();
+            }
+            List<IUserRole> userRoles = new ArrayList<>(user.getUserRolesList());
+            userRoles.remove(userRole);
+            user.setUserRolesList(userRoles);
+            IUserRole removed = userRole;
+            report(entityLevel, user, () -> service.userRoleRemoved(removed));
+            return "remove " + role.getId() + " from " + user.getId();
+        }
+        if (operation < 45) {
+            ConcurrentPermission permission = permissions.get(random.nextInt(
+                    permissions.size()));
+            IRolePermission rolePermission = find(role.getRolePermissionsList(), permission);
+            if (rolePermission == null) {
+                role.addPermission(permission);
+                IRolePermission added = find(role.getRolePermissionsList(), permission);
+                report(entityLevel, role, () -> service.rolePermissionAdded(added));
+                return "grant " + permission.getCode() + " to " + role.getId();
+            }
+            if (random.nextBoolean()) {
+                rolePermission.setEnabled(!rolePermission.isEnabled());
+                report(entityLevel, role, () -> service.rolePermissionChanged(rolePermission));
+                return "toggle " + permission.getCode() + " of " + role.getId();
+            }
+            List<IRolePermission> rolePermissions = new ArrayList<>(
+                    role.getRolePermissionsList());
+            rolePermissions.remove(rolePermission);
+            role.setRolePermissionsList(rolePermissions);
+            report(entityLevel, role, () -> service.rolePermissionRemoved(rolePermission));
+            return "revoke " + permission.getCode() + " from " + role.getId();
+        }
+        if (operation < 65) {
+            List<IRole> parents = new ArrayList<>();
+            for (ConcurrentRole candidate : roles) {
+                if (candidate.getId().compareTo(role.getId()) < 0 && random.nextInt(4) == 0) {
+                    parents.add(candidate);
+                }
+            }
+            role.setParentRolesList(parents);
+            service.updateRole(role);
+            return "set " + parents.size() + " parents of " + role.getId();
+        }
+        if (operation < 75) {
+            service.updateRole(role);
+            service.updateUser(user);
+            return "refresh " + role.getId() + " and " + user.getId();
+        }
+        if (operation < 85) {
+            ConcurrentUser replacement = new ConcurrentUser(id(300 + users.size()
+                    + random.nextInt(1_000_000)));
+            service.removeUser(user.getId());
+            users.set(users.indexOf(user), replacement);
+            service.updateUser(replacement);
+            return "replace user " + user.getId();
+        }
+        if (operation < 90) {
+            for (ConcurrentUser holder : users) {
+                IUserRole userRole = find(holder.getUserRolesList(), role);
+                if (userRole != null) {
+                    List<IUserRole> userRoles = new ArrayList<>(holder.getUserRolesList());
+                    userRoles.remove(userRole);
+                    holder.setUserRolesList(userRoles);
+                }
+            }
+            role.setRolePermissionsList(null);
+            role.setParentRolesList(null);
+            removedRoles.add(role);
+            service.removeRole(role.getId());
+            return "remove role " + role.getId();
+        }
+        if (removedRoles.remove(role)) {
+            service.updateRole(role);
+            return "restore role " + role.getId();
+        }
+        return "none";
+    }
+    
+    private void report(boolean entityLevel, IUser user, Runnable relationshipLevel) {
+        if (entityLevel) {
+            service.updateUser(user);
+        } else {
+            relationshipLevel.run();
+        }
+    }
+    
+    private void report(boolean entityLevel, IRole role, Runnable relationshipLevel) {
+        if (entityLevel) {
+            service.updateRole(role);
+        } else {
+            relationshipLevel.run();
+        }
+    }
+    
+    private void assertConsistent(long seed, int step, String mutation) {
+        for (ConcurrentUser user : users) {
+            // Read twice so that published sets are served as well.
+            assertEquals("Seed " + seed + ", step " + step + ": " + mutation
+                    , expected(user), service.getEffectivePermissions(user.getId()));
+            if (random.nextBoolean()) {
+                assertEquals(expected(user), service.getEffectivePermissions(user));
+            }
+        }
+    }
+    
+    /**
+     * Walks the graph from the Roles of a given User.
+     */
+    private Set<String> expected(IUser user) {
+        Set<String> codes = new HashSet<>();
+        Set<IRole> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<IRole> pending = new ArrayDeque<>(DomainGraph.getRoles(user));
+        while (!pending.isEmpty()) {
+            IRole role = pending.poll();
+            if (!visited.add(role)) {
+                continue;
+            }
+            for (IRolePermission rolePermission : role.getRolePermissionsList()) {
+                String code = DomainGraph.getEnabledPermissionCode(rolePermission);
+                if (code != null) {
+                    codes.add(code);
+                }
+            }
+            pending.addAll(role.getParentRolesList());
+        }
+        return codes;
+    }
+    
+    private List<IRole> liveRoles() {
+        List<IRole> live = new ArrayList<>();
+        for (ConcurrentRole role : roles) {
+            if (!removedRoles.contains(role)) {
+                live.add(role);
+            }
+        }
+        return live;
+    }
+    
+    private static IUserRole find(List<IUserRole> userRoles, IRole role) {
+        for (IUserRole userRole : userRoles) {
+            if (userRole.getRole() == role) {
+                return userRole;
+            }
+        }
+        return null;
+    }
+    
+    private static IRolePermission find(List<IRolePermission> rolePermissions
+            , ConcurrentPermission permission) {
+        for (IRolePermission rolePermission : rolePermissions) {
+            if (rolePermission.getPermission() == permission) {
+                return rolePermission;
+            }
+        }
+        return null;
+    }
+    
+    private static BigInteger id(long value) {
+        return BigInteger.valueOf(value);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.authorization;
+
+import com.openums.commons.domain.concurrent.ConcurrentModule;
+import com.openums.commons.domain.concurrent.ConcurrentPermission;
+import com.openums.commons.domain.concurrent.ConcurrentRole;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.CRC32;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that {@code MappedAuthorizationModel} rejects corrupted snapshots
+ * when they are opened.
+ * 
+ * @author Delcio Amarillo
+ */
+public class MappedAuthorizationModelTest {
+    
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 48;
+    
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    
+    private Path file;
+    private byte[] bytes;
+    
+    @Before
+    public void setUp() throws IOException {
+        ConcurrentModule module = new ConcurrentModule(BigInteger.ONE);
+        module.setCode("docs");
+        ConcurrentPermission read = new ConcurrentPermission(BigInteger.valueOf(2));
+        read.setCode("docs.read");
+        read.setModule(module);
+        ConcurrentRole viewer = new ConcurrentRole(BigInteger.valueOf(3));
+        viewer.setCode("viewer");
+        viewer.addPermission(read);
+        ConcurrentRole editor = new ConcurrentRole(BigInteger.valueOf(4));
+        editor.setCode("editor");
+        editor.addParentRole(viewer);
+        file = folder.getRoot().toPath().resolve("model.snapshot");
+        MappedAuthorizationModel.write(file, Collections.emptyList()
+                , Collections.emptyList(), Arrays.asList(viewer, editor));
+        bytes = Files.readAllBytes(file);
+    }
+    
+    @Test
+    public void validSnapshotIsOpened() throws IOException {
+        MappedAuthorizationModel model = MappedAuthorizationModel.open(file);
+        assertEquals(1, model.getModulesCount());
+        assertEquals(1, model.getPermissionsCount());
+        assertEquals(2, model.getRolesCount());
+        assertTrue(model.roleHasPermission(4, "docs.read"));
+    }
+    
+    @Test
+    public void corruptedBodyIsRejected() throws IOException {
+        bytes[bytes.length - 1] ^= 1;
+        assertRejected("checksum");
+    }
+    
+    @Test
+    public void truncatedSnapshotIsRejected() throws IOException {
+        bytes = Arrays.copyOf(bytes, bytes.length - 8);
+        assertRejected("Truncated");
+    }
+    
+    @Test
+    public void unsupportedVersionIsRejected() throws IOException {
+        ByteBuffer.wrap(bytes).putInt(4, 1);
+        assertRejected("version");
+    }
+    
+    @Test
+    public void excessiveCountIsRejected() throws IOException {
+        ByteBuffer.wrap(bytes).putInt(40, 1000);
+        assertRejected("counts exceed");
+    }
+    
+    @Test
+    public void negativeCountIsRejected() throws IOException {
+        ByteBuffer.wrap(bytes).putInt(44, -1);
+        assertRejected("negative count");
+    }
+    
+    @Test
+    public void outOfBoundsLinksAreRejected() throws IOException {
+        // The LINKS_COUNT of the first Role, with a matching checksum.
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.putInt(HEADER_SIZE + 2 * RECORD_SIZE + 28, 1000);
+        updateChecksum(buffer);
+        assertRejected("links out of bounds");
+    }
+    
+    @Test
+    public void outOfBoundsInheritedPermissionsAreRejected() throws IOException {
+        // The EFFECTIVE_START of the second Role, with a matching checksum.
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.putInt(HEADER_SIZE + 3 * RECORD_SIZE + 40, 1000);
+        updateChecksum(buffer);
+        assertRejected("links out of bounds");
+    }
+    
+    @Test
+    public void outOfBoundsCodeIsRejected() throws IOException {
+        // The CODE_OFFSET of the Module, with a matching checksum.
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.putInt(HEADER_SIZE + 8, bytes.length);
+        updateChecksum(buffer);
+        assertRejected("code out of bounds");
+    }
+    
+    private void updateChecksum(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE);
+        buffer.putLong(24, crc.getValue());
+    }
+    
+    private void assertRejected(String reason) throws IOException {
+        Files.write(file, bytes);
+        try {
+            MappedAuthorizationModel.open(file);
+            fail("A corrupted snapshot was opened");
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains(reason));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.authorization;
+
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IRolePermission;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.concurrent.ConcurrentPermission;
+import com.openums.commons.domain.concurrent.ConcurrentRole;
+import com.openums.commons.domain.concurrent.ConcurrentUser;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.memory.InMemoryRolesDao;
+import com.openums.commons.model.memory.InMemoryUsersDao;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that a compiled {@code PermissionSnapshot} answers like the in-memory
+ * DAOs it was compiled from, including inherited and disabled grants.
+ * 
+ * @author Delcio Amarillo
+ */
+public class PermissionSnapshotTest {
+    
+    private final List<ConcurrentPermission> permissions = new ArrayList<>();
+    private final List<ConcurrentRole> roles = new ArrayList<>();
+    private final List<ConcurrentUser> users = new ArrayList<>();
+    private InMemoryRolesDao rolesDao;
+    private InMemoryUsersDao usersDao;
+    
+    @Before
+    public void setUp() throws ModelException {
+        Random random = new Random(42);
+        for (int i = 0; i < 8; i++) {
+            ConcurrentPermission permission = new ConcurrentPermission(id(100 + i));
+            permission.setCode("p" + i);
+            permissions.add(permission);
+        }
+        for (int i = 0; i < 15; i++) {
+            ConcurrentRole role = new ConcurrentRole(id(200 + i));
+            role.setCode("r" + i);
+            for (ConcurrentPermission permission : permissions) {
+                if (random.nextInt(5) == 0) {
+                    role.addPermission(permission);
+                }
+            }
+            for (IRolePermission rolePermission : role.getRolePermissionsList()) {
+                rolePermission.setEnabled(random.nextInt(4) != 0);
+            }
+            for (ConcurrentRole parent : roles) {
+                if (random.nextInt(6) == 0) {
+                    role.addParentRole(parent);
+                }
+            }
+            roles.add(role);
+        }
+        for (int i = 0; i < 30; i++) {
+            ConcurrentUser user = new ConcurrentUser(id(300 + i));
+            user.setUserName("u" + i);
+            for (ConcurrentRole role : roles) {
+                if (random.nextInt(8) == 0) {
+                    user.addRole(role);
+                }
+            }
+            users.add(user);
+        }
+        rolesDao = new InMemoryRolesDao();
+        usersDao = new InMemoryUsersDao(rolesDao);
+        for (ConcurrentRole role : roles) {
+            rolesDao.insert(role);
+        }
+        for (ConcurrentUser user : users) {
+            usersDao.insert(user);
+        }
+    }
+    
+    @Test
+    public void compiledAnswersMatchTheDaos() throws ModelException {
+        PermissionSnapshot snapshot = PermissionSnapshot.compile(rolesDao.getAll()
+                , usersDao.getAll());
+        assertEquals(roles.size(), snapshot.getRolesCount());
+        assertEquals(users.size(), snapshot.getUsersCount());
+        assertMatchesDaos(snapshot);
+    }
+    
+    @Test
+    public void disabledGrantsAreIgnored() throws ModelException {
+        ConcurrentRole role = roles.get(0);
+        ConcurrentUser user = users.get(0);
+        role.setRolePermissionsList(null);
+        role.addPermission(permissions.get(7));
+        role.getRolePermissionsList().get(0).setEnabled(false);
+        user.setUserRolesList(null);
+        user.addRole(role);
+        PermissionSnapshot snapshot = PermissionSnapshot.compile(roles, users);
+        assertFalse(snapshot.roleHasPermission(role.getId(), "p7"));
+        assertFalse(snapshot.hasPermission(user.getId(), "p7"));
+        
+        role.getRolePermissionsList().get(0).setEnabled(true);
+        snapshot = PermissionSnapshot.compile(roles, users);
+        assertTrue(snapshot.roleHasPermission(role.getId(), "p7"));
+        assertTrue(snapshot.hasPermission(user.getId(), "p7"));
+        assertTrue(snapshot.hasPermission(user.getId().longValue(), "p7"));
+    }
+    
+    @Test
+    public void unknownUsersAndCodesHoldNothing() {
+        PermissionSnapshot snapshot = PermissionSnapshot.compile(roles, users);
+        assertFalse(snapshot.hasPermission(id(999), "p0"));
+        assertFalse(snapshot.hasPermission(users.get(0).getId(), "unknown"));
+        assertFalse(snapshot.hasPermission(users.get(0).getId(), null));
+        assertFalse(snapshot.hasPermission(BigInteger.ONE.shiftLeft(70), "p0"));
+        assertEquals(-1, snapshot.getOrdinal("unknown"));
+        for (int i = 0; i < snapshot.getPermissionsCount(); i++) {
+            assertEquals(i, snapshot.getOrdinal(snapshot.getCode(i)));
+        }
+        assertFalse(PermissionSnapshot.EMPTY.hasPermission(users.get(0).getId(), "p0"));
+    }
+    
+    private void assertMatchesDaos(PermissionSnapshot snapshot) throws ModelException {
+        for (ConcurrentPermission permission : permissions) {
+            String code = permission.getCode();
+            Set<BigInteger> holders = new HashSet<>();
+            for (IUser user : usersDao.getUsersByPermission(code)) {
+                holders.add(user.getId());
+            }
+            for (ConcurrentUser user : users) {
+                assertEquals(user.getUserName() + " " + code, holders.contains(user.getId())
+                        , snapshot.hasPermission(user.getId(), code));
+            }
+            for (IRole role : roles) {
+                assertEquals(role.getCode() + " " + code
+                        , rolesDao.roleHasPermission(role.getId(), code)
+                        , snapshot.roleHasPermission(role.getId(), code));
+            }
+        }
+    }
+    
+    private static BigInteger id(long value) {
+        return BigInteger.valueOf(value);
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.bulk;
+
+import com.openums.commons.domain.IDomainFactory;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.concurrent.ConcurrentDomainFactory;
+import com.openums.commons.domain.concurrent.ConcurrentRole;
+import com.openums.commons.model.BatchResult;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.ModelExceptionType;
+import com.openums.commons.model.memory.InMemoryModulesDao;
+import com.openums.commons.model.memory.InMemoryPermissionsDao;
+import com.openums.commons.model.memory.InMemoryRolesDao;
+import com.openums.commons.model.memory.InMemoryUsersDao;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the validation and inserts of {@code DomainImporter}.
+ * 
+ * @author Delcio Amarillo
+ */
+public class DomainImporterTest {
+    
+    private static final String VALID = String.join("\n"
+            , "module,1,admin,Administration"
+            , "permission,2,read,,admin"
+            , "permission,3,write,,admin"
+            , "role,4,viewer,,admin"
+            , "role,5,editor,,admin"
+            , "role_permission,6,viewer,read,true"
+            , "role_permission,7,editor,write,true"
+            , "role_parent,editor,viewer"
+            , "user,8,jdoe,John,Doe,M,1990-05-17,jdoe@example.com,,true,true"
+            , "user_role,9,jdoe,editor"
+            , "");
+    
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    
+    private InMemoryModulesDao modulesDao;
+    private InMemoryPermissionsDao permissionsDao;
+    private InMemoryRolesDao rolesDao;
+    private InMemoryUsersDao usersDao;
+    
+    @Before
+    public void setUp() {
+        modulesDao = new InMemoryModulesDao();
+        permissionsDao = new InMemoryPermissionsDao();
+        rolesDao = new InMemoryRolesDao();
+        usersDao = new InMemoryUsersDao(rolesDao);
+    }
+    
+    @Test
+    public void importsRecordsAndRelationships() throws Exception {
+        ImportResult result = importer(new ConcurrentDomainFactory())
+                .importFrom(write("valid.csv", VALID), RecordFormat.CSV);
+        assertTrue(result.toString(), result.isComplete());
+        assertEquals(1, result.getInsertedCount(RecordType.MODULE));
+        assertEquals(2, result.getInsertedCount(RecordType.PERMISSION));
+        assertEquals(2, result.getInsertedCount(RecordType.ROLE));
+        assertEquals(1, result.getInsertedCount(RecordType.USER));
+        assertEquals(2, result.getReadCount(RecordType.ROLE_PERMISSION));
+        
+        IRole editor = rolesDao.getRoleByCode("editor");
+        List<IRole> parents = editor.getParentRolesList();
+        assertEquals(1, parents.size());
+        assertEquals("viewer", parents.get(0).getCode());
+        assertEquals("write", editor.getRolePermissionsList().get(0).getPermission().getCode());
+        IUser user = usersDao.getUserByName("jdoe");
+        assertEquals("editor", user.getUserRolesList().get(0).getRole().getCode());
+    }
+    
+    @Test
+    public void reimportsAnExportedFile() throws Exception {
+        importer(new ConcurrentDomainFactory()).importFrom(write("valid.csv", VALID)
+                , RecordFormat.CSV);
+        for (RecordFormat format : RecordFormat.values()) {
+            Path exported = folder.newFile("exported." + format).toPath();
+            exporter(modulesDao, permissionsDao, rolesDao, usersDao).exportTo(exported, format);
+            
+            InMemoryModulesDao modules = new InMemoryModulesDao();
+            InMemoryPermissionsDao permissions = new InMemoryPermissionsDao();
+            InMemoryRolesDao roles = new InMemoryRolesDao();
+            InMemoryUsersDao users = new InMemoryUsersDao(roles);
+            ImportResult result = new DomainImporter(new ConcurrentDomainFactory(), modules
+                    , permissions, roles, users, 2, 2).importFrom(exported, format);
+            assertTrue(result.toString(), result.isComplete());
+            
+            Path reexported = folder.newFile("reexported." + format).toPath();
+            exporter(modules, permissions, roles, users).exportTo(reexported, format);
+            assertArrayEquals(format.toString(), Files.readAllBytes(exported)
+                    , Files.readAllBytes(reexported));
+        }
+    }
+    
+    @Test
+    public void rejectsInvalidRecordsBeforeInserting() throws Exception {
+        String invalid = String.join("\n"
+                , "module,1,admin,"
+                , "module,1,other,"
+                , "permission,x,read,,admin"
+                , "role,4,viewer,,missing"
+                , "role_permission,,viewer,read,maybe"
+                , "user,8,,John,Doe,M,1990-13-01,,,true,true"
+                , "user_role,,ghost,viewer"
+                , "");
+        try {
+            importer(new ConcurrentDomainFactory()).importFrom(write("invalid.csv", invalid)
+                    , RecordFormat.CSV);
+            fail("The invalid records were imported");
+        } catch (ModelException ex) {
+            assertEquals(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION, ex.getExceptionType());
+            String message = ex.getMessage();
+            assertTrue(message, message.startsWith("Invalid import, 7 error(s):"));
+            assertTrue(message, message.contains("Line 2 (module): duplicated id: 1"));
+            assertTrue(message, message.contains("Line 4 (role): unknown module: missing"));
+        }
+        assertTrue(modulesDao.getAll().isEmpty());
+        assertTrue(rolesDao.getAll().isEmpty());
+    }
+    
+    @Test
+    public void rejectsInheritanceCycles() throws Exception {
+        String cycle = String.join("\n"
+                , "role,4,viewer,,"
+                , "role,5,editor,,"
+                , "role_parent,editor,viewer"
+                , "role_parent,viewer,editor"
+                , "");
+        try {
+            importer(new ConcurrentDomainFactory()).importFrom(write("cycle.csv", cycle)
+                    , RecordFormat.CSV);
+            fail("The inheritance cycle was imported");
+        } catch (ModelException ex) {
+            assertEquals(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION, ex.getExceptionType());
+            assertTrue(ex.getMessage(), ex.getMessage().contains("cycle"));
+        }
+        assertTrue(rolesDao.getAll().isEmpty());
+    }
+    
+    @Test
+    public void rejectsInheritanceWithoutFactorySupport() throws Exception {
+        IDomainFactory factory = new ConcurrentDomainFactory() {
+            @Override
+            public IRole newRole(BigInteger id) {
+                return new ConcurrentRole(id) {
+                    @Override
+                    public void setParentRolesList(List<IRole> parentRolesList) {
+                        throw new UnsupportedOperationException();
+                    }
+                    
+                    @Override
+                    public void addParentRole(IRole parentRole) {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+        try {
+            importer(factory).importFrom(write("valid.csv", VALID), RecordFormat.CSV);
+            fail("The inheritance was imported");
+        } catch (ModelException ex) {
+            assertEquals(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION, ex.getExceptionType());
+        }
+        assertTrue(rolesDao.getAll().isEmpty());
+    }
+    
+    @Test
+    public void batchFailuresCancelTheRemainingBatches() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            lines.add("user," + (100 + i) + ",user" + i + ",,,,,,,true,true");
+        }
+        lines.add("");
+        BlockingUsersDao users = new BlockingUsersDao();
+        DomainImporter importer = new DomainImporter(new ConcurrentDomainFactory()
+                , modulesDao, permissionsDao, rolesDao, users, 2, 3);
+        try {
+            importer.importFrom(write("users.csv", String.join("\n", lines)), RecordFormat.CSV);
+            fail("The failed batch was ignored");
+        } catch (ModelException ex) {
+            assertEquals(ModelExceptionType.TIME_OUT_EXCEPTION, ex.getExceptionType());
+        }
+        // The batches that had started are interrupted, the others never start.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (users.interrupted.get() < users.started.get() - 1
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(users.started.get() - 1, users.interrupted.get());
+        assertTrue(String.valueOf(users.started.get()), users.started.get() <= 3);
+        assertTrue(users.getAll().isEmpty());
+    }
+    
+    private DomainImporter importer(IDomainFactory factory) {
+        return new DomainImporter(factory, modulesDao, permissionsDao, rolesDao, usersDao
+                , 2, 2);
+    }
+    
+    private static DomainExporter exporter(InMemoryModulesDao modules
+            , InMemoryPermissionsDao permissions, InMemoryRolesDao roles
+            , InMemoryUsersDao users) {
+        return new DomainExporter(modules, permissions, roles, users, 100);
+    }
+    
+    private Path write(String name, String content) throws IOException {
+        Path file = folder.newFile(name).toPath();
+        Files.write(file, Arrays.asList(content.split("\n")), StandardCharsets.UTF_8);
+        return file;
+    }
+    
+    /**
+     * Users DAO failing the batch of the first User and blocking the others
+     * until they are interrupted.
+     */
+    private static final class BlockingUsersDao extends InMemoryUsersDao {
+        
+        private final AtomicInteger started = new AtomicInteger();
+        private final AtomicInteger interrupted = new AtomicInteger();
+        
+        @Override
+        public BatchResult<IUser> insertAll(Collection<? extends IUser> dataObjects
+                , int batchSize) throws ModelException {
+            started.incrementAndGet();
+            if (dataObjects.iterator().next().getUserName().equals("user0")) {
+                throw new ModelException(ModelExceptionType.TIME_OUT_EXCEPTION
+                        , "The batch timed out.");
+            }
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException ex) {
+                interrupted.incrementAndGet();
+                throw new ModelException(ModelExceptionType.UNSPECIFIED_EXCEPTION, ex);
+            }
+            return super.insertAll(dataObjects, batchSize);
+        }
+    }
+}
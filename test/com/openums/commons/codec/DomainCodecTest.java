@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.codec;
+
+import com.openums.commons.domain.IDomainFactory;
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.IPermission;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IRolePermission;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.IUserRole;
+import com.openums.commons.domain.LazyList;
+import com.openums.commons.domain.concurrent.ConcurrentDomainFactory;
+import com.openums.commons.domain.concurrent.ConcurrentModule;
+import com.openums.commons.domain.concurrent.ConcurrentPermission;
+import com.openums.commons.domain.concurrent.ConcurrentRole;
+import com.openums.commons.domain.concurrent.ConcurrentUser;
+import com.openums.commons.domain.concurrent.ConcurrentUserRole;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the round trip of domain graphs through {@code DomainCodec}.
+ * 
+ * @author Delcio Amarillo
+ */
+public class DomainCodecTest {
+    
+    private final IDomainFactory factory = new ConcurrentDomainFactory();
+    
+    private ConcurrentModule module;
+    private ConcurrentPermission read;
+    private ConcurrentPermission write;
+    private ConcurrentRole viewer;
+    private ConcurrentRole editor;
+    private ConcurrentUser jdoe;
+    private ConcurrentUser asmith;
+    
+    @Before
+    public void setUp() {
+        module = new ConcurrentModule(id(1));
+        module.setCode("docs");
+        read = permission(10, "docs.read");
+        write = permission(11, "docs.write");
+        viewer = role(20, "viewer");
+        viewer.addPermission(read);
+        editor = role(21, "editor");
+        editor.addPermission(write);
+        editor.addParentRole(viewer);
+        jdoe = user(30, "jdoe");
+        jdoe.setDateOfBirth(new Date(-86400000L));
+        jdoe.addRole(editor);
+        asmith = user(31, "asmith");
+        asmith.addRole(viewer);
+        asmith.addRole(editor);
+    }
+    
+    @Test
+    public void roundTripKeepsPropertiesAndShape() {
+        DomainCodec codec = new DomainCodec(factory);
+        List<IUser> users = codec.decode(ByteBuffer.wrap(codec.encode(Arrays.asList(jdoe, asmith)))
+                , IUser.class);
+        
+        assertEquals(2, users.size());
+        IUser user = users.get(0);
+        assertEquals(id(30), user.getId());
+        assertEquals("jdoe", user.getUserName());
+        assertEquals(Boolean.TRUE, user.isActive());
+        assertNull(user.isUnlocked());
+        assertEquals(new Date(-86400000L), user.getDateOfBirth());
+        
+        IRole decodedEditor = user.getUserRolesList().get(0).getRole();
+        assertEquals("editor", decodedEditor.getCode());
+        assertSame(user, user.getUserRolesList().get(0).getUser());
+        assertSame(decodedEditor, users.get(1).getUserRolesList().get(1).getRole());
+        
+        IRole decodedViewer = decodedEditor.getParentRolesList().get(0);
+        assertEquals("viewer", decodedViewer.getCode());
+        assertSame(decodedViewer, users.get(1).getUserRolesList().get(0).getRole());
+        
+        IRolePermission rolePermission = decodedEditor.getRolePermissionsList().get(0);
+        assertSame(decodedEditor, rolePermission.getRole());
+        IPermission permission = rolePermission.getPermission();
+        assertEquals("docs.write", permission.getCode());
+        IModule decodedModule = permission.getModule();
+        assertEquals("docs", decodedModule.getCode());
+        assertSame(decodedModule, decodedViewer.getRolePermissionsList().get(0)
+                .getPermission().getModule());
+    }
+    
+    @Test
+    public void passwordsAreOnlyWrittenOnRequest() {
+        jdoe.setPassword("hash");
+        List<Object> roots = Arrays.asList(jdoe);
+        
+        DomainCodec codec = new DomainCodec(factory);
+        assertNull(((IUser) codec.decode(codec.encode(roots)).get(0)).getPassword());
+        
+        codec = new DomainCodec(factory, true);
+        assertEquals("hash", ((IUser) codec.decode(codec.encode(roots)).get(0)).getPassword());
+    }
+    
+    @Test
+    public void unloadedLazyListsAreSkipped() {
+        ConcurrentRole lazy = new ConcurrentRole(id(22)) {
+            @Override
+            public List<IUserRole> getUserRolesList() {
+                return new LazyList<>(() -> {
+                    throw new AssertionError("The lazy list was loaded");
+                });
+            }
+        };
+        lazy.setCode("lazy");
+        lazy.addPermission(read);
+        
+        DomainCodec codec = new DomainCodec(factory);
+        IRole role = (IRole) codec.decode(codec.encode(Arrays.asList(lazy))).get(0);
+        
+        assertEquals("lazy", role.getCode());
+        assertEquals(0, role.getUserRolesList().size());
+        assertEquals("docs.read", role.getRolePermissionsList().get(0).getPermission().getCode());
+    }
+    
+    @Test
+    public void listsAreReadOnce() {
+        ConcurrentUser growing = new ConcurrentUser(id(32)) {
+            private final List<IUserRole> userRoles = new GrowingList(this);
+            
+            @Override
+            public List<IUserRole> getUserRolesList() {
+                return userRoles;
+            }
+        };
+        growing.setUserName("growing");
+        
+        DomainCodec codec = new DomainCodec(factory);
+        IUser user = (IUser) codec.decode(codec.encode(Arrays.asList(growing))).get(0);
+        
+        assertEquals(1, user.getUserRolesList().size());
+        assertEquals("viewer", user.getUserRolesList().get(0).getRole().getCode());
+    }
+    
+    @Test
+    public void corruptedDataIsRejected() {
+        DomainCodec codec = new DomainCodec(factory);
+        byte[] bytes = codec.encode(Arrays.asList(jdoe));
+        try {
+            codec.decode(Arrays.copyOf(bytes, bytes.length / 2));
+            fail("A truncated graph was decoded");
+        } catch (IllegalArgumentException ex) {
+            // Expected.
+        }
+    }
+    
+    /**
+     * User-role list that gains a new element, as if another thread added a
+     * Role, right after it is read for the first time.
+     */
+    private final class GrowingList extends ArrayList<IUserRole> {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final IUser user;
+        private boolean grown;
+        
+        private GrowingList(IUser user) {
+            this.user = user;
+            super.add(new ConcurrentUserRole(user, viewer));
+        }
+        
+        @Override
+        public Object[] toArray() {
+            Object[] result = super.toArray();
+            grow();
+            return result;
+        }
+        
+        @Override
+        public Iterator<IUserRole> iterator() {
+            Iterator<IUserRole> result = new ArrayList<>(this).iterator();
+            grow();
+            return result;
+        }
+        
+        private void grow() {
+            if (!grown) {
+                grown = true;
+                super.add(new ConcurrentUserRole(user, role(23, "late")));
+            }
+        }
+    }
+    
+    private static BigInteger id(long value) {
+        return BigInteger.valueOf(value);
+    }
+    
+    private ConcurrentPermission permission(long id, String code) {
+        ConcurrentPermission permission = new ConcurrentPermission(id(id));
+        permission.setCode(code);
+        permission.setModule(module);
+        module.addPermission(permission);
+        return permission;
+    }
+    
+    private ConcurrentRole role(long id, String code) {
+        ConcurrentRole role = new ConcurrentRole(id(id));
+        role.setCode(code);
+        role.setModule(module);
+        return role;
+    }
+    
+    private ConcurrentUser user(long id, String userName) {
+        ConcurrentUser user = new ConcurrentUser(id(id));
+        user.setUserName(userName);
+        user.setActive(Boolean.TRUE);
+        return user;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.domain;
+
+import com.openums.commons.domain.concurrent.ConcurrentRole;
+import com.openums.commons.domain.concurrent.ConcurrentUser;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the effective Roles and the identifiers recorded by
+ * {@code LoginRecord}.
+ * 
+ * @author Delcio Amarillo
+ */
+public class LoginRecordTest {
+    
+    private static final BigInteger HUGE = BigInteger.ONE.shiftLeft(80);
+    
+    @Test
+    public void inheritedRolesAreRecorded() {
+        ConcurrentRole root = new ConcurrentRole(BigInteger.valueOf(1));
+        ConcurrentRole middle = new ConcurrentRole(BigInteger.valueOf(5));
+        ConcurrentRole leaf = new ConcurrentRole(BigInteger.valueOf(3));
+        ConcurrentRole other = new ConcurrentRole(BigInteger.valueOf(9));
+        middle.addParentRole(root);
+        leaf.addParentRole(middle);
+        other.addParentRole(root);
+        ConcurrentUser user = new ConcurrentUser(BigInteger.TEN);
+        user.setUserName("jdoe");
+        user.setActive(true);
+        user.addRole(leaf);
+        user.addRole(other);
+        
+        LoginRecord record = LoginRecord.of(user);
+        assertEquals(ids(1, 3, 5, 9), record.getRoleIds());
+        assertTrue(record.hasRole(1));
+        assertTrue(record.hasRole(BigInteger.valueOf(5)));
+        assertFalse(record.hasRole(2));
+        assertFalse(record.hasRole((BigInteger) null));
+        assertFalse(record.isLoginAllowed());
+        assertEquals(record, LoginRecord.of(user));
+        assertEquals(record.hashCode(), LoginRecord.of(user).hashCode());
+        assertNull(LoginRecord.of(null));
+    }
+    
+    @Test
+    public void keysBeyondLongAreKept() {
+        ConcurrentRole role = new ConcurrentRole(HUGE);
+        ConcurrentRole parent = new ConcurrentRole(HUGE.add(BigInteger.ONE));
+        role.addParentRole(parent);
+        ConcurrentUser user = new ConcurrentUser(HUGE);
+        user.addRole(role);
+        
+        LoginRecord record = LoginRecord.of(user);
+        assertEquals(Arrays.asList(HUGE, HUGE.add(BigInteger.ONE)), record.getRoleIds());
+        assertTrue(record.hasRole(HUGE));
+        assertFalse(record.hasRole(HUGE.longValue()));
+    }
+    
+    @Test
+    public void roleIdsAreSortedAndDistinct() {
+        LoginRecord record = new LoginRecord(BigInteger.ONE, "jdoe", null, true, true
+                , Arrays.asList(HUGE, BigInteger.valueOf(7), null, BigInteger.valueOf(7)));
+        assertEquals(Arrays.asList(BigInteger.valueOf(7), HUGE), record.getRoleIds());
+        assertTrue(record.isLoginAllowed());
+        try {
+            record.getRoleIds().set(0, BigInteger.ONE);
+            fail("The role ids were modified");
+        } catch (UnsupportedOperationException ex) {
+            // Expected.
+        }
+    }
+    
+    private static List<BigInteger> ids(long... values) {
+        BigInteger[] ids = new BigInteger[values.length];
+        for (int i = 0; i < values.length; i++) {
+            ids[i] = BigInteger.valueOf(values[i]);
+        }
+        return Arrays.asList(ids);
+    }
+}
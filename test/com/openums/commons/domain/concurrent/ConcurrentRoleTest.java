@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.domain.concurrent;
+
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IRolePermission;
+import com.openums.commons.domain.IUserRole;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the relationships of {@code ConcurrentRole} under concurrent
+ * additions, reads and replacements.
+ * 
+ * @author Delcio Amarillo
+ */
+public class ConcurrentRoleTest {
+    
+    private static final int THREADS = 8;
+    private static final int USERS_PER_THREAD = 500;
+    
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+    
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+    
+    @Test
+    public void concurrentGrantsAreAllRecordedOnce() throws Exception {
+        ConcurrentRole role = new ConcurrentRole(id(1));
+        List<ConcurrentPermission> permissions = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            permissions.add(new ConcurrentPermission(id(100 + i)));
+        }
+        List<List<ConcurrentUser>> users = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            List<ConcurrentUser> own = new ArrayList<>();
+            for (int i = 0; i < USERS_PER_THREAD; i++) {
+                own.add(new ConcurrentUser(id(1_000 + t * USERS_PER_THREAD + i)));
+            }
+            users.add(own);
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < own.size(); i++) {
+                    own.get(i).addRole(role);
+                    // Every thread grants every Permission.
+                    role.addPermission(permissions.get(i % permissions.size()));
+                }
+                return null;
+            }));
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        Future<?> reader = executor.submit(() -> {
+            int previous = 0;
+            while (!done.get()) {
+                List<IUserRole> userRoles = role.getUserRolesList();
+                assertTrue(userRoles.size() >= previous);
+                for (IUserRole userRole : userRoles) {
+                    assertSame(role, userRole.getRole());
+                }
+                previous = userRoles.size();
+            }
+            return null;
+        });
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        done.set(true);
+        reader.get(30, TimeUnit.SECONDS);
+        
+        Set<BigInteger> userIds = new HashSet<>();
+        for (IUserRole userRole : role.getUserRolesList()) {
+            userIds.add(userRole.getUser().getId());
+        }
+        assertEquals(THREADS * USERS_PER_THREAD, role.getUserRolesList().size());
+        assertEquals(THREADS * USERS_PER_THREAD, userIds.size());
+        for (List<ConcurrentUser> own : users) {
+            for (ConcurrentUser user : own) {
+                assertEquals(1, user.getUserRolesList().size());
+                assertSame(role, user.getUserRolesList().get(0).getRole());
+            }
+        }
+        assertEquals(permissions.size(), role.getRolePermissionsList().size());
+        for (ConcurrentPermission permission : permissions) {
+            List<IRolePermission> rolePermissions = permission.getRolePermissionsList();
+            assertEquals(1, rolePermissions.size());
+            assertSame(role, rolePermissions.get(0).getRole());
+        }
+    }
+    
+    @Test
+    public void replacementsRacingWithAdditionsKeepTheReplacement() throws Exception {
+        for (int round = 0; round < 500; round++) {
+            ConcurrentRole role = new ConcurrentRole(id(1));
+            List<IUserRole> replacement = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                replacement.add(new ConcurrentUserRole(new ConcurrentUser(id(i)), role));
+            }
+            CountDownLatch start = new CountDownLatch(1);
+            Future<?> setter = executor.submit(() -> {
+                start.await();
+                role.setUserRolesList(replacement);
+                return null;
+            });
+            Future<?> adder = executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 20; i++) {
+                    role.addUser(new ConcurrentUser(id(100 + i)));
+                }
+                return null;
+            });
+            start.countDown();
+            setter.get(30, TimeUnit.SECONDS);
+            adder.get(30, TimeUnit.SECONDS);
+            List<IUserRole> userRoles = role.getUserRolesList();
+            assertTrue(userRoles.containsAll(replacement));
+            assertTrue(userRoles.size() >= replacement.size()
+                    && userRoles.size() <= replacement.size() + 20);
+        }
+    }
+    
+    private static BigInteger id(long value) {
+        return BigInteger.valueOf(value);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.domain.concurrent;
+
+import com.openums.commons.domain.IUserRole;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the Roles of {@code ConcurrentUser} under concurrent additions,
+ * reads and replacements.
+ * 
+ * @author Delcio Amarillo
+ */
+public class ConcurrentUserTest {
+    
+    private static final int THREADS = 8;
+    
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+    
+    @Test
+    public void rolesAddedConcurrentlyAreHeldOnce() throws Exception {
+        ConcurrentUser user = new ConcurrentUser(id(1));
+        List<ConcurrentRole> roles = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            roles.add(new ConcurrentRole(id(100 + i)));
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (ConcurrentRole role : roles) {
+                    user.addRole(role);
+                    assertTrue(user.getUserRolesList().size() <= roles.size());
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        
+        Set<BigInteger> roleIds = new HashSet<>();
+        for (IUserRole userRole : user.getUserRolesList()) {
+            assertSame(user, userRole.getUser());
+            roleIds.add(userRole.getRole().getId());
+        }
+        assertEquals(roles.size(), roleIds.size());
+        assertEquals(roles.size(), user.getUserRolesList().size());
+        for (ConcurrentRole role : roles) {
+            assertEquals(1, role.getUserRolesList().size());
+            assertSame(user, role.getUserRolesList().get(0).getUser());
+        }
+    }
+    
+    @Test
+    public void replacementsRacingWithAdditionsKeepTheReplacement() throws Exception {
+        for (int round = 0; round < 500; round++) {
+            ConcurrentUser user = new ConcurrentUser(id(1));
+            List<IUserRole> replacement = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                replacement.add(new ConcurrentUserRole(user, new ConcurrentRole(id(i))));
+            }
+            CountDownLatch start = new CountDownLatch(1);
+            Future<?> setter = executor.submit(() -> {
+                start.await();
+                user.setUserRolesList(replacement);
+                return null;
+            });
+            Future<?> adder = executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 5; i++) {
+                    user.addRole(new ConcurrentRole(id(100 + i)));
+                }
+                return null;
+            });
+            start.countDown();
+            setter.get(30, TimeUnit.SECONDS);
+            adder.get(30, TimeUnit.SECONDS);
+            List<IUserRole> userRoles = user.getUserRolesList();
+            assertTrue(userRoles.containsAll(replacement));
+            assertTrue(userRoles.size() >= replacement.size()
+                    && userRoles.size() <= replacement.size() + 5);
+        }
+    }
+    
+    private static BigInteger id(long value) {
+        return BigInteger.valueOf(value);
+    }
+}
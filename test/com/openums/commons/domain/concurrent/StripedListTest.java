@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.domain.concurrent;
+
+import com.openums.commons.domain.LazyList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests {@code StripedList} under concurrent additions, reads and
+ * replacements.
+ * 
+ * @author Delcio Amarillo
+ */
+public class StripedListTest {
+    
+    private static final int THREADS = 8;
+    
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+    
+    @Test
+    public void concurrentAddsKeepEveryKeyOnce() throws Exception {
+        StripedList<Integer> list = new StripedList<>(16, Function.identity());
+        AtomicInteger added = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                // Every thread adds every key, so each key is contended.
+                for (int i = 0; i < 5_000; i++) {
+                    if (list.add(i)) {
+                        added.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        assertEquals(5_000, added.get());
+        List<Integer> snapshot = list.snapshot();
+        assertEquals(5_000, snapshot.size());
+        assertEquals(5_000, new HashSet<>(snapshot).size());
+    }
+    
+    @Test
+    public void readersSeeGrowingImmutableSnapshots() throws Exception {
+        StripedList<Integer> list = new StripedList<>(4, Function.identity());
+        AtomicBoolean done = new AtomicBoolean();
+        Future<?> reader = executor.submit(() -> {
+            int previous = 0;
+            while (!done.get()) {
+                List<Integer> snapshot = list.snapshot();
+                int size = snapshot.size();
+                assertTrue(size >= previous);
+                assertEquals(size, new HashSet<>(snapshot).size());
+                // Later additions never show up in a snapshot already taken.
+                Thread.yield();
+                assertEquals(size, snapshot.size());
+                assertEquals(size, new ArrayList<>(snapshot).size());
+                previous = size;
+            }
+            return null;
+        });
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < THREADS - 1; t++) {
+            int first = t * 2_000;
+            writers.add(executor.submit(() -> {
+                for (int i = first; i < first + 2_000; i++) {
+                    list.add(i);
+                }
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+        }
+        done.set(true);
+        reader.get(30, TimeUnit.SECONDS);
+        assertEquals((THREADS - 1) * 2_000, list.snapshot().size());
+        try {
+            list.snapshot().add(-1);
+            fail("The snapshot was modified");
+        } catch (UnsupportedOperationException ex) {
+            // Expected.
+        }
+    }
+    
+    @Test
+    public void addsRacingWithALazySetAreNotLost() throws Exception {
+        List<Integer> lazyElements = Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8);
+        for (int round = 0; round < 2_000; round++) {
+            StripedList<Integer> list = new StripedList<>(4, Function.identity());
+            CountDownLatch start = new CountDownLatch(1);
+            Future<?> setter = executor.submit(() -> {
+                start.await();
+                list.set(new LazyList<>(() -> lazyElements));
+                return null;
+            });
+            Future<?> adder = executor.submit(() -> {
+                start.await();
+                list.add(100);
+                return null;
+            });
+            start.countDown();
+            setter.get(30, TimeUnit.SECONDS);
+            adder.get(30, TimeUnit.SECONDS);
+            // Either the set replaced the addition or the addition followed it.
+            Set<Integer> elements = new HashSet<>(list.snapshot());
+            assertTrue("Round " + round + ": " + elements, elements.containsAll(lazyElements));
+            assertTrue(elements.size() == lazyElements.size()
+                    || elements.size() == lazyElements.size() + 1);
+        }
+    }
+    
+    @Test
+    public void setReplacesEveryElement() {
+        StripedList<Integer> list = new StripedList<>(4, Function.identity());
+        for (int i = 0; i < 100; i++) {
+            list.add(i);
+        }
+        List<Integer> before = list.snapshot();
+        list.set(Arrays.asList(7, 8, 8, 9));
+        assertEquals(new HashSet<>(Arrays.asList(7, 8, 9)), new HashSet<>(list.snapshot()));
+        assertEquals(3, list.snapshot().size());
+        assertEquals(100, before.size());
+        assertFalse(list.add(7));
+        assertTrue(list.add(1));
+        assertEquals(100, new HashSet<>(before).size());
+        
+        list.set(null);
+        assertTrue(list.snapshot().isEmpty());
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the item-by-item batch fallback of {@code BatchSupport} and the
+ * bookkeeping of {@code BatchResult}.
+ * 
+ * @author Delcio Amarillo
+ */
+public class BatchSupportTest {
+    
+    @Test
+    public void outcomesFollowTheIterationOrder() {
+        Set<String> items = new LinkedHashSet<>(Arrays.asList("a", "bad", "c", "worse", "e"));
+        List<String> applied = new ArrayList<>();
+        BatchResult<String> result = BatchSupport.applyEach(items, 2, item -> {
+            applied.add(item);
+            if (item.length() > 1) {
+                throw new ModelException(item.equals("bad")
+                        ? ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION
+                        : ModelExceptionType.TIME_OUT_EXCEPTION, item);
+            }
+            return item.toUpperCase();
+        });
+        
+        assertEquals(new ArrayList<>(items), applied);
+        assertEquals(5, result.size());
+        assertEquals(Arrays.asList(1, 3), result.getFailedIndexes());
+        assertEquals("A", result.getResult(0));
+        assertEquals("C", result.getResult(2));
+        assertEquals("E", result.getResult(4));
+        assertEquals("bad", result.getFailure(1).getMessage());
+        assertEquals(ModelExceptionType.TIME_OUT_EXCEPTION, result.getFailureType(3));
+        assertEquals(1, result.getFailureCount(ModelExceptionType.TIME_OUT_EXCEPTION));
+        assertEquals(0, result.getFailureCount(ModelExceptionType.UNSPECIFIED_EXCEPTION));
+        assertEquals(3, result.getSuccessCount());
+        assertNull(result.getFailureType(0));
+    }
+    
+    @Test
+    public void uncheckedErrorsAbortTheBatch() {
+        List<Integer> applied = new ArrayList<>();
+        try {
+            BatchSupport.applyEach(Arrays.asList(1, 2, 3), 10, item -> {
+                applied.add(item);
+                if (item == 2) {
+                    throw new IllegalStateException("Expected.");
+                }
+                return item;
+            });
+            fail("The unchecked error was swallowed");
+        } catch (IllegalStateException ex) {
+            // Expected.
+        }
+        assertEquals(Arrays.asList(1, 2), applied);
+    }
+    
+    @Test
+    public void nonPositiveBatchSizesAreRejected() {
+        for (int batchSize : new int[] {0, -1}) {
+            try {
+                BatchSupport.applyEach(Arrays.asList(1), batchSize, item -> item);
+                fail("A batch size of " + batchSize + " was accepted");
+            } catch (IllegalArgumentException ex) {
+                // Expected.
+            }
+        }
+    }
+    
+    @Test
+    public void resultsCanBeOverwritten() {
+        ModelException failure = new ModelException(
+                ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION, "duplicate");
+        BatchResult<String> result = new BatchResult<>(3);
+        assertTrue(result.isSuccess());
+        assertNull(result.getResult(1));
+        
+        result.failed(1, failure);
+        result.failed(1, failure);
+        assertEquals(1, result.getFailureCount());
+        assertSame(failure, result.getFailure(1));
+        
+        result.succeeded(1, "retried");
+        assertTrue(result.isSuccess());
+        assertEquals("retried", result.getResult(1));
+        assertTrue(result.getFailedIndexes().isEmpty());
+        
+        result.failed(2, failure);
+        assertFalse(result.isSuccess());
+        assertFalse(result.isSuccess(2));
+        assertEquals(Arrays.asList(2), result.getFailedIndexes());
+        try {
+            result.failed(0, null);
+            fail("A null failure was accepted");
+        } catch (IllegalArgumentException ex) {
+            // Expected.
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model;
+
+import com.openums.commons.domain.IModule;
+import com.openums.commons.domain.concurrent.ConcurrentModule;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the default paged finders and batch operations of {@code IBasicDao}
+ * on a DAO that only implements the abstract methods.
+ * 
+ * @author Delcio Amarillo
+ */
+public class IBasicDaoTest {
+    
+    private ListModulesDao dao;
+    
+    @Before
+    public void setUp() {
+        dao = new ListModulesDao();
+        for (int i = 1_000; i > 0; i--) {
+            dao.modules.add(new ConcurrentModule(BigInteger.valueOf(i * 2)));
+        }
+        Collections.shuffle(dao.modules);
+    }
+    
+    @Test
+    public void pageAfterReadsAllTheObjectsOnce() throws ModelException {
+        List<IModule> page = dao.getPageAfter(BigInteger.valueOf(101), 3);
+        assertEquals(1, dao.getAllCalls);
+        assertEquals(ids(102, 104, 106), idsOf(page));
+        
+        assertEquals(10, dao.getPageAfter(null, 10).size());
+        assertEquals(ids(2000), idsOf(dao.getPageAfter(BigInteger.valueOf(1998), 10)));
+        assertTrue(dao.getPageAfter(BigInteger.valueOf(2000), 10).isEmpty());
+    }
+    
+    @Test
+    public void streamAllReadsOncePerChunk() {
+        try (Stream<IModule> modules = dao.streamAll(100)) {
+            List<BigInteger> ids = idsOf(modules.collect(Collectors.toList()));
+            assertEquals(1_000, ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                assertEquals(BigInteger.valueOf((i + 1) * 2), ids.get(i));
+            }
+        }
+        // Ten full chunks and the empty one that ends the stream.
+        assertEquals(11, dao.getAllCalls);
+    }
+    
+    @Test
+    public void insertAllReportsEachFailureAtItsPosition() throws ModelException {
+        IModule duplicate = module(4);
+        IModule first = module(1);
+        IModule second = module(3);
+        IModule repeated = module(3);
+        BatchResult<IModule> result = dao.insertAll(Arrays.asList(first, duplicate
+                , second, repeated, null), 2);
+        
+        assertEquals(5, result.size());
+        assertFalse(result.isSuccess());
+        assertEquals(2, result.getSuccessCount());
+        assertEquals(3, result.getFailureCount());
+        assertEquals(Arrays.asList(1, 3, 4), result.getFailedIndexes());
+        assertSame(first, result.getResult(0));
+        assertSame(second, result.getResult(2));
+        assertTrue(result.isSuccess(2));
+        assertFalse(result.isSuccess(3));
+        assertNull(result.getResult(1));
+        assertEquals(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION
+                , result.getFailureType(1));
+        assertEquals(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION
+                , result.getFailureType(3));
+        assertEquals(ModelExceptionType.UNSPECIFIED_EXCEPTION, result.getFailureType(4));
+        assertEquals(2, result.getFailureCount(
+                ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION));
+        // The failures do not stop the following items.
+        assertEquals(1_002, dao.modules.size());
+    }
+    
+    @Test
+    public void updateAllAndDeleteAllApplyEveryItem() throws ModelException {
+        BatchResult<IModule> updated = dao.updateAll(Arrays.asList(module(2)
+                , module(5), module(6)), 1);
+        assertEquals(Arrays.asList(1), updated.getFailedIndexes());
+        assertEquals(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION
+                , updated.getFailureType(1));
+        
+        BatchResult<Boolean> deleted = dao.deleteAll(Arrays.asList(module(7)
+                , module(8)), 100);
+        assertTrue(deleted.isSuccess());
+        assertEquals(Boolean.FALSE, deleted.getResult(0));
+        assertEquals(Boolean.TRUE, deleted.getResult(1));
+        assertEquals(999, dao.modules.size());
+        
+        BatchResult<Boolean> empty = dao.deleteAll(Collections.<IModule>emptyList(), 1);
+        assertEquals(0, empty.size());
+        assertTrue(empty.isSuccess());
+    }
+    
+    @Test
+    public void batchOperationsRejectNonPositiveBatchSizes() throws ModelException {
+        try {
+            dao.insertAll(Arrays.asList(module(1)), 0);
+            fail("A batch size of zero was accepted");
+        } catch (IllegalArgumentException ex) {
+            // Expected.
+        }
+        assertEquals(1_000, dao.modules.size());
+    }
+    
+    private static IModule module(long id) {
+        return new ConcurrentModule(BigInteger.valueOf(id));
+    }
+    
+    private static List<BigInteger> ids(long... ids) {
+        List<BigInteger> result = new ArrayList<>();
+        for (long id : ids) {
+            result.add(BigInteger.valueOf(id));
+        }
+        return result;
+    }
+    
+    private static List<BigInteger> idsOf(List<IModule> modules) {
+        return modules.stream().map(IModule::getId).collect(Collectors.toList());
+    }
+    
+    private static final class ListModulesDao implements IBasicDao<IModule> {
+        
+        private final List<IModule> modules = new ArrayList<>();
+        private int getAllCalls;
+        
+        @Override
+        public IModule insert(IModule dataObject) throws ModelException {
+            if (dataObject == null) {
+                throw new ModelException(ModelExceptionType.UNSPECIFIED_EXCEPTION
+                        , "The module cannot be null.");
+            }
+            if (indexOf(dataObject.getId()) >= 0) {
+                throw new ModelException(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION
+                        , "Duplicate module " + dataObject.getId());
+            }
+            modules.add(dataObject);
+            return dataObject;
+        }
+        
+        @Override
+        public IModule update(IModule dataObject) throws ModelException {
+            int index = indexOf(dataObject.getId());
+            if (index < 0) {
+                throw new ModelException(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION
+                        , "Missing module " + dataObject.getId());
+            }
+            modules.set(index, dataObject);
+            return dataObject;
+        }
+        
+        @Override
+        public Boolean delete(IModule dataObject) {
+            int index = indexOf(dataObject.getId());
+            if (index >= 0) {
+                modules.remove(index);
+            }
+            return index >= 0;
+        }
+        
+        @Override
+        public IModule getUnique(BigInteger dataObjectId) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public List<IModule> getAll() {
+            getAllCalls++;
+            return new ArrayList<>(modules);
+        }
+        
+        private int indexOf(BigInteger id) {
+            for (int i = 0; i < modules.size(); i++) {
+                if (modules.get(i).getId().equals(id)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
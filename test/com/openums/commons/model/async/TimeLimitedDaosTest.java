@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.async;
+
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.concurrent.ConcurrentUser;
+import com.openums.commons.model.IUsersDao;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.ModelExceptionType;
+import com.openums.commons.model.memory.InMemoryUsersDao;
+import java.math.BigInteger;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the timeouts of the decorators created by {@code TimeLimitedDaos}.
+ * 
+ * @author Delcio Amarillo
+ */
+public class TimeLimitedDaosTest {
+    
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+    
+    @After
+    public void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+    
+    @Test
+    public void timedOutMutationMayBeApplied() throws Exception {
+        InMemoryUsersDao delegate = new InMemoryUsersDao() {
+            @Override
+            public IUser insert(IUser dataObject) throws ModelException {
+                IUser result = super.insert(dataObject);
+                // Applied, but slow to return and deaf to interruptions.
+                awaitUninterruptibly(release);
+                return result;
+            }
+        };
+        IUsersDao dao = TimeLimitedDaos.limit(IUsersDao.class, delegate
+                , 50, TimeUnit.MILLISECONDS, executor);
+        ConcurrentUser user = new ConcurrentUser(BigInteger.ONE);
+        user.setUserName("jdoe");
+        try {
+            dao.insert(user);
+            fail("The insert did not time out");
+        } catch (ModelException ex) {
+            assertEquals(ModelExceptionType.TIME_OUT_EXCEPTION, ex.getExceptionType());
+            assertTrue(ex.getMessage(), ex.getMessage().contains("may have been applied"));
+        }
+        assertNotNull(delegate.getUserByName("jdoe"));
+    }
+    
+    @Test
+    public void timedOutReadIsReported() throws Exception {
+        InMemoryUsersDao delegate = new InMemoryUsersDao() {
+            @Override
+            public IUser getUserByName(String userName) throws ModelException {
+                awaitUninterruptibly(release);
+                return super.getUserByName(userName);
+            }
+        };
+        IUsersDao dao = TimeLimitedDaos.limit(IUsersDao.class, delegate
+                , 50, TimeUnit.MILLISECONDS, executor);
+        try {
+            dao.getUserByName("jdoe");
+            fail("The read did not time out");
+        } catch (ModelException ex) {
+            assertEquals(ModelExceptionType.TIME_OUT_EXCEPTION, ex.getExceptionType());
+            assertTrue(ex.getMessage(), !ex.getMessage().contains("may have been applied"));
+        }
+    }
+    
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
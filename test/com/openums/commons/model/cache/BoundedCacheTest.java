@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.cache;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the size bound, invalidation stamps and copies of
+ * {@code BoundedCache}.
+ * 
+ * @author Delcio Amarillo
+ */
+public class BoundedCacheTest {
+    
+    @Test
+    public void sizeNeverExceedsTheMaximum() {
+        for (int maximumSize : new int[] {1, 3, 16, 100}) {
+            BoundedCache<Integer, String> cache = new BoundedCache<>(maximumSize, 1
+                    , TimeUnit.MINUTES);
+            for (int i = 0; i < 1_000; i++) {
+                cache.put(i, "v" + i);
+                assertTrue(cache.size() <= maximumSize);
+            }
+            assertEquals(maximumSize, cache.size());
+            assertEquals(1_000 - maximumSize, cache.getStatistics().getEvictionCount());
+        }
+    }
+    
+    @Test
+    public void putIfCurrentRejectsValuesReadBeforeAnInvalidation() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, 1, TimeUnit.MINUTES);
+        long stamp = cache.stamp();
+        cache.invalidate("other");
+        assertFalse(cache.putIfCurrent("key", "stale", stamp));
+        assertNull(cache.get("key"));
+        
+        assertTrue(cache.putIfCurrent("key", "fresh", cache.stamp()));
+        assertEquals("fresh", cache.get("key"));
+    }
+    
+    @Test
+    public void copierIsAppliedOnStoreAndOnReturn() {
+        BoundedCache<String, StringBuilder> cache = new BoundedCache<>(10, 1
+                , TimeUnit.MINUTES, value -> new StringBuilder(value));
+        StringBuilder value = new StringBuilder("a");
+        cache.put("key", value);
+        value.append("b");
+        
+        StringBuilder first = cache.get("key");
+        first.append("c");
+        assertEquals("a", cache.get("key").toString());
+        assertNotSame(first, cache.get("key"));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.cache;
+
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IVersioned;
+import com.openums.commons.domain.concurrent.ConcurrentModule;
+import com.openums.commons.domain.concurrent.ConcurrentRole;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.ModelExceptionType;
+import com.openums.commons.model.memory.InMemoryRolesDao;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that {@code CachingBasicDao} never shares its cached objects, through
+ * a {@code CachingRolesDao} decorating an {@code InMemoryRolesDao}.
+ * 
+ * @author Delcio Amarillo
+ */
+public class CachingBasicDaoTest {
+    
+    private static final BigInteger ID = BigInteger.valueOf(42);
+    private static final BigInteger MODULE_ID = BigInteger.valueOf(7);
+    
+    private CachingRolesDao dao;
+    
+    @Before
+    public void setUp() throws ModelException {
+        InMemoryRolesDao delegate = new InMemoryRolesDao();
+        ConcurrentRole role = new ConcurrentRole(ID);
+        role.setCode("editor");
+        role.setDescription("Editor");
+        role.setModule(new ConcurrentModule(MODULE_ID));
+        delegate.insert(role);
+        dao = new CachingRolesDao(delegate, 100, 1, TimeUnit.MINUTES);
+    }
+    
+    @Test
+    public void hitsReturnDistinctCopies() throws ModelException {
+        IRole first = dao.getUnique(ID);
+        IRole second = dao.getUnique(ID);
+        assertNotSame(first, second);
+        assertEquals(1, dao.getStatistics().getHitCount());
+        
+        first.setDescription("Changed");
+        assertEquals("Editor", second.getDescription());
+        assertEquals("Editor", dao.getUnique(ID).getDescription());
+    }
+    
+    @Test
+    public void unsavedChangesAreNotCached() throws ModelException {
+        dao.getRoleByCode("editor").setCode("changed");
+        
+        assertEquals("editor", dao.getRoleByCode("editor").getCode());
+        assertEquals("editor", dao.getUnique(ID).getCode());
+        List<IRole> roles = dao.getRolesByModule(MODULE_ID);
+        roles.get(0).setCode("changed");
+        assertEquals("editor", dao.getRolesByModule(MODULE_ID).get(0).getCode());
+    }
+    
+    @Test
+    public void compareAndUpdateRejectsAStaleCachedCopy() throws ModelException {
+        IRole first = dao.getUnique(ID);
+        IRole second = dao.getUnique(ID);
+        
+        first.setDescription("First");
+        dao.compareAndUpdate(first);
+        assertEquals(2L, ((IVersioned) first).getVersion());
+        
+        second.setDescription("Second");
+        try {
+            dao.compareAndUpdate(second);
+            fail("The stale update was applied");
+        } catch (ModelException ex) {
+            assertEquals(ModelExceptionType.VERSION_CONFLICT_EXCEPTION
+                    , ex.getExceptionType());
+        }
+        assertEquals(1L, ((IVersioned) second).getVersion());
+        assertEquals("First", dao.getUnique(ID).getDescription());
+    }
+}
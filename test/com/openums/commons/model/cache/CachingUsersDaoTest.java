@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.cache;
+
+import com.openums.commons.domain.LoginRecord;
+import com.openums.commons.domain.UserSummary;
+import com.openums.commons.domain.concurrent.ConcurrentUser;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.memory.InMemoryUsersDao;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests the forwarding and the negative login cache of
+ * {@code CachingUsersDao}.
+ * 
+ * @author Delcio Amarillo
+ */
+public class CachingUsersDaoTest {
+    
+    private CountingUsersDao delegate;
+    private CachingUsersDao dao;
+    
+    @Before
+    public void setUp() throws ModelException {
+        delegate = new CountingUsersDao();
+        dao = new CachingUsersDao(delegate, 100, 1, TimeUnit.MINUTES);
+        dao.insert(user(1, "jdoe", true));
+        dao.insert(user(2, "asmith", false));
+    }
+    
+    @Test
+    public void summaryFindersAreForwarded() throws ModelException {
+        List<UserSummary> summaries = dao.getUserSummaries(0, 10);
+        assertEquals(2, summaries.size());
+        assertEquals(1, dao.getActiveUserSummaries(0, 10).size());
+        assertEquals(0, dao.getUserSummariesByRole(BigInteger.TEN, 0, 10).size());
+        assertEquals(3, delegate.summaryCalls);
+    }
+    
+    @Test
+    public void unknownNamesSurviveOtherMutations() throws ModelException {
+        assertNull(dao.getLoginRecord("ghost"));
+        dao.insert(user(3, "bwayne", true));
+        ConcurrentUser jdoe = user(1, "jdoe", false);
+        dao.update(jdoe);
+        dao.delete(jdoe);
+        assertNull(dao.getLoginRecord("ghost"));
+        assertEquals(1, delegate.loginCalls);
+    }
+    
+    @Test
+    public void createdAndRenamedUsersCanLogIn() throws ModelException {
+        assertNull(dao.getLoginRecord("ghost"));
+        assertNull(dao.getLoginRecord("renamed"));
+        
+        dao.insert(user(3, "ghost", true));
+        LoginRecord record = dao.getLoginRecord("ghost");
+        assertEquals(BigInteger.valueOf(3), record.getId());
+        
+        dao.update(user(2, "renamed", true));
+        assertEquals(BigInteger.valueOf(2), dao.getLoginRecord("renamed").getId());
+        assertEquals(4, delegate.loginCalls);
+    }
+    
+    @Test
+    public void mutationEventsEvictUnknownNames() throws Exception {
+        dao.invalidateOnMutation(16);
+        assertNull(dao.getLoginRecord("ghost"));
+        delegate.insert(user(3, "ghost", true));
+        long deadline = System.currentTimeMillis() + 10000;
+        while (dao.getLoginRecord("ghost") == null) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("The unknown name was not evicted");
+            }
+            Thread.sleep(10);
+        }
+    }
+    
+    private static ConcurrentUser user(long id, String userName, boolean active) {
+        ConcurrentUser user = new ConcurrentUser(BigInteger.valueOf(id));
+        user.setUserName(userName);
+        user.setActive(active);
+        return user;
+    }
+    
+    /**
+     * Users DAO counting the calls that reach its summary finders.
+     */
+    private static final class CountingUsersDao extends InMemoryUsersDao {
+        
+        private int summaryCalls;
+        private int loginCalls;
+        
+        @Override
+        public LoginRecord getLoginRecord(String userName) throws ModelException {
+            loginCalls++;
+            return super.getLoginRecord(userName);
+        }
+        
+        @Override
+        public List<UserSummary> getUserSummaries(int offset, int limit)
+                throws ModelException {
+            summaryCalls++;
+            return super.getUserSummaries(offset, limit);
+        }
+        
+        @Override
+        public List<UserSummary> getActiveUserSummaries(int offset, int limit)
+                throws ModelException {
+            summaryCalls++;
+            return super.getActiveUserSummaries(offset, limit);
+        }
+        
+        @Override
+        public List<UserSummary> getUserSummariesByRole(BigInteger idRole
+                , int offset, int limit) throws ModelException {
+            summaryCalls++;
+            return super.getUserSummariesByRole(idRole, offset, limit);
+        }
+    }
+}
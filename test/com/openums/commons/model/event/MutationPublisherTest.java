@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.event;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the bounded queues, overflow handling, deferred dispatch and
+ * subscription removal of {@code MutationPublisher}.
+ * 
+ * @author Delcio Amarillo
+ */
+public class MutationPublisherTest {
+    
+    @Test
+    public void sequenceAdvancesWithoutSubscribers() {
+        ManualExecutor executor = new ManualExecutor();
+        MutationPublisher publisher = new MutationPublisher(String.class, executor);
+        assertFalse(publisher.hasSubscribers());
+        assertNull(publisher.publish(MutationType.INSERT, BigInteger.ONE, fields()));
+        assertNull(publisher.publish(MutationType.DELETE, BigInteger.ONE, fields()));
+        assertEquals(2, publisher.getLastSequence());
+        assertTrue(executor.tasks.isEmpty());
+    }
+    
+    @Test
+    public void fullQueuesDropAndCountTheNewestEvents() {
+        ManualExecutor executor = new ManualExecutor();
+        MutationPublisher publisher = new MutationPublisher(String.class, executor);
+        List<Long> small = new ArrayList<>();
+        List<Long> large = new ArrayList<>();
+        ISubscription smallSubscription = publisher.subscribe(
+                event -> small.add(event.getSequence()), 3);
+        ISubscription largeSubscription = publisher.subscribe(
+                event -> large.add(event.getSequence()), 10);
+        for (int i = 1; i <= 5; i++) {
+            publisher.publish(MutationType.UPDATE, BigInteger.valueOf(i), fields("name"));
+        }
+        // One drain task per subscription, however many events were offered.
+        assertEquals(2, executor.tasks.size());
+        executor.runAll();
+        
+        assertEquals(asList(1, 2, 3), small);
+        assertEquals(2, smallSubscription.getDroppedCount());
+        assertEquals(asList(1, 2, 3, 4, 5), large);
+        assertEquals(0, largeSubscription.getDroppedCount());
+        
+        // The drained queue accepts events again.
+        publisher.publish(MutationType.UPDATE, BigInteger.ONE, fields("name"));
+        executor.runAll();
+        assertEquals(asList(1, 2, 3, 6), small);
+        assertEquals(2, smallSubscription.getDroppedCount());
+    }
+    
+    @Test
+    public void enqueuedEventsWaitForDispatch() {
+        ManualExecutor executor = new ManualExecutor();
+        MutationPublisher publisher = new MutationPublisher(String.class, executor);
+        List<MutationEvent> received = new ArrayList<>();
+        publisher.subscribe(received::add, 10);
+        
+        MutationEvent event = publisher.enqueue(MutationType.INSERT, BigInteger.TEN
+                , fields("code"));
+        assertNotNull(event);
+        assertEquals(1, event.getSequence());
+        assertTrue(executor.tasks.isEmpty());
+        
+        publisher.dispatch();
+        assertEquals(1, executor.tasks.size());
+        // Dispatching again while the drain task is pending schedules nothing.
+        publisher.dispatch();
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+        
+        assertEquals(1, received.size());
+        assertEquals(MutationType.INSERT, received.get(0).getType());
+        assertEquals(String.class, received.get(0).getEntityType());
+        assertEquals(BigInteger.TEN, received.get(0).getId());
+        
+        // Nothing is queued any more.
+        publisher.dispatch();
+        assertTrue(executor.tasks.isEmpty());
+    }
+    
+    @Test
+    public void cancelRemovesTheSubscriber() {
+        ManualExecutor executor = new ManualExecutor();
+        MutationPublisher publisher = new MutationPublisher(String.class, executor);
+        List<Long> cancelled = new ArrayList<>();
+        List<Long> kept = new ArrayList<>();
+        ISubscription subscription = publisher.subscribe(
+                event -> cancelled.add(event.getSequence()), 10);
+        publisher.subscribe(event -> kept.add(event.getSequence()), 10);
+        
+        publisher.publish(MutationType.INSERT, BigInteger.ONE, fields());
+        subscription.cancel();
+        assertTrue(subscription.isCancelled());
+        assertTrue(publisher.hasSubscribers());
+        publisher.publish(MutationType.UPDATE, BigInteger.ONE, fields());
+        executor.runAll();
+        
+        // The queued event is discarded along with the subscription.
+        assertTrue(cancelled.isEmpty());
+        assertEquals(asList(1, 2), kept);
+    }
+    
+    @Test
+    public void cancelFromTheListenerStopsTheDelivery() {
+        ManualExecutor executor = new ManualExecutor();
+        MutationPublisher publisher = new MutationPublisher(String.class, executor);
+        List<Long> received = new ArrayList<>();
+        ISubscription[] subscription = new ISubscription[1];
+        subscription[0] = publisher.subscribe(event -> {
+            received.add(event.getSequence());
+            subscription[0].cancel();
+        }, 10);
+        for (int i = 0; i < 3; i++) {
+            publisher.publish(MutationType.INSERT, BigInteger.valueOf(i), fields());
+        }
+        executor.runAll();
+        
+        assertEquals(asList(1), received);
+        assertFalse(publisher.hasSubscribers());
+        assertNull(publisher.publish(MutationType.DELETE, BigInteger.ONE, fields()));
+        assertTrue(executor.tasks.isEmpty());
+    }
+    
+    @Test
+    public void failingListenersKeepReceivingEvents() {
+        ManualExecutor executor = new ManualExecutor();
+        MutationPublisher publisher = new MutationPublisher(String.class, executor);
+        List<Long> received = new ArrayList<>();
+        publisher.subscribe(event -> {
+            received.add(event.getSequence());
+            throw new IllegalStateException("Expected.");
+        }, 10);
+        Thread thread = Thread.currentThread();
+        Thread.UncaughtExceptionHandler handler = thread.getUncaughtExceptionHandler();
+        List<Throwable> failures = new ArrayList<>();
+        thread.setUncaughtExceptionHandler((t, ex) -> failures.add(ex));
+        try {
+            publisher.publish(MutationType.INSERT, BigInteger.ONE, fields());
+            publisher.publish(MutationType.UPDATE, BigInteger.ONE, fields());
+            executor.runAll();
+        } finally {
+            thread.setUncaughtExceptionHandler(handler);
+        }
+        assertEquals(asList(1, 2), received);
+        assertEquals(2, failures.size());
+    }
+    
+    private static Set<String> fields(String... names) {
+        return new LinkedHashSet<>(Arrays.asList(names));
+    }
+    
+    private static List<Long> asList(long... values) {
+        List<Long> list = new ArrayList<>();
+        for (long value : values) {
+            list.add(value);
+        }
+        return Collections.unmodifiableList(list);
+    }
+    
+    /**
+     * Runs the submitted tasks only when asked to, on the calling thread.
+     */
+    private static final class ManualExecutor implements Executor {
+        
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+        
+        private void runAll() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.memory;
+
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.IVersioned;
+import com.openums.commons.domain.concurrent.ConcurrentUser;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.ModelExceptionType;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the copy and optimistic concurrency semantics of
+ * {@code InMemoryBasicDao}, through an {@code InMemoryUsersDao}.
+ * 
+ * @author Delcio Amarillo
+ */
+public class InMemoryBasicDaoTest {
+    
+    private static final BigInteger ID = BigInteger.valueOf(42);
+    
+    private InMemoryUsersDao dao;
+    private ExecutorService executor;
+    
+    @Before
+    public void setUp() throws ModelException {
+        dao = new InMemoryUsersDao();
+        ConcurrentUser user = new ConcurrentUser(ID);
+        user.setUserName("jdoe");
+        user.setName("John");
+        dao.insert(user);
+        executor = Executors.newFixedThreadPool(2);
+    }
+    
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+    
+    @Test
+    public void insertStoresACopy() throws ModelException {
+        ConcurrentUser user = new ConcurrentUser(BigInteger.ONE);
+        user.setUserName("asmith");
+        dao.insert(user);
+        user.setUserName("changed");
+        
+        assertEquals("asmith", dao.getUnique(BigInteger.ONE).getUserName());
+        assertEquals(null, dao.getUserByName("changed"));
+    }
+    
+    @Test
+    public void readersReceiveDistinctCopies() throws ModelException {
+        IUser first = dao.getUnique(ID);
+        IUser second = dao.getUnique(ID);
+        assertNotSame(first, second);
+        
+        first.setName("Changed");
+        assertEquals("John", second.getName());
+        assertEquals("John", dao.getUnique(ID).getName());
+    }
+    
+    @Test
+    public void compareAndUpdateRejectsAStaleCopy() throws ModelException {
+        IUser first = dao.getUnique(ID);
+        IUser second = dao.getUnique(ID);
+        
+        first.setName("First");
+        dao.compareAndUpdate(first);
+        assertEquals(2L, ((IVersioned) first).getVersion());
+        
+        second.setName("Second");
+        try {
+            dao.compareAndUpdate(second);
+            fail("The stale update was applied");
+        } catch (ModelException ex) {
+            assertEquals(ModelExceptionType.VERSION_CONFLICT_EXCEPTION
+                    , ex.getExceptionType());
+        }
+        assertEquals(1L, ((IVersioned) second).getVersion());
+        assertEquals("First", dao.getUnique(ID).getName());
+    }
+    
+    @Test
+    public void racingReadersConflict() throws Exception {
+        for (int round = 0; round < 100; round++) {
+            CyclicBarrier barrier = new CyclicBarrier(2);
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                String name = "Writer " + round + "-" + i;
+                results.add(executor.submit(readAndUpdate(barrier, name)));
+            }
+            
+            int applied = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get()) {
+                    applied++;
+                }
+            }
+            assertEquals("Round " + round, 1, applied);
+            assertEquals(round + 2L, ((IVersioned) dao.getUnique(ID)).getVersion());
+        }
+    }
+    
+    /**
+     * Reads the User, waits until the other reader has read it as well and
+     * updates it. Returns whether the update was applied.
+     */
+    private Callable<Boolean> readAndUpdate(CyclicBarrier barrier, String name) {
+        return () -> {
+            IUser user = dao.getUnique(ID);
+            barrier.await();
+            user.setName(name);
+            try {
+                dao.compareAndUpdate(user);
+                return true;
+            } catch (ModelException ex) {
+                assertEquals(ModelExceptionType.VERSION_CONFLICT_EXCEPTION
+                        , ex.getExceptionType());
+                return false;
+            }
+        };
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.memory;
+
+import com.openums.commons.domain.DomainGraph;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IRolePermission;
+import com.openums.commons.domain.IUserRole;
+import com.openums.commons.domain.concurrent.ConcurrentDomainFactory;
+import com.openums.commons.domain.concurrent.ConcurrentModule;
+import com.openums.commons.domain.concurrent.ConcurrentPermission;
+import com.openums.commons.domain.concurrent.ConcurrentRole;
+import com.openums.commons.domain.concurrent.ConcurrentUser;
+import com.openums.commons.model.FetchPlan;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.ModelExceptionType;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the Role inheritance closure maintained by {@code InMemoryRolesDao}.
+ * 
+ * @author Delcio Amarillo
+ */
+public class InMemoryRolesDaoTest {
+    
+    private final ConcurrentPermission read = permission(1, "read");
+    private final ConcurrentPermission write = permission(2, "write");
+    private final ConcurrentPermission admin = permission(3, "admin");
+    
+    private InMemoryRolesDao dao;
+    private ConcurrentRole viewer;
+    private ConcurrentRole editor;
+    private ConcurrentRole owner;
+    
+    @Before
+    public void setUp() throws ModelException {
+        dao = new InMemoryRolesDao();
+        viewer = role(10, "viewer", read);
+        editor = role(11, "editor", write);
+        editor.addParentRole(viewer);
+        owner = role(12, "owner", admin);
+        owner.addParentRole(editor);
+        // Parents do not need to be stored first.
+        dao.insert(owner);
+        dao.insert(editor);
+        dao.insert(viewer);
+    }
+    
+    @Test
+    public void closureIsTransitive() throws ModelException {
+        assertEquals(ids(11), ids(dao.getParentRoles(id(12))));
+        assertEquals(ids(10, 11), ids(dao.getAncestorRoles(id(12))));
+        assertEquals(ids(11, 12), ids(dao.getDescendantRoles(id(10))));
+        assertTrue(dao.roleHasPermission(id(12), "read"));
+        assertTrue(dao.roleHasPermission(id(11), "read"));
+        assertFalse(dao.roleHasPermission(id(10), "write"));
+        assertFalse(dao.roleHasPermission(id(99), "read"));
+    }
+    
+    @Test
+    public void inheritedGrantsAreFoundByPermission() throws ModelException {
+        assertEquals(ids(10, 11, 12), ids(dao.getRolesByPermission("read")));
+        assertEquals(ids(11, 12), new ArrayList<>(dao.getRoleIdsByPermission("write")));
+        assertEquals(ids(12), ids(dao.getRolesByPermission("admin")));
+        assertEquals(new HashSet<>(ids(10, 11, 12))
+                , DomainGraph.getGrantingRoleIds(dao.getAll(), "read"));
+        
+        InMemoryUsersDao usersDao = new InMemoryUsersDao(dao);
+        ConcurrentUser user = new ConcurrentUser(id(20));
+        user.setUserName("jdoe");
+        user.addRole(owner);
+        usersDao.insert(user);
+        assertEquals(1, usersDao.getUsersByPermission("read").size());
+        assertEquals(1, usersDao.getUsersByPermission("write").size());
+        // Without a roles DAO the default walks the parents of the Roles.
+        InMemoryUsersDao standalone = new InMemoryUsersDao();
+        standalone.insert(user);
+        assertEquals(1, standalone.getUsersByPermission("read").size());
+        
+        editor.setParentRolesList(null);
+        dao.update(editor);
+        assertEquals(ids(10), ids(dao.getRolesByPermission("read")));
+        assertTrue(usersDao.getUsersByPermission("read").isEmpty());
+    }
+    
+    @Test
+    public void descendantsFollowParentChanges() throws ModelException {
+        ConcurrentRole auditor = role(13, "auditor", permission(4, "audit"));
+        dao.insert(auditor);
+        viewer.addParentRole(auditor);
+        dao.update(viewer);
+        assertTrue(dao.roleHasPermission(id(12), "audit"));
+        assertEquals(ids(10, 11, 13), ids(dao.getAncestorRoles(id(12))));
+        
+        editor.setParentRolesList(null);
+        dao.update(editor);
+        assertFalse(dao.roleHasPermission(id(12), "read"));
+        assertFalse(dao.roleHasPermission(id(12), "audit"));
+        assertEquals(ids(11), ids(dao.getAncestorRoles(id(12))));
+        assertEquals(ids(10), ids(dao.getDescendantRoles(id(13))));
+    }
+    
+    @Test
+    public void deletedRolesAreNoLongerInherited() throws ModelException {
+        dao.delete(editor);
+        assertFalse(dao.roleHasPermission(id(12), "write"));
+        assertTrue(dao.roleHasPermission(id(12), "admin"));
+        assertEquals(ids(), ids(dao.getDescendantRoles(id(10))));
+    }
+    
+    @Test
+    public void readsCopyRelationshipsOnFirstAccess() throws ModelException {
+        AtomicInteger userRoles = new AtomicInteger();
+        InMemoryRolesDao counted = new InMemoryRolesDao(new ConcurrentDomainFactory() {
+            @Override
+            public IUserRole newUserRole(BigInteger id) {
+                userRoles.incrementAndGet();
+                return super.newUserRole(id);
+            }
+        });
+        ConcurrentRole members = role(15, "members", read);
+        for (int i = 0; i < 3; i++) {
+            members.addUser(new ConcurrentUser(id(30 + i)));
+        }
+        counted.insert(members);
+        userRoles.set(0);
+        
+        IRole copy = counted.getRoleByCode("members");
+        assertEquals(0, userRoles.get());
+        assertEquals(3, copy.getUserRolesList().size());
+        assertEquals(3, userRoles.get());
+        for (IUserRole userRole : copy.getUserRolesList()) {
+            assertSame(copy, userRole.getRole());
+        }
+        copy.addUser(new ConcurrentUser(id(40)));
+        assertEquals(3, counted.getUnique(id(15)).getUserRolesList().size());
+        
+        userRoles.set(0);
+        counted.getRoleByCode("members", FetchPlan.NONE);
+        assertEquals(0, userRoles.get());
+        counted.getRoleByCode("members", FetchPlan.of(FetchPlan.Relationship.ROLE_USERS));
+        assertEquals(3, userRoles.get());
+        counted.getUnique(id(15), FetchPlan.ALL);
+        assertEquals(6, userRoles.get());
+    }
+    
+    @Test
+    public void cyclesAreRejected() throws ModelException {
+        viewer.addParentRole(owner);
+        assertConstraintViolated(viewer);
+        assertEquals(ids(), ids(dao.getParentRoles(id(10))));
+        
+        ConcurrentRole self = role(14, "self", read);
+        self.addParentRole(self);
+        try {
+            dao.insert(self);
+            fail("A self inheriting Role was inserted");
+        } catch (ModelException ex) {
+            assertEquals(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION
+                    , ex.getExceptionType());
+        }
+        assertEquals(ids(10, 11), ids(dao.getAncestorRoles(id(12))));
+    }
+    
+    private void assertConstraintViolated(IRole role) {
+        try {
+            dao.update(role);
+            fail("A Role inheriting from itself was updated");
+        } catch (ModelException ex) {
+            assertEquals(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION
+                    , ex.getExceptionType());
+        }
+    }
+    
+    @Test
+    public void indexesMatchAScanAfterRandomMutations() throws ModelException {
+        ConcurrentPermission[] grants = {read, write, admin, permission(4, "audit")};
+        ConcurrentModule[] moduleList = {module(1), module(2), module(3)};
+        Random random = new Random(11);
+        InMemoryRolesDao rolesDao = new InMemoryRolesDao();
+        List<ConcurrentRole> pool = new ArrayList<>();
+        Set<String> usedCodes = new HashSet<>();
+        for (int i = 0; i < 8; i++) {
+            pool.add(role(100 + i, "c" + i, grants[i % grants.length]));
+            usedCodes.add("c" + i);
+        }
+        for (int step = 0; step < 600; step++) {
+            ConcurrentRole role = pool.get(random.nextInt(pool.size()));
+            boolean stored = rolesDao.getUnique(role.getId()) != null;
+            int operation = random.nextInt(6);
+            if (!stored) {
+                rolesDao.insert(role);
+            } else if (operation == 0) {
+                rolesDao.delete(role);
+            } else if (operation == 1) {
+                role.setCode("c" + role.getId() + "-" + step);
+                usedCodes.add(role.getCode());
+                rolesDao.update(role);
+            } else if (operation == 2) {
+                role.setModule(random.nextBoolean() ? null
+                        : moduleList[random.nextInt(moduleList.length)]);
+                rolesDao.update(role);
+            } else if (operation == 3) {
+                changeGrants(role, grants[random.nextInt(grants.length)], random);
+                rolesDao.update(role);
+            } else {
+                // Parents are only taken among lower keys, so no cycle is formed.
+                List<IRole> parents = new ArrayList<>();
+                for (ConcurrentRole candidate : pool) {
+                    if (candidate.getId().compareTo(role.getId()) < 0
+                            && random.nextInt(3) == 0) {
+                        parents.add(candidate);
+                    }
+                }
+                role.setParentRolesList(parents);
+                rolesDao.update(role);
+            }
+            assertIndexesMatchScan(rolesDao, pool, usedCodes, grants, moduleList);
+        }
+    }
+    
+    private static void changeGrants(ConcurrentRole role, ConcurrentPermission permission
+            , Random random) {
+        IRolePermission existing = null;
+        for (IRolePermission rolePermission : role.getRolePermissionsList()) {
+            if (rolePermission.getPermission() == permission) {
+                existing = rolePermission;
+            }
+        }
+        if (existing == null) {
+            role.addPermission(permission);
+        } else if (random.nextBoolean()) {
+            existing.setEnabled(!Boolean.TRUE.equals(existing.isEnabled()));
+        } else {
+            List<IRolePermission> rolePermissions = new ArrayList<>(
+                    role.getRolePermissionsList());
+            rolePermissions.remove(existing);
+            role.setRolePermissionsList(rolePermissions);
+        }
+    }
+    
+    /**
+     * Checks every indexed finder against the same answer computed by
+     * scanning {@code getAll()}.
+     */
+    private static void assertIndexesMatchScan(InMemoryRolesDao rolesDao
+            , List<ConcurrentRole> pool, Set<String> usedCodes
+            , ConcurrentPermission[] grants, ConcurrentModule[] moduleList)
+            throws ModelException {
+        List<IRole> all = rolesDao.getAll();
+        Map<BigInteger, Set<BigInteger>> parents = new HashMap<>();
+        Map<String, BigInteger> codes = new HashMap<>();
+        for (IRole role : all) {
+            parents.put(role.getId(), DomainGraph.getParentRoleIds(role));
+            codes.put(role.getCode(), role.getId());
+        }
+        for (String code : usedCodes) {
+            IRole role = rolesDao.getRoleByCode(code);
+            if (codes.containsKey(code)) {
+                assertEquals(code, codes.get(code), role.getId());
+            } else {
+                assertNull(code, role);
+            }
+        }
+        for (ConcurrentModule module : moduleList) {
+            Set<BigInteger> expected = new TreeSet<>();
+            for (IRole role : all) {
+                if (module.getId().equals(DomainGraph.getModuleId(role))) {
+                    expected.add(role.getId());
+                }
+            }
+            assertEquals(new ArrayList<>(expected)
+                    , ids(rolesDao.getRolesByModule(module.getId())));
+        }
+        for (ConcurrentPermission permission : grants) {
+            String code = permission.getCode();
+            Set<BigInteger> expected = new TreeSet<>(DomainGraph.getGrantingRoleIds(all, code));
+            assertEquals(code, new ArrayList<>(expected), ids(rolesDao.getRolesByPermission(code)));
+            for (ConcurrentRole role : pool) {
+                assertEquals(expected.contains(role.getId())
+                        , rolesDao.roleHasPermission(role.getId(), code));
+            }
+        }
+        for (ConcurrentRole role : pool) {
+            BigInteger id = role.getId();
+            Set<BigInteger> expectedParents = new TreeSet<>(parents.getOrDefault(id
+                    , new HashSet<>()));
+            expectedParents.retainAll(parents.keySet());
+            assertEquals(new ArrayList<>(expectedParents), ids(rolesDao.getParentRoles(id)));
+            Set<BigInteger> ancestors = ancestors(parents, id);
+            ancestors.retainAll(parents.keySet());
+            assertEquals(new ArrayList<>(ancestors), ids(rolesDao.getAncestorRoles(id)));
+            Set<BigInteger> descendants = new TreeSet<>();
+            for (BigInteger other : parents.keySet()) {
+                if (ancestors(parents, other).contains(id)) {
+                    descendants.add(other);
+                }
+            }
+            assertEquals(new ArrayList<>(descendants), ids(rolesDao.getDescendantRoles(id)));
+        }
+    }
+    
+    private static Set<BigInteger> ancestors(Map<BigInteger, Set<BigInteger>> parents
+            , BigInteger id) {
+        Set<BigInteger> ancestors = new TreeSet<>();
+        Deque<BigInteger> pending = new ArrayDeque<>(parents.getOrDefault(id
+                , new HashSet<>()));
+        while (!pending.isEmpty()) {
+            BigInteger ancestor = pending.poll();
+            if (ancestors.add(ancestor)) {
+                pending.addAll(parents.getOrDefault(ancestor, new HashSet<>()));
+            }
+        }
+        return ancestors;
+    }
+    
+    private static ConcurrentModule module(long id) {
+        return new ConcurrentModule(id(id));
+    }
+    
+    private static BigInteger id(long value) {
+        return BigInteger.valueOf(value);
+    }
+    
+    private static List<BigInteger> ids(long... values) {
+        List<BigInteger> ids = new ArrayList<>();
+        for (long value : values) {
+            ids.add(id(value));
+        }
+        return ids;
+    }
+    
+    private static List<BigInteger> ids(List<IRole> roles) {
+        BigInteger[] ids = new BigInteger[roles.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = roles.get(i).getId();
+        }
+        Arrays.sort(ids);
+        return Arrays.asList(ids);
+    }
+    
+    private static ConcurrentPermission permission(long id, String code) {
+        ConcurrentPermission permission = new ConcurrentPermission(id(id));
+        permission.setCode(code);
+        return permission;
+    }
+    
+    private static ConcurrentRole role(long id, String code
+            , ConcurrentPermission permission) {
+        ConcurrentRole role = new ConcurrentRole(id(id));
+        role.setCode(code);
+        role.addPermission(permission);
+        return role;
+    }
+}
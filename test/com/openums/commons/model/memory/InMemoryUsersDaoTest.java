@@ -0,0 +1,273 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.memory;
+
+import com.openums.commons.domain.DomainGraph;
+import com.openums.commons.domain.IRole;
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.IUserRole;
+import com.openums.commons.domain.LoginRecord;
+import com.openums.commons.domain.concurrent.ConcurrentPermission;
+import com.openums.commons.domain.concurrent.ConcurrentRole;
+import com.openums.commons.domain.concurrent.ConcurrentUser;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.ModelExceptionType;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that the indexes of {@code InMemoryUsersDao}, and the permission
+ * lookups it delegates to {@code InMemoryRolesDao}, keep answering like a
+ * scan of the stored Users through random updates, deletes and
+ * relationship changes.
+ * 
+ * @author Delcio Amarillo
+ */
+public class InMemoryUsersDaoTest {
+    
+    private static final String[] CODES = {"read", "write", "admin"};
+    
+    private final Random random = new Random(5);
+    private final InMemoryRolesDao rolesDao = new InMemoryRolesDao();
+    private final InMemoryUsersDao dao = new InMemoryUsersDao(rolesDao);
+    private final List<ConcurrentPermission> permissions = new ArrayList<>();
+    private final List<ConcurrentRole> roles = new ArrayList<>();
+    private final List<ConcurrentUser> users = new ArrayList<>();
+    private final Set<String> usedNames = new HashSet<>();
+    
+    @Test
+    public void indexesMatchAScanAfterRandomMutations() throws ModelException {
+        for (int i = 0; i < CODES.length; i++) {
+            ConcurrentPermission permission = new ConcurrentPermission(id(1 + i));
+            permission.setCode(CODES[i]);
+            permissions.add(permission);
+        }
+        for (int i = 0; i < 5; i++) {
+            ConcurrentRole role = new ConcurrentRole(id(10 + i));
+            role.setCode("role" + i);
+            role.addPermission(permissions.get(i % permissions.size()));
+            roles.add(role);
+            rolesDao.insert(role);
+        }
+        for (int i = 0; i < 12; i++) {
+            ConcurrentUser user = new ConcurrentUser(id(100 + i));
+            user.setUserName("user" + i);
+            usedNames.add(user.getUserName());
+            users.add(user);
+        }
+        for (int step = 0; step < 800; step++) {
+            mutate(step);
+            assertIndexesMatchScan();
+        }
+    }
+    
+    @Test
+    public void loginRecordsHoldTheInheritedRoles() throws ModelException {
+        ConcurrentRole viewer = new ConcurrentRole(id(10));
+        viewer.setCode("viewer");
+        ConcurrentRole editor = new ConcurrentRole(id(11));
+        editor.setCode("editor");
+        rolesDao.insert(viewer);
+        rolesDao.insert(editor);
+        ConcurrentUser user = new ConcurrentUser(id(100));
+        user.setUserName("jdoe");
+        user.addRole(editor);
+        dao.insert(user);
+        assertEquals(Arrays.asList(id(11)), dao.getLoginRecord("jdoe").getRoleIds());
+        
+        // The inheritance is read from the roles DAO, not from the stored User.
+        ConcurrentRole updated = new ConcurrentRole(id(11));
+        updated.setCode("editor");
+        updated.addParentRole(viewer);
+        rolesDao.update(updated);
+        LoginRecord record = dao.getLoginRecord("jdoe");
+        assertEquals(Arrays.asList(id(10), id(11)), record.getRoleIds());
+        
+        assertTrue(record.hasRole(10));
+        
+        // Without a roles DAO the parents are walked in the User's graph.
+        InMemoryUsersDao standalone = new InMemoryUsersDao();
+        editor.addParentRole(viewer);
+        standalone.insert(user);
+        assertEquals(Arrays.asList(id(10), id(11))
+                , standalone.getLoginRecord("jdoe").getRoleIds());
+        assertNull(dao.getLoginRecord("ghost"));
+    }
+    
+    private void mutate(int step) throws ModelException {
+        ConcurrentUser user = users.get(random.nextInt(users.size()));
+        if (dao.getUnique(user.getId()) == null) {
+            dao.insert(user);
+            return;
+        }
+        switch (random.nextInt(7)) {
+            case 0:
+                dao.delete(user);
+                break;
+            case 1:
+                user.setUserName("u" + user.getId() + "-" + step);
+                usedNames.add(user.getUserName());
+                dao.update(user);
+                break;
+            case 2:
+                takeOtherName(user);
+                break;
+            case 3:
+                user.setActive(randomFlag());
+                user.setUnlocked(randomFlag());
+                dao.update(user);
+                break;
+            case 4:
+                toggleRole(user, roles.get(random.nextInt(roles.size())));
+                dao.update(user);
+                break;
+            case 5:
+                // Only lower keys become parents, so no cycle is formed.
+                ConcurrentRole role = roles.get(1 + random.nextInt(roles.size() - 1));
+                role.setParentRolesList(random.nextBoolean() ? null
+                        : Collections.<IRole>singletonList(roles.get(random.nextInt(
+                                roles.indexOf(role)))));
+                rolesDao.update(role);
+                break;
+            default:
+                ConcurrentRole granting = roles.get(random.nextInt(roles.size()));
+                granting.getRolePermissionsList().get(0).setEnabled(random.nextBoolean());
+                rolesDao.update(granting);
+                break;
+        }
+    }
+    
+    /**
+     * Renames a User after another stored User, which must fail and leave the
+     * stored User and the name index unchanged.
+     */
+    private void takeOtherName(ConcurrentUser user) throws ModelException {
+        ConcurrentUser other = users.get(random.nextInt(users.size()));
+        IUser stored = dao.getUnique(other.getId());
+        if (other == user || stored == null) {
+            return;
+        }
+        String name = user.getUserName();
+        user.setUserName(stored.getUserName());
+        try {
+            dao.update(user);
+            fail("Duplicated user name " + stored.getUserName());
+        } catch (ModelException ex) {
+            assertEquals(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION
+                    , ex.getExceptionType());
+        } finally {
+            user.setUserName(name);
+        }
+        assertEquals(name, dao.getUnique(user.getId()).getUserName());
+    }
+    
+    private void toggleRole(ConcurrentUser user, ConcurrentRole role) {
+        List<IUserRole> userRoles = new ArrayList<>(user.getUserRolesList());
+        for (IUserRole userRole : userRoles) {
+            if (userRole.getRole() == role) {
+                userRoles.remove(userRole);
+                user.setUserRolesList(userRoles);
+                return;
+            }
+        }
+        user.addRole(role);
+    }
+    
+    private Boolean randomFlag() {
+        int value = random.nextInt(3);
+        return value == 0 ? null : value == 1;
+    }
+    
+    /**
+     * Checks every indexed finder against the same answer computed by
+     * scanning {@code getAll()}.
+     */
+    private void assertIndexesMatchScan() throws ModelException {
+        List<IUser> all = dao.getAll();
+        Map<String, BigInteger> names = new HashMap<>();
+        for (IUser user : all) {
+            names.put(user.getUserName(), user.getId());
+        }
+        for (String name : usedNames) {
+            IUser user = dao.getUserByName(name);
+            if (names.containsKey(name)) {
+                assertEquals(name, names.get(name), user.getId());
+            } else {
+                assertNull(name, user);
+            }
+        }
+        assertEquals(scan(all, user -> Boolean.TRUE.equals(user.isActive()))
+                , ids(dao.getActiveUsers()));
+        assertEquals(scan(all, user -> !Boolean.TRUE.equals(user.isActive()))
+                , ids(dao.getInactiveUsers()));
+        assertEquals(scan(all, user -> Boolean.TRUE.equals(user.isUnlocked()))
+                , ids(dao.getUnlockedUsers()));
+        assertEquals(scan(all, user -> !Boolean.TRUE.equals(user.isUnlocked()))
+                , ids(dao.getLockedUsers()));
+        for (ConcurrentRole role : roles) {
+            List<BigInteger> expected = scan(all
+                    , user -> DomainGraph.getRoleIds(user).contains(role.getId()));
+            assertEquals(expected, ids(dao.getUsersByRole(role.getId())));
+            assertEquals(expected.subList(Math.min(1, expected.size()), expected.size())
+                    , ids(dao.getUsersByRole(role.getId(), 1, 100)));
+        }
+        List<IRole> storedRoles = rolesDao.getAll();
+        for (String code : CODES) {
+            Set<BigInteger> granting = DomainGraph.getGrantingRoleIds(storedRoles, code);
+            assertEquals(code, scan(all, user -> !Collections.disjoint(granting
+                    , DomainGraph.getRoleIds(user))), ids(dao.getUsersByPermission(code)));
+        }
+    }
+    
+    private static List<BigInteger> scan(List<IUser> users, Predicate<IUser> filter) {
+        Set<BigInteger> ids = new TreeSet<>();
+        for (IUser user : users) {
+            if (filter.test(user)) {
+                ids.add(user.getId());
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+    
+    private static List<BigInteger> ids(List<IUser> users) {
+        List<BigInteger> ids = new ArrayList<>();
+        for (IUser user : users) {
+            ids.add(user.getId());
+        }
+        return ids;
+    }
+    
+    private static BigInteger id(long value) {
+        return BigInteger.valueOf(value);
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.memory;
+
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.concurrent.ConcurrentUser;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.SearchMode;
+import com.openums.commons.model.UserSearchField;
+import com.openums.commons.util.Trigrams;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the prefix and fuzzy searches of {@code TextIndex} and their use by
+ * {@code InMemoryUsersDao}.
+ * 
+ * @author Delcio Amarillo
+ */
+public class TextIndexTest {
+    
+    @Test
+    public void prefixSearchesHonourCase() {
+        TextIndex index = new TextIndex();
+        index.put(id(1), "Anna");
+        index.put(id(2), "anna");
+        index.put(id(3), "ANNE");
+        index.put(id(4), "Bob");
+        index.put(id(5), "annabel");
+        
+        assertEquals(ids(1, 2, 5, 3), index.findByPrefix("ann", true, 10));
+        assertEquals(ids(1, 2, 5, 3), index.findByPrefix("ANN", true, 10));
+        assertEquals(ids(2, 5), index.findByPrefix("ann", false, 10));
+        assertEquals(ids(1), index.findByPrefix("Ann", false, 10));
+        assertEquals(ids(3), index.findByPrefix("ANN", false, 10));
+        assertEquals(ids(), index.findByPrefix("aNN", false, 10));
+        // Ordered by lower cased value, then by primary key.
+        assertEquals(ids(1, 2, 5, 3, 4), index.findByPrefix("", true, 10));
+        assertEquals(ids(1, 2), index.findByPrefix("a", true, 2));
+        assertEquals(ids(2), index.findByPrefix("a", false, 1));
+    }
+    
+    @Test
+    public void putReplacesAndRemoveForgetsTheValue() {
+        TextIndex index = new TextIndex();
+        index.put(id(1), "Smith");
+        index.put(id(2), "Smyth");
+        assertEquals(ids(1, 2), index.findSimilar("smith", 0.3, 10));
+        
+        index.put(id(1), "Jones");
+        assertEquals(ids(), index.findByPrefix("Smi", true, 10));
+        assertEquals(ids(1), index.findByPrefix("jon", true, 10));
+        assertEquals(ids(2), index.findSimilar("smith", 0.3, 10));
+        
+        index.put(id(2), null);
+        assertEquals(ids(1), index.findByPrefix("", true, 10));
+        assertEquals(ids(), index.findSimilar("smyth", 0.1, 10));
+        assertEquals(ids(1), index.findSimilar("jones", 0.1, 10));
+        
+        index.remove(id(1));
+        index.remove(id(1));
+        assertEquals(ids(), index.findByPrefix("", true, 10));
+        assertEquals(ids(), index.findSimilar("jones", 0.1, 10));
+        
+        index.put(id(3), "Smith");
+        assertEquals(ids(3), index.findSimilar("smith", 1.0, 10));
+    }
+    
+    @Test
+    public void fuzzySearchesOrderBySimilarity() {
+        TextIndex index = new TextIndex();
+        index.put(id(1), "amarilo");
+        index.put(id(2), "Amarillo");
+        index.put(id(3), "amarillos");
+        index.put(id(4), "johnson");
+        assertEquals(ids(2, 3, 1), index.findSimilar("amarillo", 0.3, 10));
+        assertEquals(ids(2, 3), index.findSimilar("amarillo", 0.3, 2));
+        assertEquals(ids(), index.findSimilar("", 0.0, 10));
+    }
+    
+    @Test
+    public void candidatePruningMatchesABruteForceScan() {
+        Random random = new Random(7);
+        String[] syllables = {"an", "na", "ma", "ri", "lo", "el", "jo", "se", "a", "o"};
+        Map<BigInteger, String> values = new HashMap<>();
+        TextIndex index = new TextIndex();
+        for (int i = 0; i < 400; i++) {
+            BigInteger id = id(random.nextInt(300));
+            if (random.nextInt(5) == 0) {
+                index.remove(id);
+                values.remove(id);
+            } else {
+                String value = word(random, syllables);
+                index.put(id, value);
+                values.put(id, value);
+            }
+        }
+        // Thresholds whose product with the text's trigram count is an integer
+        // check the rounding of the minimum number of shared trigrams.
+        double[] thresholds = {0.1, 0.25, 0.3, 0.5, 0.75, 0.8, 1.0};
+        for (int i = 0; i < 200; i++) {
+            String text = word(random, syllables);
+            for (double threshold : thresholds) {
+                assertEquals(text + " @ " + threshold, bruteForce(values, text, threshold)
+                        , index.findSimilar(text, threshold, Integer.MAX_VALUE));
+            }
+        }
+    }
+    
+    @Test
+    public void usersDaoSearchesFollowUpdatesAndDeletes() throws ModelException {
+        InMemoryUsersDao dao = new InMemoryUsersDao();
+        dao.insert(user(1, "anna", "Amarillo"));
+        dao.insert(user(2, "Annabel", "Smith"));
+        dao.insert(user(3, "bob", "Amarilo"));
+        assertEquals(ids(1, 2), userIds(dao.searchUsers(UserSearchField.USER_NAME, "ann"
+                , SearchMode.PREFIX_IGNORE_CASE, 10)));
+        assertEquals(ids(1), userIds(dao.searchUsers(UserSearchField.USER_NAME, "ann"
+                , SearchMode.PREFIX, 10)));
+        
+        dao.update(user(1, "zoe", "Jones"));
+        assertEquals(ids(2), userIds(dao.searchUsers(UserSearchField.USER_NAME, "ann"
+                , SearchMode.PREFIX_IGNORE_CASE, 10)));
+        assertEquals(ids(1), userIds(dao.searchUsers(UserSearchField.USER_NAME, "Zo"
+                , SearchMode.PREFIX_IGNORE_CASE, 10)));
+        assertEquals(ids(3), userIds(dao.searchUsers(UserSearchField.LAST_NAME
+                , "amarillo", SearchMode.FUZZY, 10)));
+        
+        dao.delete(user(3, "bob", "Amarilo"));
+        assertEquals(ids(), userIds(dao.searchUsers(UserSearchField.LAST_NAME
+                , "amarillo", SearchMode.FUZZY, 10)));
+        assertEquals(ids(), userIds(dao.searchUsers(UserSearchField.USER_NAME, "b"
+                , SearchMode.PREFIX, 10)));
+    }
+    
+    private static List<BigInteger> bruteForce(Map<BigInteger, String> values
+            , String text, double threshold) {
+        Map<BigInteger, Double> scores = new HashMap<>();
+        for (Map.Entry<BigInteger, String> entry : values.entrySet()) {
+            double score = Trigrams.similarity(text, entry.getValue());
+            if (score >= threshold) {
+                scores.put(entry.getKey(), score);
+            }
+        }
+        List<BigInteger> ids = new ArrayList<>(scores.keySet());
+        ids.sort(Comparator.<BigInteger>comparingDouble(id -> -scores.get(id))
+                .thenComparing(Comparator.naturalOrder()));
+        return ids;
+    }
+    
+    private static String word(Random random, String[] syllables) {
+        StringBuilder word = new StringBuilder();
+        for (int i = random.nextInt(4); i >= 0; i--) {
+            word.append(syllables[random.nextInt(syllables.length)]);
+        }
+        return random.nextBoolean() ? word.toString() : word.toString().toUpperCase();
+    }
+    
+    private static ConcurrentUser user(long id, String userName, String lastName) {
+        ConcurrentUser user = new ConcurrentUser(id(id));
+        user.setUserName(userName);
+        user.setLastName(lastName);
+        return user;
+    }
+    
+    private static List<BigInteger> userIds(List<IUser> users) {
+        List<BigInteger> ids = new ArrayList<>();
+        for (IUser user : users) {
+            ids.add(user.getId());
+        }
+        return ids;
+    }
+    
+    private static List<BigInteger> ids(long... values) {
+        List<BigInteger> ids = new ArrayList<>();
+        for (long value : values) {
+            ids.add(id(value));
+        }
+        return ids;
+    }
+    
+    private static BigInteger id(long value) {
+        return BigInteger.valueOf(value);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.metrics;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the bucket layout and the percentiles of {@code Histogram}.
+ * 
+ * @author Delcio Amarillo
+ */
+public class HistogramTest {
+    
+    @Test
+    public void smallValuesHaveTheirOwnBucket() {
+        for (long value = 0; value < 64; value++) {
+            assertEquals(value, Histogram.indexOf(value));
+            assertEquals(value, Histogram.highestEquivalentValue((int) value));
+        }
+        assertEquals(63, Histogram.indexOf(63));
+        assertEquals(64, Histogram.indexOf(64));
+        assertEquals(64, Histogram.indexOf(65));
+        assertEquals(65, Histogram.highestEquivalentValue(64));
+        assertEquals(65, Histogram.indexOf(66));
+    }
+    
+    @Test
+    public void powersOfTwoStartANewBucket() {
+        for (int k = 6; k < 63; k++) {
+            long power = 1L << k;
+            int index = Histogram.indexOf(power);
+            assertEquals("2^" + k, index - 1, Histogram.indexOf(power - 1));
+            assertEquals("2^" + k, power - 1, Histogram.highestEquivalentValue(index - 1));
+            // Each power of two is split into 32 buckets of 2^(k - 5) values.
+            assertEquals("2^" + k, power + (power >>> 5) - 1
+                    , Histogram.highestEquivalentValue(index));
+            if (k < 62) {
+                assertEquals("2^" + k, index + 32, Histogram.indexOf(power << 1));
+            }
+        }
+    }
+    
+    @Test
+    public void largestValueFallsInTheLastBucket() {
+        assertEquals(Histogram.BUCKETS - 1, Histogram.indexOf(Long.MAX_VALUE));
+        assertEquals(Long.MAX_VALUE, Histogram.highestEquivalentValue(Histogram.BUCKETS - 1));
+        assertEquals(Histogram.BUCKETS - 1, Histogram.indexOf(Long.MAX_VALUE - 1));
+        assertEquals(Histogram.BUCKETS - 2, Histogram.indexOf(Long.MAX_VALUE - (1L << 57)));
+        
+        Histogram histogram = new Histogram();
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100.0));
+        assertEquals(Long.MAX_VALUE, histogram.getMax());
+    }
+    
+    @Test
+    public void bucketsAreContiguous() {
+        for (int index = 0; index < Histogram.BUCKETS - 1; index++) {
+            long highest = Histogram.highestEquivalentValue(index);
+            assertEquals(index, Histogram.indexOf(highest));
+            assertEquals(index + 1, Histogram.indexOf(highest + 1));
+            // The relative error stays below 1/32.
+            long lowest = index == 0 ? 0 : Histogram.highestEquivalentValue(index - 1) + 1;
+            assertTrue(highest - lowest <= lowest / 32);
+        }
+    }
+    
+    @Test
+    public void percentilesStayWithinTheRelativeError() {
+        Random random = new Random(3);
+        long[] values = new long[20_000];
+        Histogram histogram = new Histogram();
+        for (int i = 0; i < values.length; i++) {
+            // Spread over many orders of magnitude, like call latencies.
+            values[i] = (long) Math.exp(random.nextDouble() * 30);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double percentile : new double[] {0.0, 1.0, 25.0, 50.0, 90.0, 99.0, 99.9, 100.0}) {
+            int rank = Math.max(1, (int) Math.ceil(percentile / 100.0 * values.length));
+            long exact = values[rank - 1];
+            long reported = histogram.getValueAtPercentile(percentile);
+            assertTrue(percentile + ": " + reported + " < " + exact, reported >= exact);
+            assertTrue(percentile + ": " + reported + " >> " + exact
+                    , reported - exact <= exact / 32);
+        }
+        assertEquals(values[values.length - 1], histogram.getValueAtPercentile(100.0));
+        assertEquals(values.length, histogram.getCount());
+        assertEquals(Arrays.stream(values).sum(), histogram.getTotal());
+    }
+    
+    @Test
+    public void percentilesAreCappedByTheMaximum() {
+        Histogram histogram = new Histogram();
+        assertEquals(0, histogram.getValueAtPercentile(50.0));
+        assertEquals(0.0, histogram.getMean(), 0.0);
+        histogram.record(1_000);
+        histogram.record(-5);
+        // 1000 falls in the bucket of 992..1023.
+        assertEquals(1_000, histogram.getValueAtPercentile(99.0));
+        assertEquals(0, histogram.getValueAtPercentile(50.0));
+        assertEquals(500.0, histogram.getMean(), 0.0);
+        try {
+            histogram.getValueAtPercentile(100.5);
+            fail("A percentile above 100 was accepted");
+        } catch (IllegalArgumentException ex) {
+            // Expected.
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.model.metrics;
+
+import com.openums.commons.domain.IUser;
+import com.openums.commons.domain.concurrent.ConcurrentUser;
+import com.openums.commons.model.BatchResult;
+import com.openums.commons.model.IUsersDao;
+import com.openums.commons.model.ModelException;
+import com.openums.commons.model.ModelExceptionType;
+import com.openums.commons.model.memory.InMemoryUsersDao;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the latencies, result sizes and failures reported by the decorators
+ * of {@code InstrumentedDaos}.
+ * 
+ * @author Delcio Amarillo
+ */
+public class InstrumentedDaosTest {
+    
+    private static final long DELAY_MILLIS = 20;
+    
+    private HistogramMetricsSink sink;
+    private IUsersDao dao;
+    
+    @Before
+    public void setUp() {
+        sink = new HistogramMetricsSink();
+        dao = InstrumentedDaos.instrument(new SlowUsersDao(), sink);
+    }
+    
+    @Test
+    public void latenciesAreRecordedPerOperation() throws ModelException {
+        for (int i = 0; i < 3; i++) {
+            dao.getAll();
+        }
+        dao.insert(user(1, "anna"));
+        
+        OperationMetrics getAll = sink.getMetrics("IUsersDao.getAll()");
+        assertEquals(3, getAll.getCallCount());
+        assertEquals(3, getAll.getLatencies().getCount());
+        assertTrue(getAll.getLatencies().getValueAtPercentile(0.0)
+                >= TimeUnit.MILLISECONDS.toNanos(DELAY_MILLIS));
+        OperationMetrics insert = sink.getMetrics("IUsersDao.insert(Object)");
+        assertEquals(1, insert.getCallCount());
+        assertNull(sink.getMetrics("IUsersDao.update(Object)"));
+    }
+    
+    @Test
+    public void resultSizesAreRecordedForCollectionsMapsAndBatches()
+            throws ModelException {
+        BatchResult<IUser> batch = dao.insertAll(Arrays.asList(user(1, "anna")
+                , user(2, "bob"), user(3, "carl")), 10);
+        assertEquals(3, batch.size());
+        dao.getAll();
+        dao.getUniqueAll(Arrays.asList(id(1), id(2), id(9)));
+        dao.getUnique(id(1));
+        
+        assertSizes("IUsersDao.insertAll(Collection,int)", 3);
+        assertSizes("IUsersDao.getAll()", 3);
+        assertSizes("IUsersDao.getUniqueAll(Collection)", 2);
+        // Single objects have no result size.
+        assertEquals(1, sink.getMetrics("IUsersDao.getUnique(BigInteger)").getCallCount());
+        assertEquals(0, sink.getMetrics("IUsersDao.getUnique(BigInteger)")
+                .getResultSizes().getCount());
+    }
+    
+    @Test
+    public void failuresAreCountedByType() throws ModelException {
+        dao.insert(user(1, "anna"));
+        for (int i = 0; i < 2; i++) {
+            try {
+                dao.insert(user(1, "anna"));
+                fail("A duplicate was inserted");
+            } catch (ModelException ex) {
+                assertEquals(ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION
+                        , ex.getExceptionType());
+            }
+        }
+        try {
+            dao.getPage(-1, 10);
+            fail("A negative offset was accepted");
+        } catch (IllegalArgumentException ex) {
+            // Expected.
+        }
+        
+        OperationMetrics insert = sink.getMetrics("IUsersDao.insert(Object)");
+        assertEquals(3, insert.getCallCount());
+        assertEquals(2, insert.getFailureCount());
+        assertEquals(2, insert.getFailureCount(
+                ModelExceptionType.CONSTRAINT_VIOLATED_EXCEPTION));
+        assertEquals(0, insert.getFailureCount(ModelExceptionType.UNSPECIFIED_EXCEPTION));
+        // Failed calls are timed but have no result size.
+        assertEquals(3, insert.getLatencies().getCount());
+        
+        OperationMetrics getPage = sink.getMetrics("IUsersDao.getPage(int,int)");
+        assertEquals(1, getPage.getFailureCount(ModelExceptionType.UNSPECIFIED_EXCEPTION));
+        assertEquals(0, getPage.getResultSizes().getCount());
+    }
+    
+    @Test
+    public void noOpSinkLeavesTheDaoUndecorated() {
+        IUsersDao plain = new InMemoryUsersDao();
+        assertSame(plain, InstrumentedDaos.instrument(plain, IMetricsSink.NO_OP));
+        assertTrue(dao.equals(dao));
+        assertFalse(dao.equals(plain));
+    }
+    
+    private void assertSizes(String operation, long size) {
+        Histogram sizes = sink.getMetrics(operation).getResultSizes();
+        assertEquals(operation, 1, sizes.getCount());
+        assertEquals(operation, size, sizes.getMax());
+    }
+    
+    private static ConcurrentUser user(long id, String userName) {
+        ConcurrentUser user = new ConcurrentUser(id(id));
+        user.setUserName(userName);
+        return user;
+    }
+    
+    private static BigInteger id(long value) {
+        return BigInteger.valueOf(value);
+    }
+    
+    /**
+     * Users DAO whose {@code getAll()} takes a noticeable time.
+     */
+    private static final class SlowUsersDao extends InMemoryUsersDao {
+        
+        @Override
+        public List<IUser> getAll() throws ModelException {
+            try {
+                Thread.sleep(DELAY_MILLIS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return super.getAll();
+        }
+    }
+}
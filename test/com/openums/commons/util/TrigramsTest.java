@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2015 Delcio Amarillo.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.openums.commons.util;
+
+import java.util.Arrays;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the decomposition and similarity of {@code Trigrams}.
+ * 
+ * @author Delcio Amarillo
+ */
+public class TrigramsTest {
+    
+    @Test
+    public void textsArePaddedAndSplitIntoSortedDistinctTrigrams() {
+        long[] expected = {pack("  a"), pack(" an"), pack("ann"), pack("nn ")};
+        Arrays.sort(expected);
+        assertArrayEquals(expected, Trigrams.of("ann"));
+        // "  aaaa " yields "aaa" twice.
+        assertEquals(4, Trigrams.of("aaaa").length);
+        long[] trigrams = Trigrams.of("mississippi");
+        for (int i = 1; i < trigrams.length; i++) {
+            assertTrue(trigrams[i - 1] < trigrams[i]);
+        }
+    }
+    
+    @Test
+    public void decompositionIgnoresCase() {
+        assertArrayEquals(Trigrams.of("anna"), Trigrams.of("AnNa"));
+        assertEquals(1.0, Trigrams.similarity("Smith", "SMITH"), 0.0);
+    }
+    
+    @Test
+    public void missingTextsHaveNoTrigrams() {
+        assertEquals(0, Trigrams.of(null).length);
+        assertEquals(0, Trigrams.of("").length);
+        assertEquals(0.0, Trigrams.similarity(null, ""), 0.0);
+        assertEquals(0.0, Trigrams.similarity("ann", null), 0.0);
+    }
+    
+    @Test
+    public void similarityIsTheJaccardIndex() {
+        // "ann" and "anne" share "  a", " an" and "ann" out of 6 distinct.
+        assertEquals(3.0 / 6, Trigrams.similarity("ann", "anne"), 1e-12);
+        assertEquals(Trigrams.similarity("anne", "ann"), Trigrams.similarity("ann", "anne")
+                , 0.0);
+        assertEquals(0.0, Trigrams.similarity("abc", "xyz"), 0.0);
+        assertEquals(1.0, Trigrams.similarity("delcio", "delcio"), 0.0);
+        assertEquals(0.5, Trigrams.similarity(2, 3, 3), 0.0);
+        assertEquals(0.0, Trigrams.similarity(0, 0, 0), 0.0);
+    }
+    
+    @Test
+    public void typosKeepTextsAboveTheDefaultThreshold() {
+        assertTrue(Trigrams.similarity("amarillo", "amarilo") >= Trigrams.DEFAULT_THRESHOLD);
+        assertTrue(Trigrams.similarity("amarillo", "amraillo") >= Trigrams.DEFAULT_THRESHOLD);
+        assertTrue(Trigrams.similarity("amarillo", "johnson") < Trigrams.DEFAULT_THRESHOLD);
+    }
+    
+    private static long pack(String trigram) {
+        return ((long) trigram.charAt(0) << 32) | ((long) trigram.charAt(1) << 16)
+                | trigram.charAt(2);
+    }
+}